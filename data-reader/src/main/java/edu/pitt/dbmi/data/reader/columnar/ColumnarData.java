@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2018 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.data.reader.columnar;
+
+import edu.pitt.dbmi.data.reader.Data;
+import edu.pitt.dbmi.data.reader.DiscreteDataColumn;
+import edu.pitt.dbmi.data.reader.metadata.Metadata;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Tabular data stored column by column in the binary columnar format. Columns
+ * are read from the file only when asked for.
+ */
+public interface ColumnarData extends Data {
+
+    public int getNumOfRows();
+
+    public int getNumOfColumns();
+
+    /**
+     * Get the columns. Continuous columns have no categories.
+     *
+     * @return
+     */
+    public DiscreteDataColumn[] getDataColumns();
+
+    /**
+     * Get the domain and interventional columns stored with the data.
+     *
+     * @return
+     */
+    public Metadata getMetadata();
+
+    /**
+     * Get the values of a continuous column; missing values are NaN.
+     *
+     * @param column index of the column, starting from 0
+     * @return a read-only buffer of the column values
+     */
+    public DoubleBuffer getContinuousColumn(int column);
+
+    /**
+     * Get the category indices of a discrete column; missing values are -99.
+     *
+     * @param column index of the column, starting from 0
+     * @return a read-only buffer of the column values
+     */
+    public IntBuffer getDiscreteColumn(int column);
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2018 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.data.reader.columnar;
+
+import edu.pitt.dbmi.data.reader.DataColumn;
+import static edu.pitt.dbmi.data.reader.DatasetReader.DISCRETE_MISSING_VALUE;
+import edu.pitt.dbmi.data.reader.DiscreteDataColumn;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A column read from a columnar data file. The categories of a discrete column
+ * are fixed by the file.
+ */
+public class ColumnarDataColumn implements DiscreteDataColumn {
+
+    private final DataColumn dataColumn;
+    private final List<String> categories;
+
+    public ColumnarDataColumn(DataColumn dataColumn, List<String> categories) {
+        this.dataColumn = dataColumn;
+        this.categories = (categories == null)
+                ? null
+                : Collections.unmodifiableList(categories);
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarDataColumn{" + "dataColumn=" + dataColumn + ", categories=" + categories + '}';
+    }
+
+    @Override
+    public Integer getEncodeValue(String value) {
+        if (categories == null) {
+            return DISCRETE_MISSING_VALUE;
+        }
+
+        int index = categories.indexOf(value);
+
+        return (index < 0) ? null : index;
+    }
+
+    @Override
+    public void recategorize() {
+    }
+
+    @Override
+    public List<String> getCategories() {
+        return categories;
+    }
+
+    @Override
+    public DataColumn getDataColumn() {
+        return dataColumn;
+    }
+
+    @Override
+    public void setValue(String value) {
+        throw new UnsupportedOperationException("The categories of a columnar data column are fixed.");
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2018 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.data.reader.columnar;
+
+import edu.pitt.dbmi.data.reader.DataReaderException;
+import edu.pitt.dbmi.data.reader.DiscreteDataColumn;
+import edu.pitt.dbmi.data.reader.metadata.ColumnMetadata;
+import edu.pitt.dbmi.data.reader.metadata.InterventionalColumn;
+import edu.pitt.dbmi.data.reader.metadata.Metadata;
+import edu.pitt.dbmi.data.reader.tabular.TabularDataColumn;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Opens a file written by {@link ColumnarDataFileWriter}. Only the header is
+ * read up front; each column is memory-mapped the first time it is asked for,
+ * and its pages are brought in by the operating system as they are touched, so
+ * opening a large file is fast and reopening it for another search is cheap.
+ */
+public class ColumnarDataFileReader {
+
+    private final Path dataFile;
+
+    public ColumnarDataFileReader(Path dataFile) {
+        this.dataFile = dataFile;
+    }
+
+    /**
+     * Open the data. The file stays open until the returned data is closed;
+     * columns already read remain usable after that.
+     *
+     * @return
+     * @throws IOException
+     */
+    public MappedColumnarData readInData() throws IOException {
+        FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ);
+
+        try {
+            if (channel.size() < ColumnarDataFileWriter.PREAMBLE_SIZE) {
+                throw new DataReaderException(String.format("File %s is not a columnar data file.", dataFile));
+            }
+
+            ByteBuffer preamble = channel.map(FileChannel.MapMode.READ_ONLY, 0, ColumnarDataFileWriter.PREAMBLE_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (preamble.getInt() != ColumnarDataFileWriter.MAGIC_NUMBER) {
+                throw new DataReaderException(String.format("File %s is not a columnar data file.", dataFile));
+            }
+
+            int version = preamble.getInt();
+            if (version != ColumnarDataFileWriter.VERSION) {
+                throw new DataReaderException(String.format("Unsupported columnar data file version %d.", version));
+            }
+
+            int headerSize = preamble.getInt();
+            if (headerSize < 0 || ColumnarDataFileWriter.PREAMBLE_SIZE + (long) headerSize > channel.size()) {
+                throw new DataReaderException(String.format("File %s has a truncated header.", dataFile));
+            }
+
+            byte[] header = new byte[headerSize];
+            channel.map(FileChannel.MapMode.READ_ONLY, ColumnarDataFileWriter.PREAMBLE_SIZE, headerSize).get(header);
+
+            return readHeader(channel, new DataInputStream(new ByteArrayInputStream(header)));
+        } catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    private MappedColumnarData readHeader(FileChannel channel, DataInputStream in) throws IOException {
+        int numOfRows = in.readInt();
+        int numOfCols = in.readInt();
+
+        DiscreteDataColumn[] dataColumns = new DiscreteDataColumn[numOfCols];
+        ColumnMetadata[] columnMetadata = new ColumnMetadata[numOfCols];
+        long[] offsets = new long[numOfCols];
+
+        for (int col = 0; col < numOfCols; col++) {
+            String name = in.readUTF();
+            boolean discrete = in.readBoolean();
+
+            List<String> categories = null;
+            if (discrete) {
+                int numOfCategories = in.readInt();
+                categories = new ArrayList<>(numOfCategories);
+                for (int i = 0; i < numOfCategories; i++) {
+                    categories.add(in.readUTF());
+                }
+            }
+
+            offsets[col] = in.readLong();
+
+            int width = discrete ? Integer.BYTES : Double.BYTES;
+            if (offsets[col] < 0 || offsets[col] + (long) numOfRows * width > channel.size()) {
+                throw new DataReaderException(String.format("Column %s extends past the end of file %s.", name, dataFile));
+            }
+
+            dataColumns[col] = new ColumnarDataColumn(new TabularDataColumn(name, col + 1, false, discrete), categories);
+            columnMetadata[col] = new ColumnMetadata(name, col + 1, discrete);
+        }
+
+        List<InterventionalColumn> interventionalColumns = new ArrayList<>();
+        Set<Integer> interventional = new HashSet<>();
+        int numOfInterventions = in.readInt();
+        for (int i = 0; i < numOfInterventions; i++) {
+            int valueColumn = in.readInt();
+            int statusColumn = in.readInt();
+            interventional.add(valueColumn);
+            interventional.add(statusColumn);
+            interventionalColumns.add(new InterventionalColumn(
+                    (valueColumn == 0) ? null : columnMetadata[valueColumn - 1],
+                    (statusColumn == 0) ? null : columnMetadata[statusColumn - 1]));
+        }
+
+        List<ColumnMetadata> domainColumns = new ArrayList<>();
+        for (int col = 0; col < numOfCols; col++) {
+            if (!interventional.contains(col + 1)) {
+                domainColumns.add(columnMetadata[col]);
+            }
+        }
+
+        return new MappedColumnarData(channel, numOfRows, dataColumns, offsets, new Metadata(domainColumns, interventionalColumns));
+    }
+
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright (C) 2018 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.data.reader.columnar;
+
+import edu.pitt.dbmi.data.reader.ContinuousData;
+import edu.pitt.dbmi.data.reader.Data;
+import edu.pitt.dbmi.data.reader.DataColumn;
+import static edu.pitt.dbmi.data.reader.DatasetReader.DISCRETE_MISSING_VALUE;
+import edu.pitt.dbmi.data.reader.DiscreteData;
+import edu.pitt.dbmi.data.reader.DiscreteDataColumn;
+import edu.pitt.dbmi.data.reader.MixedData;
+import edu.pitt.dbmi.data.reader.metadata.ColumnMetadata;
+import edu.pitt.dbmi.data.reader.metadata.InterventionalColumn;
+import edu.pitt.dbmi.data.reader.metadata.Metadata;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Writes tabular data in the binary columnar format read by
+ * {@link ColumnarDataFileReader}.
+ * <p>
+ * The file starts with a magic number, a version and the length of a header
+ * giving the number of rows, the name, type and categories of each column, the
+ * offset of each column's data and the interventional columns. The data follow
+ * column by column, each column starting on an 8-byte boundary: continuous
+ * columns as little-endian doubles and discrete columns as little-endian ints
+ * indexing the column's categories.
+ * <p>
+ * Column values are pulled one column at a time as the file is written, so
+ * only one column need be held in memory.
+ */
+public class ColumnarDataFileWriter {
+
+    static final int MAGIC_NUMBER = 0x54434F4C;  // "TCOL"
+    static final int VERSION = 1;
+
+    // Magic number, version and header length.
+    static final int PREAMBLE_SIZE = 12;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final int numOfRows;
+    private final List<Column> columns = new ArrayList<>();
+    private Metadata metadata;
+
+    public ColumnarDataFileWriter(int numOfRows) {
+        if (numOfRows < 0) {
+            throw new IllegalArgumentException("Number of rows cannot be negative.");
+        }
+
+        this.numOfRows = numOfRows;
+    }
+
+    /**
+     * Write the given tabular data.
+     *
+     * @param data continuous, discrete or mixed data
+     * @param metadata interventional columns; may be null
+     * @param outputFile
+     * @throws IOException
+     */
+    public static void write(Data data, Metadata metadata, Path outputFile) throws IOException {
+        ColumnarDataFileWriter writer;
+
+        if (data instanceof ContinuousData) {
+            DataColumn[] dataColumns = ((ContinuousData) data).getDataColumns();
+            double[][] values = ((ContinuousData) data).getData();
+
+            writer = new ColumnarDataFileWriter(values.length);
+            for (int col = 0; col < dataColumns.length; col++) {
+                int c = col;
+                writer.addContinuousColumn(dataColumns[col].getName(), row -> values[row][c]);
+            }
+        } else if (data instanceof DiscreteData) {
+            DiscreteDataColumn[] dataColumns = ((DiscreteData) data).getDataColumns();
+            int[][] values = ((DiscreteData) data).getData();
+
+            writer = new ColumnarDataFileWriter(values.length == 0 ? 0 : values[0].length);
+            for (int col = 0; col < dataColumns.length; col++) {
+                int[] column = values[col];
+                writer.addDiscreteColumn(dataColumns[col].getDataColumn().getName(), dataColumns[col].getCategories(), row -> column[row]);
+            }
+        } else if (data instanceof MixedData) {
+            MixedData mixedData = (MixedData) data;
+            DiscreteDataColumn[] dataColumns = mixedData.getDataColumns();
+
+            writer = new ColumnarDataFileWriter(mixedData.getNumOfRows());
+            for (int col = 0; col < dataColumns.length; col++) {
+                DataColumn dataColumn = dataColumns[col].getDataColumn();
+                if (dataColumn.isDiscrete()) {
+                    int[] column = mixedData.getDiscreteData()[col];
+                    writer.addDiscreteColumn(dataColumn.getName(), dataColumns[col].getCategories(), row -> column[row]);
+                } else {
+                    double[] column = mixedData.getContinuousData()[col];
+                    writer.addContinuousColumn(dataColumn.getName(), row -> column[row]);
+                }
+            }
+        } else {
+            throw new IllegalArgumentException("Only continuous, discrete and mixed tabular data can be written.");
+        }
+
+        writer.setMetadata(metadata);
+        writer.write(outputFile);
+    }
+
+    /**
+     * Add a continuous column.
+     *
+     * @param name
+     * @param values the value for each row; NaN for missing values
+     */
+    public void addContinuousColumn(String name, IntToDoubleFunction values) {
+        columns.add(new Column(name, null, values, null));
+    }
+
+    /**
+     * Add a discrete column.
+     *
+     * @param name
+     * @param categories
+     * @param values the category index for each row; -99 for missing values
+     */
+    public void addDiscreteColumn(String name, List<String> categories, IntUnaryOperator values) {
+        if (categories == null) {
+            throw new IllegalArgumentException("A discrete column must have categories.");
+        }
+
+        columns.add(new Column(name, categories, null, values));
+    }
+
+    /**
+     * Set the interventional columns to store with the data. Columns are
+     * matched by column number, starting from 1, or else by name.
+     *
+     * @param metadata
+     */
+    public void setMetadata(Metadata metadata) {
+        this.metadata = metadata;
+    }
+
+    public void write(Path outputFile) throws IOException {
+        List<InterventionalColumn> interventions = (metadata == null)
+                ? Collections.emptyList()
+                : metadata.getInterventionalColumns();
+
+        // The header length does not depend on the offsets, so lay out the
+        // columns after a first pass.
+        long[] offsets = new long[columns.size()];
+        int headerSize = header(offsets, interventions).length;
+
+        long offset = align(PREAMBLE_SIZE + headerSize);
+        for (int col = 0; col < columns.size(); col++) {
+            offsets[col] = offset;
+            offset = align(offset + (long) numOfRows * columns.get(col).width());
+        }
+
+        byte[] header = header(offsets, interventions);
+
+        try (FileChannel channel = FileChannel.open(outputFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC_NUMBER);
+            buffer.putInt(VERSION);
+            buffer.putInt(header.length);
+            buffer.flip();
+            writeFully(channel, buffer, 0);
+            writeFully(channel, ByteBuffer.wrap(header), PREAMBLE_SIZE);
+
+            for (int col = 0; col < columns.size(); col++) {
+                Column column = columns.get(col);
+                long position = offsets[col];
+                buffer.clear();
+
+                for (int row = 0; row < numOfRows; row++) {
+                    if (buffer.remaining() < column.width()) {
+                        buffer.flip();
+                        position = writeFully(channel, buffer, position);
+                        buffer.clear();
+                    }
+
+                    if (column.discreteValues == null) {
+                        buffer.putDouble(column.continuousValues.applyAsDouble(row));
+                    } else {
+                        int value = column.discreteValues.applyAsInt(row);
+                        if (value != DISCRETE_MISSING_VALUE && (value < 0 || value >= column.categories.size())) {
+                            throw new IllegalArgumentException(String.format("Category index %d out of range in column %s.", value, column.name));
+                        }
+                        buffer.putInt(value);
+                    }
+                }
+
+                buffer.flip();
+                writeFully(channel, buffer, position);
+            }
+
+            // Pad the last column so the file length matches the layout.
+            if (channel.size() < offset) {
+                writeFully(channel, ByteBuffer.allocate((int) (offset - channel.size())), channel.size());
+            }
+        }
+    }
+
+    private byte[] header(long[] offsets, List<InterventionalColumn> interventions) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(numOfRows);
+            out.writeInt(columns.size());
+
+            for (int col = 0; col < columns.size(); col++) {
+                Column column = columns.get(col);
+                out.writeUTF(column.name);
+                out.writeBoolean(column.categories != null);
+                if (column.categories != null) {
+                    out.writeInt(column.categories.size());
+                    for (String category : column.categories) {
+                        out.writeUTF(category);
+                    }
+                }
+                out.writeLong(offsets[col]);
+            }
+
+            out.writeInt(interventions.size());
+            for (InterventionalColumn intervention : interventions) {
+                out.writeInt(columnNumber(intervention.getValueColumn()));
+                out.writeInt(columnNumber(intervention.getStatusColumn()));
+            }
+        }
+
+        return bytes.toByteArray();
+    }
+
+    // The column number of an interventional column, found by name if it was
+    // not set; 0 if there is no such column.
+    private int columnNumber(ColumnMetadata column) {
+        if (column == null) {
+            return 0;
+        }
+
+        int columnNumber = column.getColumnNumber();
+        if (columnNumber >= 1 && columnNumber <= columns.size()
+                && (column.getName() == null || column.getName().equals(columns.get(columnNumber - 1).name))) {
+            return columnNumber;
+        }
+
+        for (int col = 0; col < columns.size(); col++) {
+            if (columns.get(col).name.equals(column.getName())) {
+                return col + 1;
+            }
+        }
+
+        throw new IllegalArgumentException(String.format("Interventional column %s is not in the data.", column.getName()));
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    private static long writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+
+        return position;
+    }
+
+    private static final class Column {
+
+        private final String name;
+        private final List<String> categories;
+        private final IntToDoubleFunction continuousValues;
+        private final IntUnaryOperator discreteValues;
+
+        private Column(String name, List<String> categories, IntToDoubleFunction continuousValues, IntUnaryOperator discreteValues) {
+            this.name = name;
+            this.categories = categories;
+            this.continuousValues = continuousValues;
+            this.discreteValues = discreteValues;
+        }
+
+        private int width() {
+            return (discreteValues == null) ? Double.BYTES : Integer.BYTES;
+        }
+
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2018 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.data.reader.columnar;
+
+import edu.pitt.dbmi.data.reader.DataReaderException;
+import edu.pitt.dbmi.data.reader.DiscreteDataColumn;
+import edu.pitt.dbmi.data.reader.metadata.Metadata;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Columnar data backed by a memory-mapped file. Each column is mapped on first
+ * use and the mapping is kept; it is safe to read columns from several threads.
+ */
+public class MappedColumnarData implements ColumnarData, Closeable {
+
+    private final FileChannel channel;
+    private final int numOfRows;
+    private final DiscreteDataColumn[] dataColumns;
+    private final long[] offsets;
+    private final Metadata metadata;
+    private final AtomicReferenceArray<Buffer> columns;
+
+    MappedColumnarData(FileChannel channel, int numOfRows, DiscreteDataColumn[] dataColumns, long[] offsets, Metadata metadata) {
+        this.channel = channel;
+        this.numOfRows = numOfRows;
+        this.dataColumns = dataColumns;
+        this.offsets = offsets;
+        this.metadata = metadata;
+        this.columns = new AtomicReferenceArray<>(dataColumns.length);
+    }
+
+    @Override
+    public int getNumOfRows() {
+        return numOfRows;
+    }
+
+    @Override
+    public int getNumOfColumns() {
+        return dataColumns.length;
+    }
+
+    @Override
+    public DiscreteDataColumn[] getDataColumns() {
+        return dataColumns;
+    }
+
+    @Override
+    public Metadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public DoubleBuffer getContinuousColumn(int column) {
+        if (dataColumns[column].getDataColumn().isDiscrete()) {
+            throw new IllegalArgumentException(String.format("Column %s is discrete.", dataColumns[column].getDataColumn().getName()));
+        }
+
+        return ((DoubleBuffer) map(column)).duplicate();
+    }
+
+    @Override
+    public IntBuffer getDiscreteColumn(int column) {
+        if (!dataColumns[column].getDataColumn().isDiscrete()) {
+            throw new IllegalArgumentException(String.format("Column %s is continuous.", dataColumns[column].getDataColumn().getName()));
+        }
+
+        return ((IntBuffer) map(column)).duplicate();
+    }
+
+    /**
+     * Close the file. Columns that have already been read stay readable;
+     * others can no longer be read.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private Buffer map(int column) {
+        Buffer buffer = columns.get(column);
+        if (buffer != null) {
+            return buffer;
+        }
+
+        boolean discrete = dataColumns[column].getDataColumn().isDiscrete();
+        long size = (long) numOfRows * (discrete ? Integer.BYTES : Double.BYTES);
+        if (size > Integer.MAX_VALUE) {
+            throw new DataReaderException(String.format("Column %s is too large to map.", dataColumns[column].getDataColumn().getName()));
+        }
+
+        try {
+            ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, offsets[column], size)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            buffer = discrete ? bytes.asIntBuffer() : bytes.asDoubleBuffer();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        // Another thread may have mapped the column meanwhile; keep one mapping.
+        return columns.compareAndSet(column, null, buffer) ? buffer : columns.get(column);
+    }
+
+}
@@ -0,0 +1,780 @@
+/*
+ * Copyright (C) 2018 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.data.reader.tabular;
+
+import edu.pitt.dbmi.data.reader.Data;
+import edu.pitt.dbmi.data.reader.DataColumn;
+import edu.pitt.dbmi.data.reader.DataReaderException;
+import static edu.pitt.dbmi.data.reader.DatasetReader.CONTINUOUS_MISSING_VALUE;
+import static edu.pitt.dbmi.data.reader.DatasetReader.DISCRETE_MISSING_VALUE;
+import edu.pitt.dbmi.data.reader.Delimiter;
+import edu.pitt.dbmi.data.reader.DiscreteDataColumn;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads tabular data on several threads. The file is split into chunks on line
+ * boundaries; a first parallel pass counts the lines and data rows in each
+ * chunk, so each chunk knows the line number and row it starts at, and the
+ * chunks are then parsed in parallel straight into the result arrays.
+ * <p>
+ * The result, and any error reported, is the same as that of the sequential
+ * reader in {@link TabularDataFileReader}. Each chunk is parsed by the same
+ * state machine, started in the state the sequential reader is in at the
+ * start of the chunk. The only state that is not known in advance is whether
+ * the chunk starts inside an open quote (quotes are not closed at line ends),
+ * so chunks are parsed assuming not and a chunk is parsed again, in order, if
+ * the chunk before it ends inside a quote.
+ */
+final class ChunkedTabularDataParser {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChunkedTabularDataParser.class);
+
+    private static final byte LINE_FEED = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final byte SPACE_CHAR = Delimiter.SPACE.getByteValue();
+
+    private static final int MIN_CHUNK_SIZE = 1024 * 64;
+    private static final int MAX_CHUNK_SIZE = 1024 * 1024 * 64;
+
+    private final Path dataFile;
+    private final Delimiter delimiter;
+    private final byte quoteCharacter;
+    private final byte[] comment;
+    private final String missingDataMarker;
+    private final int numOfThreads;
+
+    private int minChunkSize;
+
+    ChunkedTabularDataParser(Path dataFile, Delimiter delimiter, byte quoteCharacter, String commentMarker, String missingDataMarker, int numOfThreads) {
+        this.dataFile = dataFile;
+        this.delimiter = delimiter;
+        this.quoteCharacter = quoteCharacter;
+        this.comment = commentMarker.getBytes();
+        this.missingDataMarker = missingDataMarker;
+        this.numOfThreads = numOfThreads;
+        this.minChunkSize = MIN_CHUNK_SIZE;
+    }
+
+    /**
+     * Set the smallest chunk the file is split into, in bytes.
+     *
+     * @param minChunkSize
+     */
+    void setMinChunkSize(int minChunkSize) {
+        this.minChunkSize = minChunkSize;
+    }
+
+    Data readInContinuousData(DataColumn[] dataColumns, boolean hasHeader, int numOfColsInDataFile) throws IOException {
+        return run(pool -> {
+            Chunk[] chunks = split(pool, hasHeader);
+            double[][] data = new double[numOfRows(chunks, hasHeader)][dataColumns.length];
+
+            parse(pool, chunks, dataColumns, numOfColsInDataFile, (row, col, value, lineNum, colNum) -> {
+                data[row][col] = toContinuous(value, lineNum, colNum, "Non-continuous number %s on line %d at column %d.");
+            }, (rowStart, rowEnd) -> {
+                for (int row = rowStart; row < rowEnd; row++) {
+                    Arrays.fill(data[row], 0.0);
+                }
+            });
+
+            return new ContinuousTabularData(dataColumns, data);
+        });
+    }
+
+    Data readInDiscreteData(DataColumn[] dataColumns, boolean hasHeader, int numOfColsInDataFile) throws IOException {
+        DiscreteDataColumn[] discreteDataColumns = Arrays.stream(dataColumns)
+                .map(DiscreteTabularDataColumn::new)
+                .toArray(DiscreteDataColumn[]::new);
+
+        return run(pool -> {
+            Chunk[] chunks = split(pool, hasHeader);
+            readInDiscreteCategories(pool, chunks, discreteDataColumns, numOfColsInDataFile);
+
+            int[][] data = new int[dataColumns.length][numOfRows(chunks, hasHeader)];
+            parse(pool, chunks, dataColumns, numOfColsInDataFile, (row, col, value, lineNum, colNum) -> {
+                data[col][row] = (value.isEmpty() || value.equals(missingDataMarker))
+                        ? DISCRETE_MISSING_VALUE
+                        : discreteDataColumns[col].getEncodeValue(value);
+            }, (rowStart, rowEnd) -> {
+                for (int[] column : data) {
+                    Arrays.fill(column, rowStart, rowEnd, 0);
+                }
+            });
+
+            return new VerticalDiscreteTabularData(discreteDataColumns, data);
+        });
+    }
+
+    Data readInMixedData(DataColumn[] dataColumns, boolean hasHeader, int numOfColsInDataFile) throws IOException {
+        int numOfCols = dataColumns.length;
+        DiscreteDataColumn[] discreteDataColumns = Arrays.stream(dataColumns)
+                .map(MixedTabularDataColumn::new)
+                .toArray(DiscreteDataColumn[]::new);
+
+        return run(pool -> {
+            Chunk[] chunks = split(pool, hasHeader);
+            int numOfRows = numOfRows(chunks, hasHeader);
+
+            double[][] continuousData = new double[numOfCols][];
+            int[][] discreteData = new int[numOfCols][];
+            for (int i = 0; i < numOfCols; i++) {
+                if (dataColumns[i].isDiscrete()) {
+                    discreteData[i] = new int[numOfRows];
+                } else {
+                    continuousData[i] = new double[numOfRows];
+                }
+            }
+
+            readInDiscreteCategories(pool, chunks, discreteDataColumns, numOfColsInDataFile);
+            parse(pool, chunks, dataColumns, numOfColsInDataFile, (row, col, value, lineNum, colNum) -> {
+                if (dataColumns[col].isDiscrete()) {
+                    discreteData[col][row] = (value.isEmpty() || value.equals(missingDataMarker))
+                            ? DISCRETE_MISSING_VALUE
+                            : discreteDataColumns[col].getEncodeValue(value);
+                } else {
+                    continuousData[col][row] = toContinuous(value, lineNum, colNum, "Invalid number %s on line %d at column %d.");
+                }
+            }, (rowStart, rowEnd) -> {
+                for (int i = 0; i < numOfCols; i++) {
+                    if (discreteData[i] != null) {
+                        Arrays.fill(discreteData[i], rowStart, rowEnd, 0);
+                    } else {
+                        Arrays.fill(continuousData[i], rowStart, rowEnd, 0.0);
+                    }
+                }
+            });
+
+            return new MixedTabularData(numOfRows, discreteDataColumns, continuousData, discreteData);
+        });
+    }
+
+    private double toContinuous(String value, int lineNum, int colNum, String errorFormat) {
+        if (value.isEmpty() || value.equals(missingDataMarker)) {
+            return CONTINUOUS_MISSING_VALUE;
+        }
+
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException exception) {
+            String errMsg = String.format(errorFormat, value, lineNum, colNum);
+            LOGGER.error(errMsg, exception);
+            throw new DataReaderException(errMsg);
+        }
+    }
+
+    /**
+     * Collects the categories of the discrete columns, as
+     * TabularDataFileReader.readInDiscreteCategorizes does.
+     */
+    private void readInDiscreteCategories(ForkJoinPool pool, Chunk[] chunks, DiscreteDataColumn[] dataColumns, int numOfColsInDataFile) throws IOException {
+        DataColumn[] columns = Arrays.stream(dataColumns)
+                .map(DiscreteDataColumn::getDataColumn)
+                .toArray(DataColumn[]::new);
+
+        List<Set<String>[]> chunkValues = new ArrayList<>();
+        for (int k = 0; k < chunks.length; k++) {
+            @SuppressWarnings("unchecked")
+            Set<String>[] values = new Set[dataColumns.length];
+            for (int col = 0; col < dataColumns.length; col++) {
+                values[col] = new HashSet<>();
+            }
+            chunkValues.add(values);
+        }
+
+        parse(pool, chunks, columns, numOfColsInDataFile, (chunk, row, col, value, lineNum, colNum) -> {
+            if (columns[col].isDiscrete() && value.length() > 0 && !value.equals(missingDataMarker)) {
+                chunkValues.get(chunk)[col].add(value);
+            }
+        }, (chunk, rowStart, rowEnd) -> {
+            for (Set<String> values : chunkValues.get(chunk)) {
+                values.clear();
+            }
+        });
+
+        for (Set<String>[] values : chunkValues) {
+            for (int col = 0; col < dataColumns.length; col++) {
+                values[col].forEach(dataColumns[col]::setValue);
+            }
+        }
+
+        // recategorize values
+        for (DiscreteDataColumn discreteDataColumn : dataColumns) {
+            if (discreteDataColumn.getDataColumn().isGenerated()) {
+                discreteDataColumn.setValue("0");
+                discreteDataColumn.setValue("1");
+            }
+
+            discreteDataColumn.recategorize();
+        }
+    }
+
+    private static int numOfRows(Chunk[] chunks, boolean hasHeader) {
+        int numOfLines = 0;
+        for (Chunk chunk : chunks) {
+            numOfLines += chunk.numOfDataLines;
+        }
+
+        return hasHeader ? numOfLines - 1 : numOfLines;
+    }
+
+    //=============================== SPLITTING ===============================//
+    /**
+     * Splits the file into chunks that end just after a line break and counts
+     * the lines in each, so that each chunk knows the line number, row and
+     * previous character it starts with.
+     */
+    private Chunk[] split(ForkJoinPool pool, boolean hasHeader) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunkSize = Math.max(minChunkSize, Math.min(MAX_CHUNK_SIZE, size / (4L * numOfThreads) + 1));
+
+            ByteBuffer one = ByteBuffer.allocate(1);
+            long start = 0;
+            byte prevChar = -1;
+            while (start < size) {
+                long end = Math.min(size, start + chunkSize);
+
+                // extend the chunk to just after the next line break
+                byte lastChar = (end > start) ? read(channel, one, end - 1) : -1;
+                while (end < size && lastChar != CARRIAGE_RETURN && lastChar != LINE_FEED) {
+                    ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(MIN_CHUNK_SIZE, size - end));
+                    long position = end;
+                    while (buffer.hasRemaining()) {
+                        if (channel.read(buffer, position + buffer.position()) < 0) {
+                            break;
+                        }
+                    }
+
+                    int i = 0;
+                    for (; i < buffer.position() && lastChar != CARRIAGE_RETURN && lastChar != LINE_FEED; i++) {
+                        lastChar = buffer.get(i);
+                    }
+                    end = position + i;
+                }
+
+                if (end - start > Integer.MAX_VALUE - 8) {
+                    throw new DataReaderException(String.format("Line too long in file %s.", dataFile));
+                }
+
+                chunks.add(new Chunk(chunks.size(), start, (int) (end - start), prevChar, end == size));
+                prevChar = lastChar;
+                start = end;
+            }
+        }
+
+        Chunk[] array = chunks.toArray(new Chunk[chunks.size()]);
+        invokeAll(pool, array, chunk -> {
+            chunk.count(readChunk(chunk));
+            return null;
+        });
+
+        // prefix sums
+        int lineNum = 1;
+        int row = 0;
+        boolean headerFound = !hasHeader;
+        for (Chunk chunk : array) {
+            chunk.lineNum = lineNum;
+            chunk.skipHeader = !headerFound;
+            chunk.row = row;
+
+            lineNum += chunk.numOfLineBreaks;
+            row += chunk.numOfDataLines;
+            if (!headerFound && chunk.numOfDataLines > 0) {
+                headerFound = true;
+                row--;
+            }
+        }
+
+        return array;
+    }
+
+    private static byte read(FileChannel channel, ByteBuffer one, long position) throws IOException {
+        one.clear();
+        channel.read(one, position);
+        return one.get(0);
+    }
+
+    private byte[] readChunk(Chunk chunk) throws IOException {
+        byte[] bytes = new byte[chunk.length];
+
+        try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, chunk.start + buffer.position()) < 0) {
+                    break;
+                }
+            }
+        }
+
+        return bytes;
+    }
+
+    //================================ PARSING ================================//
+    private void parse(ForkJoinPool pool, Chunk[] chunks, DataColumn[] dataColumns, int numOfColsInDataFile, ValueHandler handler, RowsReset reset) throws IOException {
+        parse(pool, chunks, dataColumns, numOfColsInDataFile,
+                (chunk, row, col, value, lineNum, colNum) -> handler.accept(row, col, value, lineNum, colNum),
+                (chunk, rowStart, rowEnd) -> reset.reset(rowStart, rowEnd));
+    }
+
+    private void parse(ForkJoinPool pool, Chunk[] chunks, DataColumn[] dataColumns, int numOfColsInDataFile, ChunkValueHandler handler, ChunkRowsReset reset) throws IOException {
+        List<Result> results = invokeAll(pool, chunks, chunk -> parse(chunk, readChunk(chunk), false, dataColumns, numOfColsInDataFile, handler));
+
+        // Check the chunks in file order, parsing a chunk again if it starts
+        // inside a quote, so the first error reported is the sequential one.
+        boolean hasQuoteChar = false;
+        for (int k = 0; k < chunks.length; k++) {
+            Result result = results.get(k);
+            if (result.hasQuoteCharAtStart != hasQuoteChar) {
+                reset.reset(k, chunks[k].row, chunks[k].row + chunks[k].numOfDataLines);
+                result = parse(chunks[k], readChunk(chunks[k]), hasQuoteChar, dataColumns, numOfColsInDataFile, handler);
+            }
+
+            if (result.exception != null) {
+                throw result.exception;
+            }
+
+            hasQuoteChar = result.hasQuoteCharAtEnd;
+        }
+    }
+
+    /**
+     * Parses one chunk with the state machine of the sequential reader.
+     */
+    private Result parse(Chunk chunk, byte[] buffer, boolean hasQuoteCharAtStart, DataColumn[] dataColumns, int numOfColsInDataFile, ChunkValueHandler handler) {
+        int numOfCols = dataColumns.length;
+        int len = buffer.length;
+
+        boolean skipHeader = chunk.skipHeader;
+        boolean skip = false;
+        boolean hasSeenNonblankChar = false;
+        boolean hasQuoteChar = hasQuoteCharAtStart;
+
+        byte delimChar = delimiter.getByteValue();
+
+        // comment marker check
+        int cmntIndex = 0;
+        boolean checkForComment = comment.length > 0;
+
+        int colNum = 0;
+        int lineNum = chunk.lineNum;
+
+        int columnIndex = 0;
+
+        int row = chunk.row;
+
+        StringBuilder dataBuilder = new StringBuilder();
+        byte prevChar = chunk.prevChar;
+
+        try {
+            int i = 0; // buffer array index
+
+            if (skipHeader) {
+                boolean finished = false;
+                for (; i < len && !finished; i++) {
+                    byte currChar = buffer[i];
+
+                    if (currChar == CARRIAGE_RETURN || currChar == LINE_FEED) {
+                        if (currChar == LINE_FEED && prevChar == CARRIAGE_RETURN) {
+                            prevChar = currChar;
+                            continue;
+                        }
+
+                        finished = hasSeenNonblankChar && !skip;
+                        if (finished) {
+                            skipHeader = false;
+                        }
+
+                        lineNum++;
+
+                        // reset states
+                        skip = false;
+                        hasSeenNonblankChar = false;
+                        cmntIndex = 0;
+                        checkForComment = comment.length > 0;
+                    } else if (!skip) {
+                        if (currChar > SPACE_CHAR) {
+                            hasSeenNonblankChar = true;
+                        }
+
+                        // skip blank chars at the begining of the line
+                        if (currChar <= SPACE_CHAR && !hasSeenNonblankChar) {
+                            continue;
+                        }
+
+                        // check for comment marker to skip line
+                        if (checkForComment) {
+                            if (currChar == comment[cmntIndex]) {
+                                cmntIndex++;
+                                if (cmntIndex == comment.length) {
+                                    skip = true;
+                                    prevChar = currChar;
+                                    continue;
+                                }
+                            } else {
+                                checkForComment = false;
+                            }
+                        }
+                    }
+
+                    prevChar = currChar;
+                }
+            }
+
+            for (; i < len; i++) {
+                byte currChar = buffer[i];
+
+                if (currChar == CARRIAGE_RETURN || currChar == LINE_FEED) {
+                    if (currChar == LINE_FEED && prevChar == CARRIAGE_RETURN) {
+                        prevChar = currChar;
+                        continue;
+                    }
+
+                    if (hasSeenNonblankChar && !skip) {
+                        colNum++;
+
+                        DataColumn dataColumn = dataColumns[columnIndex];
+                        if (dataColumn.getColumnNumber() == colNum) {
+                            handler.accept(chunk.index, row, columnIndex, dataBuilder.toString().trim(), lineNum, colNum);
+                            columnIndex++;
+                        }
+
+                        // ensure we have enough data
+                        if (columnIndex < numOfColsInDataFile) {
+                            throw insufficientData(lineNum, columnIndex, numOfColsInDataFile);
+                        }
+
+                        row++;
+                    }
+
+                    lineNum++;
+
+                    // clear data
+                    dataBuilder.delete(0, dataBuilder.length());
+
+                    // reset states
+                    skip = false;
+                    hasSeenNonblankChar = false;
+                    cmntIndex = 0;
+                    checkForComment = comment.length > 0;
+                    columnIndex = 0;
+                    colNum = 0;
+                } else if (!skip) {
+                    if (currChar > SPACE_CHAR) {
+                        hasSeenNonblankChar = true;
+                    }
+
+                    // skip blank chars at the begining of the line
+                    if (currChar <= SPACE_CHAR && !hasSeenNonblankChar) {
+                        continue;
+                    }
+
+                    // check for comment marker to skip line
+                    if (checkForComment) {
+                        if (currChar == comment[cmntIndex]) {
+                            cmntIndex++;
+                            if (cmntIndex == comment.length) {
+                                skip = true;
+                                prevChar = currChar;
+                                continue;
+                            }
+                        } else {
+                            checkForComment = false;
+                        }
+                    }
+
+                    if (currChar == quoteCharacter) {
+                        hasQuoteChar = !hasQuoteChar;
+                    } else {
+                        if (hasQuoteChar) {
+                            dataBuilder.append((char) currChar);
+                        } else {
+                            boolean isDelimiter;
+                            switch (delimiter) {
+                                case WHITESPACE:
+                                    isDelimiter = (currChar <= SPACE_CHAR) && (prevChar > SPACE_CHAR);
+                                    break;
+                                default:
+                                    isDelimiter = (currChar == delimChar);
+                            }
+
+                            if (isDelimiter) {
+                                colNum++;
+
+                                DataColumn dataColumn = dataColumns[columnIndex];
+                                if (dataColumn.getColumnNumber() == colNum) {
+                                    handler.accept(chunk.index, row, columnIndex, dataBuilder.toString().trim(), lineNum, colNum);
+
+                                    columnIndex++;
+                                    if (columnIndex == numOfCols) {
+                                        row++;
+                                        skip = true;
+                                    }
+                                }
+
+                                // clear data
+                                dataBuilder.delete(0, dataBuilder.length());
+                            } else {
+                                dataBuilder.append((char) currChar);
+                            }
+                        }
+                    }
+                }
+
+                prevChar = currChar;
+            }
+
+            // case when no newline char at end of file
+            if (chunk.last && !skipHeader && hasSeenNonblankChar && !skip) {
+                colNum++;
+
+                DataColumn dataColumn = dataColumns[columnIndex];
+                if (dataColumn.getColumnNumber() == colNum) {
+                    handler.accept(chunk.index, row, columnIndex, dataBuilder.toString().trim(), lineNum, colNum);
+                    columnIndex++;
+                }
+
+                // ensure we have enough data
+                if (columnIndex < numOfColsInDataFile) {
+                    throw insufficientData(lineNum, columnIndex, numOfColsInDataFile);
+                }
+            }
+        } catch (RuntimeException exception) {
+            return new Result(hasQuoteCharAtStart, hasQuoteChar, exception);
+        }
+
+        return new Result(hasQuoteCharAtStart, hasQuoteChar, null);
+    }
+
+    private static DataReaderException insufficientData(int lineNum, int columnIndex, int numOfColsInDataFile) {
+        String errMsg = String.format("Insufficient data on line %d.  Extracted %d value(s) but expected %d.", lineNum, columnIndex, numOfColsInDataFile);
+        LOGGER.error(errMsg);
+        return new DataReaderException(errMsg);
+    }
+
+    //================================ THREADS ================================//
+    private <T> T run(PoolTask<T> task) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(numOfThreads);
+        try {
+            return task.run(pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private <T> List<T> invokeAll(ForkJoinPool pool, Chunk[] chunks, ChunkTask<T> task) throws IOException {
+        List<Callable<T>> callables = new ArrayList<>(chunks.length);
+        for (Chunk chunk : chunks) {
+            callables.add(() -> task.run(chunk));
+        }
+
+        List<Future<T>> futures = pool.invokeAll(callables);
+
+        List<T> results = new ArrayList<>(chunks.length);
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading " + dataFile);
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else {
+                throw new DataReaderException(cause.getMessage(), cause);
+            }
+        }
+
+        return results;
+    }
+
+    private interface PoolTask<T> {
+
+        T run(ForkJoinPool pool) throws IOException;
+
+    }
+
+    private interface ChunkTask<T> {
+
+        T run(Chunk chunk) throws IOException;
+
+    }
+
+    private interface ValueHandler {
+
+        void accept(int row, int col, String value, int lineNum, int colNum);
+
+    }
+
+    private interface ChunkValueHandler {
+
+        void accept(int chunk, int row, int col, String value, int lineNum, int colNum);
+
+    }
+
+    private interface RowsReset {
+
+        void reset(int rowStart, int rowEnd);
+
+    }
+
+    private interface ChunkRowsReset {
+
+        void reset(int chunk, int rowStart, int rowEnd);
+
+    }
+
+    /**
+     * A range of the file ending just after a line break, or at the end of the
+     * file.
+     */
+    private final class Chunk {
+
+        private final int index;
+        private final long start;
+        private final int length;
+        private final byte prevChar;
+        private final boolean last;
+
+        // the number of line breaks, as counted in error messages
+        private int numOfLineBreaks;
+
+        // the number of non-blank, non-comment lines
+        private int numOfDataLines;
+
+        private int lineNum;
+        private int row;
+        private boolean skipHeader;
+
+        private Chunk(int index, long start, int length, byte prevChar, boolean last) {
+            this.index = index;
+            this.start = start;
+            this.length = length;
+            this.prevChar = prevChar;
+            this.last = last;
+        }
+
+        /**
+         * Counts line breaks and data lines as the sequential reader does.
+         */
+        private void count(byte[] buffer) {
+            boolean skip = false;
+            boolean hasSeenNonblankChar = false;
+            int cmntIndex = 0;
+            boolean checkForComment = comment.length > 0;
+
+            // A line feed directly after a carriage return, or after one
+            // followed only by blanks, does not end another line.
+            boolean afterCarriageReturn = prevChar == CARRIAGE_RETURN;
+
+            for (byte currChar : buffer) {
+                if (currChar == CARRIAGE_RETURN || currChar == LINE_FEED) {
+                    if (currChar == LINE_FEED && afterCarriageReturn) {
+                        afterCarriageReturn = false;
+                        continue;
+                    }
+
+                    if (hasSeenNonblankChar && !skip) {
+                        numOfDataLines++;
+                    }
+                    numOfLineBreaks++;
+                    afterCarriageReturn = currChar == CARRIAGE_RETURN;
+
+                    // reset states
+                    skip = false;
+                    hasSeenNonblankChar = false;
+                    cmntIndex = 0;
+                    checkForComment = comment.length > 0;
+                } else {
+                    if (currChar > SPACE_CHAR) {
+                        afterCarriageReturn = false;
+                    }
+
+                    if (!skip) {
+                        if (currChar > SPACE_CHAR) {
+                            hasSeenNonblankChar = true;
+                        }
+
+                        // skip blank chars at the begining of the line
+                        if (currChar <= SPACE_CHAR && !hasSeenNonblankChar) {
+                            continue;
+                        }
+
+                        // check for comment marker to skip line
+                        if (checkForComment) {
+                            if (currChar == comment[cmntIndex]) {
+                                cmntIndex++;
+                                if (cmntIndex == comment.length) {
+                                    skip = true;
+                                }
+                            } else {
+                                checkForComment = false;
+                            }
+                        }
+                    }
+                }
+            }
+
+            // case when no newline char at end of file
+            if (last && hasSeenNonblankChar && !skip) {
+                numOfDataLines++;
+            }
+        }
+
+    }
+
+    private static final class Result {
+
+        private final boolean hasQuoteCharAtStart;
+        private final boolean hasQuoteCharAtEnd;
+        private final RuntimeException exception;
+
+        private Result(boolean hasQuoteCharAtStart, boolean hasQuoteCharAtEnd, RuntimeException exception) {
+            this.hasQuoteCharAtStart = hasQuoteCharAtStart;
+            this.hasQuoteCharAtEnd = hasQuoteCharAtEnd;
+            this.exception = exception;
+        }
+
+    }
+
+}
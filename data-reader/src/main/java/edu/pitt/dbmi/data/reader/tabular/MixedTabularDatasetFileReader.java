@@ -42,12 +42,14 @@ public class MixedTabularDatasetFileReader extends DatasetFileReader implements
     private final int numberOfDiscreteCategories;
     private boolean hasHeader;
     private char quoteChar;
+    private int numOfThreads;
 
     public MixedTabularDatasetFileReader(Path dataFile, Delimiter delimiter, int numberOfDiscreteCategories) {
         super(dataFile, delimiter);
         this.numberOfDiscreteCategories = numberOfDiscreteCategories;
         this.hasHeader = true;
         this.quoteChar = '"';
+        this.numOfThreads = 1;
     }
 
     @Override
@@ -70,6 +72,7 @@ public class MixedTabularDatasetFileReader extends DatasetFileReader implements
         dataReader.setCommentMarker(commentMarker);
         dataReader.setQuoteCharacter(quoteChar);
         dataReader.setMissingDataMarker(missingDataMarker);
+        dataReader.setNumOfThreads(numOfThreads);
 
         dataReader.determineDiscreteDataColumns(dataColumns, numberOfDiscreteCategories, hasHeader);
 
@@ -91,6 +94,7 @@ public class MixedTabularDatasetFileReader extends DatasetFileReader implements
         dataReader.setCommentMarker(commentMarker);
         dataReader.setQuoteCharacter(quoteChar);
         dataReader.setMissingDataMarker(missingDataMarker);
+        dataReader.setNumOfThreads(numOfThreads);
 
         dataReader.determineDiscreteDataColumns(dataColumns, numberOfDiscreteCategories, hasHeader);
 
@@ -152,6 +156,11 @@ public class MixedTabularDatasetFileReader extends DatasetFileReader implements
         this.hasHeader = hasHeader;
     }
 
+    @Override
+    public void setNumOfThreads(int numOfThreads) {
+        this.numOfThreads = numOfThreads;
+    }
+
     @Override
     public void setQuoteCharacter(char quoteCharacter) {
         this.quoteChar = quoteCharacter;
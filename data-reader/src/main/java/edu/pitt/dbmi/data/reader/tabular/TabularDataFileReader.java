@@ -49,8 +49,11 @@ public final class TabularDataFileReader extends DatasetFileReader implements Ta
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TabularDataFileReader.class);
 
+    private int numOfThreads;
+
     public TabularDataFileReader(Path dataFile, Delimiter delimiter) {
         super(dataFile, delimiter);
+        this.numOfThreads = 1;
     }
 
     @Override
@@ -313,6 +316,19 @@ public final class TabularDataFileReader extends DatasetFileReader implements Ta
             }
         }
 
+        if (numOfThreads > 1) {
+            ChunkedTabularDataParser parser = new ChunkedTabularDataParser(dataFile, delimiter, quoteCharacter, commentMarker, missingDataMarker, numOfThreads);
+            if (isDiscrete && isContinuous) {
+                return parser.readInMixedData(dataColumns, hasHeader, numOfColsInDataFile);
+            } else if (isContinuous) {
+                return parser.readInContinuousData(dataColumns, hasHeader, numOfColsInDataFile);
+            } else if (isDiscrete) {
+                return parser.readInDiscreteData(dataColumns, hasHeader, numOfColsInDataFile);
+            } else {
+                return null;
+            }
+        }
+
         if (isDiscrete && isContinuous) {
             return readInMixedData(dataColumns, hasHeader, numOfColsInDataFile);
         } else if (isContinuous) {
@@ -430,6 +446,15 @@ public final class TabularDataFileReader extends DatasetFileReader implements Ta
         return data;
     }
 
+    @Override
+    public void setNumOfThreads(int numOfThreads) {
+        if (numOfThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1: " + numOfThreads);
+        }
+
+        this.numOfThreads = numOfThreads;
+    }
+
     private Data readInMixedData(DataColumn[] dataColumns, boolean hasHeader, int numOfColsInDataFile) throws IOException {
         int numOfCols = dataColumns.length;
         int numOfRows = hasHeader ? countNumberOfLines() - 1 : countNumberOfLines();
@@ -51,4 +51,13 @@ public interface TabularDataReader extends DatasetReader {
 
     public Data read(DataColumn[] dataColumns, boolean hasHeader, Metadata metadata) throws IOException;
 
+    /**
+     * Set the number of threads used to read the data. With more than one
+     * thread, the file is split into chunks of lines that are parsed in
+     * parallel. The data read are the same either way.
+     *
+     * @param numOfThreads number of threads, 1 by default
+     */
+    public void setNumOfThreads(int numOfThreads);
+
 }
@@ -39,4 +39,11 @@ public interface TabularDatasetReader extends DatasetReader {
 
     public void setHasHeader(boolean hasHeader);
 
+    /**
+     * Set the number of threads used to read the data.
+     *
+     * @param numOfThreads number of threads, 1 by default
+     */
+    public void setNumOfThreads(int numOfThreads);
+
 }
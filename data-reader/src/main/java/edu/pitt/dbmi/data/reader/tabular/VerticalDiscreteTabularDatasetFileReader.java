@@ -37,11 +37,13 @@ public class VerticalDiscreteTabularDatasetFileReader extends DatasetFileReader
 
     private boolean hasHeader;
     private char quoteChar;
+    private int numOfThreads;
 
     public VerticalDiscreteTabularDatasetFileReader(Path dataFile, Delimiter delimiter) {
         super(dataFile, delimiter);
         this.hasHeader = hasHeader = true;
         this.quoteChar = '"';
+        this.numOfThreads = 1;
     }
 
     @Override
@@ -64,6 +66,7 @@ public class VerticalDiscreteTabularDatasetFileReader extends DatasetFileReader
         dataReader.setCommentMarker(commentMarker);
         dataReader.setQuoteCharacter(quoteChar);
         dataReader.setMissingDataMarker(missingDataMarker);
+        dataReader.setNumOfThreads(numOfThreads);
 
         return dataReader.read(dataColumns, hasHeader);
     }
@@ -83,6 +86,7 @@ public class VerticalDiscreteTabularDatasetFileReader extends DatasetFileReader
         dataReader.setCommentMarker(commentMarker);
         dataReader.setQuoteCharacter(quoteChar);
         dataReader.setMissingDataMarker(missingDataMarker);
+        dataReader.setNumOfThreads(numOfThreads);
 
         return dataReader.read(dataColumns, hasHeader);
     }
@@ -92,6 +96,11 @@ public class VerticalDiscreteTabularDatasetFileReader extends DatasetFileReader
         this.hasHeader = hasHeader;
     }
 
+    @Override
+    public void setNumOfThreads(int numOfThreads) {
+        this.numOfThreads = numOfThreads;
+    }
+
     @Override
     public void setQuoteCharacter(char quoteCharacter) {
         this.quoteChar = quoteCharacter;
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2018 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.data.reader.columnar;
+
+import edu.pitt.dbmi.data.reader.Data;
+import edu.pitt.dbmi.data.reader.DataReaderException;
+import edu.pitt.dbmi.data.reader.Delimiter;
+import edu.pitt.dbmi.data.reader.DiscreteDataColumn;
+import edu.pitt.dbmi.data.reader.metadata.InterventionalColumn;
+import edu.pitt.dbmi.data.reader.metadata.Metadata;
+import edu.pitt.dbmi.data.reader.metadata.MetadataFileReader;
+import edu.pitt.dbmi.data.reader.tabular.MixedTabularData;
+import edu.pitt.dbmi.data.reader.tabular.MixedTabularDatasetFileReader;
+import edu.pitt.dbmi.data.reader.tabular.MixedTabularDatasetReader;
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ColumnarDataFileReaderTest {
+
+    private final Path dataFile = Paths.get(getClass().getResource("/data/metadata/sim_mixed_intervention.txt").getFile());
+    private final Path metadataFile = Paths.get(getClass().getResource("/data/metadata/sim_mixed_intervention_metadata.json").getFile());
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public ColumnarDataFileReaderTest() {
+    }
+
+    /**
+     * Test that mixed data with interventional columns read back from a
+     * columnar data file are the data written.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testReadInData() throws IOException {
+        MixedTabularDatasetReader dataReader = new MixedTabularDatasetFileReader(dataFile, Delimiter.TAB, 4);
+        dataReader.setMissingDataMarker("*");
+        MixedTabularData mixedData = (MixedTabularData) dataReader.readInData();
+        Metadata metadata = new MetadataFileReader(metadataFile).read();
+
+        Path columnarFile = folder.newFile("sim_mixed_intervention.data").toPath();
+        ColumnarDataFileWriter.write(mixedData, metadata, columnarFile);
+        Assert.assertEquals(0, Files.size(columnarFile) % 8);
+
+        try (MappedColumnarData columnarData = new ColumnarDataFileReader(columnarFile).readInData()) {
+            Assert.assertEquals(mixedData.getNumOfRows(), columnarData.getNumOfRows());
+            Assert.assertEquals(mixedData.getDataColumns().length, columnarData.getNumOfColumns());
+
+            for (int col = 0; col < columnarData.getNumOfColumns(); col++) {
+                DiscreteDataColumn expected = mixedData.getDataColumns()[col];
+                DiscreteDataColumn actual = columnarData.getDataColumns()[col];
+
+                Assert.assertEquals(expected.getDataColumn().getName(), actual.getDataColumn().getName());
+                Assert.assertEquals(expected.getDataColumn().isDiscrete(), actual.getDataColumn().isDiscrete());
+
+                if (actual.getDataColumn().isDiscrete()) {
+                    Assert.assertEquals(expected.getCategories(), actual.getCategories());
+
+                    IntBuffer values = columnarData.getDiscreteColumn(col);
+                    for (int row = 0; row < columnarData.getNumOfRows(); row++) {
+                        Assert.assertEquals(mixedData.getDiscreteData()[col][row], values.get(row));
+                    }
+                } else {
+                    DoubleBuffer values = columnarData.getContinuousColumn(col);
+                    for (int row = 0; row < columnarData.getNumOfRows(); row++) {
+                        Assert.assertEquals(mixedData.getContinuousData()[col][row], values.get(row), 0);
+                    }
+                }
+            }
+
+            List<InterventionalColumn> interventions = columnarData.getMetadata().getInterventionalColumns();
+            Assert.assertEquals(2, interventions.size());
+            Assert.assertEquals("X9", interventions.get(0).getValueColumn().getName());
+            Assert.assertEquals(9, interventions.get(0).getValueColumn().getColumnNumber());
+            Assert.assertEquals("X10", interventions.get(0).getStatusColumn().getName());
+            Assert.assertEquals("X8", interventions.get(1).getValueColumn().getName());
+            Assert.assertNull(interventions.get(1).getStatusColumn());
+            Assert.assertEquals(7, columnarData.getMetadata().getDomainColumnns().size());
+        }
+    }
+
+    /**
+     * Test that a file not in the columnar format is rejected.
+     *
+     * @throws IOException
+     */
+    @Test(expected = DataReaderException.class)
+    public void testReadInDataNotColumnar() throws IOException {
+        Data data = new ColumnarDataFileReader(dataFile).readInData();
+    }
+
+}
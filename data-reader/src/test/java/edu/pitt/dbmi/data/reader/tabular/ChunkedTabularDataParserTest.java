@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2018 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.data.reader.tabular;
+
+import edu.pitt.dbmi.data.reader.ContinuousData;
+import edu.pitt.dbmi.data.reader.Data;
+import edu.pitt.dbmi.data.reader.DataColumn;
+import edu.pitt.dbmi.data.reader.DataReaderException;
+import edu.pitt.dbmi.data.reader.Delimiter;
+import edu.pitt.dbmi.data.reader.DiscreteData;
+import edu.pitt.dbmi.data.reader.DiscreteDataColumn;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ChunkedTabularDataParserTest {
+
+    private final Delimiter delimiter = Delimiter.COMMA;
+    private final char quoteCharacter = '"';
+    private final String missingValueMarker = "*";
+    private final String commentMarker = "//";
+    private final boolean hasHeader = true;
+
+    private final int[] minChunkSizes = {1, 7, 64, 1024 * 64};
+
+    private final String[] dataFileNames = {
+        "dos_sim_test_data.csv",
+        "mac_sim_test_data.csv",
+        "sim_test_data.csv",
+        "quotes_sim_test_data.csv",
+        "bad_data_sim_test_data.csv"
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public ChunkedTabularDataParserTest() {
+    }
+
+    @Test
+    public void testReadInContinuousData() throws IOException {
+        for (String dataFileName : dataFileNames) {
+            Path dataFile = Paths.get(getClass().getResource("/data/tabular/continuous/" + dataFileName).getFile());
+            DataColumn[] dataColumns = readInDataColumns(dataFile, delimiter, false);
+
+            assertSameData(dataFile, delimiter, dataColumns);
+        }
+    }
+
+    @Test
+    public void testReadInDiscreteData() throws IOException {
+        for (String dataFileName : dataFileNames) {
+            Path dataFile = Paths.get(getClass().getResource("/data/tabular/discrete/" + dataFileName).getFile());
+            DataColumn[] dataColumns = readInDataColumns(dataFile, delimiter, true);
+
+            assertSameData(dataFile, delimiter, dataColumns);
+        }
+    }
+
+    @Test
+    public void testReadInMixedData() throws IOException {
+        for (String dataFileName : dataFileNames) {
+            Path dataFile = Paths.get(getClass().getResource("/data/tabular/mixed/" + dataFileName).getFile());
+            DataColumn[] dataColumns = readInDataColumns(dataFile, delimiter, true);
+
+            TabularDataReader dataReader = createDataReader(dataFile, delimiter);
+            dataReader.determineDiscreteDataColumns(dataColumns, 4, hasHeader);
+
+            assertSameData(dataFile, delimiter, dataColumns);
+        }
+    }
+
+    /**
+     * Lines with a quote open across a line break, comments, blank lines and
+     * mixed line endings, so that chunks start in each of the parser states.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testReadInDataWithLineBreaksInQuotes() throws IOException {
+        String text = "  // comment\r\n"
+                + "\r\n"
+                + "A\tB\tC\r\n"
+                + "1.5\t\"a\"\t2\n"
+                + "// 9\t9\t9\n"
+                + "\t\r"
+                + "\r\n"
+                + "*\t\"b\r\nc\"\t3\n"
+                + "2.5\t*\t\"4\"\r"
+                + "   -1\tb\t5  \t6\n"
+                + "/x\tc\t7";
+        Path dataFile = folder.newFile("quotes.txt").toPath();
+        Files.write(dataFile, text.getBytes(StandardCharsets.UTF_8));
+
+        DataColumn[] dataColumns = readInDataColumns(dataFile, Delimiter.TAB, true);
+        dataColumns[0].setDiscrete(false);
+        assertSameData(dataFile, Delimiter.TAB, dataColumns);
+
+        dataColumns = readInDataColumns(dataFile, Delimiter.TAB, true);
+        assertSameData(dataFile, Delimiter.TAB, dataColumns);
+
+        dataColumns = readInDataColumns(dataFile, Delimiter.WHITESPACE, false);
+        assertSameData(dataFile, Delimiter.WHITESPACE, dataColumns);
+
+        // the quote left open on line 8 is closed on line 9
+        TabularColumnReader columnReader = new TabularColumnFileReader(dataFile, Delimiter.TAB);
+        columnReader.setCommentMarker(commentMarker);
+        columnReader.setQuoteCharacter(quoteCharacter);
+        dataColumns = columnReader.readInDataColumns(new int[]{3}, true);
+
+        Data data = createDataReader(dataFile, Delimiter.TAB).read(dataColumns, hasHeader);
+        Assert.assertEquals("c", ((DiscreteData) data).getDataColumns()[0].getCategories()
+                .get(((DiscreteData) data).getData()[0][2]));
+        assertSameData(dataFile, Delimiter.TAB, dataColumns);
+    }
+
+    @Test
+    public void testSetNumOfThreads() throws IOException {
+        Path dataFile = Paths.get(getClass().getResource("/data/tabular/continuous/sim_test_data.csv").getFile());
+        DataColumn[] dataColumns = readInDataColumns(dataFile, delimiter, false);
+
+        TabularDataReader dataReader = createDataReader(dataFile, delimiter);
+        Data expected = dataReader.read(dataColumns, hasHeader);
+
+        dataReader.setNumOfThreads(4);
+        Data actual = dataReader.read(dataColumns, hasHeader);
+
+        assertEquals(expected, actual);
+    }
+
+    private void assertSameData(Path dataFile, Delimiter delimiter, DataColumn[] dataColumns) throws IOException {
+        TabularDataReader dataReader = createDataReader(dataFile, delimiter);
+
+        Data expected = null;
+        String expectedError = null;
+        try {
+            expected = dataReader.read(dataColumns, hasHeader);
+        } catch (DataReaderException exception) {
+            expectedError = exception.getMessage();
+        }
+
+        int numOfColsInDataFile = 0;
+        boolean isDiscrete = false;
+        boolean isContinuous = false;
+        for (DataColumn dataColumn : dataColumns) {
+            if (dataColumn.isDiscrete()) {
+                isDiscrete = true;
+            } else {
+                isContinuous = true;
+            }
+            if (!dataColumn.isGenerated()) {
+                numOfColsInDataFile++;
+            }
+        }
+
+        for (int minChunkSize : minChunkSizes) {
+            ChunkedTabularDataParser parser = new ChunkedTabularDataParser(dataFile, delimiter, (byte) quoteCharacter, commentMarker, missingValueMarker, 4);
+            parser.setMinChunkSize(minChunkSize);
+
+            Data actual = null;
+            String actualError = null;
+            try {
+                if (isDiscrete && isContinuous) {
+                    actual = parser.readInMixedData(dataColumns, hasHeader, numOfColsInDataFile);
+                } else if (isContinuous) {
+                    actual = parser.readInContinuousData(dataColumns, hasHeader, numOfColsInDataFile);
+                } else {
+                    actual = parser.readInDiscreteData(dataColumns, hasHeader, numOfColsInDataFile);
+                }
+            } catch (DataReaderException exception) {
+                actualError = exception.getMessage();
+            }
+
+            Assert.assertEquals(expectedError, actualError);
+            if (expectedError == null) {
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    private void assertEquals(Data expected, Data actual) {
+        Assert.assertEquals(expected.getClass(), actual.getClass());
+
+        if (expected instanceof ContinuousData) {
+            Assert.assertArrayEquals(((ContinuousData) expected).getData(), ((ContinuousData) actual).getData());
+        } else if (expected instanceof DiscreteData) {
+            assertEquals(((DiscreteData) expected).getDataColumns(), ((DiscreteData) actual).getDataColumns());
+            Assert.assertArrayEquals(((DiscreteData) expected).getData(), ((DiscreteData) actual).getData());
+        } else {
+            MixedTabularData expectedData = (MixedTabularData) expected;
+            MixedTabularData actualData = (MixedTabularData) actual;
+            Assert.assertEquals(expectedData.getNumOfRows(), actualData.getNumOfRows());
+            assertEquals(expectedData.getDataColumns(), actualData.getDataColumns());
+            Assert.assertArrayEquals(expectedData.getContinuousData(), actualData.getContinuousData());
+            Assert.assertArrayEquals(expectedData.getDiscreteData(), actualData.getDiscreteData());
+        }
+    }
+
+    private void assertEquals(DiscreteDataColumn[] expected, DiscreteDataColumn[] actual) {
+        Assert.assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(expected[i].getCategories(), actual[i].getCategories());
+        }
+    }
+
+    private DataColumn[] readInDataColumns(Path dataFile, Delimiter delimiter, boolean isDiscrete) throws IOException {
+        TabularColumnReader columnReader = new TabularColumnFileReader(dataFile, delimiter);
+        columnReader.setCommentMarker(commentMarker);
+        columnReader.setQuoteCharacter(quoteCharacter);
+
+        return columnReader.readInDataColumns(isDiscrete);
+    }
+
+    private TabularDataReader createDataReader(Path dataFile, Delimiter delimiter) {
+        TabularDataReader dataReader = new TabularDataFileReader(dataFile, delimiter);
+        dataReader.setCommentMarker(commentMarker);
+        dataReader.setQuoteCharacter(quoteCharacter);
+        dataReader.setMissingDataMarker(missingValueMarker);
+
+        return dataReader;
+    }
+
+}
@@ -0,0 +1,104 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.bench;
+
+import edu.cmu.tetrad.graph.EdgeListGraph;
+import edu.cmu.tetrad.graph.Node;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times adjacency and ancestor queries on an EdgeListGraph.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphBenchmark {
+
+    private static final int NUM_QUERIES = 200;
+
+    @Param({"100", "1000"})
+    public int numVars;
+
+    @Param({"2", "4"})
+    public double avgDegree;
+
+    private EdgeListGraph graph;
+    private List<Node> nodes;
+    private List<Node[]> pairs;
+    private List<List<Node>> sets;
+
+    @Setup
+    public void setup() {
+        graph = new EdgeListGraph(Simulations.graph(numVars, avgDegree));
+        nodes = graph.getNodes();
+
+        Random random = new Random(Simulations.SEED);
+        pairs = new ArrayList<>();
+        sets = new ArrayList<>();
+
+        for (int i = 0; i < NUM_QUERIES; i++) {
+            pairs.add(new Node[]{nodes.get(random.nextInt(numVars)), nodes.get(random.nextInt(numVars))});
+
+            List<Node> set = new ArrayList<>(nodes);
+            Collections.shuffle(set, random);
+            sets.add(new ArrayList<>(set.subList(0, 1 + i % 3)));
+        }
+    }
+
+    @Benchmark
+    public void isAdjacentTo(Blackhole blackhole) {
+        for (Node[] pair : pairs) {
+            blackhole.consume(graph.isAdjacentTo(pair[0], pair[1]));
+        }
+    }
+
+    @Benchmark
+    public void getAdjacentNodes(Blackhole blackhole) {
+        for (Node node : nodes) {
+            blackhole.consume(graph.getAdjacentNodes(node));
+        }
+    }
+
+    @Benchmark
+    public void isAncestorOf(Blackhole blackhole) {
+        for (Node[] pair : pairs) {
+            blackhole.consume(graph.isAncestorOf(pair[0], pair[1]));
+        }
+    }
+
+    @Benchmark
+    public void getAncestors(Blackhole blackhole) {
+        for (List<Node> set : sets) {
+            blackhole.consume(graph.getAncestors(set));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.bench;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.IndTestChiSquare;
+import edu.cmu.tetrad.search.IndTestFisherZ;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times a fixed set of conditional independence tests with conditioning sets of size zero to
+ * three, as PC-style searches ask for them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndependenceTestBenchmark {
+
+    private static final int NUM_TESTS = 500;
+
+    @Param({"20", "100"})
+    public int numVars;
+
+    @Param({"1000", "10000"})
+    public int sampleSize;
+
+    @Param({"2", "4"})
+    public double avgDegree;
+
+    private IndTestFisherZ fisherZ;
+    private IndTestChiSquare chiSquare;
+
+    // Each query is x, y and the conditioning set.
+    private List<List<Node>> continuousQueries;
+    private List<List<Node>> discreteQueries;
+
+    @Setup
+    public void setup() {
+        Graph graph = Simulations.graph(numVars, avgDegree);
+        DataSet continuous = Simulations.continuous(graph, sampleSize);
+        DataSet discrete = Simulations.discrete(graph, sampleSize);
+
+        fisherZ = new IndTestFisherZ(continuous, 0.01);
+        chiSquare = new IndTestChiSquare(discrete, 0.01);
+
+        continuousQueries = queries(continuous.getVariables());
+        discreteQueries = queries(discrete.getVariables());
+    }
+
+    @Benchmark
+    public void fisherZ(Blackhole blackhole) {
+        for (List<Node> query : continuousQueries) {
+            blackhole.consume(fisherZ.isIndependent(query.get(0), query.get(1), query.subList(2, query.size())));
+        }
+    }
+
+    @Benchmark
+    public void chiSquare(Blackhole blackhole) {
+        for (List<Node> query : discreteQueries) {
+            blackhole.consume(chiSquare.isIndependent(query.get(0), query.get(1), query.subList(2, query.size())));
+        }
+    }
+
+    private static List<List<Node>> queries(List<Node> variables) {
+        Random random = new Random(Simulations.SEED);
+        List<List<Node>> queries = new ArrayList<>();
+
+        for (int t = 0; t < NUM_TESTS; t++) {
+            List<Node> query = new ArrayList<>();
+            int size = 2 + t % 4;
+
+            while (query.size() < size) {
+                Node node = variables.get(random.nextInt(variables.size()));
+                if (!query.contains(node)) query.add(node);
+            }
+
+            queries.add(query);
+        }
+
+        return queries;
+    }
+}
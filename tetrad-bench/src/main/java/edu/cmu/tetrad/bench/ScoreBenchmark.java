@@ -0,0 +1,124 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.bench;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.BDeuScore;
+import edu.cmu.tetrad.search.ConditionalGaussianScore;
+import edu.cmu.tetrad.search.SemBicScore;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times local scores for each variable given its parents in the true graph and given each
+ * of those parent sets less one parent, as a search would ask for them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoreBenchmark {
+
+    @Param({"20", "100"})
+    public int numVars;
+
+    @Param({"1000", "10000"})
+    public int sampleSize;
+
+    @Param({"2", "4"})
+    public double avgDegree;
+
+    private SemBicScore semBicScore;
+    private BDeuScore bdeuScore;
+    private ConditionalGaussianScore conditionalGaussianScore;
+
+    // Each query is the variable followed by its parents.
+    private List<int[]> queries;
+
+    @Setup
+    public void setup() {
+        Graph graph = Simulations.graph(numVars, avgDegree);
+        DataSet continuous = Simulations.continuous(graph, sampleSize);
+
+        semBicScore = new SemBicScore(continuous);
+        bdeuScore = new BDeuScore(Simulations.discrete(graph, sampleSize));
+        conditionalGaussianScore = new ConditionalGaussianScore(Simulations.mixed(graph, sampleSize),
+                1.0, 1.0, false);
+
+        queries = new ArrayList<>();
+        List<Node> variables = continuous.getVariables();
+
+        for (Node node : graph.getNodes()) {
+            List<Node> parents = graph.getParents(node);
+            int[] query = new int[parents.size() + 1];
+            query[0] = variables.indexOf(continuous.getVariable(node.getName()));
+
+            for (int i = 0; i < parents.size(); i++) {
+                query[i + 1] = variables.indexOf(continuous.getVariable(parents.get(i).getName()));
+            }
+
+            queries.add(query);
+
+            for (int i = 1; i < query.length; i++) {
+                int[] less = new int[query.length - 1];
+                System.arraycopy(query, 0, less, 0, i);
+                System.arraycopy(query, i + 1, less, i, query.length - i - 1);
+                queries.add(less);
+            }
+        }
+    }
+
+    @Benchmark
+    public void semBicLocalScore(Blackhole blackhole) {
+        for (int[] query : queries) {
+            blackhole.consume(semBicScore.localScore(query[0], parents(query)));
+        }
+    }
+
+    @Benchmark
+    public void bdeuLocalScore(Blackhole blackhole) {
+        for (int[] query : queries) {
+            blackhole.consume(bdeuScore.localScore(query[0], parents(query)));
+        }
+    }
+
+    @Benchmark
+    public void conditionalGaussianLocalScore(Blackhole blackhole) {
+        for (int[] query : queries) {
+            blackhole.consume(conditionalGaussianScore.localScore(query[0], parents(query)));
+        }
+    }
+
+    private static int[] parents(int[] query) {
+        int[] parents = new int[query.length - 1];
+        System.arraycopy(query, 1, parents, 0, parents.length);
+        return parents;
+    }
+}
@@ -0,0 +1,103 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.bench;
+
+import edu.cmu.tetrad.bayes.BayesPm;
+import edu.cmu.tetrad.bayes.MlBayesIm;
+import edu.cmu.tetrad.data.ContinuousVariable;
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.Discretizer;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphUtils;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.sem.LargeScaleSimulation;
+import edu.cmu.tetrad.util.RandomUtil;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed, seeded simulations for the benchmarks, so that every run of a benchmark with the
+ * same parameters sees the same graph and data.
+ */
+final class Simulations {
+
+    static final long SEED = 4829304L;
+
+    private Simulations() {
+    }
+
+    /**
+     * @return a random DAG over numVars variables with numVars * avgDegree / 2 edges.
+     */
+    static Graph graph(int numVars, double avgDegree) {
+        RandomUtil.getInstance().setSeed(SEED);
+
+        List<Node> vars = new ArrayList<>();
+
+        for (int i = 0; i < numVars; i++) {
+            vars.add(new ContinuousVariable("X" + (i + 1)));
+        }
+
+        return GraphUtils.randomGraphRandomForwardEdges(vars, 0, (int) (numVars * avgDegree / 2),
+                30, 15, 15, false, true);
+    }
+
+    /**
+     * @return linear Gaussian data for the graph, from LargeScaleSimulation.
+     */
+    static DataSet continuous(Graph graph, int sampleSize) {
+        RandomUtil.getInstance().setSeed(SEED + 1);
+        LargeScaleSimulation simulation = new LargeScaleSimulation(graph);
+        simulation.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+        return simulation.simulateDataFisher(sampleSize);
+    }
+
+    /**
+     * @return discrete data for the graph, with three categories per variable.
+     */
+    static DataSet discrete(Graph graph, int sampleSize) {
+        RandomUtil.getInstance().setSeed(SEED + 2);
+        return new MlBayesIm(new BayesPm(graph, 3, 3), MlBayesIm.RANDOM).simulateData(sampleSize, false);
+    }
+
+    /**
+     * @return continuous data for the graph with every other variable discretized into three
+     * categories.
+     */
+    static DataSet mixed(Graph graph, int sampleSize) {
+        DataSet data = continuous(graph, sampleSize);
+        Discretizer discretizer = new Discretizer(data);
+
+        for (int i = 0; i < data.getNumColumns(); i += 2) {
+            discretizer.equalCounts(data.getVariable(i), 3);
+        }
+
+        return discretizer.discretize();
+    }
+}
@@ -32,6 +32,7 @@ import edu.cmu.tetrad.algcomparison.simulation.Simulation;
 import edu.cmu.tetrad.algcomparison.simulation.Simulations;
 import edu.cmu.tetrad.algcomparison.statistic.ElapsedTime;
 import edu.cmu.tetrad.algcomparison.statistic.ParameterColumn;
+import edu.cmu.tetrad.algcomparison.statistic.SearchMetric;
 import edu.cmu.tetrad.algcomparison.statistic.Statistic;
 import edu.cmu.tetrad.algcomparison.statistic.Statistics;
 import edu.cmu.tetrad.algcomparison.utils.HasKnowledge;
@@ -59,6 +60,7 @@ import edu.cmu.tetrad.util.ParamDescription;
 import edu.cmu.tetrad.util.ParamDescriptions;
 import edu.cmu.tetrad.util.Parameters;
 import edu.cmu.tetrad.util.Params;
+import edu.cmu.tetrad.util.SearchMetrics;
 import edu.cmu.tetrad.util.StatUtils;
 import edu.cmu.tetrad.util.TextTable;
 
@@ -1030,7 +1032,7 @@ public class Comparison {
                             }
                         }
 
-                        while (tasks.size() > Runtime.getRuntime().availableProcessors()) {
+                        while (tasks.size() > ForkJoinPoolInstance.getInstance().getParallelism()) {
                             AlgorithmTask _task = tasks.poll();
                             _task.join();
                         }
@@ -1304,6 +1306,10 @@ public class Comparison {
         stdout.println((run.getAlgSimIndex() + 1) + ". " + algorithmWrapper.getDescription()
                 + " simulationWrapper: " + simulationWrapper.getDescription());
 
+        boolean useMetrics = usesSearchMetrics(statistics);
+        if (useMetrics) SearchMetrics.getInstance().setEnabled(true);
+        SearchMetrics.Snapshot before = useMetrics ? SearchMetrics.getInstance().snapshot() : null;
+
         long start = System.currentTimeMillis();
         Graph graphOut;
 
@@ -1357,6 +1363,8 @@ public class Comparison {
 
         long elapsed = stop - start;
 
+        SearchMetrics.Snapshot metrics = useMetrics ? SearchMetrics.getInstance().snapshot().minus(before) : null;
+
         saveGraph(resultsPath, graphOut, run.getRunIndex(), simIndex, algIndex, algorithmWrapper, elapsed, stdout);
 
         if (trueGraph != null) {
@@ -1430,6 +1438,8 @@ public class Comparison {
 
                         if (_stat instanceof ElapsedTime) {
                             stat = elapsed / 1000.0;
+                        } else if (_stat instanceof SearchMetric) {
+                            stat = metrics.getValue(((SearchMetric) _stat).getMetric());
                         } else {
                             stat = _stat.getValue(truth[u], est[u], data);
                         }
@@ -1442,6 +1452,14 @@ public class Comparison {
         }
     }
 
+    private static boolean usesSearchMetrics(Statistics statistics) {
+        for (Statistic statistic : statistics.getStatistics()) {
+            if (statistic instanceof SearchMetric) return true;
+        }
+
+        return false;
+    }
+
     private void saveGraph(String resultsPath, Graph graph, int i, int simIndex, int algIndex,
                            AlgorithmWrapper algorithmWrapper, long elapsed, PrintStream stdout) {
         if (!saveGraphs) {
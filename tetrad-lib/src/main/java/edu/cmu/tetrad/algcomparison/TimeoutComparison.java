@@ -851,6 +851,7 @@ public class TimeoutComparison {
 
         ExecutorService pool = Executors.newSingleThreadExecutor();
         tasks.forEach(task -> {
+            task.cancellation = CancellationToken.withTimeout(timeout, unit);
             Future<Void> future = pool.submit(task);
             try {
                 future.get(timeout, unit);
@@ -865,6 +866,7 @@ public class TimeoutComparison {
             } finally {
                 if (!future.isDone()) {
                     this.out.printf("%s: Run %d: Cancel task.%n", dateTimeNow(), task.run.index + 1);
+                    task.cancellation.cancel();
                     future.cancel(true);
                 }
             }
@@ -1050,6 +1052,9 @@ public class TimeoutComparison {
         private final double[][][][] allStats;
         private final Run run;
 
+        // The time budget for the run; the searches the algorithm builds pick it up as the current token.
+        private CancellationToken cancellation = new CancellationToken();
+
         public AlgorithmTask(List<AlgorithmSimulationWrapper> algorithmSimulationWrappers,
                 List<AlgorithmWrapper> algorithmWrappers, List<SimulationWrapper> simulationWrappers,
                 Statistics statistics, int numGraphTypes, double[][][][] allStats, Run run) {
@@ -1064,8 +1069,15 @@ public class TimeoutComparison {
 
         @Override
         public Void call() throws Exception {
-            doRun(algorithmSimulationWrappers, algorithmWrappers,
-                    simulationWrappers, statistics, numGraphTypes, allStats, run);
+            CancellationToken.setCurrent(cancellation);
+
+            try {
+                doRun(algorithmSimulationWrappers, algorithmWrappers,
+                        simulationWrappers, statistics, numGraphTypes, allStats, run);
+            } finally {
+                CancellationToken.setCurrent(null);
+            }
+
             return null;
         }
 
@@ -1178,6 +1190,11 @@ public class TimeoutComparison {
             return;
         }
 
+        // Searches stopped by the time budget return partial graphs; these are not scored.
+        if (CancellationToken.current().isCancelled()) {
+            return;
+        }
+
         int simIndex = simulationWrappers.indexOf(simulationWrapper) + 1;
         int algIndex = algorithmWrappers.indexOf(algorithmWrapper) + 1;
 
@@ -14,6 +14,8 @@ import edu.cmu.tetrad.data.IKnowledge;
 import edu.cmu.tetrad.data.Knowledge2;
 import edu.cmu.tetrad.graph.EdgeListGraph;
 import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.search.CachedScore;
+import edu.cmu.tetrad.search.Score;
 import edu.cmu.tetrad.search.SearchGraphUtils;
 import edu.cmu.tetrad.util.Parameters;
 import edu.cmu.tetrad.util.Params;
@@ -70,8 +72,17 @@ public class Fges implements Algorithm, TakesInitialGraph, HasKnowledge, UsesSco
 //                initialGraph = algorithm.search(dataSet, parameters);
             }
 
-            edu.cmu.tetrad.search.Fges search
-                    = new edu.cmu.tetrad.search.Fges(score.getScore(dataSet, parameters), Runtime.getRuntime().availableProcessors());
+            Score score = this.score.getScore(dataSet, parameters);
+
+            if (parameters.getBoolean(Params.CACHE_SCORES)) {
+                score = new CachedScore(score);
+            }
+
+            int parallelism = parameters.getInt(Params.PARALLELISM);
+
+            edu.cmu.tetrad.search.Fges search = parallelism > 0
+                    ? new edu.cmu.tetrad.search.Fges(score, parallelism)
+                    : new edu.cmu.tetrad.search.Fges(score);
             search.setFaithfulnessAssumed(parameters.getBoolean(Params.FAITHFULNESS_ASSUMED));
             search.setKnowledge(knowledge);
             search.setVerbose(parameters.getBoolean(Params.VERBOSE));
@@ -145,6 +156,8 @@ public class Fges implements Algorithm, TakesInitialGraph, HasKnowledge, UsesSco
         parameters.add(Params.FAITHFULNESS_ASSUMED);
         parameters.add(Params.SYMMETRIC_FIRST_STEP);
         parameters.add(Params.MAX_DEGREE);
+        parameters.add(Params.CACHE_SCORES);
+        parameters.add(Params.PARALLELISM);
 
         parameters.add(Params.VERBOSE);
 
@@ -53,6 +53,7 @@ public class CciTest implements IndependenceWrapper {
         cci.setNumFunctions(parameters.getInt(Params.NUM_BASIS_FUNCTIONS));
         cci.setKernelMultiplier(parameters.getDouble(Params.KERNEL_MULTIPLIER));
         cci.setKernelRegressionSampleSize(parameters.getInt(Params.KERNEL_REGRESSION_SAMPLE_SIZE));
+        cci.setRank(parameters.getInt(Params.KERNEL_RANK));
 
         return cci;
     }
@@ -76,6 +77,7 @@ public class CciTest implements IndependenceWrapper {
         params.add(Params.KERNEL_MULTIPLIER);
         params.add(Params.BASIS_TYPE);
         params.add(Params.KERNEL_REGRESSION_SAMPLE_SIZE);
+        params.add(Params.KERNEL_RANK);
         return params;
     }
 }
\ No newline at end of file
@@ -34,6 +34,7 @@ public class Kci implements IndependenceWrapper {
         kci.setNumBootstraps(parameters.getInt(Params.KCI_NUM_BOOTSTRAPS));
         kci.setThreshold(parameters.getDouble(Params.THRESHOLD_FOR_NUM_EIGENVALUES));
         kci.setEpsilon(parameters.getDouble(Params.KCI_EPSILON));
+        kci.setRank(parameters.getInt(Params.KERNEL_RANK));
         return kci;
     }
 
@@ -56,6 +57,7 @@ public class Kci implements IndependenceWrapper {
         params.add(Params.KCI_NUM_BOOTSTRAPS);
         params.add(Params.THRESHOLD_FOR_NUM_EIGENVALUES);
         params.add(Params.KCI_EPSILON);
+        params.add(Params.KERNEL_RANK);
         return params;
     }
 }
\ No newline at end of file
@@ -32,6 +32,7 @@ public class BdeuScore implements ScoreWrapper {
                 = new edu.cmu.tetrad.search.BDeuScore(DataUtils.getDiscreteDataSet(dataSet));
         score.setSamplePrior(parameters.getDouble(Params.PRIOR_EQUIVALENT_SAMPLE_SIZE));
         score.setStructurePrior(parameters.getDouble(Params.STRUCTURE_PRIOR));
+        score.setUseAdTree(parameters.getBoolean(Params.USE_AD_TREE));
         return score;
     }
 
@@ -50,6 +51,7 @@ public class BdeuScore implements ScoreWrapper {
         List<String> parameters = new ArrayList<>();
         parameters.add(Params.PRIOR_EQUIVALENT_SAMPLE_SIZE);
         parameters.add(Params.STRUCTURE_PRIOR);
+        parameters.add(Params.USE_AD_TREE);
         return parameters;
     }
 
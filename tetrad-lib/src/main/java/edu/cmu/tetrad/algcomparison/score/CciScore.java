@@ -44,6 +44,7 @@ public class CciScore implements ScoreWrapper {
         cci.setNumFunctions(parameters.getInt(Params.NUM_BASIS_FUNCTIONS));
         cci.setKernelMultiplier(parameters.getDouble(Params.KERNEL_MULTIPLIER));
         cci.setKernelRegressionSampleSize(parameters.getInt(Params.KERNEL_REGRESSION_SAMPLE_SIZE));
+        cci.setRank(parameters.getInt(Params.KERNEL_RANK));
 
         if (parameters.getInt(Params.BASIS_TYPE) == 1) {
             cci.setBasis(ConditionalCorrelationIndependence.Basis.Polynomial);
@@ -76,6 +77,7 @@ public class CciScore implements ScoreWrapper {
         parameters.add(Params.BASIS_TYPE);
 //        parameters.add("fastFDR");
         parameters.add(Params.KERNEL_REGRESSION_SAMPLE_SIZE);
+        parameters.add(Params.KERNEL_RANK);
 //        parameters.add("numDependenceSpotChecks");
         return parameters;
     }
@@ -1,5 +1,6 @@
 package edu.cmu.tetrad.algcomparison.score;
 
+import edu.cmu.tetrad.data.CovarianceMatrix;
 import edu.cmu.tetrad.data.DataModel;
 import edu.cmu.tetrad.data.DataSet;
 import edu.cmu.tetrad.data.DataType;
@@ -33,7 +34,10 @@ public class SemBicScore implements ScoreWrapper {
 
         edu.cmu.tetrad.search.SemBicScore semBicScore;
 
-        if (dataSet instanceof DataSet) {
+        if (dataSet instanceof DataSet && parameters.getBoolean(Params.USE_CHOLESKY_CACHE)
+                && !((DataSet) dataSet).existsMissingValue()) {
+            semBicScore = new edu.cmu.tetrad.search.SemBicScore(new CovarianceMatrix((DataSet) this.dataSet));
+        } else if (dataSet instanceof DataSet) {
             semBicScore = new edu.cmu.tetrad.search.SemBicScore((DataSet) this.dataSet);
         } else if (dataSet instanceof ICovarianceMatrix) {
             semBicScore = new edu.cmu.tetrad.search.SemBicScore((ICovarianceMatrix) this.dataSet);
@@ -43,6 +47,7 @@ public class SemBicScore implements ScoreWrapper {
 
         semBicScore.setPenaltyDiscount(parameters.getDouble(Params.PENALTY_DISCOUNT));
         semBicScore.setStructurePrior(parameters.getDouble(Params.STRUCTURE_PRIOR));
+        semBicScore.setUseCholeskyCache(parameters.getBoolean(Params.USE_CHOLESKY_CACHE));
         return semBicScore;
     }
 
@@ -61,6 +66,7 @@ public class SemBicScore implements ScoreWrapper {
         List<String> parameters = new ArrayList<>();
         parameters.add(Params.PENALTY_DISCOUNT);
         parameters.add(Params.STRUCTURE_PRIOR);
+        parameters.add(Params.USE_CHOLESKY_CACHE);
         return parameters;
     }
 
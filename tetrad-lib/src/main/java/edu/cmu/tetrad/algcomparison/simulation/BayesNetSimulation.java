@@ -13,6 +13,7 @@ import edu.cmu.tetrad.graph.EdgeListGraph;
 import edu.cmu.tetrad.graph.Graph;
 import edu.cmu.tetrad.util.Parameters;
 import edu.cmu.tetrad.util.Params;
+import edu.cmu.tetrad.util.RandomUtil;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -145,16 +146,16 @@ public class BayesNetSimulation implements Simulation {
                     pm = new BayesPm(graph, minCategories, maxCategories);
                     im = new MlBayesIm(pm, MlBayesIm.RANDOM);
                     ims.add(im);
-                    return im.simulateData(parameters.getInt(Params.SAMPLE_SIZE), saveLatentVars);
+                    return simulateData(im, parameters.getInt(Params.SAMPLE_SIZE), saveLatentVars);
                 } else {
                     im = new MlBayesIm(pm, MlBayesIm.RANDOM);
                     this.im = im;
                     ims.add(im);
-                    return im.simulateData(parameters.getInt(Params.SAMPLE_SIZE), saveLatentVars);
+                    return simulateData(im, parameters.getInt(Params.SAMPLE_SIZE), saveLatentVars);
                 }
             } else {
                 ims.add(im);
-                return im.simulateData(parameters.getInt(Params.SAMPLE_SIZE), saveLatentVars);
+                return simulateData(im, parameters.getInt(Params.SAMPLE_SIZE), saveLatentVars);
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -163,6 +164,16 @@ public class BayesNetSimulation implements Simulation {
         }
     }
 
+    // An MlBayesIm is simulated in parallel from a seed drawn from RandomUtil, so a seeded run
+    // gives the same data however many threads do the simulating.
+    private DataSet simulateData(BayesIm im, int sampleSize, boolean saveLatentVars) {
+        if (im instanceof MlBayesIm) {
+            return ((MlBayesIm) im).simulateDataParallel(sampleSize, RandomUtil.getInstance().nextLong(), saveLatentVars);
+        }
+
+        return im.simulateData(sampleSize, saveLatentVars);
+    }
+
     public List<BayesIm> getBayesIms() {
         return ims;
     }
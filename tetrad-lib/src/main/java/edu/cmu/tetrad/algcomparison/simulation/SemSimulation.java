@@ -159,18 +159,24 @@ public class SemSimulation implements Simulation {
                 pm = new SemPm(graph);
                 im = new SemIm(pm, parameters);
                 ims.add(im);
-                return im.simulateData(parameters.getInt(Params.SAMPLE_SIZE), saveLatentVars);
+                return simulateData(im, parameters.getInt(Params.SAMPLE_SIZE), saveLatentVars);
             } else {
                 im = new SemIm(pm, parameters);
                 ims.add(im);
-                return im.simulateData(parameters.getInt(Params.SAMPLE_SIZE), saveLatentVars);
+                return simulateData(im, parameters.getInt(Params.SAMPLE_SIZE), saveLatentVars);
             }
         } else {
             ims.add(im);
-            return im.simulateData(parameters.getInt(Params.SAMPLE_SIZE), saveLatentVars);
+            return simulateData(im, parameters.getInt(Params.SAMPLE_SIZE), saveLatentVars);
         }
     }
 
+    // Each data set is simulated in parallel from a seed drawn from RandomUtil, so a seeded run
+    // gives the same data however many threads do the simulating.
+    private DataSet simulateData(SemIm im, int sampleSize, boolean saveLatentVars) {
+        return im.simulateDataParallel(sampleSize, RandomUtil.getInstance().nextLong(), saveLatentVars);
+    }
+
     public List<SemIm> getSemIms() {
         return ims;
     }
@@ -0,0 +1,61 @@
+package edu.cmu.tetrad.algcomparison.statistic;
+
+import edu.cmu.tetrad.data.DataModel;
+import edu.cmu.tetrad.graph.Graph;
+
+/**
+ * Adds a column giving the value of a search metric--the number of independence tests done,
+ * say, or the time FGES spent rescoring--for each run. The value is the change in the metric
+ * over the run, obtained by the Comparison class, which turns search metrics on if any of
+ * these statistics are used. Runs done at the same time share the metrics, so for exact
+ * values runs should not be done in parallel.
+ *
+ * @see edu.cmu.tetrad.util.SearchMetrics
+ */
+public class SearchMetric implements Statistic {
+    static final long serialVersionUID = 23L;
+
+    private final String metric;
+    private final String abbreviation;
+
+    /**
+     * @param metric The name of the metric, as given by SearchMetrics.Snapshot, for example
+     *               "independenceTests.depth.2" or "fges.forward.rescore.sum".
+     */
+    public SearchMetric(String metric) {
+        this(metric, metric);
+    }
+
+    /**
+     * @param metric       The name of the metric, as given by SearchMetrics.Snapshot.
+     * @param abbreviation The column heading.
+     */
+    public SearchMetric(String metric, String abbreviation) {
+        this.metric = metric;
+        this.abbreviation = abbreviation;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    @Override
+    public String getAbbreviation() {
+        return abbreviation;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Search metric " + metric;
+    }
+
+    @Override
+    public double getValue(Graph trueGraph, Graph estGraph, DataModel dataModel) {
+        return Double.NaN; // This has to be handled separately.
+    }
+
+    @Override
+    public double getNormValue(double value) {
+        return 1 - Math.tanh(0.001 * value);
+    }
+}
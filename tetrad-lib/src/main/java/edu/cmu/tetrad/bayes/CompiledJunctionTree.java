@@ -0,0 +1,777 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.bayes;
+
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.util.ForkJoinPoolInstance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * A junction tree for a Bayes IM compiled once into flat arrays, for answering many
+ * evidence queries quickly. The clique potentials live in one contiguous array, and
+ * the mapping from each clique configuration to the separator it shares with its
+ * parent clique is precomputed, so propagation is a handful of loops over arrays.
+ * <p>
+ * Queries are made through a {@link Query}, which keeps its own workspace. Changing
+ * the evidence on a variable only invalidates the messages on the path from that
+ * variable's clique to the root, and beliefs are computed only for the cliques
+ * that a requested marginal needs, so a sequence of queries that differ in a few
+ * variables costs much less than a full propagation each. The batch methods run
+ * many evidence cases in parallel; the results don't depend on how the cases are
+ * scheduled.
+ * <p>
+ * The tree is built the same way as in {@link JunctionTreeAlgorithm}.
+ */
+public final class CompiledJunctionTree {
+
+    /**
+     * The number of cases handled by each task of the batch methods.
+     */
+    private static final int CHUNK = 256;
+
+    private final BayesIm bayesIm;
+    private final int numNodes;
+    private final int[] numCategories;
+
+    // Cliques are ordered so that each clique comes after its parent.
+    private final int numCliques;
+    private final int[] parent;
+    private final int[][] children;
+
+    // Clique potentials: clique c occupies [offset[c], offset[c] + size[c]).
+    private final int[] offset;
+    private final int[] size;
+    private final int totalSize;
+    private final double[] initial;
+
+    // Separators between a clique and its parent, indexed by the child clique.
+    private final int[] sepOffset;
+    private final int[] sepSize;
+    private final int totalSepSize;
+    private final int[][] toSeparator;
+    private final int[][] parentToSeparator;
+
+    // Each node's evidence is entered, and its marginal read, in its home clique.
+    private final int[] home;
+    private final int[] homeStride;
+    private final int[][] homed;
+
+    /**
+     * Compiles the junction tree for the given Bayes IM.
+     */
+    public CompiledJunctionTree(BayesIm bayesIm) {
+        if (bayesIm == null) {
+            throw new NullPointerException("Bayes IM must not be null.");
+        }
+
+        this.bayesIm = bayesIm;
+        this.numNodes = bayesIm.getNumNodes();
+        this.numCategories = new int[this.numNodes];
+
+        for (int i = 0; i < this.numNodes; i++) {
+            this.numCategories[i] = bayesIm.getNumColumns(i);
+        }
+
+        Graph moral = GraphTools.moralize(bayesIm.getDag());
+        Node[] ordering = GraphTools.getMaximumCardinalityOrdering(moral);
+        GraphTools.fillIn(moral, ordering);
+        ordering = GraphTools.getMaximumCardinalityOrdering(moral);
+        Map<Node, Set<Node>> cliques = GraphTools.getCliques(ordering, moral);
+        Map<Node, Set<Node>> separators = GraphTools.getSeparators(ordering, cliques);
+        Map<Node, Node> parentCliques = GraphTools.getCliqueTree(ordering, cliques, separators);
+
+        // Order the cliques breadth first from the roots, so that parents come first.
+        List<Node> keys = new ArrayList<>();
+
+        for (Node node : ordering) {
+            if (cliques.containsKey(node)) {
+                keys.add(node);
+            }
+        }
+
+        List<Node> order = new ArrayList<>();
+
+        for (Node key : keys) {
+            if (parentCliques.get(key) == null) {
+                order.add(key);
+            }
+        }
+
+        for (int i = 0; i < order.size(); i++) {
+            for (Node key : keys) {
+                if (order.get(i).equals(parentCliques.get(key))) {
+                    order.add(key);
+                }
+            }
+        }
+
+        if (order.size() != keys.size()) {
+            throw new IllegalStateException("The cliques do not form a tree.");
+        }
+
+        this.numCliques = order.size();
+        Map<Node, Integer> index = new HashMap<>();
+
+        for (int c = 0; c < this.numCliques; c++) {
+            index.put(order.get(c), c);
+        }
+
+        this.parent = new int[this.numCliques];
+        int[][] nodes = new int[this.numCliques][];
+        int[][] strides = new int[this.numCliques][];
+        this.offset = new int[this.numCliques];
+        this.size = new int[this.numCliques];
+        int total = 0;
+
+        for (int c = 0; c < this.numCliques; c++) {
+            Node parentKey = parentCliques.get(order.get(c));
+            this.parent[c] = parentKey == null ? -1 : index.get(parentKey);
+
+            Set<Node> clique = cliques.get(order.get(c));
+            nodes[c] = new int[clique.size()];
+            int k = 0;
+
+            for (Node node : clique) {
+                nodes[c][k++] = bayesIm.getNodeIndex(node);
+            }
+
+            Arrays.sort(nodes[c]);
+            strides[c] = strides(nodes[c]);
+            this.offset[c] = total;
+            this.size[c] = configurations(nodes[c]);
+            total += this.size[c];
+        }
+
+        this.totalSize = total;
+        this.children = new int[this.numCliques][];
+
+        for (int c = 0; c < this.numCliques; c++) {
+            int numChildren = 0;
+
+            for (int d = 0; d < this.numCliques; d++) {
+                if (this.parent[d] == c) numChildren++;
+            }
+
+            this.children[c] = new int[numChildren];
+            int k = 0;
+
+            for (int d = 0; d < this.numCliques; d++) {
+                if (this.parent[d] == c) this.children[c][k++] = d;
+            }
+        }
+
+        this.initial = initialPotentials(nodes, strides);
+
+        this.sepOffset = new int[this.numCliques];
+        this.sepSize = new int[this.numCliques];
+        this.toSeparator = new int[this.numCliques][];
+        this.parentToSeparator = new int[this.numCliques][];
+        int sepTotal = 0;
+
+        for (int c = 0; c < this.numCliques; c++) {
+            int p = this.parent[c];
+            if (p < 0) continue;
+
+            int[] sepNodes = intersection(nodes[c], nodes[p]);
+            this.sepOffset[c] = sepTotal;
+            this.sepSize[c] = configurations(sepNodes);
+            sepTotal += this.sepSize[c];
+            this.toSeparator[c] = separatorIndices(nodes[c], strides[c], this.size[c], sepNodes);
+            this.parentToSeparator[c] = separatorIndices(nodes[p], strides[p], this.size[p], sepNodes);
+        }
+
+        this.totalSepSize = sepTotal;
+
+        this.home = new int[this.numNodes];
+        this.homeStride = new int[this.numNodes];
+        List<List<Integer>> homedNodes = new ArrayList<>();
+
+        for (int c = 0; c < this.numCliques; c++) {
+            homedNodes.add(new ArrayList<>());
+        }
+
+        for (int v = 0; v < this.numNodes; v++) {
+            int best = -1;
+
+            for (int c = 0; c < this.numCliques; c++) {
+                if (position(nodes[c], v) >= 0 && (best == -1 || this.size[c] < this.size[best])) {
+                    best = c;
+                }
+            }
+
+            this.home[v] = best;
+            this.homeStride[v] = strides[best][position(nodes[best], v)];
+            homedNodes.get(best).add(v);
+        }
+
+        this.homed = new int[this.numCliques][];
+
+        for (int c = 0; c < this.numCliques; c++) {
+            List<Integer> list = homedNodes.get(c);
+            this.homed[c] = new int[list.size()];
+
+            for (int k = 0; k < list.size(); k++) {
+                this.homed[c][k] = list.get(k);
+            }
+        }
+    }
+
+    /**
+     * @return the Bayes IM this tree was compiled from.
+     */
+    public BayesIm getBayesIm() {
+        return this.bayesIm;
+    }
+
+    /**
+     * @return the number of cliques in the tree.
+     */
+    public int getNumCliques() {
+        return this.numCliques;
+    }
+
+    /**
+     * @return a new query with no evidence.
+     */
+    public Query newQuery() {
+        return new Query();
+    }
+
+    /**
+     * Calculates the marginals of the given nodes for each of the given evidence cases.
+     *
+     * @param cases  cases[i][v] is the observed category of node v in case i, or -1 if
+     *               v is not observed.
+     * @param nodes  the indices of the nodes whose marginals are wanted.
+     * @return the marginals, indexed by case, then by position in <code>nodes</code>, then
+     * by category. The marginals for a case whose evidence has probability zero are NaN.
+     */
+    public double[][][] getMarginals(int[][] cases, int[] nodes) {
+        for (int node : nodes) {
+            checkNode(node);
+        }
+
+        double[][][] marginals = new double[cases.length][nodes.length][];
+
+        runCases(cases, (query, i) -> {
+            for (int k = 0; k < nodes.length; k++) {
+                marginals[i][k] = query.getMarginal(nodes[k]);
+            }
+        });
+
+        return marginals;
+    }
+
+    /**
+     * Calculates the log probability of each of the given evidence cases.
+     *
+     * @param cases cases[i][v] is the observed category of node v in case i, or -1 if
+     *              v is not observed.
+     */
+    public double[] getLogProbabilities(int[][] cases) {
+        double[] logProbabilities = new double[cases.length];
+        runCases(cases, (query, i) -> logProbabilities[i] = query.getLogProbabilityOfEvidence());
+        return logProbabilities;
+    }
+
+    /**
+     * A set of evidence together with the workspace for propagating it. A query is not
+     * thread safe; use one per thread.
+     */
+    public final class Query {
+        private final double[][] likelihoods = new double[numNodes][];
+        private final double[] collected = new double[totalSize];
+        private final double[] belief = new double[totalSize];
+        private final double[] up = new double[totalSepSize];
+        private final double[] childLogScale = new double[numCliques];
+        private final double[] upLogScale = new double[numCliques];
+        private final boolean[] upValid = new boolean[numCliques];
+        private final long[] beliefVersion = new long[numCliques];
+        private long version = 1;
+
+        private Query() {
+        }
+
+        /**
+         * Observes the given node to have the given category, or, if the category is
+         * -1, removes the evidence on the node.
+         */
+        public void setEvidence(int node, int category) {
+            checkNode(node);
+
+            if (category == -1) {
+                setLikelihood(node, null);
+                return;
+            }
+
+            if (category < 0 || category >= numCategories[node]) {
+                throw new IllegalArgumentException("Category " + category + " out of range for node "
+                        + node + ".");
+            }
+
+            double[] current = this.likelihoods[node];
+
+            if (current != null && current[category] == 1.0 && isIndicator(current)) {
+                return;
+            }
+
+            double[] likelihood = new double[numCategories[node]];
+            likelihood[category] = 1.0;
+            this.likelihoods[node] = likelihood;
+            invalidate(node);
+        }
+
+        /**
+         * Sets likelihood (virtual) evidence on the given node; likelihood[j] is
+         * proportional to the probability of the evidence given that the node has
+         * category j. Setting only some entries to 1 and the rest to 0 restricts the node
+         * to a set of categories. A null likelihood removes the evidence on the node.
+         */
+        public void setLikelihood(int node, double[] likelihood) {
+            checkNode(node);
+
+            if (likelihood != null && likelihood.length != numCategories[node]) {
+                throw new IllegalArgumentException("Expecting " + numCategories[node]
+                        + " likelihoods for node " + node + ".");
+            }
+
+            if (Arrays.equals(this.likelihoods[node], likelihood)) {
+                return;
+            }
+
+            this.likelihoods[node] = likelihood == null ? null : Arrays.copyOf(likelihood, likelihood.length);
+            invalidate(node);
+        }
+
+        /**
+         * Sets the evidence for every node at once, changing only the nodes whose
+         * evidence differs from the current evidence.
+         *
+         * @param evidence evidence[v] is the observed category of node v, or -1 if v is
+         *                 not observed.
+         */
+        public void setEvidence(int[] evidence) {
+            if (evidence.length != numNodes) {
+                throw new IllegalArgumentException("Expecting evidence for " + numNodes + " nodes.");
+            }
+
+            for (int v = 0; v < numNodes; v++) {
+                setEvidence(v, evidence[v]);
+            }
+        }
+
+        /**
+         * Removes all evidence.
+         */
+        public void clearEvidence() {
+            for (int v = 0; v < numNodes; v++) {
+                setLikelihood(v, null);
+            }
+        }
+
+        /**
+         * @return the probabilities of the categories of the given node given the
+         * evidence, or NaNs if the evidence has probability zero.
+         */
+        public double[] getMarginal(int node) {
+            checkNode(node);
+            collect();
+
+            int c = home[node];
+            distribute(c);
+
+            int card = numCategories[node];
+            int stride = homeStride[node];
+            int off = offset[c];
+            double[] marginal = new double[card];
+
+            for (int x = 0; x < size[c]; x++) {
+                marginal[(x / stride) % card] += this.belief[off + x];
+            }
+
+            double sum = 0.0;
+
+            for (double p : marginal) {
+                sum += p;
+            }
+
+            for (int j = 0; j < card; j++) {
+                marginal[j] = sum > 0 ? marginal[j] / sum : Double.NaN;
+            }
+
+            return marginal;
+        }
+
+        /**
+         * @return the natural log of the probability of the evidence, which is negative
+         * infinity if the evidence is impossible.
+         */
+        public double getLogProbabilityOfEvidence() {
+            collect();
+            double logProbability = 0.0;
+
+            for (int c = 0; c < numCliques; c++) {
+                if (parent[c] >= 0) continue;
+
+                double sum = 0.0;
+                int off = offset[c];
+
+                for (int x = 0; x < size[c]; x++) {
+                    sum += this.collected[off + x];
+                }
+
+                logProbability += this.childLogScale[c] + Math.log(sum);
+            }
+
+            return logProbability;
+        }
+
+        private void invalidate(int node) {
+            for (int c = home[node]; c >= 0 && this.upValid[c]; c = parent[c]) {
+                this.upValid[c] = false;
+            }
+
+            this.version++;
+        }
+
+        // Recomputes the upward messages that are out of date, children first. A clique's
+        // ancestors are invalidated with it, so a single backward sweep suffices.
+        private void collect() {
+            for (int c = numCliques - 1; c >= 0; c--) {
+                if (this.upValid[c]) continue;
+
+                int off = offset[c];
+                int n = size[c];
+                System.arraycopy(initial, off, this.collected, off, n);
+
+                for (int v : homed[c]) {
+                    double[] likelihood = this.likelihoods[v];
+                    if (likelihood == null) continue;
+
+                    int stride = homeStride[v];
+                    int card = numCategories[v];
+
+                    for (int x = 0; x < n; x++) {
+                        this.collected[off + x] *= likelihood[(x / stride) % card];
+                    }
+                }
+
+                double logScale = 0.0;
+
+                for (int child : children[c]) {
+                    int[] map = parentToSeparator[child];
+                    int sepOff = sepOffset[child];
+
+                    for (int x = 0; x < n; x++) {
+                        this.collected[off + x] *= this.up[sepOff + map[x]];
+                    }
+
+                    logScale += this.upLogScale[child];
+                }
+
+                this.childLogScale[c] = logScale;
+
+                if (parent[c] >= 0) {
+                    int[] map = toSeparator[c];
+                    int sepOff = sepOffset[c];
+                    Arrays.fill(this.up, sepOff, sepOff + sepSize[c], 0.0);
+
+                    for (int x = 0; x < n; x++) {
+                        this.up[sepOff + map[x]] += this.collected[off + x];
+                    }
+
+                    // Messages are normalized, with the scale kept as a log, so that long
+                    // chains of evidence don't underflow.
+                    double sum = 0.0;
+
+                    for (int s = 0; s < sepSize[c]; s++) {
+                        sum += this.up[sepOff + s];
+                    }
+
+                    if (sum > 0) {
+                        for (int s = 0; s < sepSize[c]; s++) {
+                            this.up[sepOff + s] /= sum;
+                        }
+                    }
+
+                    this.upLogScale[c] = logScale + Math.log(sum);
+                }
+
+                this.upValid[c] = true;
+            }
+        }
+
+        // Computes the beliefs on the path from the nearest up-to-date ancestor down to c.
+        private void distribute(int c) {
+            int[] path = new int[numCliques];
+            int length = 0;
+
+            for (int d = c; d >= 0 && this.beliefVersion[d] != this.version; d = parent[d]) {
+                path[length++] = d;
+            }
+
+            for (int k = length - 1; k >= 0; k--) {
+                int d = path[k];
+                int p = parent[d];
+                int off = offset[d];
+                int n = size[d];
+
+                if (p < 0) {
+                    System.arraycopy(this.collected, off, this.belief, off, n);
+                } else {
+                    int sepOff = sepOffset[d];
+                    double[] down = new double[sepSize[d]];
+                    int[] parentMap = parentToSeparator[d];
+                    int parentOff = offset[p];
+
+                    for (int y = 0; y < size[p]; y++) {
+                        down[parentMap[y]] += this.belief[parentOff + y];
+                    }
+
+                    for (int s = 0; s < down.length; s++) {
+                        double message = this.up[sepOff + s];
+                        down[s] = message > 0 ? down[s] / message : 0.0;
+                    }
+
+                    int[] map = toSeparator[d];
+
+                    for (int x = 0; x < n; x++) {
+                        this.belief[off + x] = this.collected[off + x] * down[map[x]];
+                    }
+                }
+
+                double sum = 0.0;
+
+                for (int x = 0; x < n; x++) {
+                    sum += this.belief[off + x];
+                }
+
+                if (sum > 0) {
+                    for (int x = 0; x < n; x++) {
+                        this.belief[off + x] /= sum;
+                    }
+                }
+
+                this.beliefVersion[d] = this.version;
+            }
+        }
+    }
+
+    //==========================PRIVATE METHODS===========================//
+
+    private interface CaseTask {
+        void run(Query query, int caseIndex);
+    }
+
+    private void runCases(int[][] cases, CaseTask task) {
+        for (int[] evidence : cases) {
+            if (evidence.length != this.numNodes) {
+                throw new IllegalArgumentException("Expecting evidence for " + this.numNodes + " nodes.");
+            }
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+
+        for (int from = 0; from < cases.length; from += CHUNK) {
+            final int _from = from;
+            final int to = Math.min(cases.length, from + CHUNK);
+
+            tasks.add(() -> {
+                Query query = new Query();
+
+                for (int i = _from; i < to; i++) {
+                    query.setEvidence(cases[i]);
+                    task.run(query, i);
+                }
+
+                return null;
+            });
+        }
+
+        if (tasks.size() == 1) {
+            try {
+                tasks.get(0).call();
+                return;
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        List<Future<Void>> futures = ForkJoinPoolInstance.getInstance().getPool().invokeAll(tasks);
+
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Inference was interrupted.", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    private double[] initialPotentials(int[][] nodes, int[][] strides) {
+        double[] potentials = new double[this.totalSize];
+        Arrays.fill(potentials, 1.0);
+        boolean[] assigned = new boolean[this.numNodes];
+
+        for (int c = 0; c < this.numCliques; c++) {
+            List<Integer> families = new ArrayList<>();
+
+            for (int v : nodes[c]) {
+                if (assigned[v] || !containsAll(nodes[c], this.bayesIm.getParents(v))) continue;
+                families.add(v);
+                assigned[v] = true;
+            }
+
+            int[] values = new int[nodes[c].length];
+
+            for (int x = 0; x < this.size[c]; x++) {
+                for (int k = 0; k < values.length; k++) {
+                    values[k] = (x / strides[c][k]) % this.numCategories[nodes[c][k]];
+                }
+
+                double product = 1.0;
+
+                for (int v : families) {
+                    int[] parents = this.bayesIm.getParents(v);
+                    int row = 0;
+
+                    for (int j = 0; j < parents.length; j++) {
+                        row = row * this.bayesIm.getParentDim(v, j) + values[position(nodes[c], parents[j])];
+                    }
+
+                    product *= this.bayesIm.getProbability(v, row, values[position(nodes[c], v)]);
+                }
+
+                potentials[this.offset[c] + x] = product;
+            }
+        }
+
+        for (int v = 0; v < this.numNodes; v++) {
+            if (!assigned[v]) {
+                throw new IllegalStateException("No clique contains node " + v + " and its parents.");
+            }
+        }
+
+        return potentials;
+    }
+
+    private int[] separatorIndices(int[] nodes, int[] strides, int size, int[] sepNodes) {
+        int[] sepStrides = strides(sepNodes);
+        int[] indices = new int[size];
+
+        for (int x = 0; x < size; x++) {
+            int s = 0;
+
+            for (int k = 0; k < sepNodes.length; k++) {
+                int j = position(nodes, sepNodes[k]);
+                s += ((x / strides[j]) % this.numCategories[sepNodes[k]]) * sepStrides[k];
+            }
+
+            indices[x] = s;
+        }
+
+        return indices;
+    }
+
+    // The last node varies fastest.
+    private int[] strides(int[] nodes) {
+        int[] strides = new int[nodes.length];
+        int stride = 1;
+
+        for (int k = nodes.length - 1; k >= 0; k--) {
+            strides[k] = stride;
+            stride *= this.numCategories[nodes[k]];
+        }
+
+        return strides;
+    }
+
+    private int configurations(int[] nodes) {
+        long n = 1;
+
+        for (int v : nodes) {
+            n *= this.numCategories[v];
+
+            if (n > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Clique too large to compile.");
+            }
+        }
+
+        return (int) n;
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= this.numNodes) {
+            throw new IllegalArgumentException("Node index out of range: " + node);
+        }
+    }
+
+    private static boolean isIndicator(double[] likelihood) {
+        int ones = 0;
+
+        for (double p : likelihood) {
+            if (p == 1.0) {
+                ones++;
+            } else if (p != 0.0) {
+                return false;
+            }
+        }
+
+        return ones == 1;
+    }
+
+    private static int[] intersection(int[] a, int[] b) {
+        return Arrays.stream(a).filter(v -> position(b, v) >= 0).toArray();
+    }
+
+    private static boolean containsAll(int[] nodes, int[] others) {
+        for (int v : others) {
+            if (position(nodes, v) < 0) return false;
+        }
+
+        return true;
+    }
+
+    private static int position(int[] sorted, int v) {
+        int k = Arrays.binarySearch(sorted, v);
+        return k >= 0 ? k : -1;
+    }
+}
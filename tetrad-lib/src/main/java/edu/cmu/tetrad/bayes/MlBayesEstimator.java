@@ -21,9 +21,12 @@
 
 package edu.cmu.tetrad.bayes;
 
+import edu.cmu.tetrad.data.AdCountTree;
 import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.DiscreteVariable;
 import edu.cmu.tetrad.graph.Node;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -34,6 +37,7 @@ import java.util.List;
  */
 public final class MlBayesEstimator {
     private DataSet reorderedDataSetDiscrete;
+    private boolean useAdTree = false;
 
     /**
      * 33 Estimates a Bayes IM using the variables, graph, and parameters in the
@@ -65,6 +69,12 @@ public final class MlBayesEstimator {
         List<Node> variables = estimatedIm.getVariables();
         DataSet columnDataSet2 = dataSet.subsetColumns(variables);
         this.reorderedDataSetDiscrete = columnDataSet2;
+
+        if (useAdTree) {
+            estimateFromAdTree(estimatedIm, columnDataSet2);
+            return estimatedIm;
+        }
+
         DiscreteProbs discreteProbs = new DataSetProbs(columnDataSet2);
 
         // We will use the same estimation methods as the updaters, to ensure
@@ -117,6 +127,78 @@ public final class MlBayesEstimator {
 
         return estimatedIm;
     }
+
+    /**
+     * @param useAdTree True if the counts for each node should be taken from an AD-tree over
+     *                  the data rather than from a pass over the data for each parameter. The
+     *                  estimates are the same either way.
+     */
+    public void setUseAdTree(boolean useAdTree) {
+        this.useAdTree = useAdTree;
+    }
+
+    //==================================PRIVATE METHODS=================================//
+
+    // As above, rows with a missing value in any column are left out.
+    private void estimateFromAdTree(BayesIm estimatedIm, DataSet dataSet) {
+        int numNodes = estimatedIm.getNumNodes();
+        int[] dims = new int[numNodes];
+
+        for (int j = 0; j < numNodes; j++) {
+            dims[j] = estimatedIm.getNumColumns(j);
+        }
+
+        int[][] data = new int[numNodes][dataSet.getNumRows()];
+        int numRows = 0;
+
+        ROW:
+        for (int i = 0; i < dataSet.getNumRows(); i++) {
+            for (int j = 0; j < numNodes; j++) {
+                if (dataSet.getInt(i, j) == DiscreteVariable.MISSING_VALUE) continue ROW;
+            }
+
+            for (int j = 0; j < numNodes; j++) {
+                data[j][numRows] = dataSet.getInt(i, j);
+            }
+
+            numRows++;
+        }
+
+        for (int j = 0; j < numNodes; j++) {
+            data[j] = Arrays.copyOf(data[j], numRows);
+        }
+
+        AdCountTree tree = new AdCountTree(data, dims);
+
+        for (int node = 0; node < numNodes; node++) {
+            int numCols = estimatedIm.getNumColumns(node);
+            int[] parents = estimatedIm.getParents(node);
+
+            int[] vars = Arrays.copyOf(parents, parents.length + 1);
+            vars[parents.length] = node;
+            int[] counts = tree.getCounts(vars);
+
+            for (int row = 0; row < estimatedIm.getNumRows(node); row++) {
+                int[] parentValues = estimatedIm.getParentValues(node, row);
+                int index = 0;
+
+                for (int k = 0; k < parents.length; k++) {
+                    index = index * dims[parents[k]] + parentValues[k];
+                }
+
+                int count1 = 0;
+
+                for (int col = 0; col < numCols; col++) {
+                    count1 += counts[index * numCols + col];
+                }
+
+                for (int col = 0; col < numCols; col++) {
+                    int count2 = counts[index * numCols + col];
+                    estimatedIm.setProbability(node, row, col, count2 / (double) count1);
+                }
+            }
+        }
+    }
 }
 
 
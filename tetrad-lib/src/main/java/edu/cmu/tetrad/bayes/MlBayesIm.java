@@ -25,6 +25,7 @@ import edu.cmu.tetrad.graph.Graph;
 import edu.cmu.tetrad.graph.Node;
 import edu.cmu.tetrad.graph.TimeLagGraph;
 import edu.cmu.tetrad.util.NumberFormatUtil;
+import edu.cmu.tetrad.util.RandomStreams;
 import edu.cmu.tetrad.util.RandomUtil;
 import java.io.IOException;
 import java.io.ObjectInputStream;
@@ -1084,6 +1085,115 @@ public final class MlBayesIm implements BayesIm {
         return simulateDataHelper(dataSet, latentDataSaved, tiers);
     }
 
+    /**
+     * Simulates a sample a column at a time down the causal order, in blocks of rows that are
+     * filled in parallel, each block drawing from its own random stream split from the seed (see
+     * RandomStreams). The sample is bit-for-bit the same for a given seed whatever the
+     * parallelism, though not the same as simulateData(sampleSize, seed, latentDataSaved) gives.
+     *
+     * @param sampleSize the sample size.
+     * @param seed the seed the random streams are split from.
+     * @return the simulated sample as a DataSet.
+     */
+    public DataSet simulateDataParallel(int sampleSize, long seed, boolean latentDataSaved) {
+        if (getBayesPm().getDag().isTimeLagModel()) {
+            return simulateData(sampleSize, seed, latentDataSaved);
+        }
+
+        Graph graph = getBayesPm().getDag();
+
+        if (graph.existsDirectedCycle()) {
+            throw new IllegalArgumentException("Graph must be acyclic to simulate from discrete Bayes net.");
+        }
+
+        List<Node> tierOrdering = graph.getCausalOrdering();
+        final int[] tiers = new int[tierOrdering.size()];
+
+        for (int i = 0; i < tierOrdering.size(); i++) {
+            tiers[i] = getNodeIndex(tierOrdering.get(i));
+        }
+
+        // Cumulative probabilities, so each draw is a scan of one row.
+        final double[][][] cumulative = new double[nodes.length][][];
+
+        for (int t = 0; t < nodes.length; t++) {
+            cumulative[t] = new double[getNumRows(t)][getNumColumns(t)];
+
+            for (int row = 0; row < getNumRows(t); row++) {
+                double sum = 0.0;
+
+                for (int k = 0; k < getNumColumns(t); k++) {
+                    double probability = getProbability(t, row, k);
+
+                    if (Double.isNaN(probability)) {
+                        throw new IllegalStateException("Some probability "
+                                + "values in the BayesIm are not filled in; "
+                                + "cannot simulate data.");
+                    }
+
+                    sum += probability;
+                    cumulative[t][row][k] = sum;
+                }
+            }
+        }
+
+        List<Node> variables = new LinkedList<>();
+
+        for (Node node : nodes) {
+            int numCategories = bayesPm.getNumCategories(node);
+            List<String> categories = new LinkedList<>();
+
+            for (int k = 0; k < numCategories; k++) {
+                categories.add(bayesPm.getCategory(node, k));
+            }
+
+            DiscreteVariable var = new DiscreteVariable(node.getName(), categories);
+            var.setNodeType(node.getNodeType());
+            variables.add(var);
+        }
+
+        final int[][] columns = new int[nodes.length][sampleSize];
+
+        new RandomStreams(seed).simulate(sampleSize, (from, to, random) -> {
+            int[] rowIndices = new int[to - from];
+
+            for (int t : tiers) {
+                int[] dims = parentDims[t];
+                Arrays.fill(rowIndices, 0);
+
+                for (int k = 0; k < dims.length; k++) {
+                    int[] parentColumn = columns[parents[t][k]];
+
+                    for (int r = from; r < to; r++) {
+                        rowIndices[r - from] = rowIndices[r - from] * dims[k] + parentColumn[r];
+                    }
+                }
+
+                int[] column = columns[t];
+
+                for (int r = from; r < to; r++) {
+                    double[] sums = cumulative[t][rowIndices[r - from]];
+                    double cutoff = random.nextDouble();
+
+                    for (int k = 0; k < sums.length; k++) {
+                        if (sums[k] >= cutoff) {
+                            column[r] = k;
+                            break;
+                        }
+                    }
+                }
+            }
+        });
+
+        DataSet dataSet = new BoxDataSet(new VerticalIntDataBox(columns), variables);
+
+        if (!latentDataSaved) {
+            dataSet = DataUtils.restrictToMeasured(dataSet);
+        }
+
+        return dataSet;
+    }
+
     /**
      * Simulates a sample with the given sample size.
      *
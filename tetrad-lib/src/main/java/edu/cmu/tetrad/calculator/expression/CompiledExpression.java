@@ -0,0 +1,529 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.calculator.expression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * An expression compiled into a flat stack program over slot-indexed values, for evaluating
+ * the same expression many times without the by-name lookups and boxing that go with
+ * <code>Expression.evaluate(Context)</code>. Variable names are resolved to slots once, at
+ * compile time. Arithmetic, comparisons, logical operators and the elementary functions
+ * become instructions over a <code>double[]</code> stack; anything else--the distributions
+ * and other random terms--is evaluated by the original subexpression against a context that
+ * reads the slots, so that results, including the order in which random numbers are drawn,
+ * are the same as for the interpreted expression.
+ * <p>
+ * Instances are not thread safe; each thread should compile its own copy.
+ */
+public final class CompiledExpression {
+
+    // Instructions.
+    private static final int CONST = 0;
+    private static final int LOAD = 1;
+    private static final int MISSING = 2;
+    private static final int FALLBACK = 3;
+    private static final int ADD = 4;
+    private static final int SUB = 5;
+    private static final int MUL = 6;
+    private static final int DIV = 7;
+    private static final int POW = 8;
+    private static final int NEG = 9;
+    private static final int MAX = 10;
+    private static final int MIN = 11;
+    private static final int AND = 12;
+    private static final int OR_TEST = 13;
+    private static final int XOR = 14;
+    private static final int LT = 15;
+    private static final int LE = 16;
+    private static final int EQ = 17;
+    private static final int GT = 18;
+    private static final int GE = 19;
+    private static final int IF = 20;
+    private static final int FUNCTION = 21;
+
+    // Functions of one argument, by token.
+    private static final List<String> FUNCTIONS = Arrays.asList("ceil", "signum", "cos", "cosh",
+            "acos", "floor", "abs", "log10", "ln", "round", "tan", "tanh", "atan", "logistic",
+            "sqrt", "sin", "sinh", "asin", "exp");
+
+    // Binary operators, by token.
+    private static final Map<String, Integer> BINARY = new HashMap<>();
+
+    static {
+        BINARY.put("/", DIV);
+        BINARY.put("^", POW);
+        BINARY.put("pow", POW);
+        BINARY.put("XOR", XOR);
+        BINARY.put("<", LT);
+        BINARY.put("<=", LE);
+        BINARY.put("=", EQ);
+        BINARY.put(">", GT);
+        BINARY.put(">=", GE);
+    }
+
+    private final int[] ops;
+    private final int[] args;
+    private final double[] constants;
+    private final Expression[] fallbacks;
+    private final String[] missing;
+
+    // Ranges [start, end) of the terms of sums, with the stack depth at their start. A term
+    // that throws contributes zero, as in the interpreted sum. Inner terms come first.
+    private final int[] termStart;
+    private final int[] termEnd;
+    private final int[] termDepth;
+
+    // The slots the program reads.
+    private final int[] usedSlots;
+
+    private final double[] stack;
+    private final SlotContext context;
+
+    private CompiledExpression(Compiler compiler, Map<String, Integer> slots) {
+        this.ops = toArray(compiler.ops);
+        this.args = toArray(compiler.args);
+        this.constants = new double[compiler.constants.size()];
+        for (int i = 0; i < constants.length; i++) constants[i] = compiler.constants.get(i);
+        this.fallbacks = compiler.fallbacks.toArray(new Expression[0]);
+        this.missing = compiler.missing.toArray(new String[0]);
+        this.termStart = toArray(compiler.termStart);
+        this.termEnd = toArray(compiler.termEnd);
+        this.termDepth = toArray(compiler.termDepth);
+        this.usedSlots = toArray(new ArrayList<>(compiler.usedSlots));
+        this.stack = new double[Math.max(1, compiler.maxDepth)];
+        this.context = new SlotContext(slots);
+    }
+
+    /**
+     * Compiles the given expression.
+     *
+     * @param expression The expression, as parsed by <code>ExpressionParser</code>.
+     * @param slots      A map from the names of the variables and parameters the expression
+     *                   may refer to to their indices in the value arrays passed to
+     *                   <code>evaluate</code>. Names not in the map are treated as unassigned.
+     */
+    public static CompiledExpression compile(Expression expression, Map<String, Integer> slots) {
+        Compiler compiler = new Compiler(slots);
+        compiler.compile(expression);
+        return new CompiledExpression(compiler, slots);
+    }
+
+    /**
+     * Evaluates the expression with every slot assigned.
+     *
+     * @param values The values of the variables and parameters, by slot.
+     */
+    public double evaluate(double[] values) {
+        return evaluate(values, null);
+    }
+
+    /**
+     * Evaluates the expression.
+     *
+     * @param values   The values of the variables and parameters, by slot.
+     * @param assigned Whether each slot has been assigned a value, or null if all have. Reading
+     *                 an unassigned slot throws an IllegalArgumentException, as evaluating an
+     *                 unassigned variable does.
+     */
+    public double evaluate(double[] values, boolean[] assigned) {
+        context.values = values;
+        context.assigned = assigned;
+        return run(values, assigned);
+    }
+
+    /**
+     * Evaluates the expression once for each row of the given columns, row by row.
+     *
+     * @param columns The values of the variables and parameters by slot, then by row. Only
+     *                the columns of slots the expression reads need be non-null.
+     * @param out     The values of the expression, by row; its length is the number of rows.
+     */
+    public void evaluate(double[][] columns, double[] out) {
+        int numSlots = 0;
+        for (int slot : usedSlots) numSlots = Math.max(numSlots, slot + 1);
+        double[] values = new double[numSlots];
+
+        context.values = values;
+        context.assigned = null;
+
+        for (int row = 0; row < out.length; row++) {
+            for (int slot : usedSlots) {
+                values[slot] = columns[slot][row];
+            }
+
+            out[row] = run(values, null);
+        }
+    }
+
+    //==================================PRIVATE METHODS=================================//
+
+    private double run(double[] values, boolean[] assigned) {
+        double[] s = this.stack;
+        int sp = 0;
+        int pc = 0;
+
+        while (true) {
+            try {
+                for (; pc < ops.length; pc++) {
+                    int arg = args[pc];
+
+                    switch (ops[pc]) {
+                        case CONST:
+                            s[sp++] = constants[arg];
+                            break;
+                        case LOAD:
+                            if (assigned != null && !assigned[arg]) {
+                                throw new IllegalArgumentException(context.name(arg) + " was not assigned a value.");
+                            }
+
+                            s[sp++] = values[arg];
+                            break;
+                        case MISSING:
+                            throw new IllegalArgumentException(missing[arg] + " was not assigned a value.");
+                        case FALLBACK:
+                            s[sp++] = fallbacks[arg].evaluate(context);
+                            break;
+                        case ADD:
+                            sp--;
+                            s[sp - 1] = s[sp - 1] + s[sp];
+                            break;
+                        case SUB:
+                            sp--;
+                            s[sp - 1] = s[sp - 1] - s[sp];
+                            break;
+                        case MUL:
+                            sp--;
+                            s[sp - 1] = s[sp - 1] * s[sp];
+                            break;
+                        case DIV:
+                            sp--;
+                            s[sp - 1] = s[sp - 1] / s[sp];
+                            break;
+                        case POW:
+                            sp--;
+                            s[sp - 1] = Math.pow(s[sp - 1], s[sp]);
+                            break;
+                        case NEG:
+                            s[sp - 1] = -s[sp - 1];
+                            break;
+                        case MAX: {
+                            sp -= arg;
+                            double max = s[sp];
+                            for (int i = 1; i < arg; i++) if (max < s[sp + i]) max = s[sp + i];
+                            s[sp++] = max;
+                            break;
+                        }
+                        case MIN: {
+                            sp -= arg;
+                            double min = s[sp];
+                            for (int i = 1; i < arg; i++) if (s[sp + i] < min) min = s[sp + i];
+                            s[sp++] = min;
+                            break;
+                        }
+                        case AND: {
+                            sp -= arg;
+                            boolean allOnes = true;
+                            for (int i = 0; i < arg; i++) if (s[sp + i] != 1.0) allOnes = false;
+                            s[sp++] = allOnes ? 1.0 : 0.0;
+                            break;
+                        }
+                        case OR_TEST:
+                            if (s[--sp] == 1.0) {
+                                s[sp++] = 1.0;
+                                pc = arg - 1;
+                            }
+                            break;
+                        case XOR: {
+                            sp--;
+                            double first = s[sp - 1] == 1.0 ? 1.0 : 0.0;
+                            double second = s[sp] == 1.0 ? 1.0 : 0.0;
+                            s[sp - 1] = first + second == 1.0 ? 1.0 : 0.0;
+                            break;
+                        }
+                        case LT:
+                            sp--;
+                            s[sp - 1] = s[sp - 1] < s[sp] ? 1.0 : 0.0;
+                            break;
+                        case LE:
+                            sp--;
+                            s[sp - 1] = s[sp - 1] <= s[sp] ? 1.0 : 0.0;
+                            break;
+                        case EQ:
+                            sp--;
+                            s[sp - 1] = s[sp - 1] == s[sp] ? 1.0 : 0.0;
+                            break;
+                        case GT:
+                            sp--;
+                            s[sp - 1] = s[sp - 1] > s[sp] ? 1.0 : 0.0;
+                            break;
+                        case GE:
+                            sp--;
+                            s[sp - 1] = s[sp - 1] >= s[sp] ? 1.0 : 0.0;
+                            break;
+                        case IF:
+                            sp -= 2;
+                            s[sp - 1] = s[sp - 1] == 1.0 ? s[sp] : s[sp + 1];
+                            break;
+                        case FUNCTION:
+                            s[sp - 1] = function(arg, s[sp - 1]);
+                            break;
+                        default:
+                            throw new IllegalStateException("Unknown instruction: " + ops[pc]);
+                    }
+                }
+
+                return s[0];
+            } catch (RuntimeException e) {
+                int term = term(pc);
+                if (term == -1) throw e;
+
+                // Resume at the addition that ends the term, with the term taken as zero.
+                sp = termDepth[term];
+                s[sp++] = 0.0;
+                pc = termEnd[term];
+            }
+        }
+    }
+
+    private int term(int pc) {
+        for (int i = 0; i < termStart.length; i++) {
+            if (termStart[i] <= pc && pc < termEnd[i]) return i;
+        }
+
+        return -1;
+    }
+
+    private static double function(int function, double x) {
+        switch (function) {
+            case 0:
+                return Math.ceil(x);
+            case 1:
+                return Math.signum(x);
+            case 2:
+                return Math.cos(x);
+            case 3:
+                return Math.cosh(x);
+            case 4:
+                return Math.acos(x);
+            case 5:
+                return Math.floor(x);
+            case 6:
+                return Math.abs(x);
+            case 7:
+                return Math.log10(x);
+            case 8:
+                return Math.log(x);
+            case 9:
+                return Math.round(x);
+            case 10:
+                return Math.tan(x);
+            case 11:
+                return Math.tanh(x);
+            case 12:
+                return Math.atan(x);
+            case 13:
+                return 1.0 / (1.0 + Math.exp(-x));
+            case 14:
+                return Math.sqrt(x);
+            case 15:
+                return Math.sin(x);
+            case 16:
+                return Math.sinh(x);
+            case 17:
+                return Math.asin(x);
+            case 18:
+                return Math.exp(x);
+            default:
+                throw new IllegalStateException("Unknown function: " + function);
+        }
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) array[i] = list.get(i);
+        return array;
+    }
+
+    private static final class Compiler {
+        private final Map<String, Integer> slots;
+
+        private final List<Integer> ops = new ArrayList<>();
+        private final List<Integer> args = new ArrayList<>();
+        private final List<Double> constants = new ArrayList<>();
+        private final List<Expression> fallbacks = new ArrayList<>();
+        private final List<String> missing = new ArrayList<>();
+        private final List<Integer> termStart = new ArrayList<>();
+        private final List<Integer> termEnd = new ArrayList<>();
+        private final List<Integer> termDepth = new ArrayList<>();
+        private final TreeSet<Integer> usedSlots = new TreeSet<>();
+
+        private int depth = 0;
+        private int maxDepth = 0;
+
+        private Compiler(Map<String, Integer> slots) {
+            this.slots = slots;
+        }
+
+        private void compile(Expression expression) {
+            if (expression instanceof ConstantExpression) {
+                constant(expression.evaluate(null));
+            } else if (expression instanceof VariableExpression) {
+                String name = ((VariableExpression) expression).getVariable();
+                Integer slot = slots.get(name);
+
+                if (slot == null) {
+                    missing.add(name);
+                    emit(MISSING, missing.size() - 1, 1);
+                } else {
+                    usedSlots.add(slot);
+                    emit(LOAD, slot, 1);
+                }
+            } else if (!(expression instanceof AbstractExpression) || !compileOperator(expression)) {
+                fallbacks.add(expression);
+                addSlots(expression);
+                emit(FALLBACK, fallbacks.size() - 1, 1);
+            }
+        }
+
+        // Records the slots read by a subexpression that is not compiled.
+        private void addSlots(Expression expression) {
+            if (expression instanceof VariableExpression) {
+                Integer slot = slots.get(((VariableExpression) expression).getVariable());
+                if (slot != null) usedSlots.add(slot);
+            }
+
+            for (Expression child : expression.getExpressions()) {
+                addSlots(child);
+            }
+        }
+
+        // Compiles an operator that evaluates deterministically from its arguments; false if
+        // the expression is not one.
+        private boolean compileOperator(Expression expression) {
+            String token = expression.getToken();
+            List<Expression> children = expression.getExpressions();
+            int n = children.size();
+
+            if (n == 1 && FUNCTIONS.contains(token)) {
+                compile(children.get(0));
+                emit(FUNCTION, FUNCTIONS.indexOf(token), 0);
+            } else if (n == 2 && BINARY.containsKey(token)) {
+                compile(children.get(0));
+                compile(children.get(1));
+                emit(BINARY.get(token), 0, -1);
+            } else if ("-".equals(token) && n == 1) {
+                compile(children.get(0));
+                emit(NEG, 0, 0);
+            } else if ("-".equals(token) && n == 2) {
+                compile(children.get(0));
+                compile(children.get(1));
+                emit(SUB, 0, -1);
+            } else if ("+".equals(token) && n > 0) {
+                constant(0.0);
+
+                for (Expression child : children) {
+                    int start = ops.size();
+                    int startDepth = depth;
+                    compile(child);
+                    termStart.add(start);
+                    termEnd.add(ops.size());
+                    termDepth.add(startDepth);
+                    emit(ADD, 0, -1);
+                }
+            } else if ("*".equals(token) && n > 0) {
+                constant(1.0);
+
+                for (Expression child : children) {
+                    compile(child);
+                    emit(MUL, 0, -1);
+                }
+            } else if (("max".equals(token) || "min".equals(token) || "AND".equals(token)) && n > 0) {
+                for (Expression child : children) compile(child);
+                int op = "max".equals(token) ? MAX : "min".equals(token) ? MIN : AND;
+                emit(op, n, 1 - n);
+            } else if ("OR".equals(token) && n > 0) {
+                List<Integer> jumps = new ArrayList<>();
+
+                for (Expression child : children) {
+                    compile(child);
+                    jumps.add(ops.size());
+                    emit(OR_TEST, 0, -1);
+                }
+
+                constant(0.0);
+
+                for (int jump : jumps) args.set(jump, ops.size());
+            } else if ("IF".equals(token) && n == 3) {
+                for (Expression child : children) compile(child);
+                emit(IF, 0, -2);
+            } else {
+                return false;
+            }
+
+            return true;
+        }
+
+        private void constant(double value) {
+            constants.add(value);
+            emit(CONST, constants.size() - 1, 1);
+        }
+
+        private void emit(int op, int arg, int stackChange) {
+            ops.add(op);
+            args.add(arg);
+            depth += stackChange;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+    }
+
+    // Reads slots by name, for the subexpressions that are not compiled.
+    private static final class SlotContext implements Context {
+        private final Map<String, Integer> slots;
+        private double[] values;
+        private boolean[] assigned;
+
+        private SlotContext(Map<String, Integer> slots) {
+            this.slots = slots;
+        }
+
+        public Double getValue(String var) {
+            Integer slot = slots.get(var);
+            if (slot == null || slot >= values.length) return null;
+            if (assigned != null && !assigned[slot]) return null;
+            return values[slot];
+        }
+
+        private String name(int slot) {
+            for (Map.Entry<String, Integer> entry : slots.entrySet()) {
+                if (entry.getValue() == slot) return entry.getKey();
+            }
+
+            return "Slot " + slot;
+        }
+    }
+}
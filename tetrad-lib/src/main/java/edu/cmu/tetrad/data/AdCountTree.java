@@ -0,0 +1,366 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.data;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers count queries for discrete data from an AD-tree (Moore and Lee, Cached Sufficient
+ * Statistics for Efficient Machine Learning with Large Datasets, JAIR 1998), so that repeated
+ * contingency tables--for a score asked about many parent sets, say--need not each pass over
+ * all of the data.
+ * <p>
+ * The tree is expanded lazily, as queries need it. Each node records the rows matching the
+ * values chosen on the path to it; varying a node on a variable partitions its rows by that
+ * variable's value, except that the most common value is not stored, its counts being
+ * recovered by subtraction. A node with at most leafSize rows is not expanded further but
+ * counted directly from its row list. Once the rows stored in the tree reach maxStoredRows no
+ * further nodes are stored, and queries that would need them count from the rows of the
+ * deepest stored node instead.
+ * <p>
+ * Missing values are kept as a value of their own, so a query counts exactly the rows with no
+ * missing values among its variables, as a pass over the data would. The tree may be queried
+ * from multiple threads.
+ */
+public final class AdCountTree {
+
+    // The data, by variable and then by row.
+    private final int[][] data;
+
+    // The number of values of each variable.
+    private final int[] dims;
+
+    // The number of values of each variable in the tree, counting missing as a value if it occurs.
+    private final int[] arities;
+
+    private final int numRows;
+
+    // Nodes with at most this many rows are not expanded.
+    private volatile int leafSize = 16;
+
+    // The maximum number of row indices stored in the tree.
+    private volatile long maxStoredRows;
+
+    private final AtomicLong storedRows = new AtomicLong();
+
+    private final Node root;
+
+    /**
+     * Constructs a tree for the given data. Nothing is counted until the first query.
+     *
+     * @param data The data, by variable and then by row. Missing values are
+     *             DiscreteVariable.MISSING_VALUE.
+     * @param dims The number of values of each variable.
+     */
+    public AdCountTree(int[][] data, int[] dims) {
+        if (data.length != dims.length) {
+            throw new IllegalArgumentException("Expecting one dimension per column.");
+        }
+
+        this.data = data;
+        this.dims = Arrays.copyOf(dims, dims.length);
+        this.numRows = data.length == 0 ? 0 : data[0].length;
+        this.arities = new int[dims.length];
+
+        for (int j = 0; j < dims.length; j++) {
+            arities[j] = dims[j];
+
+            for (int value : data[j]) {
+                if (value == DiscreteVariable.MISSING_VALUE) {
+                    arities[j] = dims[j] + 1;
+                    break;
+                }
+            }
+        }
+
+        this.maxStoredRows = 2L * numRows * Math.max(1, dims.length);
+        this.root = new Node(null, numRows, -1);
+    }
+
+    /**
+     * Counts the rows with each combination of values of the given variables.
+     *
+     * @param vars Distinct variable indices.
+     * @return The counts, indexed mixed radix by the values of the variables in the order
+     * given, the first most significant. Rows with a missing value for any of the variables
+     * are not counted.
+     */
+    public int[] getCounts(int[] vars) {
+        int[] sorted = Arrays.copyOf(vars, vars.length);
+        Arrays.sort(sorted);
+
+        long size = 1;
+        long treeSize = 1;
+
+        for (int i = 0; i < sorted.length; i++) {
+            if (i > 0 && sorted[i] == sorted[i - 1]) {
+                throw new IllegalArgumentException("Variables must be distinct: " + Arrays.toString(vars));
+            }
+
+            size *= dims[sorted[i]];
+            treeSize *= arities[sorted[i]];
+
+            if (treeSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many cells: " + Arrays.toString(vars));
+            }
+        }
+
+        int[] counts = table(root, sorted, 0);
+
+        // Strides of the variables, in sorted order, in the table returned.
+        int[] strides = new int[vars.length];
+        int stride = 1;
+
+        for (int i = vars.length - 1; i >= 0; i--) {
+            for (int j = 0; j < sorted.length; j++) {
+                if (sorted[j] == vars[i]) strides[j] = stride;
+            }
+
+            stride *= dims[vars[i]];
+        }
+
+        int[] result = new int[(int) size];
+        int[] values = new int[sorted.length];
+
+        CELL:
+        for (int cell = 0; cell < counts.length; cell++) {
+            int c = cell;
+            int index = 0;
+
+            for (int j = sorted.length - 1; j >= 0; j--) {
+                values[j] = c % arities[sorted[j]];
+                c /= arities[sorted[j]];
+            }
+
+            for (int j = 0; j < sorted.length; j++) {
+                if (values[j] >= dims[sorted[j]]) continue CELL;
+                index += values[j] * strides[j];
+            }
+
+            result[index] = counts[cell];
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the data the tree counts, by variable and then by row.
+     */
+    public int[][] getData() {
+        return data;
+    }
+
+    /**
+     * @return the number of values of each variable.
+     */
+    public int[] getDims() {
+        return Arrays.copyOf(dims, dims.length);
+    }
+
+    public int getNumRows() {
+        return numRows;
+    }
+
+    /**
+     * @return the number of row indices currently stored in the tree.
+     */
+    public long getNumStoredRows() {
+        return storedRows.get();
+    }
+
+    /**
+     * @param leafSize Nodes with at most this many rows are counted from their row lists
+     *                 rather than expanded. Default 16.
+     */
+    public void setLeafSize(int leafSize) {
+        if (leafSize < 0) throw new IllegalArgumentException("Leaf size must be >= 0: " + leafSize);
+        this.leafSize = leafSize;
+    }
+
+    /**
+     * @param maxStoredRows The maximum number of row indices stored in the tree, each taking
+     *                      4 bytes. Default twice the number of data cells.
+     */
+    public void setMaxStoredRows(long maxStoredRows) {
+        if (maxStoredRows < 0) throw new IllegalArgumentException("Max stored rows must be >= 0: " + maxStoredRows);
+        this.maxStoredRows = maxStoredRows;
+    }
+
+    //==================================PRIVATE METHODS=================================//
+
+    // The counts for the rows of the node over vars[from], ..., vars[vars.length - 1], indexed
+    // mixed radix by arity.
+    private int[] table(Node node, int[] vars, int from) {
+        if (from == vars.length) {
+            return new int[]{node.count};
+        }
+
+        int v = vars[from];
+        int restSize = 1;
+
+        for (int i = from + 1; i < vars.length; i++) {
+            restSize *= arities[vars[i]];
+        }
+
+        int[] result = new int[arities[v] * restSize];
+
+        Vary vary = node.count <= leafSize ? null : node.vary(v);
+
+        if (vary == null) {
+            count(node, vars, from, result);
+            return result;
+        }
+
+        // The most common value gets what the others leave.
+        int[] mcv = table(node, vars, from + 1);
+
+        for (int k = 0; k < vary.children.length; k++) {
+            Node child = vary.children[k];
+            if (child == null) continue;
+
+            int[] sub = table(child, vars, from + 1);
+            System.arraycopy(sub, 0, result, k * restSize, restSize);
+
+            for (int i = 0; i < restSize; i++) {
+                mcv[i] -= sub[i];
+            }
+        }
+
+        System.arraycopy(mcv, 0, result, vary.mcv * restSize, restSize);
+        return result;
+    }
+
+    // Counts the rows of the node directly.
+    private void count(Node node, int[] vars, int from, int[] result) {
+        int n = node.rows == null ? numRows : node.rows.length;
+
+        for (int r = 0; r < n; r++) {
+            int row = node.rows == null ? r : node.rows[r];
+            int index = 0;
+
+            for (int i = from; i < vars.length; i++) {
+                index = index * arities[vars[i]] + value(vars[i], row);
+            }
+
+            result[index]++;
+        }
+    }
+
+    private int value(int var, int row) {
+        int value = data[var][row];
+        return value == DiscreteVariable.MISSING_VALUE ? dims[var] : value;
+    }
+
+    // A set of rows, those matching the values on the path to it.
+    private final class Node {
+
+        // The rows, or null for all rows.
+        private final int[] rows;
+        private final int count;
+
+        // The variable varied to reach this node; only later variables are varied below it.
+        private final int var;
+
+        private final ConcurrentMap<Integer, Vary> varies = new ConcurrentHashMap<>();
+
+        private Node(int[] rows, int count, int var) {
+            this.rows = rows;
+            this.count = count;
+            this.var = var;
+        }
+
+        // The partition of this node's rows by the given variable, or null if storing it would
+        // exceed the memory cap. A refusal is remembered, so the rows are counted for it once.
+        private Vary vary(int v) {
+            if (v <= var) throw new IllegalStateException("Variables must be varied in order.");
+            Vary vary = varies.get(v);
+            if (vary == null) vary = varies.computeIfAbsent(v, this::makeVary);
+            return vary == NOT_EXPANDED ? null : vary;
+        }
+
+        private Vary makeVary(int v) {
+            int arity = arities[v];
+            int[] counts = new int[arity];
+            int n = rows == null ? numRows : rows.length;
+
+            for (int r = 0; r < n; r++) {
+                counts[value(v, rows == null ? r : rows[r])]++;
+            }
+
+            int mcv = 0;
+
+            for (int k = 1; k < arity; k++) {
+                if (counts[k] > counts[mcv]) mcv = k;
+            }
+
+            long stored = n - counts[mcv];
+
+            if (storedRows.addAndGet(stored) > maxStoredRows) {
+                storedRows.addAndGet(-stored);
+                return NOT_EXPANDED;
+            }
+
+            int[][] childRows = new int[arity][];
+
+            for (int k = 0; k < arity; k++) {
+                if (k != mcv && counts[k] > 0) childRows[k] = new int[counts[k]];
+            }
+
+            int[] filled = new int[arity];
+
+            for (int r = 0; r < n; r++) {
+                int row = rows == null ? r : rows[r];
+                int k = value(v, row);
+                if (childRows[k] != null) childRows[k][filled[k]++] = row;
+            }
+
+            Node[] children = new Node[arity];
+
+            for (int k = 0; k < arity; k++) {
+                if (childRows[k] != null) children[k] = new Node(childRows[k], counts[k], v);
+            }
+
+            return new Vary(mcv, children);
+        }
+    }
+
+    // Stands for a partition not stored because of the memory cap.
+    private static final Vary NOT_EXPANDED = new Vary(-1, new Node[0]);
+
+    // A node's rows partitioned by the values of one variable.
+    private static final class Vary {
+
+        // The most common value, which has no child.
+        private final int mcv;
+
+        // The children by value; null for the most common value and for values with no rows.
+        private final Node[] children;
+
+        private Vary(int mcv, Node[] children) {
+            this.mcv = mcv;
+            this.children = children;
+        }
+    }
+}
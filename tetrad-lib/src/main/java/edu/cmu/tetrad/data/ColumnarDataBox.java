@@ -0,0 +1,280 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.data;
+
+import edu.cmu.tetrad.graph.Node;
+import edu.pitt.dbmi.data.reader.columnar.ColumnarData;
+import edu.pitt.dbmi.data.reader.columnar.ColumnarDataFileReader;
+import edu.pitt.dbmi.data.reader.columnar.ColumnarDataFileWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Stores data read from a binary columnar data file. Columns are memory-mapped
+ * from the file the first time they are used, so a large data set may be opened
+ * quickly and only the columns a search looks at are paged in. A column that
+ * is written to is first copied into memory; the file is never changed.
+ * <p>
+ * When serialized, the data are copied into an ordinary data box.
+ *
+ * @see edu.pitt.dbmi.data.reader.columnar.ColumnarDataFileReader
+ */
+public class ColumnarDataBox implements DataBox {
+    static final long serialVersionUID = 23L;
+
+    /**
+     * The columnar data.
+     */
+    private final transient ColumnarData data;
+
+    /**
+     * The variables, one for each column.
+     */
+    private final transient List<Node> variables;
+
+    /**
+     * For each column, the mapped buffer, or an array once the column has been
+     * written to, or null if the column has not been used yet.
+     */
+    private final transient AtomicReferenceArray<Object> columns;
+
+    /**
+     * Constructs a box over the given data. The variables must match the columns
+     * in number and type.
+     */
+    public ColumnarDataBox(ColumnarData data, List<Node> variables) {
+        if (variables.size() != data.getNumOfColumns()) {
+            throw new IllegalArgumentException("Expected " + data.getNumOfColumns()
+                    + " variables but got " + variables.size() + ".");
+        }
+
+        for (int j = 0; j < variables.size(); j++) {
+            boolean discrete = data.getDataColumns()[j].getDataColumn().isDiscrete();
+
+            if (discrete != (variables.get(j) instanceof DiscreteVariable)) {
+                throw new IllegalArgumentException("Variable " + variables.get(j)
+                        + " does not match the type of its column.");
+            }
+        }
+
+        this.data = data;
+        this.variables = new ArrayList<>(variables);
+        this.columns = new AtomicReferenceArray<>(variables.size());
+    }
+
+    /**
+     * Generates a simple exemplar of this class to test serialization.
+     */
+    public static BoxDataSet serializableInstance() {
+        try {
+            File file = File.createTempFile("columnar", ".data");
+            file.deleteOnExit();
+
+            ColumnarDataFileWriter writer = new ColumnarDataFileWriter(4);
+            writer.addContinuousColumn("X0", row -> row);
+            writer.addDiscreteColumn("X1", Arrays.asList("a", "b"), row -> row % 2);
+            writer.write(file.toPath());
+
+            List<Node> vars = new ArrayList<>();
+            vars.add(new ContinuousVariable("X0"));
+            vars.add(new DiscreteVariable("X1", Arrays.asList("a", "b")));
+
+            ColumnarData data = new ColumnarDataFileReader(file.toPath()).readInData();
+            return new BoxDataSet(new ColumnarDataBox(data, vars), vars);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the number of rows in this data box.
+     */
+    public int numRows() {
+        return data.getNumOfRows();
+    }
+
+    /**
+     * @return the number of columns in this data box.
+     */
+    public int numCols() {
+        return variables.size();
+    }
+
+    /**
+     * Sets the value at the given row/column to the given Number value. The
+     * column is copied into memory first if this is the first write to it.
+     */
+    public void set(int row, int col, Number value) {
+        Object column = columns.get(col);
+
+        if (!(column instanceof double[] || column instanceof int[])) {
+            synchronized (this) {
+                column = columns.get(col);
+
+                if (column instanceof DoubleBuffer || column == null && isContinuous(col)) {
+                    double[] copy = new double[numRows()];
+                    data.getContinuousColumn(col).get(copy);
+                    column = copy;
+                } else if (column instanceof IntBuffer || column == null) {
+                    int[] copy = new int[numRows()];
+                    data.getDiscreteColumn(col).get(copy);
+                    column = copy;
+                }
+
+                columns.set(col, column);
+            }
+        }
+
+        if (column instanceof double[]) {
+            ((double[]) column)[row] = value == null ? Double.NaN : value.doubleValue();
+        } else {
+            ((int[]) column)[row] = value == null ? DiscreteVariable.MISSING_VALUE : value.intValue();
+        }
+    }
+
+    /**
+     * @return the Number value at the given row and column.
+     */
+    public Number get(int row, int col) {
+        Object column = column(col);
+
+        if (column instanceof DoubleBuffer) {
+            return ((DoubleBuffer) column).get(row);
+        } else if (column instanceof IntBuffer) {
+            return ((IntBuffer) column).get(row);
+        } else if (column instanceof double[]) {
+            return ((double[]) column)[row];
+        } else {
+            return ((int[]) column)[row];
+        }
+    }
+
+    /**
+     * @return a copy of this data box, held in memory.
+     */
+    public DataBox copy() {
+        return like();
+    }
+
+    /**
+     * @return a copy of this data box, held in memory.
+     */
+    public DataBox like() {
+        int[] rows = new int[numRows()];
+        int[] cols = new int[numCols()];
+
+        for (int i = 0; i < numRows(); i++) rows[i] = i;
+        for (int j = 0; j < numCols(); j++) cols[j] = j;
+
+        return viewSelection(rows, cols);
+    }
+
+    /**
+     * @return the given selection, copied into a VerticalDoubleDataBox if all
+     * selected columns are continuous, a VerticalIntDataBox if all are discrete,
+     * or else a MixedDataBox.
+     */
+    @Override
+    public DataBox viewSelection(int[] rows, int[] cols) {
+        double[][] continuousData = new double[cols.length][];
+        int[][] discreteData = new int[cols.length][];
+        List<Node> selectedVariables = new ArrayList<>();
+        int numContinuous = 0;
+
+        for (int j = 0; j < cols.length; j++) {
+            Object column = column(cols[j]);
+            selectedVariables.add(variables.get(cols[j]));
+
+            if (isContinuous(cols[j])) {
+                continuousData[j] = new double[rows.length];
+                numContinuous++;
+
+                for (int i = 0; i < rows.length; i++) {
+                    continuousData[j][i] = column instanceof DoubleBuffer
+                            ? ((DoubleBuffer) column).get(rows[i])
+                            : ((double[]) column)[rows[i]];
+                }
+            } else {
+                discreteData[j] = new int[rows.length];
+
+                for (int i = 0; i < rows.length; i++) {
+                    discreteData[j][i] = column instanceof IntBuffer
+                            ? ((IntBuffer) column).get(rows[i])
+                            : ((int[]) column)[rows[i]];
+                }
+            }
+        }
+
+        if (cols.length == 0) {
+            return new VerticalDoubleDataBox(rows.length, 0);
+        } else if (numContinuous == cols.length) {
+            return new VerticalDoubleDataBox(continuousData);
+        } else if (numContinuous == 0) {
+            return new VerticalIntDataBox(discreteData);
+        } else {
+            return new MixedDataBox(selectedVariables, rows.length, continuousData, discreteData);
+        }
+    }
+
+    /**
+     * @return the columnar data this box reads from.
+     */
+    public ColumnarData getData() {
+        return data;
+    }
+
+    //==================================PRIVATE METHODS=================================//
+
+    private Object column(int col) {
+        Object column = columns.get(col);
+
+        if (column == null) {
+            column = isContinuous(col) ? data.getContinuousColumn(col) : data.getDiscreteColumn(col);
+
+            if (!columns.compareAndSet(col, null, column)) {
+                column = columns.get(col);
+            }
+        }
+
+        return column;
+    }
+
+    private boolean isContinuous(int col) {
+        return !data.getDataColumns()[col].getDataColumn().isDiscrete();
+    }
+
+    /**
+     * Serializes a copy of the data held in memory in place of this box, since
+     * the mapped file cannot be serialized.
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        return copy();
+    }
+}
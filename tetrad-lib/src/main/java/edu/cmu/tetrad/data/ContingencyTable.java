@@ -0,0 +1,363 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.data;
+
+import java.util.Arrays;
+
+/**
+ * An immutable table of counts for a few discrete variables, built in one pass over
+ * column-major data. The leading variables index the cells of a stratum and the remaining
+ * (conditioning) variables index the strata; for the test x _||_ y | z1,...,zn the cells are
+ * (x, y) and there is one stratum for each combination of values of z1,...,zn. Cells and
+ * strata are numbered mixed radix, the first variable most significant, so strata come in
+ * the order <code>CombinationIterator</code> visits them.
+ * <p>
+ * Small tables are stored densely. When the number of cells exceeds the larger of the sample
+ * size and DENSE_LIMIT, only the occupied cells are stored, as sorted keys with counts, so that
+ * high-cardinality tables cost O(N) memory rather than the product of the dimensions. Either
+ * way, only strata with at least one count are visited. Rows with a missing value for any of
+ * the variables are skipped.
+ * <p>
+ * A table is built for each query and never modified, so threads never contend for one; this
+ * replaces the shared, synchronized CellTable in the discrete tests.
+ *
+ * @see CellTable
+ */
+public final class ContingencyTable {
+
+    // Tables with at most this many cells are always dense.
+    private static final int DENSE_LIMIT = 1 << 12;
+
+    private final int[] dims;
+    private final int numCellVars;
+    private final int cellSize;
+    private final long numStrata;
+    private final long total;
+
+    // Dense: the counts for all cells, stratum by stratum.
+    private final int[] counts;
+
+    // Sparse: the keys of the occupied cells in ascending order, with their counts.
+    private final long[] keys;
+    private final int[] keyCounts;
+
+    // The strata with at least one count, ascending, and for the sparse table the offset of
+    // each in the keys.
+    private final long[] strata;
+    private final int[] strataStarts;
+
+    /**
+     * Counts the given data.
+     *
+     * @param columns      The data for the variables of the table, by variable and then by row.
+     * @param dims         The number of values of each variable.
+     * @param numCellVars  The number of leading variables that index cells within a stratum.
+     */
+    public ContingencyTable(int[][] columns, int[] dims, int numCellVars) {
+        if (columns.length != dims.length) {
+            throw new IllegalArgumentException("Expecting one dimension per column.");
+        }
+
+        if (numCellVars < 0 || numCellVars > dims.length) {
+            throw new IllegalArgumentException("Number of cell variables out of range: " + numCellVars);
+        }
+
+        this.dims = Arrays.copyOf(dims, dims.length);
+        this.numCellVars = numCellVars;
+
+        long cellSize = 1;
+        long numStrata = 1;
+
+        for (int i = 0; i < dims.length; i++) {
+            if (dims[i] < 1) throw new IllegalArgumentException("Dimensions must be positive: " + dims[i]);
+
+            if (i < numCellVars) {
+                cellSize = Math.multiplyExact(cellSize, dims[i]);
+            } else {
+                numStrata = Math.multiplyExact(numStrata, dims[i]);
+            }
+        }
+
+        if (cellSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many cells per stratum: " + cellSize);
+        }
+
+        long size = Math.multiplyExact(cellSize, numStrata);
+
+        this.cellSize = (int) cellSize;
+        this.numStrata = numStrata;
+
+        int numRows = columns.length == 0 ? 0 : columns[0].length;
+        long[] rowKeys = new long[numRows];
+        int n = 0;
+
+        ROW:
+        for (int i = 0; i < numRows; i++) {
+            long key = 0;
+
+            for (int j = numCellVars; j < dims.length; j++) {
+                int value = columns[j][i];
+                if (value == DiscreteVariable.MISSING_VALUE) continue ROW;
+                key = key * dims[j] + value;
+            }
+
+            for (int j = 0; j < numCellVars; j++) {
+                int value = columns[j][i];
+                if (value == DiscreteVariable.MISSING_VALUE) continue ROW;
+                key = key * dims[j] + value;
+            }
+
+            rowKeys[n++] = key;
+        }
+
+        this.total = n;
+
+        if (size <= Math.max(DENSE_LIMIT, numRows)) {
+            this.counts = new int[(int) size];
+
+            for (int i = 0; i < n; i++) {
+                this.counts[(int) rowKeys[i]]++;
+            }
+
+            this.strata = occupiedStrata(this.counts, this.cellSize);
+            this.strataStarts = null;
+            this.keys = null;
+            this.keyCounts = null;
+        } else {
+            Arrays.sort(rowKeys, 0, n);
+
+            long[] keys = new long[n];
+            int[] keyCounts = new int[n];
+            long[] strata = new long[n];
+            int[] strataStarts = new int[n];
+            int numKeys = 0;
+            int numOccupied = 0;
+
+            for (int i = 0; i < n; i++) {
+                if (numKeys > 0 && keys[numKeys - 1] == rowKeys[i]) {
+                    keyCounts[numKeys - 1]++;
+                    continue;
+                }
+
+                long stratum = rowKeys[i] / cellSize;
+
+                if (numOccupied == 0 || strata[numOccupied - 1] != stratum) {
+                    strata[numOccupied] = stratum;
+                    strataStarts[numOccupied++] = numKeys;
+                }
+
+                keys[numKeys] = rowKeys[i];
+                keyCounts[numKeys++] = 1;
+            }
+
+            this.counts = null;
+            this.keys = Arrays.copyOf(keys, numKeys);
+            this.keyCounts = Arrays.copyOf(keyCounts, numKeys);
+            this.strata = Arrays.copyOf(strata, numOccupied);
+            this.strataStarts = Arrays.copyOf(strataStarts, numOccupied + 1);
+            this.strataStarts[numOccupied] = numKeys;
+        }
+    }
+
+    // A dense table with the given counts.
+    private ContingencyTable(int[] dims, int numCellVars, int cellSize, int[] counts, long total) {
+        this.dims = dims;
+        this.numCellVars = numCellVars;
+        this.cellSize = cellSize;
+        this.numStrata = counts.length / cellSize;
+        this.total = total;
+        this.counts = counts;
+        this.strata = occupiedStrata(counts, cellSize);
+        this.strataStarts = null;
+        this.keys = null;
+        this.keyCounts = null;
+    }
+
+    /**
+     * Counts the given variables of a data set, by index.
+     *
+     * @param data        The data, by variable and then by row.
+     * @param dims        The number of values of each variable in the data.
+     * @param indices     The variables of the table, cell variables first.
+     * @param numCellVars The number of leading variables that index cells within a stratum.
+     */
+    public static ContingencyTable count(int[][] data, int[] dims, int[] indices, int numCellVars) {
+        int[][] columns = new int[indices.length][];
+        int[] _dims = new int[indices.length];
+
+        for (int i = 0; i < indices.length; i++) {
+            columns[i] = data[indices[i]];
+            _dims[i] = dims[indices[i]];
+        }
+
+        return new ContingencyTable(columns, _dims, numCellVars);
+    }
+
+    /**
+     * Counts the given variables of a data set, by index, taking the counts from an AD-tree
+     * over the data when the table would be stored densely and passing over the data
+     * otherwise. The table is the same either way.
+     *
+     * @param tree        An AD-tree over the data.
+     * @param indices     The variables of the table, cell variables first.
+     * @param numCellVars The number of leading variables that index cells within a stratum.
+     */
+    public static ContingencyTable count(AdCountTree tree, int[] indices, int numCellVars) {
+        int[] dims = tree.getDims();
+        int[] _dims = new int[indices.length];
+        long size = 1;
+
+        for (int i = 0; i < indices.length; i++) {
+            _dims[i] = dims[indices[i]];
+            size *= _dims[i];
+
+            if (size > Math.max(DENSE_LIMIT, tree.getNumRows())) {
+                return count(tree.getData(), dims, indices, numCellVars);
+            }
+        }
+
+        if (numCellVars < 0 || numCellVars > indices.length) {
+            throw new IllegalArgumentException("Number of cell variables out of range: " + numCellVars);
+        }
+
+        // Strata variables first, so the counts come keyed as the table keys them.
+        int[] vars = new int[indices.length];
+        System.arraycopy(indices, numCellVars, vars, 0, indices.length - numCellVars);
+        System.arraycopy(indices, 0, vars, indices.length - numCellVars, numCellVars);
+
+        int cellSize = 1;
+        for (int i = 0; i < numCellVars; i++) cellSize *= _dims[i];
+
+        int[] counts = tree.getCounts(vars);
+        long total = 0;
+        for (int count : counts) total += count;
+
+        return new ContingencyTable(_dims, numCellVars, cellSize, counts, total);
+    }
+
+    /**
+     * @return the number of values of the given variable of the table.
+     */
+    public int getNumValues(int var) {
+        return dims[var];
+    }
+
+    /**
+     * @return the number of cells in each stratum.
+     */
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * @return the number of strata, occupied or not.
+     */
+    public long getNumStrata() {
+        return numStrata;
+    }
+
+    /**
+     * @return the number of rows counted, that is, rows with no missing values.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return true if only the occupied cells are stored.
+     */
+    public boolean isSparse() {
+        return counts == null;
+    }
+
+    /**
+     * @return the number of strata with at least one count.
+     */
+    public int getNumOccupiedStrata() {
+        return strata.length;
+    }
+
+    /**
+     * @return the index of the k'th occupied stratum; these are ascending in k.
+     */
+    public long getOccupiedStratum(int k) {
+        return strata[k];
+    }
+
+    /**
+     * Copies the counts of the k'th occupied stratum into the given array, of length at least
+     * the cell size, indexed mixed radix by the cell variables.
+     */
+    public void getCounts(int k, int[] cellCounts) {
+        if (counts != null) {
+            System.arraycopy(counts, (int) strata[k] * cellSize, cellCounts, 0, cellSize);
+        } else {
+            Arrays.fill(cellCounts, 0, cellSize, 0);
+            long base = strata[k] * cellSize;
+
+            for (int i = strataStarts[k]; i < strataStarts[k + 1]; i++) {
+                cellCounts[(int) (keys[i] - base)] = keyCounts[i];
+            }
+        }
+    }
+
+    /**
+     * @param coords The value of each variable of the table.
+     * @return the count for the given cell.
+     */
+    public long getValue(int[] coords) {
+        if (coords.length != dims.length) {
+            throw new IllegalArgumentException("Expecting " + dims.length + " coordinates.");
+        }
+
+        long key = 0;
+
+        for (int j = numCellVars; j < dims.length; j++) key = key * dims[j] + coords[j];
+        for (int j = 0; j < numCellVars; j++) key = key * dims[j] + coords[j];
+
+        if (counts != null) {
+            return counts[(int) key];
+        }
+
+        int i = Arrays.binarySearch(keys, key);
+        return i < 0 ? 0 : keyCounts[i];
+    }
+
+    //==================================PRIVATE METHODS=================================//
+
+    private static long[] occupiedStrata(int[] counts, int cellSize) {
+        int numStrata = counts.length / cellSize;
+        int numOccupied = 0;
+        long[] strata = new long[numStrata];
+
+        for (int s = 0; s < numStrata; s++) {
+            for (int c = s * cellSize; c < (s + 1) * cellSize; c++) {
+                if (counts[c] > 0) {
+                    strata[numOccupied++] = s;
+                    break;
+                }
+            }
+        }
+
+        return Arrays.copyOf(strata, numOccupied);
+    }
+}
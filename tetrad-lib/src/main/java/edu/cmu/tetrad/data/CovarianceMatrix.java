@@ -102,10 +102,21 @@ public class CovarianceMatrix implements ICovarianceMatrix {
             throw new IllegalArgumentException("Not a continuous data set.");
         }
 
-        CovariancesDoubleForkJoin covariances = new CovariancesDoubleForkJoin(dataSet.getDoubleData().toArray(), biasCorrected);
+        DataBox dataBox = dataSet instanceof BoxDataSet ? ((BoxDataSet) dataSet).getDataBox() : null;
+
+        if (dataBox instanceof RowSubsetDataBox && ((RowSubsetDataBox) dataBox).isView()) {
+            RowSubsetDataBox view = (RowSubsetDataBox) dataBox;
+            this._covariancesMatrix = new Matrix(weightedCovariances(view.getParent(),
+                    view.getMultiplicities(), biasCorrected));
+        } else if (LagCovarianceMatrix.isLagView(dataSet)) {
+            this._covariancesMatrix = new LagCovarianceMatrix(dataSet, biasCorrected).getMatrix();
+        } else {
+            CovariancesDoubleForkJoin covariances = new CovariancesDoubleForkJoin(dataSet.getDoubleData().toArray(), biasCorrected);
+            this._covariancesMatrix = new Matrix(covariances.getMatrix());
+        }
+
         this.variables = Collections.unmodifiableList(dataSet.getVariables());
         this.sampleSize = dataSet.getNumRows();
-        this._covariancesMatrix = new Matrix(covariances.getMatrix());
     }
 
     /**
@@ -480,6 +491,118 @@ public class CovarianceMatrix implements ICovarianceMatrix {
         }
     }
 
+    /**
+     * Calculates covariances of a resample directly from the rows of the parent data, weighting
+     * each parent row by the number of times it was drawn, so the resample is never copied.
+     */
+    private static double[][] weightedCovariances(DataBox parent, int[] multiplicities, boolean biasCorrected) {
+        int k = 0;
+        for (int m : multiplicities) if (m > 0) k++;
+
+        int[] rows = new int[k];
+        double[] weights = new double[k];
+        double n = 0;
+        k = 0;
+
+        for (int r = 0; r < multiplicities.length; r++) {
+            if (multiplicities[r] > 0) {
+                rows[k] = r;
+                weights[k++] = multiplicities[r];
+                n += multiplicities[r];
+            }
+        }
+
+        double denominator = biasCorrected ? n - 1 : n;
+
+        if (parent instanceof VerticalDoubleDataBox && parent.numRows() > 0) {
+            return weightedCovariances(((VerticalDoubleDataBox) parent).getVariableVectors(), rows, weights, n,
+                    denominator);
+        } else {
+            return weightedCovariances(parent, rows, weights, n, denominator);
+        }
+    }
+
+    // Weighted covariances of the given rows, reading the parent's columns directly.
+    private static double[][] weightedCovariances(double[][] columns, int[] rows, double[] weights, double n,
+                                                  double denominator) {
+        int numCols = columns.length;
+        double[] means = new double[numCols];
+
+        for (int j = 0; j < numCols; j++) {
+            double sum = 0.0;
+            for (int i = 0; i < rows.length; i++) sum += weights[i] * columns[j][rows[i]];
+            means[j] = sum / n;
+        }
+
+        double[][] covariances = new double[numCols][numCols];
+
+        for (int j1 = 0; j1 < numCols; j1++) {
+            for (int j2 = j1; j2 < numCols; j2++) {
+                double[] c1 = columns[j1];
+                double[] c2 = columns[j2];
+                double sum = 0.0;
+
+                for (int i = 0; i < rows.length; i++) {
+                    sum += weights[i] * (c1[rows[i]] - means[j1]) * (c2[rows[i]] - means[j2]);
+                }
+
+                covariances[j1][j2] = sum / denominator;
+                covariances[j2][j1] = covariances[j1][j2];
+            }
+        }
+
+        return covariances;
+    }
+
+    // Weighted covariances of the given rows of a box that doesn't expose its columns, read a row at a time, so that
+    // nothing the size of the parent is copied for each resample.
+    private static double[][] weightedCovariances(DataBox parent, int[] rows, double[] weights, double n,
+                                                  double denominator) {
+        int numCols = parent.numCols();
+        double[] means = new double[numCols];
+        double[] row = new double[numCols];
+
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < numCols; j++) {
+                means[j] += weights[i] * value(parent, rows[i], j);
+            }
+        }
+
+        for (int j = 0; j < numCols; j++) {
+            means[j] /= n;
+        }
+
+        double[][] covariances = new double[numCols][numCols];
+
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < numCols; j++) {
+                row[j] = value(parent, rows[i], j) - means[j];
+            }
+
+            for (int j1 = 0; j1 < numCols; j1++) {
+                double d = weights[i] * row[j1];
+
+                for (int j2 = j1; j2 < numCols; j2++) {
+                    covariances[j1][j2] += d * row[j2];
+                }
+            }
+        }
+
+        for (int j1 = 0; j1 < numCols; j1++) {
+            for (int j2 = j1; j2 < numCols; j2++) {
+                covariances[j1][j2] /= denominator;
+                covariances[j2][j1] = covariances[j1][j2];
+            }
+        }
+
+        return covariances;
+    }
+
+    private static double value(DataBox box, int row, int col) {
+        Number value = box.get(row, col);
+        return value == null ? Double.NaN : value.doubleValue();
+    }
+
     /**
      * Adds semantic checks to the default deserialization method. This method
      * must have the standard signature for a readObject method, and the body of
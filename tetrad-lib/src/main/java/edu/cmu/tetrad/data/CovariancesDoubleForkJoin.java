@@ -19,6 +19,7 @@
 package edu.cmu.tetrad.data;
 
 import edu.cmu.tetrad.stat.correlation.RealCovarianceMatrixForkJoin;
+import edu.cmu.tetrad.util.ForkJoinPoolInstance;
 
 /**
  * Computes covariances using the standard calculation.
@@ -34,7 +35,7 @@ public class CovariancesDoubleForkJoin {
 
     public CovariancesDoubleForkJoin(double[][] data, boolean biasCorrected) {
         this.numOfCols = data[0].length;
-        RealCovarianceMatrixForkJoin cov = new RealCovarianceMatrixForkJoin(data, 10 * Runtime.getRuntime().availableProcessors());
+        RealCovarianceMatrixForkJoin cov = new RealCovarianceMatrixForkJoin(data, ForkJoinPoolInstance.getInstance().getParallelism());
         this.covariances = cov.compute(biasCorrected);
     }
 
@@ -1430,7 +1430,71 @@ public final class DataUtils {
      * given dataset.
      */
     public static DataSet getResamplingDataset(DataSet data, int sampleSize) {
-        int actualSampleSize = data.getNumRows();
+        int[] rows = getResamplingRows(data.getNumRows(), sampleSize);
+
+        int[] cols = new int[data.getNumColumns()];
+        for (int i = 0; i < cols.length; i++) cols[i] = i;
+
+        return new BoxDataSet(new VerticalDoubleDataBox(data.getDoubleData().getSelection(rows, cols).transpose().toArray()), data.getVariables());
+    }
+
+    /**
+     * @return a sample without replacement with the given sample size from the
+     * given dataset, drawn as for getResamplingDataset. If the dataset is a
+     * BoxDataSet the sample is a view of its rows and no data is copied; the
+     * dataset must then not be modified while the sample is in use.
+     */
+    public static DataSet getResamplingDatasetView(DataSet data, int sampleSize) {
+        if (!(data instanceof BoxDataSet)) {
+            return getResamplingDataset(data, sampleSize);
+        }
+
+        int[] rows = getResamplingRows(data.getNumRows(), sampleSize);
+        return new BoxDataSet(new RowSubsetDataBox(((BoxDataSet) data).getDataBox(), rows), data.getVariables());
+    }
+
+    /**
+     * @return a sample with replacement with the given sample size from the
+     * given dataset.
+     */
+    public static DataSet getBootstrapSample(DataSet data, int sampleSize) {
+        int[] rows = getBootstrapRows(data.getNumRows(), sampleSize);
+
+        int[] cols = new int[data.getNumColumns()];
+        for (int i = 0; i < cols.length; i++) cols[i] = i;
+
+        return new BoxDataSet(new VerticalDoubleDataBox(data.getDoubleData().getSelection(rows, cols).transpose().toArray()),
+                data.getVariables());
+    }
+
+    /**
+     * @return a sample with replacement with the given sample size from the
+     * given dataset, drawn as for getBootstrapSample. If the dataset is a
+     * BoxDataSet the sample is a view of its rows and no data is copied; the
+     * dataset must then not be modified while the sample is in use.
+     * Covariance matrices of such a sample are calculated from the rows of the
+     * dataset weighted by the number of times each was drawn.
+     */
+    public static DataSet getBootstrapSampleView(DataSet data, int sampleSize) {
+        if (!(data instanceof BoxDataSet)) {
+            return getBootstrapSample(data, sampleSize);
+        }
+
+        int[] rows = getBootstrapRows(data.getNumRows(), sampleSize);
+        return new BoxDataSet(new RowSubsetDataBox(((BoxDataSet) data).getDataBox(), rows), data.getVariables());
+    }
+
+    private static int[] getBootstrapRows(int actualSampleSize, int sampleSize) {
+        int[] rows = new int[sampleSize];
+
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = RandomUtil.getInstance().nextInt(actualSampleSize);
+        }
+
+        return rows;
+    }
+
+    private static int[] getResamplingRows(int actualSampleSize, int sampleSize) {
         int _size = sampleSize;
         if (actualSampleSize < _size) {
             _size = actualSampleSize;
@@ -1457,30 +1521,7 @@ public final class DataUtils {
             availRows.remove(index);
         }
 
-        int[] cols = new int[data.getNumColumns()];
-        for (int i = 0; i < cols.length; i++) cols[i] = i;
-
-        return new BoxDataSet(new VerticalDoubleDataBox(data.getDoubleData().getSelection(rows, cols).transpose().toArray()), data.getVariables());
-    }
-
-    /**
-     * @return a sample with replacement with the given sample size from the
-     * given dataset.
-     */
-    public static DataSet getBootstrapSample(DataSet data, int sampleSize) {
-        int actualSampleSize = data.getNumRows();
-
-        int[] rows = new int[sampleSize];
-
-        for (int i = 0; i < rows.length; i++) {
-            rows[i] = RandomUtil.getInstance().nextInt(actualSampleSize);
-        }
-
-        int[] cols = new int[data.getNumColumns()];
-        for (int i = 0; i < cols.length; i++) cols[i] = i;
-
-        return new BoxDataSet(new VerticalDoubleDataBox(data.getDoubleData().getSelection(rows, cols).transpose().toArray()),
-                data.getVariables());
+        return rows;
     }
 
     /**
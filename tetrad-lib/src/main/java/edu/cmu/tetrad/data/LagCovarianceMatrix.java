@@ -0,0 +1,579 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.data;
+
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.util.ForkJoinPoolInstance;
+import edu.cmu.tetrad.util.Matrix;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * The covariance matrix of lagged continuous data, read from the blocks of a time series rather
+ * than from a materialized lag matrix. The data set must be a lagged view of the series, as made
+ * by TimeSeriesUtils.createLagData.
+ * <p>
+ * With w variables and L lags, the covariance of variable i at lag a with variable j at lag b
+ * depends mostly on b - a: over the lagged rows it is the lag-(b - a) autocovariance block of the
+ * series plus a correction for the a rows at either end that the two windows do not share. So the
+ * L + 1 blocks of w x w cross-products are computed once, in one pass over the series, and each
+ * covariance is then an O(L) lookup--exactly the covariance of the materialized lag matrix, at a
+ * cost of (L + 1) w^2 doubles rather than ((L + 1) w)^2 plus a copy of the data (L + 1) times the
+ * size of the series. The blocks are kept with the lagged view, so every matrix over it, for
+ * every score and test, shares them.
+ *
+ * @see LagDataBox
+ */
+public class LagCovarianceMatrix implements ICovarianceMatrix {
+    static final long serialVersionUID = 23L;
+
+    /**
+     * The name of the covariance matrix.
+     *
+     * @serial May be null.
+     */
+    private String name;
+
+    /**
+     * The variables (in order) for this covariance matrix.
+     *
+     * @serial Cannot be null.
+     */
+    private List<Node> variables;
+
+    /**
+     * The lagged view the covariances are of.
+     *
+     * @serial Cannot be null.
+     */
+    private final LagDataBox box;
+
+    /**
+     * True if covariances are divided by n - 1 rather than n.
+     *
+     * @serial
+     */
+    private final boolean biasCorrected;
+
+    /**
+     * The list of selected variables.
+     *
+     * @serial Cannot be null.
+     */
+    private Set<Node> selectedVariables = new HashSet<>();
+
+    /**
+     * The knowledge for this data.
+     *
+     * @serial Cannot be null.
+     */
+    private IKnowledge knowledge = new Knowledge2();
+
+    //=============================CONSTRUCTORS=========================//
+
+    /**
+     * Constructs the bias-corrected covariance matrix of the given lagged data.
+     *
+     * @throws IllegalArgumentException if the data are not continuous or not a lagged view of a
+     *                                  series.
+     */
+    public LagCovarianceMatrix(DataSet laggedData) {
+        this(laggedData, true);
+    }
+
+    public LagCovarianceMatrix(DataSet laggedData, boolean biasCorrected) {
+        if (!laggedData.isContinuous()) {
+            throw new IllegalArgumentException("Not a continuous data set.");
+        }
+
+        if (!isLagView(laggedData)) {
+            throw new IllegalArgumentException("Not a lagged view of a time series.");
+        }
+
+        this.box = (LagDataBox) ((BoxDataSet) laggedData).getDataBox();
+        this.variables = Collections.unmodifiableList(new ArrayList<>(laggedData.getVariables()));
+        this.biasCorrected = biasCorrected;
+        this.knowledge = laggedData.getKnowledge().copy();
+        this.name = laggedData.getName();
+
+        if (box.numRows() < 2) {
+            throw new IllegalArgumentException("Need at least two lagged rows.");
+        }
+    }
+
+    /**
+     * Copy constructor; the copy shares the blocks of the original.
+     */
+    public LagCovarianceMatrix(LagCovarianceMatrix covMatrix) {
+        this.box = covMatrix.box;
+        this.variables = covMatrix.variables;
+        this.biasCorrected = covMatrix.biasCorrected;
+        this.name = covMatrix.name;
+        this.knowledge = covMatrix.knowledge.copy();
+    }
+
+    /**
+     * Generates a simple exemplar of this class to test serialization.
+     */
+    public static LagCovarianceMatrix serializableInstance() {
+        List<Node> variables = new ArrayList<>();
+        variables.add(new ContinuousVariable("X"));
+        variables.add(new ContinuousVariable("X:1"));
+        double[][] series = {{1.0, 2.0, 4.0, 3.0}};
+        return new LagCovarianceMatrix(new BoxDataSet(new LagDataBox(new VerticalDoubleDataBox(series), 1),
+                variables));
+    }
+
+    //============================PUBLIC METHODS=========================//
+
+    /**
+     * @return true if the given data set is a lagged view of a time series that has not been
+     * written to, over which a LagCovarianceMatrix may be constructed.
+     */
+    public static boolean isLagView(DataSet dataSet) {
+        if (!(dataSet instanceof BoxDataSet)) return false;
+        DataBox box = ((BoxDataSet) dataSet).getDataBox();
+        return box instanceof LagDataBox && ((LagDataBox) box).getNumLags() >= 0 && ((LagDataBox) box).isView();
+    }
+
+    /**
+     * @return the means of the lagged columns.
+     */
+    public double[] getMeans() {
+        Blocks blocks = box.getBlocks();
+        double[] means = new double[variables.size()];
+
+        for (int c = 0; c < means.length; c++) {
+            means[c] = blocks.mean(c / blocks.width, c % blocks.width);
+        }
+
+        return means;
+    }
+
+    public final List<Node> getVariables() {
+        return this.variables;
+    }
+
+    public final List<String> getVariableNames() {
+        List<String> names = new ArrayList<>();
+
+        for (Node variable : variables) {
+            names.add(variable.getName());
+        }
+
+        return names;
+    }
+
+    public final String getVariableName(int index) {
+        if (index >= variables.size()) {
+            throw new IllegalArgumentException("Index out of range: " + index);
+        }
+
+        return variables.get(index).getName();
+    }
+
+    public final int getDimension() {
+        return variables.size();
+    }
+
+    /**
+     * @return the number of lagged rows.
+     */
+    public final int getSampleSize() {
+        return box.numRows();
+    }
+
+    public final String getName() {
+        return this.name;
+    }
+
+    public final void setName(String name) {
+        this.name = name;
+    }
+
+    public final IKnowledge getKnowledge() {
+        return this.knowledge;
+    }
+
+    public final void setKnowledge(IKnowledge knowledge) {
+        if (knowledge == null) throw new NullPointerException();
+        this.knowledge = knowledge;
+    }
+
+    /**
+     * @return the covariances of the given variables, in the given order.
+     */
+    public final ICovarianceMatrix getSubmatrix(int[] indices) {
+        List<Node> submatrixVars = new LinkedList<>();
+
+        for (int index : indices) {
+            submatrixVars.add(variables.get(index));
+        }
+
+        return new CovarianceMatrix(submatrixVars, getSelection(indices, indices), getSampleSize());
+    }
+
+    public final ICovarianceMatrix getSubmatrix(List<String> submatrixVarNames) {
+        return getSubmatrix(submatrixVarNames.toArray(new String[0]));
+    }
+
+    public final ICovarianceMatrix getSubmatrix(String[] submatrixVarNames) {
+        int[] indices = new int[submatrixVarNames.length];
+
+        for (int i = 0; i < indices.length; i++) {
+            Node variable = getVariable(submatrixVarNames[i]);
+
+            if (variable == null) {
+                throw new IllegalArgumentException("Not a variable in this matrix: " + submatrixVarNames[i]);
+            }
+
+            indices[i] = variables.indexOf(variable);
+        }
+
+        return getSubmatrix(indices);
+    }
+
+    /**
+     * @return the covariance of lagged columns i and j.
+     */
+    public final double getValue(int i, int j) {
+        Blocks blocks = box.getBlocks();
+        int w = blocks.width;
+        int n = box.numRows();
+        double covariance = blocks.comoment(i / w, i % w, j / w, j % w);
+        return covariance / (biasCorrected ? n - 1 : n);
+    }
+
+    /**
+     * Unsupported; the covariances are read from the series.
+     */
+    public void setMatrix(Matrix matrix) {
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Unsupported; the sample size is the number of lagged rows.
+     */
+    public void setSampleSize(int sampleSize) {
+        throw new IllegalStateException();
+    }
+
+    public final int getSize() {
+        return variables.size();
+    }
+
+    /**
+     * @return the full covariance matrix (a copy).
+     */
+    public final Matrix getMatrix() {
+        int[] all = new int[variables.size()];
+        for (int i = 0; i < all.length; i++) all[i] = i;
+        return getSelection(all, all);
+    }
+
+    public final void select(Node variable) {
+        if (variables.contains(variable)) {
+            selectedVariables.add(variable);
+        }
+    }
+
+    public final void clearSelection() {
+        selectedVariables.clear();
+    }
+
+    public final boolean isSelected(Node variable) {
+        if (variable == null) {
+            throw new NullPointerException("Null variable. Try again.");
+        }
+
+        return selectedVariables.contains(variable);
+    }
+
+    public final List<String> getSelectedVariableNames() {
+        List<String> selectedVariableNames = new LinkedList<>();
+
+        for (Node variable : selectedVariables) {
+            selectedVariableNames.add(variable.getName());
+        }
+
+        return selectedVariableNames;
+    }
+
+    /**
+     * Prints out the matrix
+     */
+    public final String toString() {
+        return new CovarianceMatrix(variables, getMatrix(), getSampleSize()).toString();
+    }
+
+    @Override
+    public boolean isContinuous() {
+        return true;
+    }
+
+    @Override
+    public boolean isDiscrete() {
+        return false;
+    }
+
+    @Override
+    public boolean isMixed() {
+        return false;
+    }
+
+    public Node getVariable(String name) {
+        for (Node variable : variables) {
+            if (name.equals(variable.getName())) {
+                return variable;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Unsupported; the covariances are read from the series.
+     */
+    @Override
+    public void setValue(int i, int j, double v) {
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public void removeVariables(List<String> remaining) {
+        throw new IllegalStateException();
+    }
+
+    public void setVariables(List<Node> variables) {
+        if (variables.size() != this.variables.size()) {
+            throw new IllegalArgumentException("Wrong # of variables.");
+        }
+
+        for (int i = 0; i < variables.size(); i++) {
+            if (!variables.get(i).getName().equals(this.variables.get(i).getName())) {
+                throw new IllegalArgumentException("Variable in index " + (i + 1) + " does not have the same name "
+                        + "as the variable being substituted for it.");
+            }
+        }
+
+        this.variables = Collections.unmodifiableList(new ArrayList<>(variables));
+    }
+
+    @Override
+    public Matrix getSelection(int[] rows, int[] cols) {
+        Matrix selection = new Matrix(rows.length, cols.length);
+
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < cols.length; j++) {
+                selection.set(i, j, getValue(rows[i], cols[j]));
+            }
+        }
+
+        return selection;
+    }
+
+    @Override
+    public DataModel copy() {
+        return new LagCovarianceMatrix(this);
+    }
+
+    //========================PACKAGE CLASSES============================//
+
+    /**
+     * The cross-product blocks of a series for lag differences 0 to L, with the end rows needed
+     * to correct them for particular lags. All moments are of the series centered at its means.
+     */
+    static final class Blocks {
+
+        // The number of variables of the series.
+        final int width;
+
+        private final int numLags;
+        private final int numRows;
+        private final int numLaggedRows;
+
+        // The series means.
+        private final double[] means;
+
+        // toeplitz[h][i][j] = sum_r x(r + L, i) x(r + L - h, j) over the lagged rows r.
+        private final double[][][] toeplitz;
+
+        // The sum of x(r + L, i) over the lagged rows r.
+        private final double[] sums;
+
+        // Rows 0 to L - 1 and N - L to N - 1 of the centered series.
+        private final double[][] head;
+        private final double[][] tail;
+
+        Blocks(DataBox series, int numLags) {
+            this.width = series.numCols();
+            this.numLags = numLags;
+            this.numRows = series.numRows();
+            this.numLaggedRows = numRows - numLags;
+
+            final double[][] x = new double[width][numRows];
+            this.means = new double[width];
+
+            for (int j = 0; j < width; j++) {
+                for (int t = 0; t < numRows; t++) {
+                    Number value = series.get(t, j);
+                    x[j][t] = value == null ? Double.NaN : value.doubleValue();
+                    means[j] += x[j][t];
+                }
+
+                means[j] /= numRows;
+
+                for (int t = 0; t < numRows; t++) {
+                    x[j][t] -= means[j];
+                }
+            }
+
+            this.sums = new double[width];
+
+            for (int j = 0; j < width; j++) {
+                for (int r = 0; r < numLaggedRows; r++) {
+                    sums[j] += x[j][r + numLags];
+                }
+            }
+
+            this.head = new double[numLags][width];
+            this.tail = new double[numLags][width];
+
+            for (int k = 0; k < numLags; k++) {
+                for (int j = 0; j < width; j++) {
+                    head[k][j] = x[j][k];
+                    tail[k][j] = x[j][numRows - numLags + k];
+                }
+            }
+
+            this.toeplitz = new double[numLags + 1][width][width];
+
+            List<Callable<Boolean>> tasks = new ArrayList<>();
+
+            for (int i = 0; i < width; i++) {
+                final int _i = i;
+
+                tasks.add(() -> {
+                    double[] xi = x[_i];
+
+                    for (int h = 0; h <= numLags; h++) {
+                        for (int j = 0; j < width; j++) {
+                            double[] xj = x[j];
+                            double sum = 0.0;
+
+                            for (int r = numLags; r < numRows; r++) {
+                                sum += xi[r] * xj[r - h];
+                            }
+
+                            toeplitz[h][_i][j] = sum;
+                        }
+                    }
+
+                    return true;
+                });
+            }
+
+            ForkJoinPoolInstance.getInstance().getPool().invokeAll(tasks);
+        }
+
+        /**
+         * The mean of variable i at lag a over the lagged rows.
+         */
+        double mean(int a, int i) {
+            return means[i] + sum(a, i) / numLaggedRows;
+        }
+
+        /**
+         * The co-moment over the lagged rows of variable i at lag a and variable j at lag b, that
+         * is, the sum of products of their deviations from their means.
+         */
+        double comoment(int a, int i, int b, int j) {
+            if (a > b) {
+                return comoment(b, j, a, i);
+            }
+
+            // Windows at lags a and b are those at lags 0 and b - a, moved a rows back.
+            int h = b - a;
+            double s = toeplitz[h][i][j];
+
+            for (int k = 0; k < a; k++) {
+                s += x(numLags - 1 - k, i) * x(numLags - 1 - k - h, j)
+                        - x(numRows - 1 - k, i) * x(numRows - 1 - k - h, j);
+            }
+
+            return s - sum(a, i) * sum(b, j) / numLaggedRows;
+        }
+
+        // The sum of centered variable i at lag a over the lagged rows.
+        private double sum(int a, int i) {
+            double s = sums[i];
+
+            for (int k = 0; k < a; k++) {
+                s += x(numLags - 1 - k, i) - x(numRows - 1 - k, i);
+            }
+
+            return s;
+        }
+
+        // Row t of the centered series, for t among the first or last L rows.
+        private double x(int t, int j) {
+            return t < numLags ? head[t][j] : tail[t - (numRows - numLags)][j];
+        }
+    }
+
+    //========================PRIVATE METHODS============================//
+
+    /**
+     * Adds semantic checks to the default deserialization method. This method
+     * must have the standard signature for a readObject method, and the body of
+     * the method must begin with "s.defaultReadObject();". Other than that, any
+     * semantic checks can be specified and do not need to stay the same from
+     * version to version. A readObject method of this form may be added to any
+     * class, even if Tetrad sessions were previously saved out using a version
+     * of the class that didn't include it. (That's what the
+     * "s.defaultReadObject();" is for. See J. Bloch, Effective Java, for help.
+     */
+    private void readObject(ObjectInputStream s)
+            throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+
+        if (variables == null || box == null) {
+            throw new NullPointerException();
+        }
+
+        if (knowledge == null) {
+            throw new NullPointerException();
+        }
+
+        if (selectedVariables == null) {
+            selectedVariables = new HashSet<>();
+        }
+    }
+}
@@ -0,0 +1,317 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.data;
+
+import edu.cmu.tetrad.graph.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A view of a time series as lagged or shifted data, reading each cell from the series rather
+ * than copying it. In the lagged form, column lag * w + j of the view (w the number of columns
+ * of the series) is column j of the series lag rows back, and row r of the view is row
+ * r + numLags of the series, as in TimeSeriesUtils.createLagData. In the shifted form, column j
+ * is column j of the series shifted down by a given number of rows.
+ * <p>
+ * The series must not be modified while the view is in use. The view itself may be written
+ * to--on the first write the view is copied out of the series, so the series is never changed.
+ * The lagged covariances of a lagged view over continuous data are computed once, as blocks
+ * indexed by the difference in lags, and shared by every LagCovarianceMatrix over it.
+ *
+ * @see LagCovarianceMatrix
+ */
+public class LagDataBox implements DataBox {
+    static final long serialVersionUID = 23L;
+
+    /**
+     * The series cells are read from.
+     */
+    private final DataBox parent;
+
+    /**
+     * The column of the parent for each column of this box.
+     */
+    private final int[] columns;
+
+    /**
+     * The row of the parent for row 0, for each column of this box.
+     */
+    private final int[] offsets;
+
+    /**
+     * The number of rows of this box.
+     */
+    private final int numRows;
+
+    /**
+     * The number of lags, or -1 for a shifted view.
+     */
+    private final int numLags;
+
+    /**
+     * The copied cells, once this box has been written to; null until then.
+     */
+    private volatile DataBox copy;
+
+    /**
+     * The lagged covariance blocks, computed when first asked for.
+     */
+    private transient volatile LagCovarianceMatrix.Blocks blocks;
+
+    /**
+     * Constructs a view of the series with the given number of lags, of numLags + 1 times as many
+     * columns and numLags fewer rows.
+     */
+    public LagDataBox(DataBox parent, int numLags) {
+        if (parent == null) throw new NullPointerException("Parent box not provided.");
+
+        if (numLags < 0 || numLags >= parent.numRows()) {
+            throw new IllegalArgumentException("Number of lags must be in [0, " + (parent.numRows() - 1)
+                    + "]: " + numLags);
+        }
+
+        int width = parent.numCols();
+
+        this.parent = parent;
+        this.numLags = numLags;
+        this.numRows = parent.numRows() - numLags;
+        this.columns = new int[(numLags + 1) * width];
+        this.offsets = new int[(numLags + 1) * width];
+
+        for (int c = 0; c < columns.length; c++) {
+            columns[c] = c % width;
+            offsets[c] = numLags - c / width;
+        }
+    }
+
+    /**
+     * Constructs a view of the series in which column j is shifted down by shifts[j] rows, so that
+     * row r of the view reads row r + shifts[j] of column j; there are as many rows as leave every
+     * shifted column in range.
+     */
+    public LagDataBox(DataBox parent, int[] shifts) {
+        if (parent == null) throw new NullPointerException("Parent box not provided.");
+
+        if (shifts.length != parent.numCols()) {
+            throw new IllegalArgumentException("Expecting a shift for each of " + parent.numCols() + " columns.");
+        }
+
+        int max = 0;
+
+        for (int shift : shifts) {
+            if (shift < 0) throw new IllegalArgumentException("Shifts must be >= 0: " + shift);
+            max = Math.max(max, shift);
+        }
+
+        if (max > parent.numRows()) {
+            throw new IllegalArgumentException("Range of shifts greater than sample size.");
+        }
+
+        this.parent = parent;
+        this.numLags = -1;
+        this.numRows = parent.numRows() - max;
+        this.columns = new int[shifts.length];
+        this.offsets = shifts.clone();
+
+        for (int j = 0; j < columns.length; j++) columns[j] = j;
+    }
+
+    private LagDataBox(DataBox parent, int[] columns, int[] offsets, int numRows) {
+        this.parent = parent;
+        this.numLags = -1;
+        this.numRows = numRows;
+        this.columns = columns;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Generates a simple exemplar of this class to test serialization.
+     */
+    public static BoxDataSet serializableInstance() {
+        List<Node> vars = new ArrayList<>();
+        for (int i = 0; i < 4; i++) vars.add(new ContinuousVariable("X" + i));
+        return new BoxDataSet(new LagDataBox(new VerticalDoubleDataBox(4, 2), 1), vars);
+    }
+
+    /**
+     * @return the number of rows in this data box.
+     */
+    public int numRows() {
+        return numRows;
+    }
+
+    /**
+     * @return the number of columns in this data box.
+     */
+    public int numCols() {
+        return columns.length;
+    }
+
+    /**
+     * Sets the value at the given row/column, copying the view out of the series first if this is
+     * the first write.
+     */
+    public void set(int row, int col, Number value) {
+        DataBox copy = this.copy;
+
+        if (copy == null) {
+            synchronized (this) {
+                if (this.copy == null) {
+                    this.copy = materialize();
+                }
+
+                copy = this.copy;
+            }
+        }
+
+        copy.set(row, col, value);
+    }
+
+    /**
+     * @return the Number value at the given row and column.
+     */
+    public Number get(int row, int col) {
+        DataBox copy = this.copy;
+        return copy == null ? parent.get(row + offsets[col], columns[col]) : copy.get(row, col);
+    }
+
+    /**
+     * @return a copy of the view, independent of the series.
+     */
+    public DataBox copy() {
+        DataBox copy = this.copy;
+        return copy == null ? materialize() : copy.copy();
+    }
+
+    /**
+     * @return a copy of the view, independent of the series.
+     */
+    public DataBox like() {
+        return copy();
+    }
+
+    /**
+     * @return the given selection. If this box has not been written to, this is again a view of
+     * the series; otherwise it is a copy.
+     */
+    @Override
+    public DataBox viewSelection(int[] rows, int[] cols) {
+        DataBox copy = this.copy;
+
+        if (copy != null) {
+            return copy.viewSelection(rows, cols);
+        }
+
+        int[] _columns = new int[cols.length];
+        int[] _offsets = new int[cols.length];
+
+        for (int j = 0; j < cols.length; j++) {
+            _columns[j] = columns[cols[j]];
+            _offsets[j] = offsets[cols[j]];
+        }
+
+        if (isContiguous(rows)) {
+            int first = rows.length == 0 ? 0 : rows[0];
+            for (int j = 0; j < cols.length; j++) _offsets[j] += first;
+            return new LagDataBox(parent, _columns, _offsets, rows.length);
+        }
+
+        return new RowSubsetDataBox(new LagDataBox(parent, _columns, _offsets, numRows), rows);
+    }
+
+    /**
+     * @return the series cells are read from.
+     */
+    public DataBox getParent() {
+        return parent;
+    }
+
+    /**
+     * @return the number of lags of a lagged view, or -1 for a shifted view.
+     */
+    public int getNumLags() {
+        return numLags;
+    }
+
+    /**
+     * @return true if this box still reads from its series, that is, it has not been written to.
+     */
+    public boolean isView() {
+        return copy == null;
+    }
+
+    //==================================PACKAGE METHODS=================================//
+
+    /**
+     * @return the lagged covariance blocks of this view, computing them the first time.
+     * @throws IllegalStateException if this is not a lagged view of the series.
+     */
+    LagCovarianceMatrix.Blocks getBlocks() {
+        if (numLags < 0 || !isView()) {
+            throw new IllegalStateException("Not a lagged view of a series.");
+        }
+
+        LagCovarianceMatrix.Blocks blocks = this.blocks;
+
+        if (blocks == null) {
+            synchronized (this) {
+                if (this.blocks == null) {
+                    this.blocks = new LagCovarianceMatrix.Blocks(parent, numLags);
+                }
+
+                blocks = this.blocks;
+            }
+        }
+
+        return blocks;
+    }
+
+    //==================================PRIVATE METHODS=================================//
+
+    // A box of the parent's type with the cells of this view. The parent's own selection gives
+    // the type and size; the cells are then overwritten with the shifted values.
+    private DataBox materialize() {
+        int[] rows = new int[numRows];
+        for (int i = 0; i < numRows; i++) rows[i] = i;
+
+        DataBox box = parent.viewSelection(rows, columns);
+
+        for (int j = 0; j < columns.length; j++) {
+            if (offsets[j] == 0) continue;
+
+            for (int i = 0; i < numRows; i++) {
+                box.set(i, j, parent.get(i + offsets[j], columns[j]));
+            }
+        }
+
+        return box;
+    }
+
+    private boolean isContiguous(int[] rows) {
+        for (int i = 1; i < rows.length; i++) {
+            if (rows[i] != rows[0] + i) return false;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,203 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.data;
+
+import edu.cmu.tetrad.graph.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A view of selected rows of another data box, in the given order and possibly with repeats, as
+ * for a bootstrap sample or subsample. No data is copied; cells are read from the parent box,
+ * which must not be modified while the view is in use. The view itself may be written to--on
+ * the first write the selected rows are copied out of the parent, so the parent is never
+ * changed.
+ */
+public class RowSubsetDataBox implements DataBox {
+    static final long serialVersionUID = 23L;
+
+    /**
+     * The box rows are taken from.
+     */
+    private final DataBox parent;
+
+    /**
+     * The parent row for each row of this box.
+     */
+    private final int[] rows;
+
+    /**
+     * The copied rows, once this box has been written to; null until then.
+     */
+    private volatile DataBox copy;
+
+    /**
+     * Constructs a view of the given rows of the parent, which may be repeated.
+     */
+    public RowSubsetDataBox(DataBox parent, int[] rows) {
+        if (parent == null) throw new NullPointerException("Parent box not provided.");
+
+        for (int row : rows) {
+            if (row < 0 || row >= parent.numRows()) {
+                throw new IllegalArgumentException("Row out of range: " + row);
+            }
+        }
+
+        this.parent = parent;
+        this.rows = rows.clone();
+    }
+
+    /**
+     * Generates a simple exemplar of this class to test serialization.
+     */
+    public static BoxDataSet serializableInstance() {
+        List<Node> vars = new ArrayList<>();
+        for (int i = 0; i < 4; i++) vars.add(new ContinuousVariable("X" + i));
+        return new BoxDataSet(new RowSubsetDataBox(new VerticalDoubleDataBox(4, 4), new int[]{0, 0, 2}), vars);
+    }
+
+    /**
+     * @return the number of rows in this data box.
+     */
+    public int numRows() {
+        return rows.length;
+    }
+
+    /**
+     * @return the number of columns in this data box.
+     */
+    public int numCols() {
+        return parent.numCols();
+    }
+
+    /**
+     * Sets the value at the given row/column, copying the selected rows out of the parent first
+     * if this is the first write.
+     */
+    public void set(int row, int col, Number value) {
+        DataBox copy = this.copy;
+
+        if (copy == null) {
+            synchronized (this) {
+                if (this.copy == null) {
+                    this.copy = parent.viewSelection(rows, allColumns());
+                }
+
+                copy = this.copy;
+            }
+        }
+
+        copy.set(row, col, value);
+    }
+
+    /**
+     * @return the Number value at the given row and column.
+     */
+    public Number get(int row, int col) {
+        DataBox copy = this.copy;
+        return copy == null ? parent.get(rows[row], col) : copy.get(row, col);
+    }
+
+    /**
+     * @return a copy of the selected rows, independent of the parent.
+     */
+    public DataBox copy() {
+        DataBox copy = this.copy;
+        return copy == null ? parent.viewSelection(rows, allColumns()) : copy.copy();
+    }
+
+    /**
+     * @return a copy of the selected rows, independent of the parent.
+     */
+    public DataBox like() {
+        return copy();
+    }
+
+    /**
+     * @return the given selection. If all columns are selected in order and this box has not been
+     * written to, this is again a view of the parent; otherwise it is a copy.
+     */
+    @Override
+    public DataBox viewSelection(int[] rows, int[] cols) {
+        int[] parentRows = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) parentRows[i] = this.rows[rows[i]];
+
+        DataBox copy = this.copy;
+
+        if (copy != null) {
+            return copy.viewSelection(rows, cols);
+        } else if (isAllColumns(cols)) {
+            return new RowSubsetDataBox(parent, parentRows);
+        } else {
+            return parent.viewSelection(parentRows, cols);
+        }
+    }
+
+    /**
+     * @return the box rows are taken from.
+     */
+    public DataBox getParent() {
+        return parent;
+    }
+
+    /**
+     * @return a copy of the parent row for each row of this box.
+     */
+    public int[] getRows() {
+        return rows.clone();
+    }
+
+    /**
+     * @return the number of times each row of the parent occurs in this box.
+     */
+    public int[] getMultiplicities() {
+        int[] multiplicities = new int[parent.numRows()];
+        for (int row : rows) multiplicities[row]++;
+        return multiplicities;
+    }
+
+    /**
+     * @return true if this box still reads from its parent, that is, it has not been written to.
+     */
+    public boolean isView() {
+        return copy == null;
+    }
+
+    //==================================PRIVATE METHODS=================================//
+
+    private int[] allColumns() {
+        int[] cols = new int[parent.numCols()];
+        for (int j = 0; j < cols.length; j++) cols[j] = j;
+        return cols;
+    }
+
+    private boolean isAllColumns(int[] cols) {
+        if (cols.length != parent.numCols()) return false;
+
+        for (int j = 0; j < cols.length; j++) {
+            if (cols[j] != j) return false;
+        }
+
+        return true;
+    }
+}
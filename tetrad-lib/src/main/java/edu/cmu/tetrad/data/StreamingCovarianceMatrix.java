@@ -0,0 +1,573 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.data;
+
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.stat.correlation.RealCovarianceMatrixForkJoin;
+import edu.cmu.tetrad.util.ForkJoinPoolInstance;
+import edu.cmu.tetrad.util.Matrix;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A covariance matrix kept as sufficient statistics--the row count, the column means and the
+ * co-moments (sums of products of deviations from the means)--so that it can be brought up to
+ * date as rows arrive without going back over the rows already seen.
+ * <p>
+ * append() adds a batch of rows: the batch's own means and co-moments are computed and merged
+ * into the totals by the pairwise update of Chan, Golub and LeVeque, which is as accurate as a
+ * single pass of Welford's method but needs only one pass over the new rows. merge() combines
+ * accumulators built separately, say one per shard of the data on its own thread, the same way.
+ * <p>
+ * Scores and tests that take an ICovarianceMatrix, such as SemBicScore and IndTestFisherZ, can be
+ * constructed from this directly; they read a snapshot of the matrix as it stands, so after more
+ * rows are appended a new score or test is constructed to see them. Missing values are not
+ * treated specially; a NaN in a column makes its covariances NaN, as in CovarianceMatrix.
+ *
+ * @see CovarianceMatrix
+ */
+public class StreamingCovarianceMatrix implements ICovarianceMatrix {
+    static final long serialVersionUID = 23L;
+
+    /**
+     * The name of the covariance matrix.
+     *
+     * @serial May be null.
+     */
+    private String name;
+
+    /**
+     * The variables (in order) for this covariance matrix.
+     *
+     * @serial Cannot be null.
+     */
+    private List<Node> variables;
+
+    /**
+     * True if covariances are divided by n - 1 rather than n.
+     *
+     * @serial
+     */
+    private final boolean biasCorrected;
+
+    /**
+     * The number of rows accumulated.
+     *
+     * @serial Range >= 0.
+     */
+    private long count = 0;
+
+    /**
+     * The column means of the rows accumulated.
+     *
+     * @serial Cannot be null.
+     */
+    private final double[] means;
+
+    /**
+     * The co-moments of the rows accumulated, sum_k (x_ki - mean_i)(x_kj - mean_j).
+     *
+     * @serial Cannot be null.
+     */
+    private final double[][] comoments;
+
+    /**
+     * The list of selected variables.
+     *
+     * @serial Cannot be null.
+     */
+    private Set<Node> selectedVariables = new HashSet<>();
+
+    /**
+     * The knowledge for this data.
+     *
+     * @serial Cannot be null.
+     */
+    private IKnowledge knowledge = new Knowledge2();
+
+    //=============================CONSTRUCTORS=========================//
+
+    /**
+     * Constructs an empty accumulator for the given variables, with bias-corrected covariances.
+     */
+    public StreamingCovarianceMatrix(List<Node> variables) {
+        this(variables, true);
+    }
+
+    public StreamingCovarianceMatrix(List<Node> variables, boolean biasCorrected) {
+        if (variables == null) throw new NullPointerException("Variables must not be null.");
+
+        this.variables = Collections.unmodifiableList(new ArrayList<>(variables));
+        this.biasCorrected = biasCorrected;
+        this.means = new double[variables.size()];
+        this.comoments = new double[variables.size()][variables.size()];
+    }
+
+    /**
+     * Constructs an accumulator over the variables of the given data set and appends its rows.
+     *
+     * @throws IllegalArgumentException if this is not a continuous data set.
+     */
+    public StreamingCovarianceMatrix(DataSet dataSet) {
+        this(dataSet.getVariables(), true);
+        append(dataSet);
+    }
+
+    /**
+     * Copy constructor; the copy accumulates independently of the original.
+     */
+    public StreamingCovarianceMatrix(StreamingCovarianceMatrix covMatrix) {
+        this(covMatrix.getVariables(), covMatrix.biasCorrected);
+
+        synchronized (covMatrix) {
+            this.count = covMatrix.count;
+            System.arraycopy(covMatrix.means, 0, this.means, 0, means.length);
+
+            for (int i = 0; i < comoments.length; i++) {
+                System.arraycopy(covMatrix.comoments[i], 0, this.comoments[i], 0, comoments.length);
+            }
+        }
+
+        this.name = covMatrix.getName();
+        this.knowledge = covMatrix.getKnowledge().copy();
+    }
+
+    /**
+     * Generates a simple exemplar of this class to test serialization.
+     */
+    public static StreamingCovarianceMatrix serializableInstance() {
+        List<Node> variables = new ArrayList<>();
+        variables.add(new ContinuousVariable("X"));
+        StreamingCovarianceMatrix covMatrix = new StreamingCovarianceMatrix(variables);
+        covMatrix.append(new double[][]{{1.0}, {2.0}, {4.0}});
+        return covMatrix;
+    }
+
+    //============================PUBLIC METHODS=========================//
+
+    /**
+     * Appends the rows of the given data set, whose variables must have the same names, in the
+     * same order, as the variables of this matrix.
+     *
+     * @throws IllegalArgumentException if the data set is not continuous or its variables differ.
+     */
+    public void append(DataSet dataSet) {
+        if (!dataSet.isContinuous()) {
+            throw new IllegalArgumentException("Not a continuous data set.");
+        }
+
+        if (!dataSet.getVariableNames().equals(getVariableNames())) {
+            throw new IllegalArgumentException("Expecting variables " + getVariableNames() + " but got "
+                    + dataSet.getVariableNames());
+        }
+
+        if (dataSet.getNumRows() == 0) {
+            return;
+        }
+
+        append(dataSet.getDoubleData().toArray());
+    }
+
+    /**
+     * Appends the given rows, each with a value for every variable, in order.
+     */
+    public void append(double[][] rows) {
+        if (rows.length == 0) {
+            return;
+        }
+
+        int p = means.length;
+
+        for (double[] row : rows) {
+            if (row.length != p) {
+                throw new IllegalArgumentException("Expecting rows of length " + p + ": " + row.length);
+            }
+        }
+
+        if (p == 0) {
+            synchronized (this) {
+                count += rows.length;
+            }
+
+            return;
+        }
+
+        // The batch's own statistics, then the merge; the batch is gone over without the lock.
+        long n = rows.length;
+        double[] batchMeans = new double[p];
+
+        for (double[] row : rows) {
+            for (int j = 0; j < p; j++) {
+                batchMeans[j] += row[j];
+            }
+        }
+
+        for (int j = 0; j < p; j++) {
+            batchMeans[j] /= n;
+        }
+
+        RealCovarianceMatrixForkJoin cov = new RealCovarianceMatrixForkJoin(rows,
+                ForkJoinPoolInstance.getInstance().getParallelism());
+        double[][] batchComoments = cov.compute(false);
+
+        for (int i = 0; i < p; i++) {
+            for (int j = 0; j < p; j++) {
+                batchComoments[i][j] *= n;
+            }
+        }
+
+        add(n, batchMeans, batchComoments);
+    }
+
+    /**
+     * Merges into this the rows accumulated by another matrix over the same variables, for
+     * instance one accumulated from another shard of the data. The other matrix is unchanged.
+     */
+    public void merge(StreamingCovarianceMatrix other) {
+        if (!other.getVariableNames().equals(getVariableNames())) {
+            throw new IllegalArgumentException("Expecting variables " + getVariableNames() + " but got "
+                    + other.getVariableNames());
+        }
+
+        StreamingCovarianceMatrix copy = new StreamingCovarianceMatrix(other);
+        add(copy.count, copy.means, copy.comoments);
+    }
+
+    /**
+     * @return the number of rows accumulated.
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the column means of the rows accumulated.
+     */
+    public synchronized double[] getMeans() {
+        return means.clone();
+    }
+
+    /**
+     * @return a covariance matrix holding the covariances as they stand.
+     */
+    public CovarianceMatrix snapshot() {
+        CovarianceMatrix covMatrix = new CovarianceMatrix(variables, getMatrix(), getSampleSize());
+        covMatrix.setName(name);
+        covMatrix.setKnowledge(knowledge);
+        return covMatrix;
+    }
+
+    public final List<Node> getVariables() {
+        return this.variables;
+    }
+
+    public final List<String> getVariableNames() {
+        List<String> names = new ArrayList<>();
+
+        for (Node variable : variables) {
+            names.add(variable.getName());
+        }
+
+        return names;
+    }
+
+    public final String getVariableName(int index) {
+        if (index >= variables.size()) {
+            throw new IllegalArgumentException("Index out of range: " + index);
+        }
+
+        return variables.get(index).getName();
+    }
+
+    public final int getDimension() {
+        return variables.size();
+    }
+
+    /**
+     * @return the number of rows accumulated.
+     * @throws ArithmeticException if it does not fit in an int.
+     */
+    public final int getSampleSize() {
+        return Math.toIntExact(getCount());
+    }
+
+    public final String getName() {
+        return this.name;
+    }
+
+    public final void setName(String name) {
+        this.name = name;
+    }
+
+    public final IKnowledge getKnowledge() {
+        return this.knowledge;
+    }
+
+    public final void setKnowledge(IKnowledge knowledge) {
+        if (knowledge == null) throw new NullPointerException();
+        this.knowledge = knowledge;
+    }
+
+    /**
+     * @return a snapshot of the covariances of the given variables, in the given order.
+     */
+    public final ICovarianceMatrix getSubmatrix(int[] indices) {
+        List<Node> submatrixVars = new LinkedList<>();
+
+        for (int index : indices) {
+            submatrixVars.add(variables.get(index));
+        }
+
+        return new CovarianceMatrix(submatrixVars, getSelection(indices, indices), getSampleSize());
+    }
+
+    public final ICovarianceMatrix getSubmatrix(List<String> submatrixVarNames) {
+        return getSubmatrix(submatrixVarNames.toArray(new String[0]));
+    }
+
+    public final ICovarianceMatrix getSubmatrix(String[] submatrixVarNames) {
+        int[] indices = new int[submatrixVarNames.length];
+
+        for (int i = 0; i < indices.length; i++) {
+            Node variable = getVariable(submatrixVarNames[i]);
+
+            if (variable == null) {
+                throw new IllegalArgumentException("Not a variable in this matrix: " + submatrixVarNames[i]);
+            }
+
+            indices[i] = variables.indexOf(variable);
+        }
+
+        return getSubmatrix(indices);
+    }
+
+    /**
+     * @return the covariance of variables i and j, or NaN if too few rows have been accumulated.
+     */
+    public final synchronized double getValue(int i, int j) {
+        double denominator = biasCorrected ? count - 1 : count;
+        return denominator > 0 ? comoments[i][j] / denominator : Double.NaN;
+    }
+
+    /**
+     * Unsupported; the covariances are accumulated from rows.
+     */
+    public void setMatrix(Matrix matrix) {
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Unsupported; the sample size is the number of rows accumulated.
+     */
+    public void setSampleSize(int sampleSize) {
+        throw new IllegalStateException();
+    }
+
+    public final int getSize() {
+        return variables.size();
+    }
+
+    /**
+     * @return a snapshot of the covariance matrix (a copy).
+     */
+    public final Matrix getMatrix() {
+        int[] all = new int[variables.size()];
+        for (int i = 0; i < all.length; i++) all[i] = i;
+        return getSelection(all, all);
+    }
+
+    public final void select(Node variable) {
+        if (variables.contains(variable)) {
+            selectedVariables.add(variable);
+        }
+    }
+
+    public final void clearSelection() {
+        selectedVariables.clear();
+    }
+
+    public final boolean isSelected(Node variable) {
+        if (variable == null) {
+            throw new NullPointerException("Null variable. Try again.");
+        }
+
+        return selectedVariables.contains(variable);
+    }
+
+    public final List<String> getSelectedVariableNames() {
+        List<String> selectedVariableNames = new LinkedList<>();
+
+        for (Node variable : selectedVariables) {
+            selectedVariableNames.add(variable.getName());
+        }
+
+        return selectedVariableNames;
+    }
+
+    /**
+     * Prints out the matrix
+     */
+    public final String toString() {
+        return snapshot().toString();
+    }
+
+    @Override
+    public boolean isContinuous() {
+        return true;
+    }
+
+    @Override
+    public boolean isDiscrete() {
+        return false;
+    }
+
+    @Override
+    public boolean isMixed() {
+        return false;
+    }
+
+    public Node getVariable(String name) {
+        for (Node variable : variables) {
+            if (name.equals(variable.getName())) {
+                return variable;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Unsupported; the covariances are accumulated from rows.
+     */
+    @Override
+    public void setValue(int i, int j, double v) {
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public void removeVariables(List<String> remaining) {
+        throw new IllegalStateException();
+    }
+
+    public void setVariables(List<Node> variables) {
+        if (variables.size() != this.variables.size()) {
+            throw new IllegalArgumentException("Wrong # of variables.");
+        }
+
+        for (int i = 0; i < variables.size(); i++) {
+            if (!variables.get(i).getName().equals(this.variables.get(i).getName())) {
+                throw new IllegalArgumentException("Variable in index " + (i + 1) + " does not have the same name "
+                        + "as the variable being substituted for it.");
+            }
+        }
+
+        this.variables = Collections.unmodifiableList(new ArrayList<>(variables));
+    }
+
+    @Override
+    public synchronized Matrix getSelection(int[] rows, int[] cols) {
+        Matrix selection = new Matrix(rows.length, cols.length);
+
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < cols.length; j++) {
+                selection.set(i, j, getValue(rows[i], cols[j]));
+            }
+        }
+
+        return selection;
+    }
+
+    @Override
+    public DataModel copy() {
+        return new StreamingCovarianceMatrix(this);
+    }
+
+    //========================PRIVATE METHODS============================//
+
+    // Merges the statistics of n more rows into the totals (Chan, Golub and LeVeque 1979).
+    private synchronized void add(long n, double[] batchMeans, double[][] batchComoments) {
+        if (n == 0) {
+            return;
+        }
+
+        int p = means.length;
+        long total = count + n;
+        double[] delta = new double[p];
+
+        for (int j = 0; j < p; j++) {
+            delta[j] = batchMeans[j] - means[j];
+        }
+
+        double weight = (double) count * n / total;
+
+        for (int i = 0; i < p; i++) {
+            for (int j = i; j < p; j++) {
+                comoments[i][j] += batchComoments[i][j] + delta[i] * delta[j] * weight;
+                comoments[j][i] = comoments[i][j];
+            }
+        }
+
+        for (int j = 0; j < p; j++) {
+            means[j] += delta[j] * n / total;
+        }
+
+        count = total;
+    }
+
+    /**
+     * Adds semantic checks to the default deserialization method. This method
+     * must have the standard signature for a readObject method, and the body of
+     * the method must begin with "s.defaultReadObject();". Other than that, any
+     * semantic checks can be specified and do not need to stay the same from
+     * version to version. A readObject method of this form may be added to any
+     * class, even if Tetrad sessions were previously saved out using a version
+     * of the class that didn't include it. (That's what the
+     * "s.defaultReadObject();" is for. See J. Bloch, Effective Java, for help.
+     */
+    private void readObject(ObjectInputStream s)
+            throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+
+        if (variables == null || means == null || comoments == null) {
+            throw new NullPointerException();
+        }
+
+        if (knowledge == null) {
+            throw new NullPointerException();
+        }
+
+        if (count < 0) {
+            throw new IllegalStateException();
+        }
+
+        if (selectedVariables == null) {
+            selectedVariables = new HashSet<>();
+        }
+    }
+}
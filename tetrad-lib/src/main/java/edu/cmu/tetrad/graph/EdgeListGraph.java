@@ -354,7 +354,7 @@ public class EdgeListGraph implements Graph, TripleClassifier {
         }
     }
 
-    private static boolean visibleEdgeHelper(Node A, Node B, Graph graph) {
+    static boolean visibleEdgeHelper(Node A, Node B, Graph graph) {
         if (A.getNodeType() != NodeType.MEASURED) {
             throw new IllegalArgumentException();
         }
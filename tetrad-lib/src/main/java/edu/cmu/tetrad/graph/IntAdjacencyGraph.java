@@ -0,0 +1,1601 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.graph;
+
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.*;
+
+/**
+ * <p>Stores a graph as an array of adjacencies for each node, indexed by int node ids. The
+ * neighbors of node i are kept in a sorted int array, alongside a byte array giving, for each
+ * neighbor j, the endpoint of the edge i *-# j at j. Adjacency and endpoint queries are
+ * answered by binary search, and parents, children and adjacents may be had as int arrays
+ * (see getParents(int) and so on) without hashing Node objects or allocating lists, which is
+ * what the inner loops of searches need. Only one edge is allowed between any two nodes, and
+ * edges from nodes to themselves are not allowed.</p>
+ * <p>Node ids are positions in getNodes(); removing a node shifts the ids of nodes added after
+ * it. Use the Graph constructor to convert from another graph and toEdgeListGraph() to convert
+ * back.</p>
+ *
+ * @see Endpoint
+ */
+public class IntAdjacencyGraph implements Graph {
+    static final long serialVersionUID = 23L;
+
+    /**
+     * A list of the nodes in the graph, in the order in which they were added; node ids are
+     * indices into this list.
+     *
+     * @serial
+     */
+    private List<Node> nodes;
+
+    /**
+     * For each node, the sorted ids of its neighbors, in the first degree[i] entries.
+     *
+     * @serial
+     */
+    private int[][] neighbors = new int[0][];
+
+    /**
+     * For each node i and neighbor index k, the endpoint code at neighbors[i][k] of the edge
+     * from i to neighbors[i][k].
+     *
+     * @serial
+     */
+    private byte[][] endpoints = new byte[0][];
+
+    /**
+     * The number of neighbors of each node.
+     *
+     * @serial
+     */
+    private int[] degree = new int[0];
+
+    /**
+     * @serial
+     */
+    private int numEdges = 0;
+
+    /**
+     * Set of ambiguous triples.
+     *
+     * @serial
+     */
+    private Set<Triple> ambiguousTriples = new HashSet<>();
+
+    /**
+     * @serial
+     */
+    private Set<Triple> underLineTriples = new HashSet<>();
+
+    /**
+     * @serial
+     */
+    private Set<Triple> dottedUnderLineTriples = new HashSet<>();
+
+    /**
+     * True iff nodes were removed since the last call to an accessor for ambiguous, underline, or dotted underline
+     * triples.
+     */
+    private boolean stuffRemovedSinceLastTripleAccess = false;
+
+    /**
+     * The set of highlighted edges.
+     */
+    private Set<Edge> highlightedEdges = new HashSet<>();
+
+    private boolean pag;
+    private boolean pattern;
+
+    private Map<String, Object> attributes = new HashMap<>();
+
+    /**
+     * A hash from nodes to their ids.
+     */
+    private transient Map<Node, Integer> nodesHash;
+
+    /**
+     * A hash from node names to nodes.
+     */
+    private transient Map<String, Node> namesHash;
+
+    /**
+     * Fires property change events; null until a listener is added, so that graphs nobody is
+     * listening to don't pay for events.
+     */
+    private transient PropertyChangeSupport pcs;
+
+    //==============================CONSTUCTORS===========================//
+
+    /**
+     * Constructs a new (empty) IntAdjacencyGraph.
+     */
+    public IntAdjacencyGraph() {
+        this.nodes = new ArrayList<>();
+        initHashes();
+    }
+
+    /**
+     * Constructs a new graph with the given nodes and no edges.
+     */
+    public IntAdjacencyGraph(List<Node> nodes) {
+        this();
+
+        if (nodes == null) {
+            throw new NullPointerException();
+        }
+
+        for (Node node : nodes) {
+            if (!addNode(node)) {
+                throw new IllegalArgumentException("Duplicate node: " + node);
+            }
+        }
+    }
+
+    /**
+     * Constructs an IntAdjacencyGraph using the nodes and edges of the given graph. Note that
+     * any graph constraints from the given graph are forgotten in the new graph.
+     *
+     * @param graph the graph from which nodes and edges are is to be extracted.
+     * @throws IllegalArgumentException if the graph has more than one edge between two nodes
+     *                                  or an edge from a node to itself.
+     */
+    public IntAdjacencyGraph(Graph graph) throws IllegalArgumentException {
+        this();
+
+        if (graph == null) {
+            throw new NullPointerException("Graph must not be null.");
+        }
+
+        List<Node> _nodes = graph.getNodes();
+
+        this.neighbors = new int[_nodes.size()][];
+        this.endpoints = new byte[_nodes.size()][];
+        this.degree = new int[_nodes.size()];
+
+        for (int i = 0; i < _nodes.size(); i++) {
+            Node node = _nodes.get(i);
+
+            if (nodesHash.containsKey(node) || namesHash.containsKey(node.getName())) {
+                throw new IllegalArgumentException("Duplicate node: " + node);
+            }
+
+            nodes.add(node);
+            nodesHash.put(node, i);
+            namesHash.put(node.getName(), node);
+
+            int d = graph.getNumEdges(node);
+            neighbors[i] = new int[Math.max(d, 2)];
+            endpoints[i] = new byte[Math.max(d, 2)];
+        }
+
+        for (Edge edge : graph.getEdges()) {
+            if (!addEdge(edge)) {
+                throw new IllegalArgumentException("Could not add edge " + edge);
+            }
+        }
+
+        // Keep attributes from the original graph
+        transferAttributes(graph);
+
+        this.ambiguousTriples = graph.getAmbiguousTriples();
+        this.underLineTriples = graph.getUnderLines();
+        this.dottedUnderLineTriples = graph.getDottedUnderlines();
+
+        for (Edge edge : graph.getEdges()) {
+            if (graph.isHighlighted(edge)) {
+                setHighlighted(edge, true);
+            }
+        }
+
+        this.pag = graph.isPag();
+        this.pattern = graph.isPattern();
+    }
+
+    /**
+     * Generates a simple exemplar of this class to test serialization.
+     */
+    public static IntAdjacencyGraph serializableInstance() {
+        return new IntAdjacencyGraph();
+    }
+
+    //===============================INT METHODS==========================//
+
+    /**
+     * @return the id of the given node, or -1 if it is not in the graph.
+     */
+    public int getIndex(Node node) {
+        Integer i = nodesHash.get(node);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * @return the node with the given id.
+     */
+    public Node getNode(int i) {
+        return nodes.get(i);
+    }
+
+    /**
+     * @return the ids of the given nodes.
+     */
+    public int[] getIndices(List<Node> nodes) {
+        int[] indices = new int[nodes.size()];
+        for (int k = 0; k < nodes.size(); k++) indices[k] = index(nodes.get(k));
+        return indices;
+    }
+
+    /**
+     * @return the nodes with the given ids.
+     */
+    public List<Node> getNodes(int[] indices) {
+        List<Node> _nodes = new ArrayList<>(indices.length);
+        for (int i : indices) _nodes.add(nodes.get(i));
+        return _nodes;
+    }
+
+    /**
+     * @return true iff there is an edge between nodes i and j.
+     */
+    public boolean isAdjacentTo(int i, int j) {
+        return find(i, j) >= 0;
+    }
+
+    /**
+     * @return the endpoint at j of the edge between i and j, or null if there is none.
+     */
+    public Endpoint getEndpoint(int i, int j) {
+        int k = find(i, j);
+        return k < 0 ? null : decode(endpoints[i][k]);
+    }
+
+    /**
+     * @return true iff i --> j.
+     */
+    public boolean isParentOf(int i, int j) {
+        int k = find(j, i);
+        return k >= 0 && endpoints[j][k] == TAIL && endpoints[i][find(i, j)] == ARROW;
+    }
+
+    /**
+     * @return the ids of the nodes adjacent to i, in increasing order.
+     */
+    public int[] getAdjacents(int i) {
+        return Arrays.copyOf(neighbors[i], degree[i]);
+    }
+
+    /**
+     * @return the ids of the parents of i, in increasing order.
+     */
+    public int[] getParents(int i) {
+        return directed(i, false);
+    }
+
+    /**
+     * @return the ids of the children of i, in increasing order.
+     */
+    public int[] getChildren(int i) {
+        return directed(i, true);
+    }
+
+    /**
+     * @return the number of edges connected to i.
+     */
+    public int getDegree(int i) {
+        return degree[i];
+    }
+
+    /**
+     * Adds the edge i *-# j with the given endpoints at i and j.
+     *
+     * @return true if the edge was added, false if i and j are already adjacent or i == j.
+     */
+    public boolean addEdge(int i, int j, Endpoint endpointI, Endpoint endpointJ) {
+        if (i == j || isAdjacentTo(i, j)) {
+            return false;
+        }
+
+        insert(i, j, encode(endpointJ));
+        insert(j, i, encode(endpointI));
+        numEdges++;
+        return true;
+    }
+
+    /**
+     * Adds the edge i --> j.
+     */
+    public boolean addDirectedEdge(int i, int j) {
+        return addEdge(i, j, Endpoint.TAIL, Endpoint.ARROW);
+    }
+
+    /**
+     * Removes the edge between i and j.
+     *
+     * @return true if there was such an edge.
+     */
+    public boolean removeEdge(int i, int j) {
+        if (!delete(i, j)) return false;
+        delete(j, i);
+        numEdges--;
+        return true;
+    }
+
+    /**
+     * Sets the endpoint at j of the edge between i and j.
+     *
+     * @return false if there is no such edge.
+     */
+    public boolean setEndpoint(int i, int j, Endpoint endpoint) {
+        int k = find(i, j);
+        if (k < 0) return false;
+        endpoints[i][k] = encode(endpoint);
+        return true;
+    }
+
+    /**
+     * @return a copy of this graph as an EdgeListGraph.
+     */
+    public EdgeListGraph toEdgeListGraph() {
+        return new EdgeListGraph(this);
+    }
+
+    //===============================PUBLIC METHODS========================//
+
+    public boolean addDirectedEdge(Node node1, Node node2) {
+        return addEdge(Edges.directedEdge(node1, node2));
+    }
+
+    public boolean addUndirectedEdge(Node node1, Node node2) {
+        return addEdge(Edges.undirectedEdge(node1, node2));
+    }
+
+    public boolean addNondirectedEdge(Node node1, Node node2) {
+        return addEdge(Edges.nondirectedEdge(node1, node2));
+    }
+
+    public boolean addPartiallyOrientedEdge(Node node1, Node node2) {
+        return addEdge(Edges.partiallyOrientedEdge(node1, node2));
+    }
+
+    public boolean addBidirectedEdge(Node node1, Node node2) {
+        return addEdge(Edges.bidirectedEdge(node1, node2));
+    }
+
+    public boolean existsDirectedCycle() {
+        for (int i = 0; i < nodes.size(); i++) {
+            if (existsDirectedPath(i, i)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public boolean isDirectedFromTo(Node node1, Node node2) {
+        return isParentOf(index(node1), index(node2));
+    }
+
+    public boolean isUndirectedFromTo(Node node1, Node node2) {
+        int i = index(node1);
+        int j = index(node2);
+        return getEndpoint(i, j) == Endpoint.TAIL && getEndpoint(j, i) == Endpoint.TAIL;
+    }
+
+    /**
+     * @return true if the given edge is definitely visible (Jiji, pg 25)
+     * @throws IllegalArgumentException if the given edge is not a directed edge
+     *                                  in the graph
+     */
+    public boolean defVisible(Edge edge) {
+        if (!containsEdge(edge)) {
+            throw new IllegalArgumentException("Given edge is not in the graph.");
+        }
+
+        int a = index(Edges.getDirectedEdgeTail(edge));
+        int b = index(Edges.getDirectedEdgeHead(edge));
+
+        for (int k = 0; k < degree[a]; k++) {
+            int c = neighbors[a][k];
+
+            if (!isAdjacentTo(c, b) && getEndpoint(c, a) == Endpoint.ARROW) {
+                return true;
+            }
+        }
+
+        return EdgeListGraph.visibleEdgeHelper(nodes.get(a), nodes.get(b), this);
+    }
+
+    public boolean isDefNoncollider(Node node1, Node node2, Node node3) {
+        int i = index(node1);
+        int j = index(node2);
+        int k = index(node3);
+
+        if (isParentOf(j, i) || isParentOf(j, k)) {
+            return true;
+        }
+
+        return getEndpoint(i, j) == Endpoint.CIRCLE && getEndpoint(k, j) == Endpoint.CIRCLE
+                && !isAdjacentTo(i, k);
+    }
+
+    public boolean isDefCollider(Node node1, Node node2, Node node3) {
+        int i = index(node1);
+        int j = index(node2);
+        int k = index(node3);
+
+        if (!isAdjacentTo(i, j) || !isAdjacentTo(j, k)) {
+            return false;
+        }
+
+        return getEndpoint(i, j) == Endpoint.ARROW && getEndpoint(k, j) == Endpoint.ARROW;
+    }
+
+    /**
+     * @return true iff there is a directed path from node1 to node2.
+     */
+    public boolean existsDirectedPathFromTo(Node node1, Node node2) {
+        return existsDirectedPath(index(node1), index(node2));
+    }
+
+    public boolean existsUndirectedPathFromTo(Node node1, Node node2) {
+        int from = index(node1);
+        int to = index(node2);
+
+        boolean[] visited = new boolean[nodes.size()];
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(from);
+
+        while (!stack.isEmpty()) {
+            int t = stack.pop();
+
+            for (int k = 0; k < degree[t]; k++) {
+                int c = neighbors[t][k];
+                if (c == to) return true;
+                if (visited[c]) continue;
+                visited[c] = true;
+                stack.push(c);
+            }
+        }
+
+        return false;
+    }
+
+    public boolean existsSemiDirectedPathFromTo(Node node1, Set<Node> nodes) {
+        int from = index(node1);
+
+        boolean[] targets = new boolean[this.nodes.size()];
+        for (Node node : nodes) {
+            Integer t = nodesHash.get(node);
+            if (t != null) targets[t] = true;
+        }
+
+        boolean[] visited = new boolean[this.nodes.size()];
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(from);
+
+        while (!stack.isEmpty()) {
+            int t = stack.pop();
+
+            for (int k = 0; k < degree[t]; k++) {
+                int c = neighbors[t][k];
+
+                // Traversable if the endpoint at t is a tail or a circle.
+                byte atT = endpoints[c][find(c, t)];
+                if (atT != TAIL && atT != CIRCLE) continue;
+                if (targets[c]) return true;
+                if (visited[c]) continue;
+                visited[c] = true;
+                stack.push(c);
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Determines whether a trek exists between two nodes in the graph. A trek
+     * exists if there is a directed path between the two nodes or else, for
+     * some third node in the graph, there is a path to each of the two nodes in
+     * question.
+     */
+    public boolean existsTrek(Node node1, Node node2) {
+        boolean[] a1 = ancestors(new int[]{index(node1)});
+        boolean[] a2 = ancestors(new int[]{index(node2)});
+
+        for (int i = 0; i < a1.length; i++) {
+            if (a1[i] && a2[i]) return true;
+        }
+
+        return false;
+    }
+
+    public List<Node> getChildren(Node node) {
+        return getNodes(getChildren(index(node)));
+    }
+
+    public int getConnectivity() {
+        int connectivity = 0;
+
+        for (int d : degree) {
+            if (d > connectivity) {
+                connectivity = d;
+            }
+        }
+
+        return connectivity;
+    }
+
+    public List<Node> getDescendants(List<Node> nodes) {
+        return toList(descendants(getIndices(nodes)));
+    }
+
+    /**
+     * @return the edge connecting node1 and node2, provided a unique such edge
+     * exists.
+     */
+    public Edge getEdge(Node node1, Node node2) {
+        int i = index(node1);
+        int j = index(node2);
+        int k = find(i, j);
+
+        if (k < 0) {
+            return null;
+        }
+
+        return new Edge(node1, node2, decode(endpoints[j][find(j, i)]), decode(endpoints[i][k]));
+    }
+
+    public Edge getDirectedEdge(Node node1, Node node2) {
+        if (isParentOf(index(node1), index(node2))) {
+            return Edges.directedEdge(node1, node2);
+        }
+
+        return null;
+    }
+
+    public List<Node> getParents(Node node) {
+        return getNodes(getParents(index(node)));
+    }
+
+    public int getIndegree(Node node) {
+        return getParents(index(node)).length;
+    }
+
+    public int getDegree(Node node) {
+        return degree[index(node)];
+    }
+
+    public int getOutdegree(Node node) {
+        return getChildren(index(node)).length;
+    }
+
+    public boolean isAdjacentTo(Node node1, Node node2) {
+        Integer i = nodesHash.get(node1);
+        Integer j = nodesHash.get(node2);
+        return i != null && j != null && isAdjacentTo(i, j);
+    }
+
+    public boolean isAncestorOf(Node node1, Node node2) {
+        return (node1 == node2) || isProperAncestorOf(node1, node2);
+    }
+
+    public boolean possibleAncestor(Node node1, Node node2) {
+        return existsSemiDirectedPathFromTo(node1, Collections.singleton(node2));
+    }
+
+    public List<Node> getAncestors(List<Node> nodes) {
+        return toList(ancestors(getIndices(nodes)));
+    }
+
+    public boolean isChildOf(Node node1, Node node2) {
+        return isParentOf(index(node2), index(node1));
+    }
+
+    public boolean isDescendentOf(Node node1, Node node2) {
+        return (node1 == node2) || isProperDescendentOf(node1, node2);
+    }
+
+    /**
+     * @return true iff node2 is a definite nondecendent of node1
+     */
+    public boolean defNonDescendent(Node node1, Node node2) {
+        return !(possibleAncestor(node1, node2));
+    }
+
+    /**
+     * Determines whether x and y are d-connected given z, by a search over (node, next node)
+     * pairs reachable along d-connecting paths from x. Assumes acyclicity.
+     */
+    public boolean isDConnectedTo(Node x, Node y, List<Node> z) {
+        return isDConnectedTo(Collections.singletonList(x), Collections.singletonList(y), z);
+    }
+
+    public boolean isDSeparatedFrom(Node node1, Node node2, List<Node> z) {
+        return !isDConnectedTo(node1, node2, z);
+    }
+
+    public boolean possDConnectedTo(Node node1, Node node2, List<Node> condNodes) {
+        int n1 = index(node1);
+        int n2 = index(node2);
+
+        boolean[] cond = new boolean[nodes.size()];
+        for (Node node : condNodes) cond[index(node)] = true;
+
+        // Edges a *-* b of paths from node1, in the direction they were traversed. Any edge
+        // out of node1 may start a path.
+        Set<Long> visited = new HashSet<>();
+        Queue<int[]> queue = new ArrayDeque<>();
+
+        for (int k = 0; k < degree[n1]; k++) {
+            int c = neighbors[n1][k];
+
+            if (c == n2) {
+                return true;
+            }
+
+            visited.add(pack(n1, c));
+            queue.offer(new int[]{n1, c});
+        }
+
+        while (!queue.isEmpty()) {
+            int[] e = queue.poll();
+            int a = e[0];
+            int b = e[1];
+
+            for (int k = 0; k < degree[b]; k++) {
+                int c = neighbors[b][k];
+                if (c == a || visited.contains(pack(b, c))) continue;
+
+                Node _a = nodes.get(a);
+                Node _b = nodes.get(b);
+                Node _c = nodes.get(c);
+
+                if (!((isDefNoncollider(_a, _b, _c) && !cond[b])
+                        || (isDefCollider(_a, _b, _c) && (cond[b] || possibleAncestorSet(_b, condNodes))))) {
+                    continue;
+                }
+
+                if (c == n2) {
+                    return true;
+                }
+
+                visited.add(pack(b, c));
+                queue.offer(new int[]{b, c});
+            }
+        }
+
+        return false;
+    }
+
+    public boolean existsInducingPath(Node node1, Node node2) {
+        return GraphUtils.existsInducingPath(node1, node2, this);
+    }
+
+    public boolean isParentOf(Node node1, Node node2) {
+        Integer i = nodesHash.get(node1);
+        Integer j = nodesHash.get(node2);
+        return i != null && j != null && isParentOf(i, j);
+    }
+
+    public boolean isProperAncestorOf(Node node1, Node node2) {
+        return existsDirectedPathFromTo(node1, node2);
+    }
+
+    public boolean isProperDescendentOf(Node node1, Node node2) {
+        return existsDirectedPathFromTo(node2, node1);
+    }
+
+    /**
+     * Transfers nodes and edges from one graph to another.
+     *
+     * @param graph the graph from which nodes and edges are to be pilfered.
+     * @throws IllegalArgumentException This exception is thrown if adding some
+     *                                  node or edge violates one of the
+     *                                  basicConstraints of this graph.
+     */
+    public void transferNodesAndEdges(Graph graph) throws IllegalArgumentException {
+        if (graph == null) {
+            throw new NullPointerException("No graph was provided.");
+        }
+
+        for (Node node : graph.getNodes()) {
+            if (!addNode(node)) {
+                throw new IllegalArgumentException();
+            }
+        }
+
+        for (Edge edge : graph.getEdges()) {
+            if (!addEdge(edge)) {
+                throw new IllegalArgumentException();
+            }
+        }
+    }
+
+    @Override
+    public void transferAttributes(Graph graph)
+            throws IllegalArgumentException {
+        if (graph == null) {
+            throw new NullPointerException("No graph was provided.");
+        }
+
+        this.attributes.putAll(graph.getAllAttributes());
+    }
+
+    public boolean isExogenous(Node node) {
+        return getIndegree(node) == 0;
+    }
+
+    public List<Node> getAdjacentNodes(Node node) {
+        int i = index(node);
+        List<Node> adj = new ArrayList<>(degree[i]);
+        for (int k = 0; k < degree[i]; k++) adj.add(nodes.get(neighbors[i][k]));
+        return adj;
+    }
+
+    public boolean removeEdge(Node node1, Node node2) {
+        Integer i = nodesHash.get(node1);
+        Integer j = nodesHash.get(node2);
+        if (i == null || j == null) return false;
+
+        Edge edge = pcs == null ? null : getEdge(node1, node2);
+        boolean removed = removeEdge((int) i, (int) j);
+        if (removed && pcs != null) pcs.firePropertyChange("edgeRemoved", edge, null);
+        return removed;
+    }
+
+    /**
+     * @return the endpoint along the edge from node to node2 at the node2 end.
+     */
+    public Endpoint getEndpoint(Node node1, Node node2) {
+        return getEndpoint(index(node1), index(node2));
+    }
+
+    /**
+     * If there is currently an edge from node1 to node2, sets the endpoint at
+     * node2 to the given endpoint; if there is no such edge, adds an edge --#
+     * where # is the given endpoint.
+     */
+    public boolean setEndpoint(Node from, Node to, Endpoint endPoint) throws IllegalArgumentException {
+        if (endPoint == null) {
+            throw new NullPointerException();
+        }
+
+        int i = index(from);
+        int j = index(to);
+
+        if (!isAdjacentTo(i, j)) {
+            return addEdge(i, j, Endpoint.TAIL, endPoint);
+        }
+
+        return setEndpoint(i, j, endPoint);
+    }
+
+    public List<Node> getNodesInTo(Node node, Endpoint endpoint) {
+        int i = index(node);
+        byte e = encode(endpoint);
+        List<Node> _nodes = new ArrayList<>(4);
+
+        for (int k = 0; k < degree[i]; k++) {
+            int j = neighbors[i][k];
+            if (endpoints[j][find(j, i)] == e) _nodes.add(nodes.get(j));
+        }
+
+        return _nodes;
+    }
+
+    public List<Node> getNodesOutTo(Node node, Endpoint endpoint) {
+        int i = index(node);
+        byte e = encode(endpoint);
+        List<Node> _nodes = new ArrayList<>(4);
+
+        for (int k = 0; k < degree[i]; k++) {
+            if (endpoints[i][k] == e) _nodes.add(nodes.get(neighbors[i][k]));
+        }
+
+        return _nodes;
+    }
+
+    public Endpoint[][] getEndpointMatrix() {
+        int size = nodes.size();
+        Endpoint[][] matrix = new Endpoint[size][size];
+
+        for (int i = 0; i < size; i++) {
+            for (int k = 0; k < degree[i]; k++) {
+                matrix[i][neighbors[i][k]] = decode(endpoints[i][k]);
+            }
+        }
+
+        return matrix;
+    }
+
+    /**
+     * Adds an edge to the graph if the graph constraints permit it.
+     *
+     * @param edge the edge to be added
+     * @return true if the edge was added, false if not.
+     */
+    public boolean addEdge(Edge edge) {
+        Integer i = nodesHash.get(edge.getNode1());
+        Integer j = nodesHash.get(edge.getNode2());
+
+        if (i == null || j == null) {
+            throw new IllegalArgumentException("Nodes for edge " + edge + " are not in the graph.");
+        }
+
+        boolean added = addEdge(i, j, edge.getEndpoint1(), edge.getEndpoint2());
+        if (added && pcs != null) pcs.firePropertyChange("edgeAdded", null, edge);
+        return added;
+    }
+
+    /**
+     * Adds a PropertyChangeListener to the graph. Events are fired for nodes and edges added
+     * or removed through the Node methods; the int-indexed methods don't fire events.
+     */
+    public void addPropertyChangeListener(PropertyChangeListener l) {
+        if (pcs == null) pcs = new PropertyChangeSupport(this);
+        pcs.addPropertyChangeListener(l);
+    }
+
+    public boolean addNode(Node node) {
+        if (node == null) {
+            throw new NullPointerException();
+        }
+
+        if (nodesHash.containsKey(node) || getNode(node.getName()) != null) {
+            return false;
+        }
+
+        int n = nodes.size();
+        nodes.add(node);
+        nodesHash.put(node, n);
+        namesHash.put(node.getName(), node);
+
+        neighbors = Arrays.copyOf(neighbors, n + 1);
+        endpoints = Arrays.copyOf(endpoints, n + 1);
+        degree = Arrays.copyOf(degree, n + 1);
+        neighbors[n] = new int[2];
+        endpoints[n] = new byte[2];
+
+        if (pcs != null) pcs.firePropertyChange("nodeAdded", null, node);
+        return true;
+    }
+
+    public Set<Edge> getEdges() {
+        Set<Edge> edges = new HashSet<>(2 * numEdges);
+
+        for (int i = 0; i < nodes.size(); i++) {
+            for (int k = 0; k < degree[i]; k++) {
+                int j = neighbors[i][k];
+                if (j < i) continue;
+                edges.add(new Edge(nodes.get(i), nodes.get(j), decode(endpoints[j][find(j, i)]),
+                        decode(endpoints[i][k])));
+            }
+        }
+
+        return edges;
+    }
+
+    public boolean containsEdge(Edge edge) {
+        Integer i = nodesHash.get(edge.getNode1());
+        Integer j = nodesHash.get(edge.getNode2());
+
+        return i != null && j != null
+                && getEndpoint(i, j) == edge.getEndpoint2()
+                && getEndpoint(j, i) == edge.getEndpoint1();
+    }
+
+    public boolean containsNode(Node node) {
+        return nodesHash.containsKey(node);
+    }
+
+    public List<Edge> getEdges(Node node) {
+        int i = index(node);
+        List<Edge> edges = new ArrayList<>(degree[i]);
+
+        for (int k = 0; k < degree[i]; k++) {
+            int j = neighbors[i][k];
+            edges.add(new Edge(node, nodes.get(j), decode(endpoints[j][find(j, i)]), decode(endpoints[i][k])));
+        }
+
+        return edges;
+    }
+
+    public int hashCode() {
+        int hashCode = 0;
+        int sum = 0;
+
+        for (Node node : getNodes()) {
+            sum += node.hashCode();
+        }
+
+        hashCode += 23 * sum;
+        sum = 0;
+
+        for (Edge edge : getEdges()) {
+            sum += edge.hashCode();
+        }
+
+        hashCode += 41 * sum;
+
+        return hashCode;
+    }
+
+    /**
+     * @return true iff the given object is a graph with the same nodes (by name) and edges.
+     */
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (!(o instanceof Graph)) return false;
+
+        Graph graph = (Graph) o;
+
+        return new HashSet<>(graph.getNodeNames()).equals(new HashSet<>(getNodeNames()))
+                && graph.getEdges().equals(getEdges());
+    }
+
+    /**
+     * Resets the graph so that it is fully connects it using #-# edges, where #
+     * is the given endpoint.
+     */
+    public void fullyConnect(Endpoint endpoint) {
+        int n = nodes.size();
+        byte e = encode(endpoint);
+
+        for (int i = 0; i < n; i++) {
+            neighbors[i] = new int[Math.max(n - 1, 2)];
+            endpoints[i] = new byte[Math.max(n - 1, 2)];
+            degree[i] = n - 1;
+
+            for (int j = 0, k = 0; j < n; j++) {
+                if (j == i) continue;
+                neighbors[i][k] = j;
+                endpoints[i][k++] = e;
+            }
+        }
+
+        numEdges = n * (n - 1) / 2;
+    }
+
+    public void reorientAllWith(Endpoint endpoint) {
+        byte e = encode(endpoint);
+
+        for (int i = 0; i < nodes.size(); i++) {
+            Arrays.fill(endpoints[i], 0, degree[i], e);
+        }
+    }
+
+    public Node getNode(String name) {
+        return namesHash.get(name);
+    }
+
+    public int getNumNodes() {
+        return nodes.size();
+    }
+
+    public int getNumEdges() {
+        return numEdges;
+    }
+
+    public int getNumEdges(Node node) {
+        return degree[index(node)];
+    }
+
+    public List<Node> getNodes() {
+        return new ArrayList<>(nodes);
+    }
+
+    /**
+     * Removes all nodes (and therefore all edges) from the graph.
+     */
+    public void clear() {
+        nodes.clear();
+        neighbors = new int[0][];
+        endpoints = new byte[0][];
+        degree = new int[0];
+        numEdges = 0;
+        initHashes();
+        stuffRemovedSinceLastTripleAccess = true;
+    }
+
+    public boolean removeEdge(Edge edge) {
+        if (!containsEdge(edge)) return false;
+        return removeEdge(edge.getNode1(), edge.getNode2());
+    }
+
+    public boolean removeEdges(Collection<Edge> edges) {
+        boolean change = false;
+
+        for (Edge edge : new ArrayList<>(edges)) {
+            boolean _change = removeEdge(edge);
+            change = change || _change;
+        }
+
+        return change;
+    }
+
+    public boolean removeEdges(Node node1, Node node2) {
+        return removeEdge(node1, node2);
+    }
+
+    /**
+     * Removes a node from the graph, shifting down the ids of nodes added after it.
+     */
+    public boolean removeNode(Node node) {
+        Integer _r = nodesHash.get(node);
+        if (_r == null) return false;
+        int r = _r;
+        List<Edge> edges = pcs == null ? null : getEdges(node);
+
+        for (int k = degree[r] - 1; k >= 0; k--) {
+            removeEdge(r, neighbors[r][k]);
+        }
+
+        int n = nodes.size();
+        nodes.remove(r);
+        System.arraycopy(neighbors, r + 1, neighbors, r, n - r - 1);
+        System.arraycopy(endpoints, r + 1, endpoints, r, n - r - 1);
+        System.arraycopy(degree, r + 1, degree, r, n - r - 1);
+        neighbors = Arrays.copyOf(neighbors, n - 1);
+        endpoints = Arrays.copyOf(endpoints, n - 1);
+        degree = Arrays.copyOf(degree, n - 1);
+
+        // Neighbor lists stay sorted, since ids above r all shift by one.
+        for (int i = 0; i < n - 1; i++) {
+            for (int k = 0; k < degree[i]; k++) {
+                if (neighbors[i][k] > r) neighbors[i][k]--;
+            }
+        }
+
+        initHashes();
+        stuffRemovedSinceLastTripleAccess = true;
+
+        if (pcs != null) {
+            for (Edge edge : edges) pcs.firePropertyChange("edgeRemoved", edge, null);
+            pcs.firePropertyChange("nodeRemoved", node, null);
+        }
+
+        return true;
+    }
+
+    public boolean removeNodes(List<Node> newNodes) {
+        boolean changed = false;
+
+        for (Node newNode : newNodes) {
+            boolean _changed = removeNode(newNode);
+            changed = changed || _changed;
+        }
+
+        return changed;
+    }
+
+    /**
+     * @return a string representation of the graph.
+     */
+    public String toString() {
+        return GraphUtils.graphToText(this);
+    }
+
+    public Graph subgraph(List<Node> nodes) {
+        IntAdjacencyGraph graph = new IntAdjacencyGraph(nodes);
+
+        for (Edge edge : getEdges()) {
+            if (graph.containsNode(edge.getNode1()) && graph.containsNode(edge.getNode2())) {
+                graph.addEdge(edge);
+            }
+        }
+
+        return graph;
+    }
+
+    public List<Edge> getEdges(Node node1, Node node2) {
+        Edge edge = getEdge(node1, node2);
+        return edge == null ? new ArrayList<Edge>() : new ArrayList<>(Collections.singletonList(edge));
+    }
+
+    public Set<Triple> getAmbiguousTriples() {
+        removeTriplesNotInGraph();
+        return new HashSet<>(ambiguousTriples);
+    }
+
+    public Set<Triple> getUnderLines() {
+        removeTriplesNotInGraph();
+        return new HashSet<>(underLineTriples);
+    }
+
+    public Set<Triple> getDottedUnderlines() {
+        removeTriplesNotInGraph();
+        return new HashSet<>(dottedUnderLineTriples);
+    }
+
+    public boolean isAmbiguousTriple(Node x, Node y, Node z) {
+        Triple triple = new Triple(x, y, z);
+        if (!triple.alongPathIn(this)) {
+            throw new IllegalArgumentException("<" + x + ", " + y + ", " + z + "> is not along a path.");
+        }
+        removeTriplesNotInGraph();
+        return ambiguousTriples.contains(triple);
+    }
+
+    public boolean isUnderlineTriple(Node x, Node y, Node z) {
+        removeTriplesNotInGraph();
+        return underLineTriples.contains(new Triple(x, y, z));
+    }
+
+    public boolean isDottedUnderlineTriple(Node x, Node y, Node z) {
+        Triple triple = new Triple(x, y, z);
+        if (!triple.alongPathIn(this)) {
+            throw new IllegalArgumentException("<" + x + ", " + y + ", " + z + "> is not along a path.");
+        }
+        removeTriplesNotInGraph();
+        return dottedUnderLineTriples.contains(triple);
+    }
+
+    public void addAmbiguousTriple(Node x, Node y, Node z) {
+        Triple triple = new Triple(x, y, z);
+
+        if (!triple.alongPathIn(this)) {
+            throw new IllegalArgumentException("<" + x + ", " + y + ", " + z + "> must lie along a path in the graph.");
+        }
+
+        ambiguousTriples.add(triple);
+    }
+
+    public void addUnderlineTriple(Node x, Node y, Node z) {
+        Triple triple = new Triple(x, y, z);
+
+        if (!triple.alongPathIn(this)) {
+            throw new IllegalArgumentException("<" + x + ", " + y + ", " + z + "> must lie along a path in the graph.");
+        }
+
+        underLineTriples.add(triple);
+    }
+
+    public void addDottedUnderlineTriple(Node x, Node y, Node z) {
+        Triple triple = new Triple(x, y, z);
+
+        if (!triple.alongPathIn(this)) {
+            throw new IllegalArgumentException("<" + x + ", " + y + ", " + z + "> must lie along a path in the graph.");
+        }
+
+        dottedUnderLineTriples.add(triple);
+    }
+
+    public void removeAmbiguousTriple(Node x, Node y, Node z) {
+        ambiguousTriples.remove(new Triple(x, y, z));
+    }
+
+    public void removeUnderlineTriple(Node x, Node y, Node z) {
+        underLineTriples.remove(new Triple(x, y, z));
+    }
+
+    public void removeDottedUnderlineTriple(Node x, Node y, Node z) {
+        dottedUnderLineTriples.remove(new Triple(x, y, z));
+    }
+
+    public void setAmbiguousTriples(Set<Triple> triples) {
+        ambiguousTriples.clear();
+
+        for (Triple triple : triples) {
+            addAmbiguousTriple(triple.getX(), triple.getY(), triple.getZ());
+        }
+    }
+
+    public void setUnderLineTriples(Set<Triple> triples) {
+        underLineTriples.clear();
+
+        for (Triple triple : triples) {
+            addUnderlineTriple(triple.getX(), triple.getY(), triple.getZ());
+        }
+    }
+
+    public void setDottedUnderLineTriples(Set<Triple> triples) {
+        dottedUnderLineTriples.clear();
+
+        for (Triple triple : triples) {
+            addDottedUnderlineTriple(triple.getX(), triple.getY(), triple.getZ());
+        }
+    }
+
+    public List<String> getNodeNames() {
+        List<String> names = new ArrayList<>();
+
+        for (Node node : nodes) {
+            names.add(node.getName());
+        }
+
+        return names;
+    }
+
+    public void removeTriplesNotInGraph() {
+        if (!stuffRemovedSinceLastTripleAccess) return;
+
+        for (Set<Triple> triples : Arrays.asList(ambiguousTriples, underLineTriples, dottedUnderLineTriples)) {
+            for (Triple triple : new HashSet<>(triples)) {
+                if (!containsNode(triple.getX()) || !containsNode(triple.getY()) || !containsNode(triple.getZ())
+                        || !isAdjacentTo(triple.getX(), triple.getY()) || !isAdjacentTo(triple.getY(), triple.getZ())) {
+                    triples.remove(triple);
+                }
+            }
+        }
+
+        stuffRemovedSinceLastTripleAccess = false;
+    }
+
+    @Override
+    public List<Node> getSepset(Node n1, Node n2) {
+        return GraphUtils.getSepset(n1, n2, this);
+    }
+
+    @Override
+    public void setNodes(List<Node> nodes) {
+        if (nodes.size() != this.nodes.size()) {
+            throw new IllegalArgumentException("Sorry, there is a mismatch in the number of variables " +
+                    "you are trying to set.");
+        }
+
+        this.nodes = new ArrayList<>(nodes);
+        initHashes();
+    }
+
+    @Override
+    public List<String> getTriplesClassificationTypes() {
+        List<String> names = new ArrayList<>();
+        names.add("Underlines");
+        names.add("Dotted Underlines");
+        names.add("Ambiguous Triples");
+        return names;
+    }
+
+    @Override
+    public List<List<Triple>> getTriplesLists(Node node) {
+        List<List<Triple>> triplesList = new ArrayList<>();
+        triplesList.add(GraphUtils.getUnderlinedTriplesFromGraph(node, this));
+        triplesList.add(GraphUtils.getDottedUnderlinedTriplesFromGraph(node, this));
+        triplesList.add(GraphUtils.getAmbiguousTriplesFromGraph(node, this));
+        return triplesList;
+    }
+
+    @Override
+    public boolean isPag() {
+        return pag;
+    }
+
+    @Override
+    public void setPag(boolean pag) {
+        this.pag = pag;
+    }
+
+    @Override
+    public boolean isPattern() {
+        return pattern;
+    }
+
+    @Override
+    public void setPattern(boolean pattern) {
+        this.pattern = pattern;
+    }
+
+    public List<Node> getCausalOrdering() {
+        return GraphUtils.getCausalOrdering(this);
+    }
+
+    public void setHighlighted(Edge edge, boolean highlighted) {
+        highlightedEdges.add(edge);
+    }
+
+    public boolean isHighlighted(Edge edge) {
+        return highlightedEdges.contains(edge);
+    }
+
+    public boolean isParameterizable(Node node) {
+        return true;
+    }
+
+    public boolean isTimeLagModel() {
+        return false;
+    }
+
+    public TimeLagGraph getTimeLagGraph() {
+        return null;
+    }
+
+    @Override
+    public Map<String, Object> getAllAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public Object getAttribute(String key) {
+        return attributes.get(key);
+    }
+
+    @Override
+    public void removeAttribute(String key) {
+        attributes.remove(key);
+    }
+
+    @Override
+    public void addAttribute(String key, Object value) {
+        attributes.put(key, value);
+    }
+
+    //===============================PRIVATE METHODS======================//
+
+    private static final byte TAIL = encode(Endpoint.TAIL);
+    private static final byte ARROW = encode(Endpoint.ARROW);
+    private static final byte CIRCLE = encode(Endpoint.CIRCLE);
+
+    private static byte encode(Endpoint endpoint) {
+        for (byte b = 0; b < Endpoint.TYPES.length; b++) {
+            if (Endpoint.TYPES[b] == endpoint) return b;
+        }
+
+        throw new IllegalArgumentException("Unrecognized endpoint: " + endpoint);
+    }
+
+    private static Endpoint decode(byte b) {
+        return Endpoint.TYPES[b];
+    }
+
+    private static long pack(int a, int b) {
+        return ((long) a << 32) | (b & 0xffffffffL);
+    }
+
+    private int index(Node node) {
+        Integer i = nodesHash.get(node);
+
+        if (i == null) {
+            throw new IllegalArgumentException("Node " + node + " is not in the graph.");
+        }
+
+        return i;
+    }
+
+    // The position of j among the neighbors of i, or a negative number if j is not a neighbor.
+    private int find(int i, int j) {
+        return Arrays.binarySearch(neighbors[i], 0, degree[i], j);
+    }
+
+    private void insert(int i, int j, byte endpoint) {
+        int k = -find(i, j) - 1;
+        int d = degree[i];
+
+        if (d == neighbors[i].length) {
+            neighbors[i] = Arrays.copyOf(neighbors[i], Math.max(2, 2 * d));
+            endpoints[i] = Arrays.copyOf(endpoints[i], Math.max(2, 2 * d));
+        }
+
+        System.arraycopy(neighbors[i], k, neighbors[i], k + 1, d - k);
+        System.arraycopy(endpoints[i], k, endpoints[i], k + 1, d - k);
+        neighbors[i][k] = j;
+        endpoints[i][k] = endpoint;
+        degree[i]++;
+    }
+
+    private boolean delete(int i, int j) {
+        int k = find(i, j);
+        if (k < 0) return false;
+
+        int d = degree[i];
+        System.arraycopy(neighbors[i], k + 1, neighbors[i], k, d - k - 1);
+        System.arraycopy(endpoints[i], k + 1, endpoints[i], k, d - k - 1);
+        degree[i]--;
+        return true;
+    }
+
+    // Parents (children if out is true) of i: neighbors j with a tail at j and an arrow at i
+    // (or the reverse).
+    private int[] directed(int i, boolean out) {
+        int[] result = new int[degree[i]];
+        int count = 0;
+
+        for (int k = 0; k < degree[i]; k++) {
+            int j = neighbors[i][k];
+            byte atJ = endpoints[i][k];
+            byte atI = endpoints[j][find(j, i)];
+
+            if (out ? (atI == TAIL && atJ == ARROW) : (atI == ARROW && atJ == TAIL)) {
+                result[count++] = j;
+            }
+        }
+
+        return Arrays.copyOf(result, count);
+    }
+
+    private boolean existsDirectedPath(int from, int to) {
+        boolean[] visited = new boolean[nodes.size()];
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(from);
+
+        while (!stack.isEmpty()) {
+            int t = stack.pop();
+
+            for (int c : getChildren(t)) {
+                if (c == to) return true;
+                if (visited[c]) continue;
+                visited[c] = true;
+                stack.push(c);
+            }
+        }
+
+        return false;
+    }
+
+    // The closure of the given nodes under the parent relation.
+    private boolean[] ancestors(int[] from) {
+        return closure(from, false);
+    }
+
+    // The closure of the given nodes under the child relation.
+    private boolean[] descendants(int[] from) {
+        return closure(from, true);
+    }
+
+    private boolean[] closure(int[] from, boolean out) {
+        boolean[] visited = new boolean[nodes.size()];
+        Deque<Integer> stack = new ArrayDeque<>();
+
+        for (int i : from) {
+            if (!visited[i]) {
+                visited[i] = true;
+                stack.push(i);
+            }
+        }
+
+        while (!stack.isEmpty()) {
+            int t = stack.pop();
+
+            for (int c : directed(t, out)) {
+                if (visited[c]) continue;
+                visited[c] = true;
+                stack.push(c);
+            }
+        }
+
+        return visited;
+    }
+
+    private List<Node> toList(boolean[] selected) {
+        List<Node> _nodes = new ArrayList<>();
+
+        for (int i = 0; i < selected.length; i++) {
+            if (selected[i]) _nodes.add(nodes.get(i));
+        }
+
+        return _nodes;
+    }
+
+    private boolean isDConnectedTo(List<Node> x, List<Node> y, List<Node> z) {
+        boolean[] inZ = new boolean[nodes.size()];
+        for (Node node : z) inZ[index(node)] = true;
+
+        boolean[] inY = new boolean[nodes.size()];
+        for (Node node : y) inY[index(node)] = true;
+
+        boolean[] zAncestors = ancestors(getIndices(z));
+
+        Set<Long> visited = new HashSet<>();
+        Queue<Long> queue = new ArrayDeque<>();
+
+        for (Node _x : x) {
+            int a = index(_x);
+
+            for (int k = 0; k < degree[a]; k++) {
+                int b = neighbors[a][k];
+                if (inY[b]) return true;
+                long pair = pack(a, b);
+                if (visited.add(pair)) queue.offer(pair);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            long pair = queue.poll();
+            int a = (int) (pair >>> 32);
+            int b = (int) pair;
+
+            boolean arrowAtBFromA = endpoints[a][find(a, b)] == ARROW;
+
+            for (int k = 0; k < degree[b]; k++) {
+                int c = neighbors[b][k];
+                if (c == a) continue;
+
+                boolean collider = arrowAtBFromA && endpoints[c][find(c, b)] == ARROW;
+                if (!((collider && zAncestors[b]) || (!collider && !inZ[b]))) continue;
+
+                if (inY[c]) return true;
+
+                long next = pack(b, c);
+                if (visited.add(next)) queue.offer(next);
+            }
+        }
+
+        return false;
+    }
+
+    private boolean possibleAncestorSet(Node node1, List<Node> nodes2) {
+        for (Node node2 : nodes2) {
+            if (possibleAncestor(node1, node2)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void initHashes() {
+        nodesHash = new HashMap<>();
+        namesHash = new HashMap<>();
+
+        for (int i = 0; i < nodes.size(); i++) {
+            nodesHash.put(nodes.get(i), i);
+            namesHash.put(nodes.get(i).getName(), nodes.get(i));
+        }
+    }
+
+    /**
+     * Adds semantic checks to the default deserialization method. This method
+     * must have the standard signature for a readObject method, and the body of
+     * the method must begin with "s.defaultReadObject();". Other than that, any
+     * semantic checks can be specified and do not need to stay the same from
+     * version to version. A readObject method of this form may be added to any
+     * class, even if Tetrad sessions were previously saved out using a version
+     * of the class that didn't include it. (That's what the
+     * "s.defaultReadObject();" is for. See J. Bloch, Effective Java, for help.
+     *
+     * @throws java.io.IOException
+     * @throws ClassNotFoundException
+     */
+    private void readObject(ObjectInputStream s)
+            throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+
+        if (nodes == null) {
+            throw new NullPointerException();
+        }
+
+        if (ambiguousTriples == null) {
+            ambiguousTriples = new HashSet<>();
+        }
+
+        if (highlightedEdges == null) {
+            highlightedEdges = new HashSet<>();
+        }
+
+        if (underLineTriples == null) {
+            underLineTriples = new HashSet<>();
+        }
+
+        if (dottedUnderLineTriples == null) {
+            dottedUnderLineTriples = new HashSet<>();
+        }
+
+        if (attributes == null) {
+            attributes = new HashMap<>();
+        }
+
+        initHashes();
+    }
+}
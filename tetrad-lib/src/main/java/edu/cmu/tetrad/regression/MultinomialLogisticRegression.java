@@ -0,0 +1,381 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.regression;
+
+import java.util.Arrays;
+
+/**
+ * Fits multinomial (and, with two categories, binary) logistic regressions by Newton's method with step halving,
+ * solving each Newton system by Cholesky decomposition. The first category is the reference category. An optional
+ * ridge penalty (ridge / 2) * |b|^2 on all coefficients, intercepts included, keeps the fit finite under separation.
+ * <p>
+ * Data are given as primitive columns indexed by row, with an optional array of the rows to use, so that callers can
+ * fit over subsets of a data set without copying it. A fit may be warm-started from the fit of a model over a prefix
+ * of the same columns--for instance, from the fit of a nested parent set.
+ * <p>
+ * Instances hold only their settings, so one may be used by several threads at once.
+ */
+public final class MultinomialLogisticRegression {
+
+    // The ridge penalty.
+    private final double ridge;
+
+    // The relative change in the penalized log likelihood at which iteration stops.
+    private final double tolerance;
+
+    // The maximum number of Newton steps.
+    private final int maxIterations;
+
+    /**
+     * Constructs an unpenalized solver.
+     */
+    public MultinomialLogisticRegression() {
+        this(0.0, 1e-10, 100);
+    }
+
+    /**
+     * @param ridge         The ridge penalty, >= 0.
+     * @param tolerance     The relative change in the penalized log likelihood at which iteration stops, > 0.
+     * @param maxIterations The maximum number of Newton steps, > 0.
+     */
+    public MultinomialLogisticRegression(double ridge, double tolerance, int maxIterations) {
+        if (ridge < 0) throw new IllegalArgumentException("Ridge must be >= 0: " + ridge);
+        if (tolerance <= 0) throw new IllegalArgumentException("Tolerance must be > 0: " + tolerance);
+        if (maxIterations < 1) throw new IllegalArgumentException("Max iterations must be > 0: " + maxIterations);
+
+        this.ridge = ridge;
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Regresses the target onto the columns, with an intercept.
+     *
+     * @param target        The category of each row, 0 to numCategories - 1.
+     * @param numCategories The number of categories of the target, >= 2.
+     * @param columns       The regressors; columns[j][i] is the value of regressor j in row i.
+     * @param rows          The rows to use, or null for all rows of the target.
+     * @param start         A fit to start from, over a prefix of the columns, or null to start from the marginal
+     *                      fit.
+     * @return The fit.
+     */
+    public Fit fit(int[] target, int numCategories, double[][] columns, int[] rows, Fit start) {
+        if (numCategories < 2) {
+            throw new IllegalArgumentException("Need at least two categories: " + numCategories);
+        }
+
+        if (start != null && (start.getNumCategories() != numCategories || start.getNumColumns() > columns.length)) {
+            throw new IllegalArgumentException("The start fit must be over a prefix of the columns.");
+        }
+
+        if (rows == null) {
+            rows = new int[target.length];
+            for (int i = 0; i < rows.length; i++) rows[i] = i;
+        }
+
+        final int n = rows.length;
+        final int p = columns.length + 1;
+        final int m = numCategories - 1;
+        final int d = m * p;
+
+        // Coefficients of category k + 1 are b[k * p] ... b[k * p + p - 1], the intercept last.
+        double[] b = new double[d];
+
+        if (start != null) {
+            int q = start.getNumColumns();
+
+            for (int k = 0; k < m; k++) {
+                System.arraycopy(start.coefficients[k], 0, b, k * p, q);
+                b[k * p + p - 1] = start.coefficients[k][q];
+            }
+        } else {
+            int[] counts = new int[numCategories];
+            for (int i : rows) counts[target[i]]++;
+
+            for (int k = 0; k < m; k++) {
+                b[k * p + p - 1] = Math.log((counts[k + 1] + 0.5) / (counts[0] + 0.5));
+            }
+        }
+
+        double[] x = new double[p];
+        double[] eta = new double[numCategories];
+        double[] prob = new double[numCategories];
+        double[] g = new double[d];
+        double[] h = new double[d * d];
+        double[] step = new double[d];
+        double[] trial = new double[d];
+
+        double objective = objective(b, target, columns, rows, numCategories, x, eta);
+        int iterations = 0;
+        boolean converged = false;
+
+        while (iterations < maxIterations) {
+            iterations++;
+
+            // Gradient and Hessian of the negative penalized log likelihood.
+            Arrays.fill(g, 0.0);
+            Arrays.fill(h, 0.0);
+
+            for (int r = 0; r < n; r++) {
+                int i = rows[r];
+                features(columns, i, x);
+                probabilities(b, x, numCategories, eta, prob);
+                int y = target[i];
+
+                for (int k = 0; k < m; k++) {
+                    double residual = prob[k + 1] - (y == k + 1 ? 1.0 : 0.0);
+
+                    for (int a = 0; a < p; a++) {
+                        g[k * p + a] += residual * x[a];
+                    }
+
+                    for (int l = k; l < m; l++) {
+                        double w = prob[k + 1] * ((k == l ? 1.0 : 0.0) - prob[l + 1]);
+
+                        for (int a = 0; a < p; a++) {
+                            double wa = w * x[a];
+                            int row = (k * p + a) * d + l * p;
+
+                            for (int c = (k == l ? a : 0); c < p; c++) {
+                                h[row + c] += wa * x[c];
+                            }
+                        }
+                    }
+                }
+            }
+
+            for (int j = 0; j < d; j++) {
+                g[j] += ridge * b[j];
+                h[j * d + j] += ridge;
+
+                for (int k = j + 1; k < d; k++) {
+                    h[k * d + j] = h[j * d + k];
+                }
+            }
+
+            if (!solve(h, g, step, d)) {
+                break;
+            }
+
+            // Halve the step until the objective does not get worse.
+            double newObjective = Double.POSITIVE_INFINITY;
+            double scale = 1.0;
+
+            for (int halving = 0; halving < 30; halving++) {
+                for (int j = 0; j < d; j++) trial[j] = b[j] - scale * step[j];
+                newObjective = objective(trial, target, columns, rows, numCategories, x, eta);
+                if (newObjective <= objective) break;
+                scale /= 2;
+            }
+
+            if (!(newObjective <= objective)) {
+                converged = true;
+                break;
+            }
+
+            System.arraycopy(trial, 0, b, 0, d);
+            double change = objective - newObjective;
+            objective = newObjective;
+
+            if (change <= tolerance * (1.0 + Math.abs(objective))) {
+                converged = true;
+                break;
+            }
+        }
+
+        double[][] coefficients = new double[m][p];
+
+        for (int k = 0; k < m; k++) {
+            System.arraycopy(b, k * p, coefficients[k], 0, p);
+        }
+
+        double penalty = 0.0;
+        for (double c : b) penalty += c * c;
+
+        return new Fit(coefficients, -objective + 0.5 * ridge * penalty, iterations, converged);
+    }
+
+    /**
+     * Regresses the target onto the columns, with an intercept, from the marginal fit.
+     */
+    public Fit fit(int[] target, int numCategories, double[][] columns, int[] rows) {
+        return fit(target, numCategories, columns, rows, null);
+    }
+
+    //=============================PRIVATE METHODS========================//
+
+    // The negative penalized log likelihood.
+    private double objective(double[] b, int[] target, double[][] columns, int[] rows, int numCategories,
+                             double[] x, double[] eta) {
+        int p = x.length;
+        double sum = 0.0;
+
+        for (int i : rows) {
+            features(columns, i, x);
+            double max = 0.0;
+            eta[0] = 0.0;
+
+            for (int k = 1; k < numCategories; k++) {
+                double e = 0.0;
+                int offset = (k - 1) * p;
+                for (int a = 0; a < p; a++) e += b[offset + a] * x[a];
+                eta[k] = e;
+                if (e > max) max = e;
+            }
+
+            double norm = 0.0;
+            for (int k = 0; k < numCategories; k++) norm += Math.exp(eta[k] - max);
+
+            sum -= eta[target[i]] - max - Math.log(norm);
+        }
+
+        double penalty = 0.0;
+        for (double c : b) penalty += c * c;
+
+        return sum + 0.5 * ridge * penalty;
+    }
+
+    private static void features(double[][] columns, int i, double[] x) {
+        for (int j = 0; j < columns.length; j++) x[j] = columns[j][i];
+        x[columns.length] = 1.0;
+    }
+
+    private static void probabilities(double[] b, double[] x, int numCategories, double[] eta, double[] prob) {
+        int p = x.length;
+        double max = 0.0;
+        eta[0] = 0.0;
+
+        for (int k = 1; k < numCategories; k++) {
+            double e = 0.0;
+            int offset = (k - 1) * p;
+            for (int a = 0; a < p; a++) e += b[offset + a] * x[a];
+            eta[k] = e;
+            if (e > max) max = e;
+        }
+
+        double norm = 0.0;
+
+        for (int k = 0; k < numCategories; k++) {
+            prob[k] = Math.exp(eta[k] - max);
+            norm += prob[k];
+        }
+
+        for (int k = 0; k < numCategories; k++) prob[k] /= norm;
+    }
+
+    // Solves h s = g for s by Cholesky decomposition of h, in place; if h is not numerically positive definite, its
+    // diagonal is jittered. Returns false if that fails.
+    private static boolean solve(double[] h, double[] g, double[] s, int d) {
+        double trace = 0.0;
+        for (int j = 0; j < d; j++) trace += h[j * d + j];
+        double jitter = 0.0;
+        double[] l = new double[d * d];
+
+        for (int attempt = 0; attempt < 10; attempt++) {
+            if (cholesky(h, l, d, jitter)) {
+                for (int i = 0; i < d; i++) {
+                    double sum = g[i];
+                    for (int k = 0; k < i; k++) sum -= l[i * d + k] * s[k];
+                    s[i] = sum / l[i * d + i];
+                }
+
+                for (int i = d - 1; i >= 0; i--) {
+                    double sum = s[i];
+                    for (int k = i + 1; k < d; k++) sum -= l[k * d + i] * s[k];
+                    s[i] = sum / l[i * d + i];
+                }
+
+                return true;
+            }
+
+            jitter = jitter == 0.0 ? 1e-10 * Math.max(trace / d, 1e-10) : jitter * 100;
+        }
+
+        return false;
+    }
+
+    private static boolean cholesky(double[] h, double[] l, int d, double jitter) {
+        for (int i = 0; i < d; i++) {
+            for (int j = 0; j <= i; j++) {
+                double sum = h[i * d + j] + (i == j ? jitter : 0.0);
+                for (int k = 0; k < j; k++) sum -= l[i * d + k] * l[j * d + k];
+
+                if (i == j) {
+                    if (!(sum > 0)) return false;
+                    l[i * d + i] = Math.sqrt(sum);
+                } else {
+                    l[i * d + j] = sum / l[j * d + j];
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * The result of a fit.
+     */
+    public static final class Fit {
+        private final double[][] coefficients;
+        private final double logLikelihood;
+        private final int iterations;
+        private final boolean converged;
+
+        private Fit(double[][] coefficients, double logLikelihood, int iterations, boolean converged) {
+            this.coefficients = coefficients;
+            this.logLikelihood = logLikelihood;
+            this.iterations = iterations;
+            this.converged = converged;
+        }
+
+        /**
+         * @return The coefficients of category k + 1 against the reference category 0, for each column in order and
+         * then the intercept.
+         */
+        public double[] getCoefficients(int k) {
+            return coefficients[k].clone();
+        }
+
+        /**
+         * @return The (unpenalized) log likelihood of the data at the fitted coefficients.
+         */
+        public double getLogLikelihood() {
+            return logLikelihood;
+        }
+
+        public int getNumCategories() {
+            return coefficients.length + 1;
+        }
+
+        public int getNumColumns() {
+            return coefficients[0].length - 1;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public boolean isConverged() {
+            return converged;
+        }
+    }
+}
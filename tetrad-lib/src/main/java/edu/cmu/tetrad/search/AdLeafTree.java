@@ -62,6 +62,8 @@ public class AdLeafTree {
             nodesHash.put(v, j);
         }
 
+        this.baseCase = new ArrayList<>();
+        baseCase.add(new Vary());
     }
 
     /**
@@ -75,12 +77,6 @@ public class AdLeafTree {
     public List<List<Integer>> getCellLeaves(List<DiscreteVariable> A) {
         A.sort(Comparator.comparingInt(o -> nodesHash.get(o)));
 
-        if (baseCase == null) {
-            Vary vary = new Vary();
-            this.baseCase = new ArrayList<>();
-            baseCase.add(vary);
-        }
-
         List<Vary> varies = baseCase;
 
         for (DiscreteVariable v : A) {
@@ -113,12 +109,6 @@ public class AdLeafTree {
             }
         });
 
-        if (baseCase == null) {
-            Vary vary = new Vary();
-            this.baseCase = new ArrayList<>();
-            baseCase.add(vary);
-        }
-
         List<Vary> varies = baseCase;
 
         for (DiscreteVariable v : A) {
@@ -197,7 +187,8 @@ public class AdLeafTree {
             return rows;
         }
 
-        public Vary getSubvary(int w, int cat) {
+        // Synchronized, since the tree is grown lazily by searches that may query it from several threads.
+        public synchronized Vary getSubvary(int w, int cat) {
             Vary vary = subVaries.get(cat).get(w);
 
             if (vary == null) {
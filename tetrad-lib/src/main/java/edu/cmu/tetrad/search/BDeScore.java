@@ -21,10 +21,10 @@
 
 package edu.cmu.tetrad.search;
 
-import edu.cmu.tetrad.data.DataSet;
-import edu.cmu.tetrad.data.DiscreteVariable;
+import edu.cmu.tetrad.data.*;
 import edu.cmu.tetrad.graph.Node;
 import edu.cmu.tetrad.util.ProbUtils;
+import edu.cmu.tetrad.util.SearchMetrics;
 
 import java.util.List;
 
@@ -34,6 +34,9 @@ import java.util.List;
 public class BDeScore implements LocalDiscreteScore {
     private DataSet dataSet;
 
+    // If not null, counts are taken from this tree.
+    private AdCountTree adTree = null;
+
     public BDeScore(DataSet dataSet) {
         if (dataSet == null) {
             throw new NullPointerException();
@@ -47,6 +50,7 @@ public class BDeScore implements LocalDiscreteScore {
     }
 
     public double localScore(int i, int parents[]) {
+        SearchMetrics.getInstance().localScore();
 
         // Number of categories for i.
         int r = numCategories(i);
@@ -70,7 +74,23 @@ public class BDeScore implements LocalDiscreteScore {
 
         int values[] = new int[parents.length];
 
-        for (int n = 0; n < sampleSize(); n++) {
+        if (adTree != null) {
+            int[] counts = adTree.getCounts(append(parents, i));
+            int total = 0;
+
+            for (int j = 0; j < q; j++) {
+                for (int k = 0; k < r; k++) {
+                    n_ijk[j][k] = counts[j * r + k];
+                    total += n_ijk[j][k];
+                }
+            }
+
+            if (total != sampleSize()) {
+                throw new IllegalStateException("Please remove or impute missing values.");
+            }
+        }
+
+        for (int n = 0; adTree == null && n < sampleSize(); n++) {
             for (int p = 0; p < parents.length; p++) {
                 int parentValue = dataSet().getInt(n, parents[p]);
 
@@ -154,6 +174,31 @@ public class BDeScore implements LocalDiscreteScore {
         return dataSet;
     }
 
+    /**
+     * @param useAdTree True if counts should be taken from an AD-tree over the data, which
+     *                  answers the many queries of a search without passing over all of the
+     *                  data for each. The scores are the same either way.
+     */
+    public void setUseAdTree(boolean useAdTree) {
+        if (!useAdTree) {
+            this.adTree = null;
+            return;
+        }
+
+        int[][] data = new int[dataSet.getNumColumns()][dataSet.getNumRows()];
+        int[] dims = new int[dataSet.getNumColumns()];
+
+        for (int j = 0; j < dataSet.getNumColumns(); j++) {
+            dims[j] = numCategories(j);
+
+            for (int n = 0; n < dataSet.getNumRows(); n++) {
+                data[j][n] = dataSet.getInt(n, j);
+            }
+        }
+
+        this.adTree = new AdCountTree(data, dims);
+    }
+
     private int getRowIndex(int[] dim, int[] values) {
         int rowIndex = 0;
         for (int i = 0; i < dim.length; i++) {
@@ -23,10 +23,12 @@ package edu.cmu.tetrad.search;
 
 import edu.cmu.tetrad.data.*;
 import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.util.SearchMetrics;
 import org.apache.commons.math3.special.Gamma;
 
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -42,6 +44,9 @@ public class BDeuScore implements LocalDiscreteScore, IBDeuScore, Score {
 
     private final int[] numCategories;
 
+    // If not null, counts are taken from this tree.
+    private AdCountTree adTree = null;
+
     public BDeuScore(DataSet dataSet) {
         if (dataSet == null) {
             throw new NullPointerException("Data was not provided.");
@@ -82,81 +87,88 @@ public class BDeuScore implements LocalDiscreteScore, IBDeuScore, Score {
 
     @Override
     public double localScore(int node, int parents[]) {
+        SearchMetrics.getInstance().localScore();
 
         // Number of categories for node.
         int c = numCategories[node];
 
-        // Numbers of categories of parents.
-        int[] dims = new int[parents.length];
-
-        for (int p = 0; p < parents.length; p++) {
-            dims[p] = numCategories[parents[p]];
-        }
+        // Conditional cell coefs of data for node given parents(node), one
+        // stratum for each parent state.
+        ContingencyTable table = adTree != null
+                ? ContingencyTable.count(adTree, prepend(node, parents), 1)
+                : ContingencyTable.count(data, numCategories, prepend(node, parents), 1);
 
         // Number of parent states.
-        int r = 1;
+        long r = table.getNumStrata();
 
-        for (int p = 0; p < parents.length; p++) {
-            r *= dims[p];
-        }
+        int N = (int) table.getTotal();
 
-        // Conditional cell coefs of data for node given parents(node).
-        int[][] n_jk = new int[r][c];
-        int[] n_j = new int[r];
+        //Finally, compute the score
+        double score = 0.0;
 
-        int[] parentValues = new int[parents.length];
+        score += getPriorForStructure(parents.length, N);
 
-        int[][] myParents = new int[parents.length][];
-        for (int i = 0; i < parents.length; i++) {
-            myParents[i] = data[parents[i]];
-        }
+        final double cellPrior = getSamplePrior() / (c * r);
+        final double rowPrior = getSamplePrior() / r;
+
+        int[] n_jk = new int[c];
 
-        int[] myChild = data[node];
+        if (table.isSparse()) {
 
-        int N = 0;
+            // A parent state with no data adds and then subtracts the same terms, so only the
+            // occupied parent states are visited.
+            int q = table.getNumOccupiedStrata();
 
-        ROW:
-        for (int i = 0; i < sampleSize; i++) {
-            for (int p = 0; p < parents.length; p++) {
-                if (myParents[p][i] == -99) continue ROW;
-                parentValues[p] = myParents[p][i];
+            for (int j = 0; j < q; j++) {
+                table.getCounts(j, n_jk);
+                score = addRow(score, n_jk, rowPrior, cellPrior);
             }
 
-            int childValue = myChild[i];
+            score += q * Gamma.logGamma(rowPrior);
+            score -= c * (double) q * Gamma.logGamma(cellPrior);
+        } else {
+            int occupied = 0;
 
-            if (childValue == -99) {
-                continue;
-            }
+            for (int j = 0; j < r; j++) {
+                if (occupied < table.getNumOccupiedStrata() && table.getOccupiedStratum(occupied) == j) {
+                    table.getCounts(occupied++, n_jk);
+                } else {
+                    Arrays.fill(n_jk, 0);
+                }
 
-            int rowIndex = getRowIndex(dims, parentValues);
+                score = addRow(score, n_jk, rowPrior, cellPrior);
+            }
 
-            n_jk[rowIndex][childValue]++;
-            n_j[rowIndex]++;
-            N++;
+            score += (int) r * Gamma.logGamma(rowPrior);
+            score -= c * (int) r * Gamma.logGamma(cellPrior);
         }
 
-        //Finally, compute the score
-        double score = 0.0;
+        return score;
+    }
 
-        score += getPriorForStructure(parents.length, N);
+    private static double addRow(double score, int[] n_jk, double rowPrior, double cellPrior) {
+        int n_j = 0;
 
-        final double cellPrior = getSamplePrior() / (c * r);
-        final double rowPrior = getSamplePrior() / r;
+        for (int k : n_jk) {
+            n_j += k;
+        }
 
-        for (int j = 0; j < r; j++) {
-            score -= Gamma.logGamma(rowPrior + n_j[j]);
+        score -= Gamma.logGamma(rowPrior + n_j);
 
-            for (int k = 0; k < c; k++) {
-                score += Gamma.logGamma(cellPrior + n_jk[j][k]);
-            }
+        for (int k : n_jk) {
+            score += Gamma.logGamma(cellPrior + k);
         }
 
-        score += r * Gamma.logGamma(rowPrior);
-        score -= c * r * Gamma.logGamma(cellPrior);
-
         return score;
     }
 
+    private static int[] prepend(int node, int[] parents) {
+        int[] indices = new int[parents.length + 1];
+        indices[0] = node;
+        System.arraycopy(parents, 0, indices, 1, parents.length);
+        return indices;
+    }
+
     private double getPriorForStructure(int numParents, int N) {
         double e = getStructurePrior();
         int vm = N - 1;
@@ -211,15 +223,6 @@ public class BDeuScore implements LocalDiscreteScore, IBDeuScore, Score {
         throw new UnsupportedOperationException();
     }
 
-    private static int getRowIndex(int[] dim, int[] values) {
-        int rowIndex = 0;
-        for (int i = 0; i < dim.length; i++) {
-            rowIndex *= dim[i];
-            rowIndex += values[i];
-        }
-        return rowIndex;
-    }
-
     @Override
     public double getStructurePrior() {
         return structurePrior;
@@ -240,6 +243,15 @@ public class BDeuScore implements LocalDiscreteScore, IBDeuScore, Score {
         this.samplePrior = samplePrior;
     }
 
+    /**
+     * @param useAdTree True if counts should be taken from an AD-tree over the data, which
+     *                  answers the many queries of a search without passing over all of the
+     *                  data for each. The scores are the same either way.
+     */
+    public void setUseAdTree(boolean useAdTree) {
+        this.adTree = useAdTree ? new AdCountTree(data, numCategories) : null;
+    }
+
     public void setVariables(List<Node> variables) {
         for (int i = 0; i < variables.size(); i++) {
             if (!variables.get(i).getName().equals(this.variables.get(i).getName())) {
@@ -23,6 +23,7 @@ package edu.cmu.tetrad.search;
 
 import edu.cmu.tetrad.data.*;
 import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.util.SearchMetrics;
 
 import java.util.List;
 
@@ -79,6 +80,7 @@ public class BicScore implements LocalDiscreteScore, IBDeuScore {
 
     @Override
     public double localScore(int node, int[] parents) {
+        SearchMetrics.getInstance().localScore();
 
         if (!(variables.get(node) instanceof DiscreteVariable)) {
             throw new IllegalArgumentException("Not discrete: " + variables.get(node));
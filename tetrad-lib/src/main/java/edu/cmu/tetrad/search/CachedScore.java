@@ -0,0 +1,164 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.search;
+
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.util.SearchMetrics;
+
+import java.util.List;
+
+/**
+ * Wraps a score, remembering local scores in a bounded LocalScoreCache that may be shared by
+ * the parallel tasks of a search, so that families scored more than once--as they are, for
+ * instance, across the forward and backward phases of FGES--are only calculated once. Score
+ * differences are taken from the wrapped score's own localScoreDiff, which may be cheaper than
+ * two local scores or include terms of its own, and are cached separately from local scores.
+ */
+public class CachedScore implements Score {
+
+    // The wrapped score.
+    private final Score score;
+
+    // The cache of local scores.
+    private final LocalScoreCache cache;
+
+    /**
+     * Wraps the given score with a cache of default capacity.
+     */
+    public CachedScore(Score score) {
+        this(score, new LocalScoreCache());
+    }
+
+    /**
+     * Wraps the given score with the given cache, which should not be shared with other scores.
+     */
+    public CachedScore(Score score, LocalScoreCache cache) {
+        if (score == null) throw new NullPointerException("Score not specified.");
+        if (cache == null) throw new NullPointerException("Cache not specified.");
+        this.score = score;
+        this.cache = cache;
+    }
+
+    @Override
+    public double localScore(int node, int... parents) {
+        double s = cache.get(node, parents);
+
+        if (Double.isNaN(s)) {
+            SearchMetrics.getInstance().count("scoreCache.misses");
+            s = score.localScore(node, parents);
+            if (!Double.isNaN(s)) cache.add(node, parents, s);
+        } else {
+            SearchMetrics.getInstance().count("scoreCache.hits");
+        }
+
+        return s;
+    }
+
+    @Override
+    public double localScoreDiff(int x, int y, int[] z) {
+        // The added parent is stored as its complement, so the key can't be confused with
+        // that of a local score, whose parents are all nonnegative.
+        int[] key = append(z, ~x);
+        double diff = cache.get(y, key);
+
+        if (Double.isNaN(diff)) {
+            SearchMetrics.getInstance().count("scoreCache.misses");
+            diff = score.localScoreDiff(x, y, z);
+            if (!Double.isNaN(diff)) cache.add(y, key, diff);
+        } else {
+            SearchMetrics.getInstance().count("scoreCache.hits");
+        }
+
+        return diff;
+    }
+
+    @Override
+    public double localScoreDiff(int x, int y) {
+        return localScoreDiff(x, y, new int[0]);
+    }
+
+    @Override
+    public double localScore(int node, int parent) {
+        return localScore(node, new int[]{parent});
+    }
+
+    @Override
+    public double localScore(int node) {
+        return localScore(node, new int[0]);
+    }
+
+    @Override
+    public List<Node> getVariables() {
+        return score.getVariables();
+    }
+
+    @Override
+    public boolean isEffectEdge(double bump) {
+        return score.isEffectEdge(bump);
+    }
+
+    @Override
+    public int getSampleSize() {
+        return score.getSampleSize();
+    }
+
+    @Override
+    public Node getVariable(String targetName) {
+        return score.getVariable(targetName);
+    }
+
+    @Override
+    public int getMaxDegree() {
+        return score.getMaxDegree();
+    }
+
+    @Override
+    public boolean determines(List<Node> z, Node y) {
+        return score.determines(z, y);
+    }
+
+    /**
+     * @return the wrapped score.
+     */
+    public Score getScore() {
+        return score;
+    }
+
+    /**
+     * @return the cache, for its hit and miss counts.
+     */
+    public LocalScoreCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public String toString() {
+        return score.toString();
+    }
+
+    private static int[] append(int[] z, int x) {
+        int[] _z = new int[z.length + 1];
+        System.arraycopy(z, 0, _z, 0, z.length);
+        _z[z.length] = x;
+        return _z;
+    }
+}
@@ -0,0 +1,48 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.search;
+
+import edu.cmu.tetrad.util.CancellationToken;
+
+/**
+ * A search that can be stopped before it finishes. When its token is cancelled the search
+ * stops at the next loop boundary and returns the graph it has so far; isPartial() then tells
+ * the caller that the graph is not the finished result.
+ *
+ * @see CancellationToken
+ */
+public interface Cancellable {
+
+    /**
+     * Sets the token the search checks. By default this is CancellationToken.current() as of
+     * construction.
+     */
+    void setCancellationToken(CancellationToken token);
+
+    CancellationToken getCancellationToken();
+
+    /**
+     * @return true if the last search was cancelled before it finished, so that the graph it
+     * returned is partial.
+     */
+    boolean isPartial();
+}
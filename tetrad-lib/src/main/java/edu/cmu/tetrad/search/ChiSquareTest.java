@@ -21,10 +21,7 @@
 
 package edu.cmu.tetrad.search;
 
-import edu.cmu.tetrad.data.CellTable;
-import edu.cmu.tetrad.data.DataSet;
-import edu.cmu.tetrad.data.DiscreteVariable;
-import edu.cmu.tetrad.util.CombinationIterator;
+import edu.cmu.tetrad.data.*;
 import org.apache.commons.math3.distribution.ChiSquaredDistribution;
 
 import java.util.Arrays;
@@ -48,9 +45,9 @@ public class ChiSquareTest {
     private final int[] dims;
 
     /**
-     * Stores the data in the form of a cell table.
+     * The data, by variable and then by row.
      */
-    private final CellTable cellTable;
+    private final int[][] data;
 
     /**
      * The significance level of the test.
@@ -79,59 +76,57 @@ public class ChiSquareTest {
             this.getDims()[i] = variable.getNumCategories();
         }
 
+        if (dataSet instanceof BoxDataSet && ((BoxDataSet) dataSet).getDataBox() instanceof VerticalIntDataBox) {
+            this.data = ((VerticalIntDataBox) ((BoxDataSet) dataSet).getDataBox()).getVariableVectors();
+        } else {
+            this.data = new int[dataSet.getNumColumns()][];
+
+            for (int j = 0; j < dataSet.getNumColumns(); j++) {
+                this.data[j] = new int[dataSet.getNumRows()];
+
+                for (int i = 0; i < dataSet.getNumRows(); i++) {
+                    this.data[j][i] = dataSet.getInt(i, j);
+                }
+            }
+        }
+
         this.dataSet = dataSet;
         this.alpha = alpha;
-        this.cellTable = new CellTable(null);
-        this.getCellTable().setMissingValue(DiscreteVariable.MISSING_VALUE);
     }
 
     /**
      * Calculates chi square for a conditional crosstabulation table for independence question 0 _||_ 1 | 2, 3, ...max
      * by summing up chi square and degrees of freedom for each conditional table in turn, where rows or columns that
-     * consist entirely of zeros have been removed.
+     * consist entirely of zeros have been removed. Each call counts into its own table, so calls may be made
+     * concurrently.
      */
-    public synchronized ChiSquareTest.Result calcChiSquare(int[] testIndices) {
-
-        // Reset the cell table for the columns referred to in
-        // 'testIndices.' Do cell coefs for those columns.
-        this.getCellTable().addToTable(getDataSet(), testIndices);
+    public ChiSquareTest.Result calcChiSquare(int[] testIndices) {
 
-        // Indicator arrays to tell the cell table which margins
-        // to calculate. For x _||_ y | z1, z2, ..., we want to
-        // calculate the margin for x, the margin for y, and the
-        // margin for x and y. (These will be used later.)
-        int[] firstVar = new int[]{0};
-        int[] secondVar = new int[]{1};
-        int[] bothVars = new int[]{0, 1};
+        // Count the columns referred to in 'testIndices', with one conditional
+        // table (x, y) for each combination of values of the conditioning variables.
+        ContingencyTable table = getTable(testIndices, 2);
 
         double xSquare = 0.0;
         int df = 0;
 
-        int[] condDims = new int[testIndices.length - 2];
-        System.arraycopy(selectFromArray(getDims(), testIndices), 2, condDims, 0,
-                condDims.length);
+        int numRows = table.getNumValues(0);
+        int numCols = table.getNumValues(1);
 
-        int[] coords = new int[testIndices.length];
-        int numRows = this.getCellTable().getNumValues(0);
-        int numCols = this.getCellTable().getNumValues(1);
-
-        CombinationIterator combinationIterator =
-                new CombinationIterator(condDims);
+        int[] counts = new int[table.getCellSize()];
+        long[] rowSums = new long[numRows];
+        long[] colSums = new long[numCols];
 
         // Make a chi square table for each condition combination, strike zero rows and columns and calculate
         // chi square and degrees of freedom for the remaining rows and columns in the table. See Friedman.
-        while (combinationIterator.hasNext()) {
+        for (int k = 0; k < table.getNumOccupiedStrata(); k++) {
             boolean[] attestedRows = new boolean[numRows];
             boolean[] attestedCols = new boolean[numCols];
 
             Arrays.fill(attestedRows, true);
             Arrays.fill(attestedCols, true);
 
-            int[] combination = combinationIterator.next();
-
-            System.arraycopy(combination, 0, coords, 2, combination.length);
-
-            long total = getCellTable().calcMargin(coords, bothVars);
+            table.getCounts(k, counts);
+            long total = margins(counts, numRows, numCols, rowSums, colSums);
 
             if (total == 0) continue;
 
@@ -139,12 +134,9 @@ public class ChiSquareTest {
 
             for (int i = 0; i < numRows; i++) {
                 for (int j = 0; j < numCols; j++) {
-                    coords[0] = i;
-                    coords[1] = j;
-
-                    long sumRow = getCellTable().calcMargin(coords, firstVar);
-                    long sumCol = getCellTable().calcMargin(coords, secondVar);
-                    long observed = getCellTable().getValue(coords);
+                    long sumRow = colSums[j];
+                    long sumCol = rowSums[i];
+                    long observed = counts[i * numCols + j];
 
                     if (sumRow == 0L) {
                         attestedRows[i] = false;
@@ -200,31 +192,21 @@ public class ChiSquareTest {
      */
     public boolean isDetermined(int[] testIndices, double p) {
 
-        // Reset the cell table for the columns referred to in
-        // 'testIndices.' Do cell coefs for those columns.
-        this.getCellTable().addToTable(getDataSet(), testIndices);
-
-        // Indicator arrays to tell the cell table which margins
-        // to calculate. For x _||_ y | z1, z2, ..., we want to
-        // calculate the margin for x, the margin for y, and the
-        // margin for x and y. (These will be used later.)
-        int[] firstVar = new int[]{0};
-
-        int[] condDims = new int[testIndices.length - 1];
-        System.arraycopy(selectFromArray(getDims(), testIndices), 1, condDims, 0,
-                condDims.length);
+        // Count the columns referred to in 'testIndices', with one table for
+        // the first variable for each combination of values of the others.
+        ContingencyTable table = getTable(testIndices, 1);
 
-        int[] coords = new int[testIndices.length];
-        int numValues = this.getCellTable().getNumValues(0);
+        int numValues = table.getNumValues(0);
+        int[] counts = new int[table.getCellSize()];
 
-        CombinationIterator combinationIterator =
-                new CombinationIterator(condDims);
+        for (int k = 0; k < table.getNumOccupiedStrata(); k++) {
+            table.getCounts(k, counts);
 
-        while (combinationIterator.hasNext()) {
-            int[] combination = combinationIterator.next();
-            System.arraycopy(combination, 0, coords, 1, combination.length);
+            long total = 0;
 
-            long total = this.getCellTable().calcMargin(coords, firstVar);
+            for (int i = 0; i < numValues; i++) {
+                total += counts[i];
+            }
 
             if (total == 0) {
                 continue;
@@ -233,9 +215,7 @@ public class ChiSquareTest {
             boolean dominates = false;
 
             for (int i = 0; i < numValues; i++) {
-                coords[0] = i;
-
-                long numi = this.getCellTable().getValue(coords);
+                long numi = counts[i];
 
                 if ((double) numi / total >= p) {
                     dominates = true;
@@ -289,8 +269,33 @@ public class ChiSquareTest {
         return dims;
     }
 
-    public CellTable getCellTable() {
-        return cellTable;
+    /**
+     * @return the counts for the given variables, the first numCellVars of which index cells within each stratum.
+     */
+    public ContingencyTable getTable(int[] testIndices, int numCellVars) {
+        return ContingencyTable.count(data, dims, testIndices, numCellVars);
+    }
+
+    /**
+     * Calculates the row and column sums of a two-way table of counts in one pass.
+     *
+     * @return the total count.
+     */
+    static long margins(int[] counts, int numRows, int numCols, long[] rowSums, long[] colSums) {
+        Arrays.fill(rowSums, 0L);
+        Arrays.fill(colSums, 0L);
+        long total = 0;
+
+        for (int i = 0; i < numRows; i++) {
+            for (int j = 0; j < numCols; j++) {
+                int count = counts[i * numCols + j];
+                rowSums[i] += count;
+                colSums[j] += count;
+                total += count;
+            }
+        }
+
+        return total;
     }
 
     //===============================CLASSES==============================//
@@ -0,0 +1,343 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.search;
+
+import edu.cmu.tetrad.data.ICovarianceMatrix;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Caches Cholesky factors of covariance submatrices Cov(P, P) keyed by the parent set P, so
+ * that a parent set differing from a previously seen one by a single variable can be factored
+ * by a rank-one extension or downdate in O(p^2) rather than from scratch in O(p^3). Factors
+ * do not depend on the child, so they are shared across children; for each child the most
+ * recently used factor is also remembered, since FGES and similar searches tend to ask about
+ * parent sets that are neighbors of the last one asked about for that child.
+ * <p>
+ * The cache is bounded; least recently used factors are evicted once the maximum size is
+ * reached. It is safe to use from multiple threads.
+ */
+final class CholeskyFactorCache {
+
+    // The covariance matrix the factors are taken from.
+    private final ICovarianceMatrix covariances;
+
+    // The maximum number of factors kept.
+    private final int maxSize;
+
+    // The cached factors, in access order.
+    private final LinkedHashMap<Key, Factor> factors;
+
+    // The last factor used for each child.
+    private final AtomicReferenceArray<Factor> lastFactor;
+
+    /**
+     * Constructs a cache over the given covariance matrix holding at most maxSize factors.
+     */
+    CholeskyFactorCache(ICovarianceMatrix covariances, final int maxSize) {
+        if (maxSize < 1) throw new IllegalArgumentException("Max size must be at least 1: " + maxSize);
+
+        this.covariances = covariances;
+        this.maxSize = maxSize;
+        this.factors = new LinkedHashMap<Key, Factor>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Factor> eldest) {
+                return size() > CholeskyFactorCache.this.maxSize;
+            }
+        };
+        this.lastFactor = new AtomicReferenceArray<>(covariances.getDimension());
+    }
+
+    /**
+     * @return the residual variance of the child regressed on the parents, or NaN if Cov(P, P)
+     * is not positive definite.
+     */
+    double residualVariance(int child, int[] parents) {
+        Factor factor = factor(child, parents);
+        if (factor == null) return Double.NaN;
+        lastFactor.set(child, factor);
+        return residualVariance(factor, child);
+    }
+
+    /**
+     * @return the residual variances of y regressed on z and of y regressed on z plus x, in that
+     * order, using a single factor of Cov(z, z). Either entry is NaN if the corresponding
+     * covariance submatrix is not positive definite.
+     */
+    double[] residualVariances(int x, int y, int[] z) {
+        Factor factor = factor(y, z);
+        if (factor == null) return new double[]{Double.NaN, Double.NaN};
+        lastFactor.set(y, factor);
+
+        double[] u = solve(factor, y);
+        double[] w = solve(factor, x);
+
+        double s2 = covariances.getValue(y, y) - dot(u, u);
+        double d = covariances.getValue(x, x) - dot(w, w);
+
+        if (d <= 0) return new double[]{s2, Double.NaN};
+
+        double e = covariances.getValue(x, y) - dot(w, u);
+        return new double[]{s2, s2 - e * e / d};
+    }
+
+    /**
+     * Clears all cached factors.
+     */
+    void clear() {
+        synchronized (factors) {
+            factors.clear();
+        }
+
+        for (int i = 0; i < lastFactor.length(); i++) {
+            lastFactor.set(i, null);
+        }
+    }
+
+    /**
+     * @return the number of factors currently cached.
+     */
+    int size() {
+        synchronized (factors) {
+            return factors.size();
+        }
+    }
+
+    //==================================PRIVATE METHODS=================================//
+
+    private Factor factor(int child, int[] parents) {
+        Key key = Key.of(parents);
+
+        Factor factor = get(key);
+        if (factor != null) return factor;
+
+        Factor last = lastFactor.get(child);
+
+        if (last != null) {
+            if (last.order.length == parents.length - 1) {
+                int added = addedVariable(last.key.sorted, key.sorted);
+                if (added != -1) return put(key, extend(last, added));
+            } else if (last.order.length == parents.length + 1) {
+                int removed = addedVariable(key.sorted, last.key.sorted);
+                if (removed != -1) return put(key, downdate(last, removed));
+            }
+        }
+
+        for (int i = 0; i < key.sorted.length; i++) {
+            Factor smaller = get(Key.ofSorted(remove(key.sorted, i)));
+            if (smaller != null) return put(key, extend(smaller, key.sorted[i]));
+        }
+
+        Factor f = new Factor(new int[0], new double[0][], Key.ofSorted(new int[0]));
+
+        for (int parent : key.sorted) {
+            f = extend(f, parent);
+            if (f == null) return null;
+        }
+
+        return put(key, f);
+    }
+
+    private Factor get(Key key) {
+        synchronized (factors) {
+            return factors.get(key);
+        }
+    }
+
+    private Factor put(Key key, Factor factor) {
+        if (factor == null) return null;
+
+        synchronized (factors) {
+            factors.put(key, factor);
+        }
+
+        return factor;
+    }
+
+    // Appends variable v to the factor; null if the result is not positive definite.
+    private Factor extend(Factor factor, int v) {
+        if (factor == null) return null;
+
+        int p = factor.order.length;
+        double[] w = solve(factor, v);
+        double d = covariances.getValue(v, v) - dot(w, w);
+
+        if (!(d > 0)) return null;
+
+        int[] order = Arrays.copyOf(factor.order, p + 1);
+        order[p] = v;
+
+        double[][] l = Arrays.copyOf(factor.l, p + 1);
+        l[p] = Arrays.copyOf(w, p + 1);
+        l[p][p] = Math.sqrt(d);
+
+        return new Factor(order, l, Key.of(order));
+    }
+
+    // Removes variable v from the factor by deleting its row and folding its column back into
+    // the trailing block with a rank-one update.
+    private Factor downdate(Factor factor, int v) {
+        int p = factor.order.length;
+        int k = indexOf(factor.order, v);
+
+        int[] order = new int[p - 1];
+        double[][] l = new double[p - 1][];
+
+        for (int i = 0; i < k; i++) {
+            order[i] = factor.order[i];
+            l[i] = factor.l[i];
+        }
+
+        double[] x = new double[p - 1];
+
+        for (int i = k + 1; i < p; i++) {
+            order[i - 1] = factor.order[i];
+            double[] row = new double[i];
+            System.arraycopy(factor.l[i], 0, row, 0, k);
+            System.arraycopy(factor.l[i], k + 1, row, k, i - k);
+            l[i - 1] = row;
+            x[i - 1] = factor.l[i][k];
+        }
+
+        for (int t = k; t < p - 1; t++) {
+            double ltt = l[t][t];
+            double r = Math.hypot(ltt, x[t]);
+            double c = r / ltt;
+            double s = x[t] / ltt;
+            l[t][t] = r;
+
+            for (int u = t + 1; u < p - 1; u++) {
+                l[u][t] = (l[u][t] + s * x[u]) / c;
+                x[u] = c * x[u] - s * l[u][t];
+            }
+        }
+
+        return new Factor(order, l, Key.of(order));
+    }
+
+    private double residualVariance(Factor factor, int child) {
+        double[] u = solve(factor, child);
+        return covariances.getValue(child, child) - dot(u, u);
+    }
+
+    // Solves L w = Cov(order, v) by forward substitution.
+    private double[] solve(Factor factor, int v) {
+        int p = factor.order.length;
+        double[] w = new double[p];
+
+        for (int i = 0; i < p; i++) {
+            double sum = covariances.getValue(factor.order[i], v);
+            double[] row = factor.l[i];
+
+            for (int j = 0; j < i; j++) {
+                sum -= row[j] * w[j];
+            }
+
+            w[i] = sum / row[i];
+        }
+
+        return w;
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) sum += a[i] * b[i];
+        return sum;
+    }
+
+    // If sorted array b is sorted array a plus one variable, returns that variable, else -1.
+    private static int addedVariable(int[] a, int[] b) {
+        int added = -1;
+        int i = 0;
+
+        for (int v : b) {
+            if (i < a.length && a[i] == v) {
+                i++;
+            } else if (added == -1) {
+                added = v;
+            } else {
+                return -1;
+            }
+        }
+
+        return i == a.length ? added : -1;
+    }
+
+    private static int[] remove(int[] a, int i) {
+        int[] b = new int[a.length - 1];
+        System.arraycopy(a, 0, b, 0, i);
+        System.arraycopy(a, i + 1, b, i, a.length - i - 1);
+        return b;
+    }
+
+    private static int indexOf(int[] a, int v) {
+        for (int i = 0; i < a.length; i++) if (a[i] == v) return i;
+        return -1;
+    }
+
+    // A lower triangular factor L with L L' = Cov(order, order); row i has length i + 1.
+    private static final class Factor {
+        private final int[] order;
+        private final double[][] l;
+        private final Key key;
+
+        private Factor(int[] order, double[][] l, Key key) {
+            this.order = order;
+            this.l = l;
+            this.key = key;
+        }
+    }
+
+    // A parent set, independent of order.
+    private static final class Key {
+        private final int[] sorted;
+        private final int hash;
+
+        private Key(int[] sorted) {
+            this.sorted = sorted;
+            this.hash = Arrays.hashCode(sorted);
+        }
+
+        private static Key of(int[] parents) {
+            int[] sorted = Arrays.copyOf(parents, parents.length);
+            Arrays.sort(sorted);
+            return new Key(sorted);
+        }
+
+        private static Key ofSorted(int[] sorted) {
+            return new Key(sorted);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(sorted, ((Key) o).sorted);
+        }
+    }
+}
@@ -23,6 +23,8 @@ package edu.cmu.tetrad.search;
 
 import edu.cmu.tetrad.data.DataSet;
 import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.kernel.KernelUtils;
+import edu.cmu.tetrad.util.Matrix;
 import org.apache.commons.math3.distribution.NormalDistribution;
 
 import java.util.*;
@@ -48,6 +50,9 @@ import static java.lang.Math.*;
  * Biometrika, 67(3), 581-590.
  * <p>
  * We use Nadaraya-Watson kernel regression, though we further restrict the sample size to nearby points.
+ * Alternatively, if a rank is set, the Gaussian kernel matrix over all points is approximated by a pivoted
+ * incomplete Cholesky factor G of that rank, so that the regression weights K x and K 1 are G (G' x) and
+ * G (G' 1), in O(N rank^2) time.
  *
  * @author Joseph Ramsey
  */
@@ -110,6 +115,16 @@ public final class ConditionalCorrelationIndependence {
      */
     private int kernelRegressionSampleSize = 100;
 
+    /**
+     * If > 0, the rank of the incomplete Cholesky approximation of the kernel used for regression.
+     */
+    private int rank = 0;
+
+    /**
+     * Incomplete Cholesky factors stop when the largest remaining diagonal residual falls below this.
+     */
+    private static final double LOW_RANK_PRECISION = 1e-6;
+
     //==================CONSTRUCTORS====================//
 
     /**
@@ -198,6 +213,19 @@ public final class ConditionalCorrelationIndependence {
             return _data[0];
         }
 
+        double _max = Double.NEGATIVE_INFINITY;
+
+        for (double[] datum : _data) {
+            double h = h(datum);
+            if (h > _max) _max = h;
+        }
+
+        double h = _max;
+
+        if (rank > 0 && getKernelMultiplier() == Kernel.Gaussian) {
+            return lowRankResiduals(_data, h);
+        }
+
         List<List<Integer>> _sortedIndices = new ArrayList<>();
 
         for (int z2 = 0; z2 < z.size(); z2++) {
@@ -236,15 +264,6 @@ public final class ConditionalCorrelationIndependence {
             _z[m] = m;
         }
 
-        double _max = Double.NEGATIVE_INFINITY;
-
-        for (double[] datum : _data) {
-            double h = h(datum);
-            if (h > _max) _max = h;
-        }
-
-        double h = _max;
-
         for (int i = 0; i < _N; i++) {
             Set<Integer> js = getCloseZs(_data, _z, i, kernelRegressionSampleSize,
                     _reverseLookup, _sortedIndices);
@@ -341,8 +360,76 @@ public final class ConditionalCorrelationIndependence {
         this.kernelRegressionSampleSize = kernelRegressionSapleSize;
     }
 
+    public int getRank() {
+        return rank;
+    }
+
+    /**
+     * Sets the rank of the low-rank kernel approximation used for regression with the Gaussian kernel. If 0
+     * (the default), the regression is done using the kernel regression sample size nearby points instead.
+     */
+    public void setRank(int rank) {
+        if (rank < 0) throw new IllegalArgumentException("Rank must be >= 0: " + rank);
+        this.rank = rank;
+    }
+
     //=====================PRIVATE METHODS====================//
 
+    /**
+     * Residuals of _data[0] regressed on the remaining rows of _data using the Gaussian kernel over all points,
+     * approximated by an incomplete Cholesky factor.
+     */
+    private double[] lowRankResiduals(double[][] _data, double h) {
+        double[] _xdata = _data[0];
+        int _N = _xdata.length;
+
+        int[] _z = new int[_data.length - 1];
+        for (int m = 0; m < _z.length; m++) _z[m] = m + 1;
+
+        Matrix g = KernelUtils.incompleteCholesky(new KernelUtils.GramMatrix() {
+            public int size() {
+                return _N;
+            }
+
+            public double get(int i, int j) {
+                return kernelGaussian(distance(_data, _z, i, j), h);
+            }
+        }, LOW_RANK_PRECISION, rank);
+
+        int r = g.columns();
+        double[] gx = new double[r];
+        double[] g1 = new double[r];
+
+        for (int i = 0; i < _N; i++) {
+            for (int k = 0; k < r; k++) {
+                gx[k] += g.get(i, k) * _xdata[i];
+                g1[k] += g.get(i, k);
+            }
+        }
+
+        double[] _residualsx = new double[_N];
+
+        for (int i = 0; i < _N; i++) {
+            double _sumx = 0.0;
+            double _totalWeightx = 0.0;
+
+            for (int k = 0; k < r; k++) {
+                _sumx += g.get(i, k) * gx[k];
+                _totalWeightx += g.get(i, k) * g1[k];
+            }
+
+            if (_totalWeightx == 0) _totalWeightx = 1;
+
+            _residualsx[i] = _xdata[i] - _sumx / _totalWeightx;
+
+            if (Double.isNaN(_residualsx[i])) {
+                _residualsx[i] = 0;
+            }
+        }
+
+        return _residualsx;
+    }
+
     /**
      * @return true just in the case the x and y vectors are independent,
      * once undefined values have been removed. Left public so it can be
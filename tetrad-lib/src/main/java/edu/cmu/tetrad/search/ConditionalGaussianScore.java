@@ -23,6 +23,7 @@ package edu.cmu.tetrad.search;
 
 import edu.cmu.tetrad.data.*;
 import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.util.SearchMetrics;
 
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
@@ -80,6 +81,7 @@ public class ConditionalGaussianScore implements Score {
      * Calculates the sample likelihood and BIC score for i given its parents in a simple SEM model
      */
     public double localScore(int i, int... parents) {
+        SearchMetrics.getInstance().localScore();
         List<Integer> rows = getRows(i, parents);
         likelihood.setRows(rows);
 
@@ -210,7 +210,7 @@ public final class CpcStable implements GraphSearch {
         graph = new EdgeListGraphSingleConnections(nodes);
 
 
-        final FasConcurrent fas = new FasConcurrent(getIndependenceTest());
+        final FasStableParallel fas = new FasStableParallel(getIndependenceTest());
         fas.setOut(out);
         return search(fas, nodes);
     }
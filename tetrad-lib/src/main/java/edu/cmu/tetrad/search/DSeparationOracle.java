@@ -0,0 +1,340 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.search;
+
+import edu.cmu.tetrad.graph.Edge;
+import edu.cmu.tetrad.graph.Endpoint;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.Node;
+
+import java.util.*;
+
+/**
+ * Answers d-separation (m-separation) questions for a fixed graph. The graph is copied into
+ * int adjacency arrays once, and the ancestors of every node are precomputed as bitsets, so
+ * that a query x _||_ y | Z needs only the union of the ancestor sets of Z followed by a single
+ * Bayes ball style reachability pass over (node, arrived-by-arrowhead) states, with no Node
+ * hashing or path objects. Results are memoized per (x, y, Z) in a bounded LocalScoreCache.
+ * <p>
+ * A collider on a path is a node with arrowheads into it from both of its neighbors on the
+ * path, as in GraphUtils.isDConnectedTo; the path is open iff each collider is an ancestor of
+ * some node in Z and no noncollider is in Z. Underline triples are not consulted. Changes to
+ * the graph after construction are not seen; make a new oracle instead.
+ * <p>
+ * Queries may be made from multiple threads.
+ */
+public final class DSeparationOracle {
+
+    // The default number of memoized results.
+    private static final int DEFAULT_CACHE_SIZE = 1 << 18;
+
+    private final List<Node> nodes;
+    private final Map<Node, Integer> indices;
+
+    // For each node b, its neighbors, and for each neighbor c whether the edge b *-* c has an
+    // arrowhead at b and at c.
+    private final int[][] neighbors;
+    private final boolean[][] arrowAtNode;
+    private final boolean[][] arrowAtNeighbor;
+
+    // For each node b and neighbor index k, whether neighbors[b][k] --> b, and whether
+    // b --> neighbors[b][k].
+    private final boolean[][] parent;
+    private final boolean[][] child;
+
+    // For each node, its ancestors (itself included) as a bitset.
+    private final long[][] ancestors;
+
+    private final int words;
+
+    // Memoized results, 1.0 for d-separated and 0.0 for d-connected.
+    private final LocalScoreCache cache;
+
+    /**
+     * Constructs an oracle for the given graph with the default cache size.
+     */
+    public DSeparationOracle(Graph graph) {
+        this(graph, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Constructs an oracle for the given graph.
+     *
+     * @param cacheSize The maximum number of results remembered.
+     */
+    public DSeparationOracle(Graph graph, int cacheSize) {
+        if (graph == null) {
+            throw new NullPointerException("Graph must not be null.");
+        }
+
+        this.nodes = graph.getNodes();
+        this.indices = new HashMap<>();
+
+        for (int i = 0; i < nodes.size(); i++) {
+            indices.put(nodes.get(i), i);
+        }
+
+        int n = nodes.size();
+        this.neighbors = new int[n][];
+        this.arrowAtNode = new boolean[n][];
+        this.arrowAtNeighbor = new boolean[n][];
+        this.parent = new boolean[n][];
+        this.child = new boolean[n][];
+
+        for (int b = 0; b < n; b++) {
+            Node node = nodes.get(b);
+            List<Edge> edges = graph.getEdges(node);
+
+            neighbors[b] = new int[edges.size()];
+            arrowAtNode[b] = new boolean[edges.size()];
+            arrowAtNeighbor[b] = new boolean[edges.size()];
+            parent[b] = new boolean[edges.size()];
+            child[b] = new boolean[edges.size()];
+
+            for (int k = 0; k < edges.size(); k++) {
+                Edge edge = edges.get(k);
+                Node c = edge.getDistalNode(node);
+                neighbors[b][k] = indices.get(c);
+                arrowAtNode[b][k] = edge.getProximalEndpoint(node) == Endpoint.ARROW;
+                arrowAtNeighbor[b][k] = edge.getProximalEndpoint(c) == Endpoint.ARROW;
+                parent[b][k] = edge.getProximalEndpoint(c) == Endpoint.TAIL && arrowAtNode[b][k];
+                child[b][k] = edge.getProximalEndpoint(node) == Endpoint.TAIL && arrowAtNeighbor[b][k];
+            }
+        }
+
+        this.words = (n + 63) >>> 6;
+        this.ancestors = calcAncestors();
+        this.cache = new LocalScoreCache(cacheSize);
+    }
+
+    /**
+     * @return true iff x and y are d-separated given z.
+     */
+    public boolean isDSeparated(Node x, Node y, List<Node> z) {
+        int[] _z = new int[z.size()];
+
+        for (int i = 0; i < z.size(); i++) {
+            _z[i] = index(z.get(i));
+        }
+
+        return isDSeparated(index(x), index(y), _z);
+    }
+
+    /**
+     * @return true iff x and y are d-connected given z.
+     */
+    public boolean isDConnected(Node x, Node y, List<Node> z) {
+        return !isDSeparated(x, y, z);
+    }
+
+    /**
+     * @return true iff the nodes with the given indices in getNodes() are d-separated given the
+     * nodes with indices z.
+     */
+    public boolean isDSeparated(int x, int y, int[] z) {
+        if (x == y) {
+            return false;
+        }
+
+        // The pair is stored as the smaller of x and y, with the larger shifted past all node
+        // indices so that it sorts after z.
+        int[] key = Arrays.copyOf(z, z.length + 1);
+        key[z.length] = nodes.size() + Math.max(x, y);
+        int variable = Math.min(x, y);
+
+        double cached = cache.get(variable, key);
+
+        if (!Double.isNaN(cached)) {
+            return cached == 1.0;
+        }
+
+        boolean dSeparated = !reachable(x, y, z);
+        cache.add(variable, key, dSeparated ? 1.0 : 0.0);
+        return dSeparated;
+    }
+
+    /**
+     * @return true iff node a is an ancestor of node b (or is b).
+     */
+    public boolean isAncestorOf(Node a, Node b) {
+        int _a = index(a);
+        return (ancestors[index(b)][_a >>> 6] & (1L << _a)) != 0;
+    }
+
+    /**
+     * @return the nodes of the graph, in the order used for indices.
+     */
+    public List<Node> getNodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    /**
+     * @return the index of the given node in getNodes().
+     */
+    public int getIndex(Node node) {
+        Integer i = indices.get(node);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * @return the cache of d-separation results.
+     */
+    public LocalScoreCache getCache() {
+        return cache;
+    }
+
+    //==================================PRIVATE METHODS=================================//
+
+    private int index(Node node) {
+        Integer i = indices.get(node);
+
+        if (i == null) {
+            throw new IllegalArgumentException("Node " + node + " is not in the graph.");
+        }
+
+        return i;
+    }
+
+    // Bayes ball over states (b, whether b was entered by an arrowhead), state s = 2 * b + (1 if
+    // so). Following b *-* c out of such a state is allowed iff b is a collider and an ancestor
+    // of z, or b is a noncollider not in z.
+    private boolean reachable(int x, int y, int[] z) {
+        int n = nodes.size();
+
+        boolean[] inZ = new boolean[n];
+        long[] anZ = new long[words];
+
+        for (int _z : z) {
+            inZ[_z] = true;
+            long[] a = ancestors[_z];
+            for (int w = 0; w < words; w++) anZ[w] |= a[w];
+        }
+
+        boolean[] visited = new boolean[2 * n];
+        int[] queue = new int[2 * n];
+        int head = 0;
+        int tail = 0;
+
+        for (int k = 0; k < neighbors[x].length; k++) {
+            int c = neighbors[x][k];
+            if (c == y) return true;
+
+            int s = 2 * c + (arrowAtNeighbor[x][k] ? 1 : 0);
+
+            if (!visited[s]) {
+                visited[s] = true;
+                queue[tail++] = s;
+            }
+        }
+
+        while (head < tail) {
+            int s = queue[head++];
+            int b = s >>> 1;
+            boolean arrowIn = (s & 1) == 1;
+            boolean blockedNoncollider = inZ[b];
+            boolean openCollider = (anZ[b >>> 6] & (1L << b)) != 0;
+
+            for (int k = 0; k < neighbors[b].length; k++) {
+                boolean collider = arrowIn && arrowAtNode[b][k];
+
+                if (collider ? !openCollider : blockedNoncollider) continue;
+
+                int c = neighbors[b][k];
+                if (c == y) return true;
+
+                int t = 2 * c + (arrowAtNeighbor[b][k] ? 1 : 0);
+
+                if (!visited[t]) {
+                    visited[t] = true;
+                    queue[tail++] = t;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    // Ancestor bitsets, filled in topological order where the directed part of the graph is
+    // acyclic and by search from each remaining node otherwise.
+    private long[][] calcAncestors() {
+        int n = nodes.size();
+        long[][] ancestors = new long[n][words];
+
+        int[] numParents = new int[n];
+
+        for (int b = 0; b < n; b++) {
+            for (int k = 0; k < neighbors[b].length; k++) {
+                if (parent[b][k]) numParents[b]++;
+            }
+        }
+
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+
+        for (int b = 0; b < n; b++) {
+            if (numParents[b] == 0) queue[tail++] = b;
+        }
+
+        boolean[] done = new boolean[n];
+
+        while (head < tail) {
+            int b = queue[head++];
+            done[b] = true;
+            ancestors[b][b >>> 6] |= 1L << b;
+
+            for (int k = 0; k < neighbors[b].length; k++) {
+                int c = neighbors[b][k];
+
+                if (parent[b][k]) {
+                    long[] a = ancestors[c];
+                    for (int w = 0; w < words; w++) ancestors[b][w] |= a[w];
+                } else if (child[b][k] && --numParents[c] == 0) {
+                    queue[tail++] = c;
+                }
+            }
+        }
+
+        for (int b = 0; b < n; b++) {
+            if (done[b]) continue;
+
+            Deque<Integer> stack = new ArrayDeque<>();
+            ancestors[b][b >>> 6] |= 1L << b;
+            stack.push(b);
+
+            while (!stack.isEmpty()) {
+                int t = stack.pop();
+
+                for (int k = 0; k < neighbors[t].length; k++) {
+                    int p = neighbors[t][k];
+
+                    if (parent[t][k] && (ancestors[b][p >>> 6] & (1L << p)) == 0) {
+                        ancestors[b][p >>> 6] |= 1L << p;
+                        stack.push(p);
+                    }
+                }
+            }
+        }
+
+        return ancestors;
+    }
+}
@@ -23,6 +23,7 @@ package edu.cmu.tetrad.search;
 
 import edu.cmu.tetrad.data.*;
 import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.util.SearchMetrics;
 
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
@@ -43,6 +44,9 @@ public class DirichletScore implements LocalDiscreteScore, Score {
 
     private double lastBumpThreshold = 0.0;
 
+    // If not null, counts are taken from this tree.
+    private AdCountTree adTree = null;
+
     public DirichletScore(DataSet dataSet) {
         if (dataSet == null) {
             throw new NullPointerException();
@@ -89,6 +93,7 @@ public class DirichletScore implements LocalDiscreteScore, Score {
 
     @Override
     public double localScore(int node, int parents[]) {
+        SearchMetrics.getInstance().localScore();
 
         // Number of categories for node.
         int r = numCategories[node];
@@ -120,7 +125,25 @@ public class DirichletScore implements LocalDiscreteScore, Score {
 
         int[] myChild = data[node];
 
-        for (int i = 0; i < sampleSize; i++) {
+        if (adTree != null) {
+            int[] counts = adTree.getCounts(append(parents, node));
+            int total = 0;
+
+            for (int j = 0; j < q; j++) {
+                for (int k = 0; k < r; k++) {
+                    n_jk[j][k] = counts[j * r + k];
+                    n_j[j] += n_jk[j][k];
+                }
+
+                total += n_j[j];
+            }
+
+            if (total != sampleSize) {
+                throw new IllegalStateException("Please remove or impute missing values.");
+            }
+        }
+
+        for (int i = 0; adTree == null && i < sampleSize; i++) {
             for (int p = 0; p < parents.length; p++) {
                 parentValues[p] = myParents[p][i];
             }
@@ -307,6 +330,15 @@ public class DirichletScore implements LocalDiscreteScore, Score {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * @param useAdTree True if counts should be taken from an AD-tree over the data, which
+     *                  answers the many queries of a search without passing over all of the
+     *                  data for each. The scores are the same either way.
+     */
+    public void setUseAdTree(boolean useAdTree) {
+        this.adTree = useAdTree ? new AdCountTree(data, numCategories) : null;
+    }
+
     private static int getRowIndex(int[] dim, int[] values) {
         int rowIndex = 0;
         for (int i = 0; i < dim.length; i++) {
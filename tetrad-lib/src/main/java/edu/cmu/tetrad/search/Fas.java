@@ -24,7 +24,9 @@ package edu.cmu.tetrad.search;
 import edu.cmu.tetrad.data.IKnowledge;
 import edu.cmu.tetrad.data.Knowledge2;
 import edu.cmu.tetrad.graph.*;
+import edu.cmu.tetrad.util.CancellationToken;
 import edu.cmu.tetrad.util.ChoiceGenerator;
+import edu.cmu.tetrad.util.SearchMetrics;
 import edu.cmu.tetrad.util.TetradLogger;
 
 import java.io.PrintStream;
@@ -123,6 +125,16 @@ public class Fas implements IFas {
     private boolean verbose = false;
 
     private PrintStream out = System.out;
+
+    /**
+     * Checked at loop boundaries; when it is cancelled the search returns the adjacencies found so far.
+     */
+    private CancellationToken cancellation = CancellationToken.current();
+
+    /**
+     * True if the last search was cancelled before it finished.
+     */
+    private boolean partial = false;
     private boolean sepsetsReturnEmptyIfNotFixed;
 
     //==========================CONSTRUCTORS=============================//
@@ -132,7 +144,7 @@ public class Fas implements IFas {
      */
     public Fas(Graph initialGraph, IndependenceTest test) {
         if (initialGraph != null) {
-            this.initialGraph = new EdgeListGraph(initialGraph);
+            this.initialGraph = new IntAdjacencyGraph(initialGraph);
         }
         this.test = test;
         this.nodes = test.getVariables();
@@ -156,6 +168,7 @@ public class Fas implements IFas {
      * @return a SepSet, which indicates which variables are independent conditional on which other variables
      */
     public Graph search() {
+        partial = false;
         this.logger.log("info", "Starting Fast Adjacency Search.");
 
         sepset = new SepsetMap();
@@ -174,6 +187,7 @@ public class Fas implements IFas {
         }
 
         for (int d = 0; d <= _depth; d++) {
+            long start = System.nanoTime();
             boolean more;
 
             if (d == 0) {
@@ -182,6 +196,13 @@ public class Fas implements IFas {
                 more = searchAtDepth(nodes, test, adjacencies, d);
             }
 
+            SearchMetrics.getInstance().time("fas.depth", d, start);
+
+            if (cancellation.isCancelled()) {
+                partial = true;
+                break;
+            }
+
             if (!more) {
                 break;
             }
@@ -225,6 +246,7 @@ public class Fas implements IFas {
         }
 
         for (int d = 0; d <= _depth; d++) {
+            long start = System.nanoTime();
             boolean more;
 
             if (d == 0) {
@@ -233,6 +255,13 @@ public class Fas implements IFas {
                 more = searchAtDepth(nodes, test, adjacencies, d);
             }
 
+            SearchMetrics.getInstance().time("fas.depth", d, start);
+
+            if (cancellation.isCancelled()) {
+                partial = true;
+                break;
+            }
+
             if (!more) {
                 break;
             }
@@ -265,6 +294,19 @@ public class Fas implements IFas {
         this.knowledge = knowledge;
     }
 
+    public void setCancellationToken(CancellationToken token) {
+        if (token == null) throw new NullPointerException("Token must not be null.");
+        this.cancellation = token;
+    }
+
+    public CancellationToken getCancellationToken() {
+        return cancellation;
+    }
+
+    public boolean isPartial() {
+        return partial;
+    }
+
     //==============================PRIVATE METHODS======================/
 
     private boolean searchAtDepth0(List<Node> nodes, IndependenceTest test, Map<Node, Set<Node>> adjacencies) {
@@ -274,7 +316,7 @@ public class Fas implements IFas {
                 if ((i + 1) % 100 == 0) out.println("Node # " + (i + 1));
             }
 
-            if (Thread.currentThread().isInterrupted()) {
+            if (cancellation.isCancelled()) {
                 break;
             }
 
@@ -385,7 +427,7 @@ public class Fas implements IFas {
                 if (++count % 100 == 0) out.println("count " + count + " of " + nodes.size());
             }
 
-            if (Thread.currentThread().isInterrupted()) {
+            if (cancellation.isCancelled()) {
                 break;
             }
 
@@ -402,11 +444,11 @@ public class Fas implements IFas {
                     int[] choice;
 
                     while ((choice = cg.next()) != null) {
-                        if (Thread.currentThread().isInterrupted()) {
+                        if (cancellation.isCancelled()) {
                             break;
                         }
 
-                        if (Thread.currentThread().isInterrupted()) {
+                        if (cancellation.isCancelled()) {
                             break;
                         }
 
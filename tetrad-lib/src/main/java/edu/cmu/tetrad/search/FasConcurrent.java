@@ -24,6 +24,7 @@ package edu.cmu.tetrad.search;
 import edu.cmu.tetrad.data.IKnowledge;
 import edu.cmu.tetrad.data.Knowledge2;
 import edu.cmu.tetrad.graph.*;
+import edu.cmu.tetrad.util.CancellationToken;
 import edu.cmu.tetrad.util.ChoiceGenerator;
 import edu.cmu.tetrad.util.ForkJoinPoolInstance;
 import edu.cmu.tetrad.util.TetradLogger;
@@ -100,6 +101,16 @@ public class FasConcurrent implements IFas {
      */
     private PrintStream out = System.out;
 
+    /**
+     * Checked at loop boundaries; when it is cancelled the search returns the adjacencies found so far.
+     */
+    private CancellationToken cancellation = CancellationToken.current();
+
+    /**
+     * True if the last search was cancelled before it finished.
+     */
+    private boolean partial = false;
+
     private int chunk = 100;
 
     /**
@@ -137,6 +148,7 @@ public class FasConcurrent implements IFas {
      * @return a SepSet, which indicates which variables are independent conditional on which other variables
      */
     public Graph search() {
+        partial = false;
         this.logger.log("info", "Starting Fast Adjacency Search.");
 
         // The search graph. It is assumed going in that all of the true adjacencies of x are in this graph for every node
@@ -168,6 +180,11 @@ public class FasConcurrent implements IFas {
                 more = searchAtDepth(d, nodes, adjacencies);
             }
 
+            if (cancellation.isCancelled()) {
+                partial = true;
+                break;
+            }
+
             if (!more) {
                 break;
             }
@@ -347,6 +364,19 @@ public class FasConcurrent implements IFas {
         this.knowledge = knowledge;
     }
 
+    public void setCancellationToken(CancellationToken token) {
+        if (token == null) throw new NullPointerException("Token must not be null.");
+        this.cancellation = token;
+    }
+
+    public CancellationToken getCancellationToken() {
+        return cancellation;
+    }
+
+    public boolean isPartial() {
+        return partial;
+    }
+
     //==============================PRIVATE METHODS======================/
 
 
@@ -359,7 +389,7 @@ public class FasConcurrent implements IFas {
             if ((i + 1) % 100 == 0) out.println("Node # " + (i + 1));
         }
 
-        if (Thread.currentThread().isInterrupted()) {
+        if (cancellation.isCancelled()) {
             return;
         }
 
@@ -409,7 +439,7 @@ public class FasConcurrent implements IFas {
 
         Node x = nodes.get(i);
 
-        if (Thread.currentThread().isInterrupted()) {
+        if (cancellation.isCancelled()) {
             return;
         }
 
@@ -426,7 +456,7 @@ public class FasConcurrent implements IFas {
                 int[] choice;
 
                 while ((choice = cg.next()) != null) {
-                    if (Thread.currentThread().isInterrupted()) {
+                    if (cancellation.isCancelled()) {
                         return;
                     }
 
@@ -25,6 +25,7 @@ import edu.cmu.tetrad.data.DataModel;
 import edu.cmu.tetrad.data.IKnowledge;
 import edu.cmu.tetrad.data.Knowledge2;
 import edu.cmu.tetrad.graph.*;
+import edu.cmu.tetrad.util.CancellationToken;
 import edu.cmu.tetrad.util.ChoiceGenerator;
 import edu.cmu.tetrad.util.TetradLogger;
 
@@ -124,6 +125,16 @@ public class FasDeterministic implements IFas {
 
     private PrintStream out = System.out;
 
+    /**
+     * Checked at loop boundaries; when it is cancelled the search returns the adjacencies found so far.
+     */
+    private CancellationToken cancellation = CancellationToken.current();
+
+    /**
+     * True if the last search was cancelled before it finished.
+     */
+    private boolean partial = false;
+
     //==========================CONSTRUCTORS=============================//
 
     /**
@@ -152,6 +163,7 @@ public class FasDeterministic implements IFas {
      * @return a SepSet, which indicates which variables are independent conditional on which other variables
      */
     public Graph search() {
+        partial = false;
         this.logger.log("info", "Starting Fast Adjacency Search.");
         graph.removeEdges(graph.getEdges());
 
@@ -189,6 +201,11 @@ public class FasDeterministic implements IFas {
                 more = searchAtDepth(nodes, test, adjacencies, d);
             }
 
+            if (cancellation.isCancelled()) {
+                partial = true;
+                break;
+            }
+
             if (!more) {
                 break;
             }
@@ -243,6 +260,11 @@ public class FasDeterministic implements IFas {
                 more = searchAtDepth(nodes, test, adjacencies, d);
             }
 
+            if (cancellation.isCancelled()) {
+                partial = true;
+                break;
+            }
+
             if (!more) {
                 break;
             }
@@ -275,6 +297,19 @@ public class FasDeterministic implements IFas {
         this.knowledge = knowledge;
     }
 
+    public void setCancellationToken(CancellationToken token) {
+        if (token == null) throw new NullPointerException("Token must not be null.");
+        this.cancellation = token;
+    }
+
+    public CancellationToken getCancellationToken() {
+        return cancellation;
+    }
+
+    public boolean isPartial() {
+        return partial;
+    }
+
     //==============================PRIVATE METHODS======================/
 
     private boolean searchAtDepth0(List<Node> nodes, IndependenceTest test, Map<Node, Set<Node>> adjacencies) {
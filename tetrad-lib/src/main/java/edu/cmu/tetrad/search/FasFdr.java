@@ -128,6 +128,16 @@ public class FasFdr implements IFas {
 
     private PrintStream out = System.out;
 
+    /**
+     * Checked at loop boundaries; when it is cancelled the search returns the adjacencies found so far.
+     */
+    private CancellationToken cancellation = CancellationToken.current();
+
+    /**
+     * True if the last search was cancelled before it finished.
+     */
+    private boolean partial = false;
+
     //==========================CONSTRUCTORS=============================//
 
     /**
@@ -153,6 +163,7 @@ public class FasFdr implements IFas {
      * @return a SepSet, which indicates which variables are independent conditional on which other variables
      */
     public Graph search() {
+        partial = false;
         this.logger.log("info", "Starting Fast Adjacency Search.");
         graph.removeEdges(graph.getEdges());
 
@@ -174,6 +185,11 @@ public class FasFdr implements IFas {
         for (int d = 0; d <= _depth; d++) {
             searchAtDepth(nodes, test, adjacencies, d);
 
+            if (cancellation.isCancelled()) {
+                partial = true;
+                break;
+            }
+
             if (!(freeDegree(nodes, adjacencies) > depth)) {
                 break;
             }
@@ -181,7 +197,7 @@ public class FasFdr implements IFas {
 
         pValueList.clear();
 
-        for (int d = 0; d <= _depth; d++) {
+        for (int d = 0; d <= _depth && !partial; d++) {
             test.setAlpha(alpha);
             Map<Node, Set<Node>> _adjacencies = copy(adjacencies);
             searchAtDepth(nodes, test, adjacencies, d);
@@ -190,6 +206,11 @@ public class FasFdr implements IFas {
             test.setAlpha(cutoff);
             boolean more = searchAtDepth(nodes, test, adjacencies, d);
 
+            if (cancellation.isCancelled()) {
+                partial = true;
+                break;
+            }
+
             if (!more) {
                 break;
             }
@@ -374,6 +395,19 @@ public class FasFdr implements IFas {
         this.knowledge = knowledge;
     }
 
+    public void setCancellationToken(CancellationToken token) {
+        if (token == null) throw new NullPointerException("Token must not be null.");
+        this.cancellation = token;
+    }
+
+    public CancellationToken getCancellationToken() {
+        return cancellation;
+    }
+
+    public boolean isPartial() {
+        return partial;
+    }
+
     //==============================PRIVATE METHODS======================/
 
     private boolean searchICov(List<Node> nodes, IndependenceTest test, Map<Node, Set<Node>> adjacencies,
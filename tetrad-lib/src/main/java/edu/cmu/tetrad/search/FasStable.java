@@ -24,7 +24,9 @@ package edu.cmu.tetrad.search;
 import edu.cmu.tetrad.data.IKnowledge;
 import edu.cmu.tetrad.data.Knowledge2;
 import edu.cmu.tetrad.graph.*;
+import edu.cmu.tetrad.util.CancellationToken;
 import edu.cmu.tetrad.util.ChoiceGenerator;
+import edu.cmu.tetrad.util.SearchMetrics;
 import edu.cmu.tetrad.util.TetradLogger;
 
 import java.io.PrintStream;
@@ -109,6 +111,16 @@ public class FasStable implements IFas {
 
     private PrintStream out = System.out;
 
+    /**
+     * Checked at loop boundaries; when it is cancelled the search returns the adjacencies found so far.
+     */
+    private CancellationToken cancellation = CancellationToken.current();
+
+    /**
+     * True if the last search was cancelled before it finished.
+     */
+    private boolean partial = false;
+
     //==========================CONSTRUCTORS=============================//
 
     /**
@@ -136,6 +148,7 @@ public class FasStable implements IFas {
      * @return a SepSet, which indicates which variables are independent conditional on which other variables
      */
     public Graph search() {
+        partial = false;
         this.logger.log("info", "Starting Fast Adjacency Search.");
 
         if (graph == null) graph = new EdgeListGraphSingleConnections(test.getVariables());
@@ -158,6 +171,7 @@ public class FasStable implements IFas {
         }
 
         for (int d = 0; d <= _depth; d++) {
+            long start = System.nanoTime();
             boolean more;
 
             if (d == 0) {
@@ -166,6 +180,13 @@ public class FasStable implements IFas {
                 more = searchAtDepth(nodes, test, adjacencies, d);
             }
 
+            SearchMetrics.getInstance().time("fas.depth", d, start);
+
+            if (cancellation.isCancelled()) {
+                partial = true;
+                break;
+            }
+
             if (!more) {
                 break;
             }
@@ -210,6 +231,7 @@ public class FasStable implements IFas {
         }
 
         for (int d = 0; d <= _depth; d++) {
+            long start = System.nanoTime();
             boolean more;
 
             if (d == 0) {
@@ -218,6 +240,13 @@ public class FasStable implements IFas {
                 more = searchAtDepth(nodes, test, adjacencies, d);
             }
 
+            SearchMetrics.getInstance().time("fas.depth", d, start);
+
+            if (cancellation.isCancelled()) {
+                partial = true;
+                break;
+            }
+
             if (!more) {
                 break;
             }
@@ -250,6 +279,19 @@ public class FasStable implements IFas {
         this.knowledge = knowledge;
     }
 
+    public void setCancellationToken(CancellationToken token) {
+        if (token == null) throw new NullPointerException("Token must not be null.");
+        this.cancellation = token;
+    }
+
+    public CancellationToken getCancellationToken() {
+        return cancellation;
+    }
+
+    public boolean isPartial() {
+        return partial;
+    }
+
     //==============================PRIVATE METHODS======================/
 
     private boolean searchAtDepth0(List<Node> nodes, IndependenceTest test, Map<Node, Set<Node>> adjacencies) {
@@ -259,11 +301,13 @@ public class FasStable implements IFas {
                 if ((i + 1) % 100 == 0) out.println("Node # " + (i + 1));
             }
 
-            if (Thread.currentThread().isInterrupted()) {
+            if (cancellation.isCancelled()) {
                 break;
             }
 
             Node x = nodes.get(i);
+            List<Node> xs = new ArrayList<>();
+            List<Node> ys = new ArrayList<>();
 
             for (int j = i + 1; j < nodes.size(); j++) {
                 Node y = nodes.get(j);
@@ -277,17 +321,16 @@ public class FasStable implements IFas {
                     }
                 }
 
-                boolean independent;
+                xs.add(x);
+                ys.add(y);
+            }
 
-                try {
-                    numIndependenceTests++;
-                    independent = test.isIndependent(x, y, empty);
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    independent = false;
-                }
+            boolean[] independent = isIndependent(test, xs, ys, empty);
+
+            for (int k = 0; k < ys.size(); k++) {
+                Node y = ys.get(k);
 
-                if (independent) {
+                if (independent[k]) {
                     numIndependenceJudgements++;
                 } else {
                     numDependenceJudgement++;
@@ -297,14 +340,15 @@ public class FasStable implements IFas {
                         knowledge.noEdgeRequired(x.getName(), y.getName());
 
 
-                if (independent && noEdgeRequired) {
+                if (independent[k] && noEdgeRequired) {
                     getSepsets().set(x, y, empty);
 
                     if (verbose) {
+                        double p = test.getPValue(x, y, empty);
                         TetradLogger.getInstance().forceLogMessage(SearchLogUtils.independenceFact(x, y, empty) + " p = " +
-                                nf.format(test.getPValue()));
+                                nf.format(p));
                         out.println(SearchLogUtils.independenceFact(x, y, empty) + " p = " +
-                                nf.format(test.getPValue()));
+                                nf.format(p));
                     }
 
                 } else if (!forbiddenEdge(x, y)) {
@@ -366,34 +410,39 @@ public class FasStable implements IFas {
             }
 
             List<Node> adjx = new ArrayList<>(adjacenciesCopy.get(x));
+            List<Node> ppx = possibleParents(x, adjx, knowledge);
 
-            EDGE:
-            for (Node y : adjx) {
-                List<Node> _adjx = new ArrayList<>(adjx);
-                _adjx.remove(y);
-                List<Node> ppx = possibleParents(x, _adjx, knowledge);
-
-                if (ppx.size() >= depth) {
-                    ChoiceGenerator cg = new ChoiceGenerator(ppx.size(), depth);
-                    int[] choice;
+            // The y's not yet separated from x. Each conditioning set from ppx is tested with all of those not in it
+            // at once; for each y the sets come in the same order as from ppx without y, so the same sepset is found
+            // as when y is tested alone.
+            List<Node> open = new ArrayList<>(adjx);
 
-                    while ((choice = cg.next()) != null) {
-                        if (Thread.currentThread().isInterrupted()) {
-                            break;
-                        }
+            if (ppx.size() >= depth) {
+                ChoiceGenerator cg = new ChoiceGenerator(ppx.size(), depth);
+                int[] choice;
 
-                        List<Node> condSet = GraphUtils.asList(choice, ppx);
+                while (!open.isEmpty() && (choice = cg.next()) != null) {
+                    if (cancellation.isCancelled()) {
+                        break;
+                    }
 
-                        boolean independent;
+                    List<Node> condSet = GraphUtils.asList(choice, ppx);
+                    List<Node> xs = new ArrayList<>();
+                    List<Node> ys = new ArrayList<>();
 
-                        try {
-                            numIndependenceTests++;
-                            independent = test.isIndependent(x, y, condSet);
-                        } catch (Exception e) {
-                            independent = false;
+                    for (Node y : open) {
+                        if (!condSet.contains(y)) {
+                            xs.add(x);
+                            ys.add(y);
                         }
+                    }
 
-                        if (independent) {
+                    boolean[] independent = isIndependent(test, xs, ys, condSet);
+
+                    for (int k = 0; k < ys.size(); k++) {
+                        Node y = ys.get(k);
+
+                        if (independent[k]) {
                             numIndependenceJudgements++;
                         } else {
                             numDependenceJudgement++;
@@ -402,19 +451,19 @@ public class FasStable implements IFas {
                         boolean noEdgeRequired =
                                 knowledge.noEdgeRequired(x.getName(), y.getName());
 
-                        if (independent && noEdgeRequired) {
+                        if (independent[k] && noEdgeRequired) {
                             adjacencies.get(x).remove(y);
                             adjacencies.get(y).remove(x);
+                            open.remove(y);
 
-                            getSepsets().set(x, y, condSet);
+                            getSepsets().set(x, y, new ArrayList<>(condSet));
 
                             if (verbose) {
+                                double p = test.getPValue(x, y, condSet);
                                 TetradLogger.getInstance().forceLogMessage(SearchLogUtils.independenceFact(x, y, condSet) + " p = " +
-                                        nf.format(test.getPValue()));
-                                out.println(SearchLogUtils.independenceFactMsg(x, y, condSet, test.getPValue()));
+                                        nf.format(p));
+                                out.println(SearchLogUtils.independenceFactMsg(x, y, condSet, p));
                             }
-
-                            continue EDGE;
                         }
                     }
                 }
@@ -424,6 +473,32 @@ public class FasStable implements IFas {
         return freeDegree(nodes, adjacencies) > depth;
     }
 
+    // Tests x.get(i) _||_ y.get(i) | z for all i at once. If that fails, the pairs are tested one at a time, and a pair
+    // whose test fails is taken to be dependent.
+    private boolean[] isIndependent(IndependenceTest test, List<Node> x, List<Node> y, List<Node> z) {
+        numIndependenceTests += x.size();
+
+        if (x.isEmpty()) {
+            return new boolean[0];
+        }
+
+        try {
+            return test.isIndependent(x, y, z);
+        } catch (Exception e) {
+            boolean[] independent = new boolean[x.size()];
+
+            for (int i = 0; i < x.size(); i++) {
+                try {
+                    independent[i] = test.isIndependent(x.get(i), y.get(i), z);
+                } catch (Exception e2) {
+                    independent[i] = false;
+                }
+            }
+
+            return independent;
+        }
+    }
+
     private List<Node> possibleParents(Node x, List<Node> adjx,
                                        IKnowledge knowledge) {
         List<Node> possibleParents = new LinkedList<>();
@@ -466,8 +541,12 @@ public class FasStable implements IFas {
         return sepset;
     }
 
+    /**
+     * Pairs not adjacent in the given graph are not tested; its adjacencies are copied to an IntAdjacencyGraph so
+     * that they can be checked without hashing edges.
+     */
     public void setInitialGraph(Graph initialGraph) {
-        this.initialGraph = initialGraph;
+        this.initialGraph = initialGraph == null ? null : new IntAdjacencyGraph(initialGraph);
     }
 
     public boolean isVerbose() {
@@ -0,0 +1,654 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.search;
+
+import edu.cmu.tetrad.data.IKnowledge;
+import edu.cmu.tetrad.data.Knowledge2;
+import edu.cmu.tetrad.graph.*;
+import edu.cmu.tetrad.util.CancellationToken;
+import edu.cmu.tetrad.util.ChoiceGenerator;
+import edu.cmu.tetrad.util.ForkJoinPoolInstance;
+import edu.cmu.tetrad.util.SearchMetrics;
+import edu.cmu.tetrad.util.TetradLogger;
+
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Implements the "fast adjacency search" used in several causal algorithm in this package. In the fast adjacency
+ * search, at a given stage of the search, an edge X*-*Y is removed from the graph if X _||_ Y | S, where S is a subset
+ * of size d either of adj(X) or of adj(Y), where d is the depth of the search. The fast adjacency search performs this
+ * procedure for each pair of adjacent edges in the graph and for each depth d = 0, 1, 2, ..., d1, where d1 is either
+ * the maximum depth or else the first such depth at which no edges can be removed. The interpretation of this adjacency
+ * search is different for different algorithm, depending on the assumptions of the algorithm. A mapping from {x, y} to
+ * S({x, y}) is returned for edges x *-* y that have been removed.
+ * </p>
+ * This variant uses the PC-Stable modification and returns exactly the graph and sepsets that FasStable returns, but
+ * does the independence tests in parallel. At each depth, each (x, y) pair to be checked becomes a task on a
+ * work-stealing ForkJoinPool; where a pair has many conditioning sets to try, the series of sets from ChoiceGenerator
+ * is split into ranges that are checked as subtasks, and once an independence is found, ranges later in the series
+ * are abandoned. For each pair, the first independence in the series is kept, and the results are applied to the graph
+ * in FasStable's order, so the output does not depend on the number of threads.
+ */
+public class FasStableParallel implements IFas {
+
+    /**
+     * The search graph. It is assumed going in that all of the true adjacencies of x are in this graph for every node
+     * x. It is hoped (i.e. true in the large sample limit) that true adjacencies are never removed.
+     */
+    private Graph graph;
+
+    /**
+     * The independence test. This should be appropriate to the types
+     */
+    private final IndependenceTest test;
+
+    /**
+     * Specification of which edges are forbidden or required.
+     */
+    private IKnowledge knowledge = new Knowledge2();
+
+    /**
+     * The maximum number of variables conditioned on in any conditional independence test. If the depth is -1, it will
+     * be taken to be the maximum value, which is 1000. Otherwise, it should be set to a non-negative integer.
+     */
+    private int depth = 1000;
+
+    /**
+     * The number of independence tests.
+     */
+    private final LongAdder numIndependenceTests = new LongAdder();
+
+    private final LongAdder numIndependenceJudgements = new LongAdder();
+
+    private final LongAdder numDependenceJudgements = new LongAdder();
+
+    /**
+     * The logger, by default the empty logger.
+     */
+    private final TetradLogger logger = TetradLogger.getInstance();
+
+    /**
+     * The sepsets found during the search.
+     */
+    private SepsetMap sepset = new SepsetMap();
+
+    /**
+     * The depth 0 graph, specified initially.
+     */
+    private Graph initialGraph;
+
+    /**
+     * True iff verbose output should be printed.
+     */
+    private boolean verbose = false;
+
+    private PrintStream out = System.out;
+
+    /**
+     * Checked at loop boundaries; when it is cancelled the search returns the adjacencies found so far.
+     */
+    private CancellationToken cancellation = CancellationToken.current();
+
+    /**
+     * True if the last search was cancelled before it finished.
+     */
+    private boolean partial = false;
+
+    // The concurrency pool.
+    private ForkJoinPool pool = ForkJoinPoolInstance.getInstance().getPool();
+
+    // The largest number of conditioning sets for one pair checked as a single task.
+    private int chunk = 64;
+
+    //==========================CONSTRUCTORS=============================//
+
+    /**
+     * Constructs a new FastAdjacencySearch.
+     */
+    public FasStableParallel(Graph graph, IndependenceTest test) {
+        this.graph = graph;
+        this.test = test;
+    }
+
+    public FasStableParallel(IndependenceTest test) {
+        this.test = test;
+    }
+
+    //==========================PUBLIC METHODS===========================//
+
+    /**
+     * Discovers all adjacencies in data.  The procedure is to remove edges in the graph which connect pairs of
+     * variables which are independent conditional on some other set of variables in the graph (the "sepset"). These are
+     * removed in tiers.  First, edges which are independent conditional on zero other variables are removed, then edges
+     * which are independent conditional on one other variable are removed, then two, then three, and so on, until no
+     * more edges can be removed from the graph.  The edges which remain in the graph after this procedure are the
+     * adjacencies in the data.
+     *
+     * @return a SepSet, which indicates which variables are independent conditional on which other variables
+     */
+    public Graph search() {
+        partial = false;
+        this.logger.log("info", "Starting Fast Adjacency Search.");
+
+        if (graph == null) graph = new EdgeListGraphSingleConnections(test.getVariables());
+        graph.removeEdges(graph.getEdges());
+
+        sepset = new SepsetMap();
+
+        int _depth = depth;
+
+        if (_depth == -1) {
+            _depth = 1000;
+        }
+
+        Map<Node, Set<Node>> adjacencies = new HashMap<>();
+        List<Node> nodes = graph.getNodes();
+
+        for (Node node : nodes) {
+            adjacencies.put(node, new TreeSet<>());
+        }
+
+        for (int d = 0; d <= _depth; d++) {
+            long start = System.nanoTime();
+            boolean more;
+
+            if (d == 0) {
+                more = searchAtDepth0(nodes, adjacencies);
+            } else {
+                more = searchAtDepth(nodes, adjacencies, d);
+            }
+
+            SearchMetrics.getInstance().time("fas.depth", d, start);
+
+            if (cancellation.isCancelled()) {
+                partial = true;
+                break;
+            }
+
+            if (!more) {
+                break;
+            }
+        }
+
+        for (int i = 0; i < nodes.size(); i++) {
+            for (int j = i + 1; j < nodes.size(); j++) {
+                Node x = nodes.get(i);
+                Node y = nodes.get(j);
+
+                if (adjacencies.get(x).contains(y)) {
+                    graph.addUndirectedEdge(x, y);
+                }
+            }
+        }
+
+        this.logger.log("info", "Finishing Fast Adjacency Search.");
+
+        return graph;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        if (depth < -1) {
+            throw new IllegalArgumentException(
+                    "Depth must be -1 (unlimited) or >= 0.");
+        }
+
+        this.depth = depth;
+    }
+
+    public IKnowledge getKnowledge() {
+        return knowledge;
+    }
+
+    public void setKnowledge(IKnowledge knowledge) {
+        if (knowledge == null) {
+            throw new NullPointerException("Cannot set knowledge to null");
+        }
+        this.knowledge = knowledge;
+    }
+
+    /**
+     * Sets the pool the tests are run on; by default the shared ForkJoinPoolInstance pool.
+     */
+    public void setPool(ForkJoinPool pool) {
+        if (pool == null) throw new NullPointerException("Pool must not be null.");
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the largest number of conditioning sets for a single pair that are checked in one task; pairs with more
+     * are split into subtasks. Default 64.
+     */
+    public void setChunk(int chunk) {
+        if (chunk < 1) throw new IllegalArgumentException("Chunk must be at least 1: " + chunk);
+        this.chunk = chunk;
+    }
+
+    public void setCancellationToken(CancellationToken token) {
+        if (token == null) throw new NullPointerException("Token must not be null.");
+        this.cancellation = token;
+    }
+
+    public CancellationToken getCancellationToken() {
+        return cancellation;
+    }
+
+    public boolean isPartial() {
+        return partial;
+    }
+
+    //==============================PRIVATE METHODS======================/
+
+    private boolean searchAtDepth0(final List<Node> nodes, Map<Node, Set<Node>> adjacencies) {
+        final List<Node> empty = Collections.emptyList();
+        final boolean[][] independent = new boolean[nodes.size()][];
+
+        class Depth0Task extends RecursiveAction {
+            private final int from;
+            private final int to;
+
+            private Depth0Task(int from, int to) {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > 1) {
+                    int mid = (from + to) >>> 1;
+                    invokeAll(new Depth0Task(from, mid), new Depth0Task(mid, to));
+                    return;
+                }
+
+                int i = from;
+                Node x = nodes.get(i);
+                independent[i] = new boolean[nodes.size()];
+
+                for (int j = i + 1; j < nodes.size(); j++) {
+                    if (cancellation.isCancelled()) {
+                        break;
+                    }
+
+                    Node y = nodes.get(j);
+
+                    if (!inInitialGraph(x, y)) {
+                        continue;
+                    }
+
+                    independent[i][j] = isIndependent(x, y, empty);
+                }
+            }
+        }
+
+        if (!nodes.isEmpty()) {
+            pool.invoke(new Depth0Task(0, nodes.size()));
+        }
+
+        for (int i = 0; i < nodes.size(); i++) {
+            Node x = nodes.get(i);
+
+            for (int j = i + 1; j < nodes.size(); j++) {
+                Node y = nodes.get(j);
+
+                if (!inInitialGraph(x, y)) {
+                    continue;
+                }
+
+                boolean noEdgeRequired =
+                        knowledge.noEdgeRequired(x.getName(), y.getName());
+
+                if (independent[i][j] && noEdgeRequired) {
+                    getSepsets().set(x, y, empty);
+
+                    if (verbose) {
+                        TetradLogger.getInstance().forceLogMessage(SearchLogUtils.independenceFact(x, y, empty));
+                        out.println(SearchLogUtils.independenceFact(x, y, empty));
+                    }
+                } else if (!forbiddenEdge(x, y)) {
+                    adjacencies.get(x).add(y);
+                    adjacencies.get(y).add(x);
+                }
+            }
+        }
+
+        return freeDegree(nodes, adjacencies) > 0;
+    }
+
+    private boolean searchAtDepth(List<Node> nodes, Map<Node, Set<Node>> adjacencies, int depth) {
+        final Map<Node, Set<Node>> adjacenciesCopy = new HashMap<>();
+
+        for (Node node : adjacencies.keySet()) {
+            adjacenciesCopy.put(node, new HashSet<>(adjacencies.get(node)));
+        }
+
+        // The pairs to check, in the order FasStable checks them.
+        final List<PairTask> pairs = new ArrayList<>();
+
+        for (Node x : nodes) {
+            List<Node> adjx = new ArrayList<>(adjacenciesCopy.get(x));
+
+            for (Node y : adjx) {
+                List<Node> _adjx = new ArrayList<>(adjx);
+                _adjx.remove(y);
+                List<Node> ppx = possibleParents(x, _adjx, knowledge);
+
+                // If the edge is required, no test can remove it.
+                if (ppx.size() >= depth && knowledge.noEdgeRequired(x.getName(), y.getName())) {
+                    pairs.add(new PairTask(x, y, ppx, depth));
+                }
+            }
+        }
+
+        class PairsTask extends RecursiveAction {
+            private final int from;
+            private final int to;
+
+            private PairsTask(int from, int to) {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > 1) {
+                    int mid = (from + to) >>> 1;
+                    invokeAll(new PairsTask(from, mid), new PairsTask(mid, to));
+                } else {
+                    pairs.get(from).compute();
+                }
+            }
+        }
+
+        if (!pairs.isEmpty()) {
+            pool.invoke(new PairsTask(0, pairs.size()));
+        }
+
+        // Later pairs overwrite the sepsets of earlier ones, as in FasStable.
+        for (PairTask pair : pairs) {
+            long first = pair.found.get();
+
+            if (first == Long.MAX_VALUE) {
+                continue;
+            }
+
+            Node x = pair.x;
+            Node y = pair.y;
+            int[] choice = new ChoiceGenerator(pair.ppx.size(), depth, first).next();
+            List<Node> condSet = GraphUtils.asList(choice, pair.ppx);
+
+            adjacencies.get(x).remove(y);
+            adjacencies.get(y).remove(x);
+
+            getSepsets().set(x, y, condSet);
+
+            if (verbose) {
+                TetradLogger.getInstance().forceLogMessage(SearchLogUtils.independenceFact(x, y, condSet));
+                out.println(SearchLogUtils.independenceFact(x, y, condSet));
+            }
+        }
+
+        return freeDegree(nodes, adjacencies) > depth;
+    }
+
+    // Checks x _||_ y | S for the conditioning sets S of one pair, recording the index in the ChoiceGenerator series of
+    // the first S found to make them independent.
+    private class PairTask {
+        private final Node x;
+        private final Node y;
+        private final List<Node> ppx;
+        private final int depth;
+        private final AtomicLong found = new AtomicLong(Long.MAX_VALUE);
+
+        private PairTask(Node x, Node y, List<Node> ppx, int depth) {
+            this.x = x;
+            this.y = y;
+            this.ppx = new ArrayList<>(ppx);
+            this.depth = depth;
+        }
+
+        private void compute() {
+            long total;
+
+            try {
+                total = ChoiceGenerator.getNumCombinationsExact(ppx.size(), depth);
+            } catch (ArithmeticException e) {
+                total = Long.MAX_VALUE;
+            }
+
+            if (total == Long.MAX_VALUE) {
+                // Too many to index; go through them in order.
+                check(new ChoiceGenerator(ppx.size(), depth), 0, Long.MAX_VALUE);
+            } else {
+                new RangeTask(this, 0, total).compute();
+            }
+        }
+
+        // Checks the sets with indices first, first + 1, ..., up to end or until an independence is found here or
+        // earlier in the series.
+        private void check(ChoiceGenerator cg, long first, long end) {
+            int[] choice;
+
+            for (long index = first; index < end && index < found.get(); index++) {
+                if (cancellation.isCancelled() || (choice = cg.next()) == null) {
+                    break;
+                }
+
+                if (isIndependent(x, y, GraphUtils.asList(choice, ppx))) {
+                    found.accumulateAndGet(index, Math::min);
+                    break;
+                }
+            }
+        }
+    }
+
+    private class RangeTask extends RecursiveAction {
+        private final PairTask pair;
+        private final long from;
+        private final long to;
+
+        private RangeTask(PairTask pair, long from, long to) {
+            this.pair = pair;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (from >= pair.found.get()) {
+                return;
+            }
+
+            if (to - from > chunk) {
+                long mid = from + (to - from) / 2;
+                invokeAll(new RangeTask(pair, from, mid), new RangeTask(pair, mid, to));
+            } else {
+                pair.check(new ChoiceGenerator(pair.ppx.size(), pair.depth, from), from, to);
+            }
+        }
+    }
+
+    private boolean isIndependent(Node x, Node y, List<Node> condSet) {
+        boolean independent;
+
+        try {
+            numIndependenceTests.increment();
+            independent = test.isIndependent(x, y, condSet);
+        } catch (Exception e) {
+            independent = false;
+        }
+
+        if (independent) {
+            numIndependenceJudgements.increment();
+        } else {
+            numDependenceJudgements.increment();
+        }
+
+        return independent;
+    }
+
+    private boolean inInitialGraph(Node x, Node y) {
+        if (initialGraph == null) {
+            return true;
+        }
+
+        Node x2 = initialGraph.getNode(x.getName());
+        Node y2 = initialGraph.getNode(y.getName());
+
+        return initialGraph.isAdjacentTo(x2, y2);
+    }
+
+    private int freeDegree(List<Node> nodes, Map<Node, Set<Node>> adjacencies) {
+        int max = 0;
+
+        for (Node x : nodes) {
+            int size = adjacencies.get(x).size() - 1;
+
+            if (size > max) {
+                max = size;
+            }
+        }
+
+        return max;
+    }
+
+    private boolean forbiddenEdge(Node x, Node y) {
+        String name1 = x.getName();
+        String name2 = y.getName();
+
+        if (knowledge.isForbidden(name1, name2) &&
+                knowledge.isForbidden(name2, name1)) {
+            this.logger.log("edgeRemoved", "Removed " + Edges.undirectedEdge(x, y) + " because it was " +
+                    "forbidden by background knowledge.");
+
+            return true;
+        }
+
+        return false;
+    }
+
+    private List<Node> possibleParents(Node x, List<Node> adjx,
+                                       IKnowledge knowledge) {
+        List<Node> possibleParents = new LinkedList<>();
+        String _x = x.getName();
+
+        for (Node z : adjx) {
+            String _z = z.getName();
+
+            if (possibleParentOf(_z, _x, knowledge)) {
+                possibleParents.add(z);
+            }
+        }
+
+        return possibleParents;
+    }
+
+    private boolean possibleParentOf(String z, String x, IKnowledge knowledge) {
+        return !knowledge.isForbidden(z, x) && !knowledge.isRequired(x, z);
+    }
+
+    public int getNumIndependenceTests() {
+        return numIndependenceTests.intValue();
+    }
+
+    public void setTrueGraph(Graph trueGraph) {
+    }
+
+    public int getNumFalseDependenceJudgments() {
+        return 0;
+    }
+
+    public int getNumDependenceJudgments() {
+        return numDependenceJudgements.intValue();
+    }
+
+    public int getNumIndependenceJudgements() {
+        return numIndependenceJudgements.intValue();
+    }
+
+    public SepsetMap getSepsets() {
+        return sepset;
+    }
+
+    /**
+     * Pairs not adjacent in the given graph are not tested; its adjacencies are copied to an IntAdjacencyGraph so
+     * that they can be checked without hashing edges.
+     */
+    public void setInitialGraph(Graph initialGraph) {
+        this.initialGraph = initialGraph == null ? null : new IntAdjacencyGraph(initialGraph);
+    }
+
+    public boolean isVerbose() {
+        return verbose;
+    }
+
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    @Override
+    public boolean isAggressivelyPreventCycles() {
+        return false;
+    }
+
+    @Override
+    public void setAggressivelyPreventCycles(boolean aggressivelyPreventCycles) {
+
+    }
+
+    @Override
+    public IndependenceTest getIndependenceTest() {
+        return test;
+    }
+
+    @Override
+    public Graph search(List<Node> nodes) {
+        return null;
+    }
+
+    @Override
+    public long getElapsedTime() {
+        return 0;
+    }
+
+    @Override
+    public List<Node> getNodes() {
+        return test.getVariables();
+    }
+
+    @Override
+    public List<Triple> getAmbiguousTriples(Node node) {
+        return null;
+    }
+
+    @Override
+    public void setOut(PrintStream out) {
+        this.out = out;
+    }
+}
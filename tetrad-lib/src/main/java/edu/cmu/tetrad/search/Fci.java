@@ -26,14 +26,17 @@ import edu.cmu.tetrad.data.IKnowledge;
 import edu.cmu.tetrad.data.Knowledge2;
 import edu.cmu.tetrad.data.KnowledgeEdge;
 import edu.cmu.tetrad.graph.Edge;
+import edu.cmu.tetrad.graph.EdgeListGraph;
 import edu.cmu.tetrad.graph.Endpoint;
 import edu.cmu.tetrad.graph.Graph;
 import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.util.CancellationToken;
 import edu.cmu.tetrad.util.TetradLogger;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
 
 
 /**
@@ -50,7 +53,7 @@ import java.util.concurrent.ConcurrentMap;
  * @author Joseph Ramsey
  * @author Choh-Man Teng
  */
-public final class Fci implements GraphSearch {
+public final class Fci implements GraphSearch, Cancellable {
 
     /**
      * The PAG being constructed.
@@ -116,6 +119,21 @@ public final class Fci implements GraphSearch {
     private Graph initialGraph;
     private int possibleDsepDepth = -1;
 
+    /**
+     * Checked at loop boundaries; when it is cancelled the search returns the PAG found so far.
+     */
+    private CancellationToken cancellation = CancellationToken.current();
+
+    /**
+     * True if the last search was cancelled before it finished.
+     */
+    private boolean partial = false;
+
+    /**
+     * If not null, the pool the adjacency search and the possible-dsep step are run on.
+     */
+    private ForkJoinPool pool = null;
+
 
     //============================CONSTRUCTORS============================//
 
@@ -146,7 +164,7 @@ public final class Fci implements GraphSearch {
 
         Set<Node> remVars = new HashSet<>();
         for (Node node1 : this.variables) {
-            if (Thread.currentThread().isInterrupted()) {
+            if (cancellation.isCancelled()) {
                 break;
             }
 
@@ -183,6 +201,12 @@ public final class Fci implements GraphSearch {
     }
 
     public Graph search() {
+        if (pool != null && initialGraph == null) {
+            FasStableParallel fas = new FasStableParallel(getIndependenceTest());
+            fas.setPool(pool);
+            return search(fas);
+        }
+
         return search(new Fas(initialGraph, getIndependenceTest()));
     }
 
@@ -191,17 +215,25 @@ public final class Fci implements GraphSearch {
     }
 
     public Graph search(IFas fas) {
+        this.partial = false;
         logger.log("info", "Starting FCI algorithm.");
         logger.log("info", "Independence test = " + getIndependenceTest() + ".");
 
         fas.setKnowledge(getKnowledge());
         fas.setDepth(depth);
         fas.setVerbose(verbose);
+        fas.setCancellationToken(cancellation);
         this.graph = fas.search();
         this.sepsets = fas.getSepsets();
 
         graph.reorientAllWith(Endpoint.CIRCLE);
 
+        if (cancellation.isCancelled()) {
+            this.partial = true;
+            graph.setPag(true);
+            return graph;
+        }
+
         SepsetProducer sp = new SepsetsPossibleDsep(graph, independenceTest, knowledge, depth, maxPathLength);
         sp.setVerbose(verbose);
 
@@ -211,22 +243,32 @@ public final class Fci implements GraphSearch {
 //            long time1 = System.currentTimeMillis();
             new FciOrient(new SepsetsSet(this.sepsets, independenceTest)).ruleR0(graph);
 
-            for (Edge edge : new ArrayList<>(graph.getEdges())) {
-                if (Thread.currentThread().isInterrupted()) {
-                    break;
-                }
+            if (pool != null) {
+                SepsetsPossibleDsep _sp = new SepsetsPossibleDsep(new EdgeListGraph(graph), independenceTest,
+                        knowledge, depth, maxPathLength);
+                _sp.setVerbose(verbose);
+                _sp.setConcurrent(true);
+                ParallelSepsets parallel = new ParallelSepsets(_sp, pool);
+                parallel.setCancellationToken(cancellation);
+                parallel.removeSeparatedEdges(graph, sepsets);
+            } else {
+                for (Edge edge : new ArrayList<>(graph.getEdges())) {
+                    if (cancellation.isCancelled()) {
+                        break;
+                    }
 
-                Node x = edge.getNode1();
-                Node y = edge.getNode2();
+                    Node x = edge.getNode1();
+                    Node y = edge.getNode2();
 
-                List<Node> sepset = sp.getSepset(x, y);
+                    List<Node> sepset = sp.getSepset(x, y);
 
-                if (sepset != null) {
-                    graph.removeEdge(x, y);
-                    sepsets.set(x, y, sepset);
+                    if (sepset != null) {
+                        graph.removeEdge(x, y);
+                        sepsets.set(x, y, sepset);
 
-                    if (verbose) {
-                        System.out.println("Possible DSEP Removed " + x + "--- " + y + " sepset = " + sepset);
+                        if (verbose) {
+                            System.out.println("Possible DSEP Removed " + x + "--- " + y + " sepset = " + sepset);
+                        }
                     }
                 }
             }
@@ -266,9 +308,11 @@ public final class Fci implements GraphSearch {
         fciOrient.setCompleteRuleSetUsed(completeRuleSetUsed);
         fciOrient.setMaxPathLength(maxPathLength);
         fciOrient.setKnowledge(knowledge);
+        fciOrient.setCancellationToken(cancellation);
         fciOrient.ruleR0(graph);
         fciOrient.doFinalOrientation(graph);
         graph.setPag(true);
+        this.partial = cancellation.isCancelled();
         return graph;
     }
 
@@ -276,6 +320,19 @@ public final class Fci implements GraphSearch {
         return this.sepsets;
     }
 
+    public void setCancellationToken(CancellationToken token) {
+        if (token == null) throw new NullPointerException("Token must not be null.");
+        this.cancellation = token;
+    }
+
+    public CancellationToken getCancellationToken() {
+        return cancellation;
+    }
+
+    public boolean isPartial() {
+        return partial;
+    }
+
     public IKnowledge getKnowledge() {
         return knowledge;
     }
@@ -312,6 +369,16 @@ public final class Fci implements GraphSearch {
         this.possibleDsepSearchDone = possibleDsepSearchDone;
     }
 
+    /**
+     * Sets a pool to run the search on. The adjacency search is then FasStableParallel (unless an initial graph is
+     * given), and in the possible-dsep step the sepsets for all edges are looked up in parallel against the graph as
+     * it stands after R0, before any edge is removed, so that the result does not depend on the number of threads.
+     * By default the pool is null and the search runs on the calling thread.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
     /**
      * @return the maximum length of any discriminating path, or -1 of unlimited.
      */
@@ -377,7 +444,7 @@ public final class Fci implements GraphSearch {
 
         for (Iterator<KnowledgeEdge> it =
              bk.forbiddenEdgesIterator(); it.hasNext(); ) {
-            if (Thread.currentThread().isInterrupted()) {
+            if (cancellation.isCancelled()) {
                 break;
             }
 
@@ -404,7 +471,7 @@ public final class Fci implements GraphSearch {
 
         for (Iterator<KnowledgeEdge> it =
              bk.requiredEdgesIterator(); it.hasNext(); ) {
-            if (Thread.currentThread().isInterrupted()) {
+            if (cancellation.isCancelled()) {
                 break;
             }
 
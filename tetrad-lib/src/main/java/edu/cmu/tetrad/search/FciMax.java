@@ -32,6 +32,7 @@ import edu.cmu.tetrad.util.TetradLogger;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveTask;
 
 
@@ -116,6 +117,11 @@ public final class FciMax implements GraphSearch {
      */
     private int possibleDsepDepth = -1;
 
+    /**
+     * If not null, the pool the adjacency search, collider scoring and the possible-dsep step are run on.
+     */
+    private ForkJoinPool pool = null;
+
 
     //============================CONSTRUCTORS============================//
 
@@ -151,6 +157,13 @@ public final class FciMax implements GraphSearch {
     }
 
     public Graph search() {
+        if (pool != null && initialGraph == null) {
+            FasStableParallel fas = new FasStableParallel(getIndependenceTest());
+            fas.setPool(pool);
+            fas.setVerbose(verbose);
+            return search(fas);
+        }
+
         Fas fas = new Fas(initialGraph, getIndependenceTest());
         fas.setVerbose(verbose);
         return search(fas);
@@ -179,15 +192,21 @@ public final class FciMax implements GraphSearch {
         if (isPossibleDsepSearchDone()) {
             addColliders(graph);
 
-            for (Edge edge : new ArrayList<>(graph.getEdges())) {
-                Node x = edge.getNode1();
-                Node y = edge.getNode2();
+            if (pool != null) {
+                SepsetProducer _sp = new SepsetsMaxPValuePossDsep(new EdgeListGraph(graph), independenceTest, null,
+                        depth, maxPathLength);
+                new ParallelSepsets(_sp, pool).removeSeparatedEdges(graph, sepsets);
+            } else {
+                for (Edge edge : new ArrayList<>(graph.getEdges())) {
+                    Node x = edge.getNode1();
+                    Node y = edge.getNode2();
 
-                List<Node> sepset = sp.getSepset(x, y);
+                    List<Node> sepset = sp.getSepset(x, y);
 
-                if (sepset != null) {
-                    graph.removeEdge(x, y);
-                    sepsets.set(x, y, sepset);
+                    if (sepset != null) {
+                        graph.removeEdge(x, y);
+                        sepsets.set(x, y, sepset);
+                    }
                 }
             }
 
@@ -258,16 +277,23 @@ public final class FciMax implements GraphSearch {
 
         Task task = new Task(nodes, graph, scores, 0, nodes.size());
 
-        ForkJoinPoolInstance.getInstance().getPool().invoke(task);
+        (pool != null ? pool : ForkJoinPoolInstance.getInstance().getPool()).invoke(task);
 
         List<Triple> tripleList = new ArrayList<>(scores.keySet());
 
-        // Most independent ones first.
+        // Most independent ones first; ties are broken by node order so that the result does not depend on the
+        // order in which the tasks finished.
         Collections.sort(tripleList, new Comparator<Triple>() {
 
             @Override
             public int compare(Triple o1, Triple o2) {
-                return Double.compare(scores.get(o2), scores.get(o1));
+                int c = Double.compare(scores.get(o2), scores.get(o1));
+                if (c != 0) return c;
+                c = Integer.compare(nodes.indexOf(o1.getY()), nodes.indexOf(o2.getY()));
+                if (c != 0) return c;
+                c = Integer.compare(nodes.indexOf(o1.getX()), nodes.indexOf(o2.getX()));
+                if (c != 0) return c;
+                return Integer.compare(nodes.indexOf(o1.getZ()), nodes.indexOf(o2.getZ()));
             }
         });
 
@@ -309,8 +335,7 @@ public final class FciMax implements GraphSearch {
 
             while ((comb2 = cg2.next()) != null) {
                 List<Node> s = GraphUtils.asList(comb2, adja);
-                independenceTest.isIndependent(a, c, s);
-                double _score = independenceTest.getScore();
+                double _score = score(a, c, s);
 
                 if (_score < score) {
                     score = _score;
@@ -325,8 +350,7 @@ public final class FciMax implements GraphSearch {
 
             while ((comb3 = cg3.next()) != null) {
                 List<Node> s = GraphUtils.asList(comb3, adjc);
-                independenceTest.isIndependent(c, a, s);
-                double _score = independenceTest.getScore();
+                double _score = score(c, a, s);
 
                 if (_score < score) {
                     score = _score;
@@ -334,7 +358,9 @@ public final class FciMax implements GraphSearch {
                 }
             }
 
-            getSepsets().set(a, c, S);
+            synchronized (sepsets) {
+                sepsets.set(a, c, S);
+            }
 
             // S actually has to be non-null here, but the compiler doesn't know that.
             if (S != null && !S.contains(b)) {
@@ -343,6 +369,12 @@ public final class FciMax implements GraphSearch {
         }
     }
 
+    // Taken from the p value alone, so that the collider tasks don't share the test's last result. Lower is more
+    // independent, as with the tests' getScore().
+    private double score(Node a, Node c, List<Node> s) {
+        return independenceTest.getAlpha() - independenceTest.getPValue(a, c, s);
+    }
+
     public SepsetMap getSepsets() {
         return this.sepsets;
     }
@@ -383,6 +415,16 @@ public final class FciMax implements GraphSearch {
         this.possibleDsepSearchDone = possibleDsepSearchDone;
     }
 
+    /**
+     * Sets a pool to run the search on. The adjacency search is then FasStableParallel (unless an initial graph is
+     * given), and in the possible-dsep step the sepsets for all edges are looked up in parallel against the graph as
+     * it stands before any edge is removed, so that the result does not depend on the number of threads. By default
+     * the pool is null; the adjacency and possible-dsep steps then run on the calling thread.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
     /**
      * @return the maximum length of any discriminating path, or -1 of unlimited.
      */
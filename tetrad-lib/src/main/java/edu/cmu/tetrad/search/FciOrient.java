@@ -26,7 +26,9 @@ import edu.cmu.tetrad.data.KnowledgeEdge;
 import edu.cmu.tetrad.graph.Endpoint;
 import edu.cmu.tetrad.graph.Graph;
 import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.util.CancellationToken;
 import edu.cmu.tetrad.util.ChoiceGenerator;
+import edu.cmu.tetrad.util.SearchMetrics;
 import edu.cmu.tetrad.util.TetradLogger;
 import java.io.PrintStream;
 import java.util.*;
@@ -93,6 +95,9 @@ public final class FciOrient {
     private Graph dag;
     private boolean skipDiscriminatingPathRule;
 
+    // Checked between rule passes; when it is cancelled orientation stops where it is.
+    private CancellationToken cancellation = CancellationToken.current();
+
     //============================CONSTRUCTORS============================//
     /**
      * Constructs a new FCI search for the given independence test and
@@ -101,6 +106,10 @@ public final class FciOrient {
     public FciOrient(SepsetProducer sepsets) {
         this.sepsets = sepsets;
 
+        if (sepsets instanceof ParallelSepsets) {
+            sepsets = ((ParallelSepsets) sepsets).getSepsets();
+        }
+
         if (sepsets instanceof SepsetsGreedy) {
             SepsetsGreedy _sepsets = (SepsetsGreedy) sepsets;
             this.dag = _sepsets.getDag();
@@ -186,7 +195,7 @@ public final class FciOrient {
         List<Node> nodes = graph.getNodes();
 
         for (Node b : nodes) {
-            if (Thread.currentThread().isInterrupted()) {
+            if (cancellation.isCancelled()) {
                 break;
             }
 
@@ -200,7 +209,7 @@ public final class FciOrient {
             int[] combination;
 
             while ((combination = cg.next()) != null) {
-                if (Thread.currentThread().isInterrupted()) {
+                if (cancellation.isCancelled()) {
                     break;
                 }
 
@@ -227,6 +236,7 @@ public final class FciOrient {
 
                     graph.setEndpoint(a, b, Endpoint.ARROW);
                     graph.setEndpoint(c, b, Endpoint.ARROW);
+                    SearchMetrics.getInstance().count("fciOrient.r0");
                     if (verbose) {
                         logger.log("colliderOrientations", SearchLogUtils.colliderOrientedMsg(a, b, c));
                         out.println(SearchLogUtils.colliderOrientedMsg(a, b, c));
@@ -263,7 +273,7 @@ public final class FciOrient {
         boolean firstTime = true;
 
         while (changeFlag) {
-            if (Thread.currentThread().isInterrupted()) {
+            if (cancellation.isCancelled()) {
                 break;
             }
 
@@ -287,8 +297,8 @@ public final class FciOrient {
         changeFlag = true;
         boolean firstTime = true;
 
-        while (changeFlag && !Thread.currentThread().isInterrupted()) {
-            if (Thread.currentThread().isInterrupted()) {
+        while (changeFlag && !cancellation.isCancelled()) {
+            if (cancellation.isCancelled()) {
                 break;
             }
 
@@ -316,8 +326,8 @@ public final class FciOrient {
             // as possible.
             changeFlag = true;
 
-            while (changeFlag && !Thread.currentThread().isInterrupted()) {
-                if (Thread.currentThread().isInterrupted()) {
+            while (changeFlag && !cancellation.isCancelled()) {
+                if (cancellation.isCancelled()) {
                     break;
                 }
 
@@ -328,8 +338,8 @@ public final class FciOrient {
             // Finally, we apply R8-R10 as many times as possible.
             changeFlag = true;
 
-            while (changeFlag && !Thread.currentThread().isInterrupted()) {
-                if (Thread.currentThread().isInterrupted()) {
+            while (changeFlag && !cancellation.isCancelled()) {
+                if (cancellation.isCancelled()) {
                     break;
                 }
 
@@ -346,7 +356,7 @@ public final class FciOrient {
         List<Node> nodes = graph.getNodes();
 
         for (Node B : nodes) {
-            if (Thread.currentThread().isInterrupted()) {
+            if (cancellation.isCancelled()) {
                 break;
             }
 
@@ -359,8 +369,8 @@ public final class FciOrient {
             ChoiceGenerator cg = new ChoiceGenerator(adj.size(), 2);
             int[] combination;
 
-            while ((combination = cg.next()) != null && !Thread.currentThread().isInterrupted()) {
-                if (Thread.currentThread().isInterrupted()) {
+            while ((combination = cg.next()) != null && !cancellation.isCancelled()) {
+                if (cancellation.isCancelled()) {
                     break;
                 }
 
@@ -391,6 +401,7 @@ public final class FciOrient {
             graph.setEndpoint(c, b, Endpoint.TAIL);
             graph.setEndpoint(b, c, Endpoint.ARROW);
             changeFlag = true;
+            SearchMetrics.getInstance().count("fciOrient.r1");
 
             if (verbose) {
                 logger.log("impliedOrientations", SearchLogUtils.edgeOrientedMsg("Away from collider", graph.getEdge(b, c)));
@@ -418,6 +429,7 @@ public final class FciOrient {
                 }
 
                 graph.setEndpoint(a, c, Endpoint.ARROW);
+                SearchMetrics.getInstance().count("fciOrient.r2");
 
                 if (verbose) {
                     logger.log("impliedOrientations", SearchLogUtils.edgeOrientedMsg("Away from ancestor", graph.getEdge(a, c)));
@@ -474,7 +486,7 @@ public final class FciOrient {
         List<Node> nodes = graph.getNodes();
 
         for (Node B : nodes) {
-            if (Thread.currentThread().isInterrupted()) {
+            if (cancellation.isCancelled()) {
                 break;
             }
 
@@ -482,7 +494,7 @@ public final class FciOrient {
             List<Node> intoBCircles = graph.getNodesInTo(B, Endpoint.CIRCLE);
 
             for (Node D : intoBCircles) {
-                if (Thread.currentThread().isInterrupted()) {
+                if (cancellation.isCancelled()) {
                     break;
                 }
 
@@ -493,7 +505,7 @@ public final class FciOrient {
                 ChoiceGenerator gen = new ChoiceGenerator(intoBArrows.size(), 2);
                 int[] choice;
 
-                while ((choice = gen.next()) != null && !Thread.currentThread().isInterrupted()) {
+                while ((choice = gen.next()) != null && !cancellation.isCancelled()) {
                     Node A = intoBArrows.get(choice[0]);
                     Node C = intoBArrows.get(choice[1]);
 
@@ -523,6 +535,7 @@ public final class FciOrient {
                     }
 
                     graph.setEndpoint(D, B, Endpoint.ARROW);
+                    SearchMetrics.getInstance().count("fciOrient.r3");
 
                     if (verbose) {
                         logger.log("impliedOrientations", SearchLogUtils.edgeOrientedMsg("Double triangle", graph.getEdge(D, B)));
@@ -575,12 +588,12 @@ public final class FciOrient {
             List<Node> possC = graph.getNodesInTo(b, Endpoint.CIRCLE);
 
             for (Node a : possA) {
-                if (Thread.currentThread().isInterrupted()) {
+                if (cancellation.isCancelled()) {
                     break;
                 }
 
                 for (Node c : possC) {
-                    if (Thread.currentThread().isInterrupted()) {
+                    if (cancellation.isCancelled()) {
                         break;
                     }
 
@@ -631,7 +644,7 @@ public final class FciOrient {
         // the "visited" set.  b and c are added explicitly here; a will be
         // added in the first while iteration.
         while (reachable.size() > 0) {
-            if (Thread.currentThread().isInterrupted()) {
+            if (cancellation.isCancelled()) {
                 break;
             }
 
@@ -654,7 +667,7 @@ public final class FciOrient {
             pathExtensions.removeAll(visited);
 
             for (Node d : pathExtensions) {
-                if (Thread.currentThread().isInterrupted()) {
+                if (cancellation.isCancelled()) {
                     break;
                 }
 
@@ -694,6 +707,7 @@ public final class FciOrient {
 
         if (sepset.contains(b)) {
             graph.setEndpoint(c, b, Endpoint.TAIL);
+            SearchMetrics.getInstance().count("fciOrient.r4");
 
             if (verbose) {
                 logger.log("impliedOrientations", SearchLogUtils.edgeOrientedMsg("Definite discriminating path d = " + d, graph.getEdge(b, c)));
@@ -713,6 +727,7 @@ public final class FciOrient {
             graph.setEndpoint(a, b, Endpoint.ARROW);
             graph.setEndpoint(c, b, Endpoint.ARROW);
             logger.log("colliderOrientations", SearchLogUtils.colliderOrientedMsg("Definite discriminating path.. d = " + d, a, b, c));
+            SearchMetrics.getInstance().count("fciOrient.r4");
             changeFlag = true;
         }
     }
@@ -739,7 +754,7 @@ public final class FciOrient {
         List<Node> nodes = graph.getNodes();
 
         for (Node b : nodes) {
-            if (Thread.currentThread().isInterrupted()) {
+            if (cancellation.isCancelled()) {
                 break;
             }
 
@@ -749,12 +764,12 @@ public final class FciOrient {
             List<Node> possC = graph.getNodesInTo(b, Endpoint.CIRCLE);
 
             for (Node a : possA) {
-                if (Thread.currentThread().isInterrupted()) {
+                if (cancellation.isCancelled()) {
                     break;
                 }
 
                 for (Node c : possC) {
-                    if (Thread.currentThread().isInterrupted()) {
+                    if (cancellation.isCancelled()) {
                         break;
                     }
 
@@ -795,7 +810,7 @@ public final class FciOrient {
         previous.put(a, b);
 
         while (!Q.isEmpty()) {
-            if (Thread.currentThread().isInterrupted()) {
+            if (cancellation.isCancelled()) {
                 break;
             }
 
@@ -812,7 +827,7 @@ public final class FciOrient {
             final List<Node> nodesInTo = graph.getNodesInTo(t, Endpoint.ARROW);
 
             for (Node d : nodesInTo) {
-                if (Thread.currentThread().isInterrupted()) {
+                if (cancellation.isCancelled()) {
                     break;
                 }
 
@@ -851,6 +866,7 @@ public final class FciOrient {
         if (dag != null) {
             if (dag.isAncestorOf(b, c)) {
                 graph.setEndpoint(c, b, Endpoint.TAIL);
+                SearchMetrics.getInstance().count("fciOrient.r4");
                 changeFlag = true;
             } else {
                 if (!isArrowpointAllowed(a, b, graph)) {
@@ -864,6 +880,7 @@ public final class FciOrient {
                 graph.setEndpoint(a, b, Endpoint.ARROW);
                 graph.setEndpoint(c, b, Endpoint.ARROW);
                 changeFlag = true;
+                SearchMetrics.getInstance().count("fciOrient.r4");
             }
 
             return true;
@@ -904,6 +921,7 @@ public final class FciOrient {
         if (ind) {
 //            if (sepset.contains(b)) {
             graph.setEndpoint(c, b, Endpoint.TAIL);
+            SearchMetrics.getInstance().count("fciOrient.r4");
 
             if (verbose) {
                 logger.log("impliedOrientations", SearchLogUtils.edgeOrientedMsg("Definite discriminating path d = " + d, graph.getEdge(b, c)));
@@ -923,6 +941,7 @@ public final class FciOrient {
 
             graph.setEndpoint(a, b, Endpoint.ARROW);
             graph.setEndpoint(c, b, Endpoint.ARROW);
+            SearchMetrics.getInstance().count("fciOrient.r4");
 
             if (verbose) {
                 logger.log("impliedOrientations", SearchLogUtils.colliderOrientedMsg("Definite discriminating path.. d = " + d, a, b, c));
@@ -973,14 +992,14 @@ public final class FciOrient {
         List<Node> nodes = graph.getNodes();
 
         for (Node a : nodes) {
-            if (Thread.currentThread().isInterrupted()) {
+            if (cancellation.isCancelled()) {
                 break;
             }
 
             List<Node> adjacents = graph.getNodesInTo(a, Endpoint.CIRCLE);
 
             for (Node b : adjacents) {
-                if (Thread.currentThread().isInterrupted()) {
+                if (cancellation.isCancelled()) {
                     break;
                 }
 
@@ -992,7 +1011,7 @@ public final class FciOrient {
                 List<List<Node>> ucCirclePaths = getUcCirclePaths(a, b, graph);
 
                 for (List<Node> u : ucCirclePaths) {
-                    if (Thread.currentThread().isInterrupted()) {
+                    if (cancellation.isCancelled()) {
                         break;
                     }
 
@@ -1016,6 +1035,7 @@ public final class FciOrient {
                     graph.setEndpoint(a, b, Endpoint.TAIL);
                     graph.setEndpoint(b, a, Endpoint.TAIL);
                     orientTailPath(u, graph);
+                    SearchMetrics.getInstance().count("fciOrient.r5");
                     changeFlag = true;
                 }
             }
@@ -1031,7 +1051,7 @@ public final class FciOrient {
         List<Node> nodes = graph.getNodes();
 
         for (Node b : nodes) {
-            if (Thread.currentThread().isInterrupted()) {
+            if (cancellation.isCancelled()) {
                 break;
             }
 
@@ -1043,7 +1063,7 @@ public final class FciOrient {
 
             ChoiceGenerator cg = new ChoiceGenerator(adjacents.size(), 2);
 
-            for (int[] choice = cg.next(); choice != null && !Thread.currentThread().isInterrupted(); choice = cg.next()) {
+            for (int[] choice = cg.next(); choice != null && !cancellation.isCancelled(); choice = cg.next()) {
                 Node a = adjacents.get(choice[0]);
                 Node c = adjacents.get(choice[1]);
 
@@ -1063,6 +1083,7 @@ public final class FciOrient {
 
                     // We know A---Bo-*C: R6 applies!
                     graph.setEndpoint(c, b, Endpoint.TAIL);
+                    SearchMetrics.getInstance().count("fciOrient.r6");
 
                     logger.log("impliedOrientations", SearchLogUtils.edgeOrientedMsg("Single tails (tail)", graph.getEdge(c, b)));
 
@@ -1076,6 +1097,7 @@ public final class FciOrient {
 
                     // We know A--oBo-*C and A,C nonadjacent: R7 applies!
                     graph.setEndpoint(c, b, Endpoint.TAIL);
+                    SearchMetrics.getInstance().count("fciOrient.r7");
                     changeFlag = true;
                 }
 
@@ -1092,14 +1114,14 @@ public final class FciOrient {
         List<Node> nodes = graph.getNodes();
 
         for (Node c : nodes) {
-            if (Thread.currentThread().isInterrupted()) {
+            if (cancellation.isCancelled()) {
                 break;
             }
 
             List<Node> intoCArrows = graph.getNodesInTo(c, Endpoint.ARROW);
 
             for (Node a : intoCArrows) {
-                if (Thread.currentThread().isInterrupted()) {
+                if (cancellation.isCancelled()) {
                     break;
                 }
 
@@ -1293,6 +1315,7 @@ public final class FciOrient {
             logger.log("impliedOrientations", SearchLogUtils.edgeOrientedMsg("R8", graph.getEdge(c, a)));
 
             graph.setEndpoint(c, a, Endpoint.TAIL);
+            SearchMetrics.getInstance().count("fciOrient.r8");
             changeFlag = true;
             return true;
         }
@@ -1329,6 +1352,7 @@ public final class FciOrient {
             logger.log("impliedOrientations", SearchLogUtils.edgeOrientedMsg("R9", graph.getEdge(c, a)));
 
             graph.setEndpoint(c, a, Endpoint.TAIL);
+            SearchMetrics.getInstance().count("fciOrient.r9");
             changeFlag = true;
             return true;
         }
@@ -1354,7 +1378,7 @@ public final class FciOrient {
         List<Node> intoCArrows = graph.getNodesInTo(c, Endpoint.ARROW);
 
         for (Node b : intoCArrows) {
-            if (Thread.currentThread().isInterrupted()) {
+            if (cancellation.isCancelled()) {
                 break;
             }
 
@@ -1368,7 +1392,7 @@ public final class FciOrient {
             // We know Ao->C and B-->C.
 
             for (Node d : intoCArrows) {
-                if (Thread.currentThread().isInterrupted()) {
+                if (cancellation.isCancelled()) {
                     break;
                 }
 
@@ -1384,13 +1408,13 @@ public final class FciOrient {
                 List<List<Node>> ucPdPsToB = getUcPdPaths(a, b, graph);
                 List<List<Node>> ucPdPsToD = getUcPdPaths(a, d, graph);
                 for (List<Node> u1 : ucPdPsToB) {
-                    if (Thread.currentThread().isInterrupted()) {
+                    if (cancellation.isCancelled()) {
                         break;
                     }
 
                     Node m = u1.get(1);
                     for (List<Node> u2 : ucPdPsToD) {
-                        if (Thread.currentThread().isInterrupted()) {
+                        if (cancellation.isCancelled()) {
                             break;
                         }
 
@@ -1407,6 +1431,7 @@ public final class FciOrient {
                         logger.log("impliedOrientations", SearchLogUtils.edgeOrientedMsg("R10", graph.getEdge(c, a)));
 
                         graph.setEndpoint(c, a, Endpoint.TAIL);
+                        SearchMetrics.getInstance().count("fciOrient.r10");
                         changeFlag = true;
                         return true;
                     }
@@ -1425,7 +1450,7 @@ public final class FciOrient {
 
         for (Iterator<KnowledgeEdge> it
                 = bk.forbiddenEdgesIterator(); it.hasNext();) {
-            if (Thread.currentThread().isInterrupted()) {
+            if (cancellation.isCancelled()) {
                 break;
             }
 
@@ -1452,7 +1477,7 @@ public final class FciOrient {
 
         for (Iterator<KnowledgeEdge> it
                 = bk.requiredEdgesIterator(); it.hasNext();) {
-            if (Thread.currentThread().isInterrupted()) {
+            if (cancellation.isCancelled()) {
                 break;
             }
 
@@ -1551,6 +1576,14 @@ public final class FciOrient {
         this.verbose = verbose;
     }
 
+    /**
+     * Sets the token checked between rule passes; by default CancellationToken.current() as of construction.
+     */
+    public void setCancellationToken(CancellationToken token) {
+        if (token == null) throw new NullPointerException("Token must not be null.");
+        this.cancellation = token;
+    }
+
     public void setTruePag(Graph truePag) {
         this.truePag = truePag;
     }
@@ -51,7 +51,7 @@ import java.util.concurrent.*;
  * @author Ricardo Silva, Summer 2003
  * @author Joseph Ramsey, Revisions 5/2015
  */
-public final class Fges implements GraphSearch, GraphScorer {
+public final class Fges implements GraphSearch, GraphScorer, Cancellable {
 
     /**
      * Internal.
@@ -130,7 +130,7 @@ public final class Fges implements GraphSearch, GraphScorer {
     // Map from variables to their column indices in the data set.
     private ConcurrentMap<Node, Integer> hashIndices;
 
-    // The static ForkJoinPool instance.
+    // The shared pool the search runs on.
     private final ForkJoinPool pool;
 
     // A graph where X--Y means that X and Y have non-zero total effect on one another.
@@ -170,29 +170,56 @@ public final class Fges implements GraphSearch, GraphScorer {
     // The maximum number of threads to use.
     private final int maxThreads;
 
+    // Checked at loop boundaries, including in pool tasks, which do not see interruption; when it is
+    // cancelled the search returns the pattern found so far.
+    private CancellationToken cancellation = CancellationToken.current();
+
+    // True if the last search was cancelled before it finished.
+    private boolean partial = false;
+
+    // If true, a search after the first starts from the pattern the last one found and re-evaluates arrows only
+    // for variables that are new or whose local scores have moved by more than incrementalTolerance.
+    private boolean incremental = false;
+
+    // The change in a variable's local score per sample below which an incremental search leaves it alone.
+    private double incrementalTolerance = 1e-4;
+
+    // The pattern the last incremental search found, and the local scores per sample of its variables, by name, as
+    // of the last search that re-evaluated them, so that small changes from run to run add up.
+    private Graph lastPattern = null;
+    private Map<String, Double> lastLocalScores = null;
+
+    // In an incremental search, the variables whose arrows are re-evaluated; null in a full search.
+    private Set<Node> reevaluate = null;
+
+    // The variables the last search re-evaluated, or null if it was a full search.
+    private Set<Node> lastReevaluated = null;
+
     //===========================CONSTRUCTORS=============================//
 
     /**
      * Construct a Score and pass it in here. The totalScore should return a
      * positive value in case of conditional dependence and a negative values in
      * case of conditional independence. See Chickering (2002), locally
-     * consistent scoring criterion. This by default uses all of the processors on
-     * the machine.
+     * consistent scoring criterion. This by default uses as many threads as
+     * ForkJoinPoolInstance allows.
      */
     public Fges(Score score) {
-        this(score, Runtime.getRuntime().availableProcessors() * 10);
+        this(score, ForkJoinPoolInstance.getInstance().getParallelism());
     }
 
     /**
-     * Lets one construct with a score and a parallelism, that is, the number of threads to effectively use.
+     * Lets one construct with a score and a parallelism, that is, the most threads to use. The search
+     * runs on the shared ForkJoinPoolInstance pool for that many threads, or on the enclosing pool if
+     * constructed from a task already running on one.
      */
     public Fges(Score score, int parallelism) {
         if (score == null) {
             throw new NullPointerException();
         }
-        setScore(score);
-        this.maxThreads = parallelism;
-        this.pool = new ForkJoinPool(parallelism);
+        setScoreInternal(score);
+        this.pool = ForkJoinPoolInstance.getInstance().getPool(parallelism);
+        this.maxThreads = pool.getParallelism();
         this.graph = new EdgeListGraphSingleConnections(getVariables());
     }
 
@@ -224,13 +251,15 @@ public final class Fges implements GraphSearch, GraphScorer {
     public Graph search() {
         long start = System.currentTimeMillis();
         topGraphs.clear();
+        partial = false;
 
         lookupArrows = new ConcurrentHashMap<>();
         final List<Node> nodes = new ArrayList<>(variables);
         graph = new EdgeListGraphSingleConnections(nodes);
 
+        // The adjacencies and bound graphs are only read, from every task, so they're kept as IntAdjacencyGraphs.
         if (adjacencies != null) {
-            adjacencies = GraphUtils.replaceNodes(adjacencies, nodes);
+            adjacencies = new IntAdjacencyGraph(GraphUtils.replaceNodes(adjacencies, nodes));
         }
 
         if (initialGraph != null) {
@@ -238,35 +267,67 @@ public final class Fges implements GraphSearch, GraphScorer {
             graph = GraphUtils.replaceNodes(graph, nodes);
         }
 
+        reevaluate = null;
+
+        if (incremental && lastPattern != null && initialGraph == null) {
+            graph = restoreLastPattern(nodes);
+            reevaluate = variablesToReevaluate(nodes);
+
+            if (verbose) {
+                out.println("Incremental search; re-evaluating " + reevaluate);
+            }
+        }
+
+        Graph startGraph = new EdgeListGraph(graph);
+
         addRequiredEdges(graph);
 
         if (faithfulnessAssumed) {
-            initializeForwardEdgesFromEmptyGraph(getVariables());
+            initializeForwardEdges(getVariables());
 
             // Do forward search.
             this.mode = Mode.heuristicSpeedup;
             fes();
+            addChangedVariables(startGraph);
             bes();
 
             this.mode = Mode.coverNoncolliders;
+            addChangedVariables(startGraph);
             initializeTwoStepEdges(getVariables());
             fes();
+            addChangedVariables(startGraph);
             bes();
         } else {
-            initializeForwardEdgesFromEmptyGraph(getVariables());
+            initializeForwardEdges(getVariables());
 
             // Do forward search.
             this.mode = Mode.heuristicSpeedup;
             fes();
+            addChangedVariables(startGraph);
             bes();
 
             this.mode = Mode.allowUnfaithfulness;
+            addChangedVariables(startGraph);
             initializeForwardEdgesFromExistingGraph(getVariables());
             fes();
+            addChangedVariables(startGraph);
             bes();
         }
 
-        this.modelScore = scoreDag(SearchGraphUtils.dagFromPattern(graph), true);
+        this.partial = cancellation.isCancelled();
+        Graph dag = SearchGraphUtils.dagFromPattern(graph);
+        this.modelScore = scoreDag(dag, true);
+
+        if (incremental && !partial) {
+            lastPattern = new EdgeListGraph(graph);
+            lastLocalScores = referenceScores(localScoresPerSample(dag));
+        } else {
+            lastPattern = null;
+            lastLocalScores = null;
+        }
+
+        lastReevaluated = reevaluate == null ? null : new HashSet<>(reevaluate);
+        reevaluate = null;
 
         long endTime = System.currentTimeMillis();
         this.elapsedTime = endTime - start;
@@ -302,10 +363,36 @@ public final class Fges implements GraphSearch, GraphScorer {
         this.knowledge = knowledge;
     }
 
+    /**
+     * @return the variables whose arrows the last search re-evaluated, if it was incremental, or null if it was a
+     * full search, which evaluates every variable.
+     */
+    public Set<Node> getReevaluated() {
+        return lastReevaluated == null ? null : Collections.unmodifiableSet(lastReevaluated);
+    }
+
     public long getElapsedTime() {
         return elapsedTime;
     }
 
+    public void setCancellationToken(CancellationToken token) {
+        if (token == null) throw new NullPointerException("Token must not be null.");
+        this.cancellation = token;
+    }
+
+    public CancellationToken getCancellationToken() {
+        return cancellation;
+    }
+
+    /**
+     * @return true if the last search was cancelled before it finished. The graph returned is then the pattern
+     * reached when the search stopped, which may be missing edges (if stopped going forward) or have extra ones
+     * (if stopped going backward).
+     */
+    public boolean isPartial() {
+        return partial;
+    }
+
     /**
      * If the true graph is set, askterisks will be printed in log output for
      * the true edges.
@@ -411,7 +498,8 @@ public final class Fges implements GraphSearch, GraphScorer {
      * If non-null, edges not adjacent in this graph will not be added.
      */
     public void setBoundGraph(Graph boundGraph) {
-        this.boundGraph = GraphUtils.replaceNodes(boundGraph, getVariables());
+        Graph bound = GraphUtils.replaceNodes(boundGraph, getVariables());
+        this.boundGraph = bound == null ? null : new IntAdjacencyGraph(bound);
     }
 
     /**
@@ -479,6 +567,40 @@ public final class Fges implements GraphSearch, GraphScorer {
         this.maxDegree = maxDegree;
     }
 
+    /**
+     * Sets the score for the next search--for instance one over updated sufficient statistics, or over a few more
+     * variables. In incremental mode the next search starts from the pattern the last one found.
+     */
+    public void setScore(Score score) {
+        if (score == null) {
+            throw new NullPointerException();
+        }
+
+        setScoreInternal(score);
+    }
+
+    /**
+     * Sets whether a search after the first is incremental. An incremental search starts from the pattern the last
+     * search found and carries over its effect edges; it re-evaluates arrows only for variables that are new, whose
+     * local scores per sample (given their parents in the last pattern) have moved by more than the tolerance, or
+     * whose edges change as it goes. Used with setScore() to refresh a search as data accumulate. By default false.
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * Sets the change in a variable's local score per sample, since the last search that re-evaluated it, below which
+     * an incremental search leaves the variable's arrows alone; by default 1e-4.
+     */
+    public void setIncrementalTolerance(double incrementalTolerance) {
+        if (incrementalTolerance < 0) {
+            throw new IllegalArgumentException("Tolerance must be >= 0: " + incrementalTolerance);
+        }
+
+        this.incrementalTolerance = incrementalTolerance;
+    }
+
     public void setSymmetricFirstStep(boolean symmetricFirstStep) {
         this.symmetricFirstStep = symmetricFirstStep;
     }
@@ -493,8 +615,7 @@ public final class Fges implements GraphSearch, GraphScorer {
     }
 
     //===========================PRIVATE METHODS========================//
-    //Sets the discrete scoring function to use.
-    private void setScore(Score totalScore) {
+    private void setScoreInternal(Score totalScore) {
         this.score = totalScore;
 
         this.variables = new ArrayList<>();
@@ -543,7 +664,7 @@ public final class Fges implements GraphSearch, GraphScorer {
                 Node y = nodes.get(i);
                 neighbors.put(y, emptySet);
 
-                for (int j = i + 1; j < nodes.size() && !Thread.currentThread().isInterrupted(); j++) {
+                for (int j = i + 1; j < nodes.size() && !cancellation.isCancelled(); j++) {
                     Node x = nodes.get(j);
 
                     if (existsKnowledge()) {
@@ -704,7 +825,7 @@ public final class Fges implements GraphSearch, GraphScorer {
 
         int numNodesPerTask = Math.max(100, nodes.size() / maxThreads);
 
-        for (int i = 0; i < nodes.size() && !Thread.currentThread().isInterrupted(); i += numNodesPerTask) {
+        for (int i = 0; i < nodes.size() && !cancellation.isCancelled(); i += numNodesPerTask) {
             NodeTaskEmptyGraph task = new NodeTaskEmptyGraph(i, Math.min(nodes.size(), i + numNodesPerTask),
                     nodes, emptySet);
             tasks.add(task);
@@ -719,6 +840,251 @@ public final class Fges implements GraphSearch, GraphScorer {
         }
     }
 
+    private void initializeForwardEdges(final List<Node> nodes) {
+        if (reevaluate != null) {
+            initializeForwardEdgesIncrementally(nodes);
+        } else {
+            initializeForwardEdgesFromEmptyGraph(nodes);
+        }
+    }
+
+    // The incremental counterpart of initializeForwardEdgesFromEmptyGraph. Effect edges between variables that are
+    // not re-evaluated are carried over from the last search; those of variables that are, are rescored, and arrows
+    // are calculated against the current graph for those variables only.
+    private void initializeForwardEdgesIncrementally(final List<Node> nodes) {
+        sortedArrows = new ConcurrentSkipListSet<>();
+        lookupArrows = new ConcurrentHashMap<>();
+        neighbors = new ConcurrentHashMap<>();
+        final Set<Node> emptySet = new HashSet<>();
+
+        Map<String, Node> byName = new HashMap<>();
+
+        for (Node node : nodes) {
+            byName.put(node.getName(), node);
+        }
+
+        Graph previous = this.effectEdgesGraph;
+        this.effectEdgesGraph = new EdgeListGraphSingleConnections(nodes);
+
+        if (previous != null) {
+            for (Edge edge : previous.getEdges()) {
+                Node x = byName.get(edge.getNode1().getName());
+                Node y = byName.get(edge.getNode2().getName());
+
+                if (x != null && y != null && !reevaluate.contains(x) && !reevaluate.contains(y)) {
+                    effectEdgesGraph.addUndirectedEdge(x, y);
+                }
+            }
+        }
+
+        final List<Node> changed = new ArrayList<>(reevaluate);
+
+        class IncrementalTask implements Callable<Boolean> {
+            private final int from;
+            private final int to;
+
+            private IncrementalTask(int from, int to) {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            public Boolean call() {
+                for (int i = from; i < to && !cancellation.isCancelled(); i++) {
+                    Node y = changed.get(i);
+                    int child = hashIndices.get(y);
+
+                    for (Node x : nodes) {
+                        if (x == y) {
+                            continue;
+                        }
+
+                        int parent = hashIndices.get(x);
+
+                        // Pairs of re-evaluated variables are done once.
+                        if (reevaluate.contains(x) && parent < child) {
+                            continue;
+                        }
+
+                        if (existsKnowledge()) {
+                            if (getKnowledge().isForbidden(x.getName(), y.getName()) && getKnowledge().isForbidden(y.getName(), x.getName())) {
+                                continue;
+                            }
+
+                            if (invalidSetByKnowledge(y, emptySet)) {
+                                continue;
+                            }
+                        }
+
+                        if (adjacencies != null && !adjacencies.isAdjacentTo(x, y)) {
+                            continue;
+                        }
+
+                        if (boundGraph != null && !boundGraph.isAdjacentTo(x, y)) {
+                            continue;
+                        }
+
+                        double bump = score.localScoreDiff(parent, child);
+
+                        if (symmetricFirstStep) {
+                            bump = Math.max(bump, score.localScoreDiff(child, parent));
+                        }
+
+                        if (bump > 0) {
+                            effectEdgesGraph.addEdge(Edges.undirectedEdge(x, y));
+
+                            if (!graph.isAdjacentTo(x, y)) {
+                                calculateArrowsForward(x, y);
+                                calculateArrowsForward(y, x);
+                            }
+                        }
+                    }
+                }
+
+                return true;
+            }
+        }
+
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        int numNodesPerTask = Math.max(1, changed.size() / maxThreads);
+
+        for (int i = 0; i < changed.size() && !cancellation.isCancelled(); i += numNodesPerTask) {
+            tasks.add(new IncrementalTask(i, Math.min(changed.size(), i + numNodesPerTask)));
+        }
+
+        pool.invokeAll(tasks);
+    }
+
+    // The pattern the last search found, over the current variables; variables new since then are unconnected.
+    private Graph restoreLastPattern(List<Node> nodes) {
+        Graph restored = new EdgeListGraphSingleConnections(nodes);
+        Map<String, Node> byName = new HashMap<>();
+
+        for (Node node : nodes) {
+            byName.put(node.getName(), node);
+        }
+
+        for (Edge edge : lastPattern.getEdges()) {
+            Node x = byName.get(edge.getNode1().getName());
+            Node y = byName.get(edge.getNode2().getName());
+
+            if (x != null && y != null) {
+                restored.addEdge(new Edge(x, y, edge.getEndpoint1(), edge.getEndpoint2()));
+            }
+        }
+
+        return restored;
+    }
+
+    // The variables an incremental search starts by re-evaluating: those that are new, those whose local scores per
+    // sample given their parents have moved by more than the tolerance since they were last re-evaluated, and those that lost a neighbor to a variable
+    // that has been dropped.
+    private Set<Node> variablesToReevaluate(List<Node> nodes) {
+        Set<Node> changed = new HashSet<>();
+        Map<String, Double> localScores = localScoresPerSample(SearchGraphUtils.dagFromPattern(graph));
+        Map<String, Node> byName = new HashMap<>();
+
+        for (Node node : nodes) {
+            byName.put(node.getName(), node);
+
+            Double last = lastLocalScores.get(node.getName());
+            double current = localScores.get(node.getName());
+
+            if (last == null || Double.isNaN(last) || Double.isNaN(current)
+                    || Math.abs(current - last) > incrementalTolerance) {
+                changed.add(node);
+            }
+        }
+
+        for (Node node : lastPattern.getNodes()) {
+            if (byName.containsKey(node.getName())) {
+                continue;
+            }
+
+            for (Node neighbor : lastPattern.getAdjacentNodes(node)) {
+                Node _neighbor = byName.get(neighbor.getName());
+
+                if (_neighbor != null) {
+                    changed.add(_neighbor);
+                }
+            }
+        }
+
+        return changed;
+    }
+
+    // The local scores the next incremental search compares against: after a full search, the current ones; otherwise
+    // the current ones for the variables re-evaluated, and the old ones for the rest.
+    private Map<String, Double> referenceScores(Map<String, Double> localScores) {
+        if (reevaluate == null || lastLocalScores == null) {
+            return localScores;
+        }
+
+        Map<String, Double> reference = new HashMap<>();
+
+        for (Node node : getVariables()) {
+            Double last = lastLocalScores.get(node.getName());
+
+            if (last == null || reevaluate.contains(node)) {
+                reference.put(node.getName(), localScores.get(node.getName()));
+            } else {
+                reference.put(node.getName(), last);
+            }
+        }
+
+        return reference;
+    }
+
+    // The local score per sample of each variable given its parents in the DAG, by name; NaN where unknown.
+    private Map<String, Double> localScoresPerSample(Graph dag) {
+        Map<String, Double> localScores = new HashMap<>();
+        int n = Math.max(1, score.getSampleSize());
+
+        for (Node node : getVariables()) {
+            List<Node> parents = dag.getParents(node);
+            int[] parentIndices = new int[parents.size()];
+
+            for (int i = 0; i < parents.size(); i++) {
+                parentIndices[i] = hashIndices.get(parents.get(i));
+            }
+
+            double localScore;
+
+            try {
+                localScore = score.localScore(hashIndices.get(node), parentIndices) / n;
+            } catch (UnsupportedOperationException e) {
+
+                // Scores that only give differences (e.g. GraphScore); every variable is re-evaluated.
+                localScore = Double.NaN;
+            }
+
+            localScores.put(node.getName(), localScore);
+        }
+
+        return localScores;
+    }
+
+    // In an incremental search, adds to the variables re-evaluated those whose edges have changed since it started.
+    private void addChangedVariables(Graph start) {
+        if (reevaluate == null) {
+            return;
+        }
+
+        for (Edge edge : graph.getEdges()) {
+            if (!start.containsEdge(edge)) {
+                reevaluate.add(edge.getNode1());
+                reevaluate.add(edge.getNode2());
+            }
+        }
+
+        for (Edge edge : start.getEdges()) {
+            if (!graph.containsEdge(edge)) {
+                reevaluate.add(edge.getNode1());
+                reevaluate.add(edge.getNode2());
+            }
+        }
+    }
+
     private void initializeTwoStepEdges(final List<Node> nodes) {
         count[0] = 0;
 
@@ -759,7 +1125,7 @@ public final class Fges implements GraphSearch, GraphScorer {
                 }
 
                 if (to - from <= chunk) {
-                    for (int i = from; i < to && !Thread.currentThread().isInterrupted(); i++) {
+                    for (int i = from; i < to && !cancellation.isCancelled(); i++) {
                         if ((i + 1) % 1000 == 0) {
                             count[0] += 1000;
                             out.println("Initializing effect edges: " + (count[0]));
@@ -767,11 +1133,15 @@ public final class Fges implements GraphSearch, GraphScorer {
 
                         Node y = nodes.get(i);
 
+                        if (reevaluate != null && !reevaluate.contains(y)) {
+                            continue;
+                        }
+
                         Set<Node> g = new HashSet<>();
 
                         for (Node n : graph.getAdjacentNodes(y)) {
                             for (Node m : graph.getAdjacentNodes(n)) {
-                                if (Thread.currentThread().isInterrupted()) {
+                                if (cancellation.isCancelled()) {
                                     break;
                                 }
 
@@ -792,7 +1162,7 @@ public final class Fges implements GraphSearch, GraphScorer {
                         }
 
                         for (Node x : g) {
-                            if (Thread.currentThread().isInterrupted()) {
+                            if (cancellation.isCancelled()) {
                                 break;
                             }
 
@@ -815,6 +1185,11 @@ public final class Fges implements GraphSearch, GraphScorer {
                             }
 
                             calculateArrowsForward(x, y);
+
+                            // The relation is symmetric, and x may not be re-evaluated itself.
+                            if (reevaluate != null) {
+                                calculateArrowsForward(y, x);
+                            }
                         }
                     }
 
@@ -850,7 +1225,7 @@ public final class Fges implements GraphSearch, GraphScorer {
 
         if (initialGraph != null) {
             for (Edge edge : initialGraph.getEdges()) {
-                if (Thread.currentThread().isInterrupted()) {
+                if (cancellation.isCancelled()) {
                     break;
                 }
 
@@ -881,7 +1256,7 @@ public final class Fges implements GraphSearch, GraphScorer {
                 }
 
                 if (to - from <= chunk) {
-                    for (int i = from; i < to && !Thread.currentThread().isInterrupted(); i++) {
+                    for (int i = from; i < to && !cancellation.isCancelled(); i++) {
                         if ((i + 1) % 1000 == 0) {
                             count[0] += 1000;
                             out.println("Initializing effect edges: " + (count[0]));
@@ -891,12 +1266,17 @@ public final class Fges implements GraphSearch, GraphScorer {
                         // exactly canceled. These are variables X which are d-connected to the target Y where
                         // X--Y was noe identified as an effect edge earlier.
                         Node y = nodes.get(i);
+
+                        if (reevaluate != null && !reevaluate.contains(y)) {
+                            continue;
+                        }
+
                         Set<Node> D = new HashSet<>(getUnconditionallyDconnectedVars(y, graph));
                         D.remove(y);
                         D.removeAll(effectEdgesGraph.getAdjacentNodes(y));
 
                         for (Node x : D) {
-                            if (Thread.currentThread().isInterrupted()) {
+                            if (cancellation.isCancelled()) {
                                 break;
                             }
 
@@ -915,6 +1295,11 @@ public final class Fges implements GraphSearch, GraphScorer {
                             }
 
                             calculateArrowsForward(x, y);
+
+                            // The relation is symmetric, and x may not be re-evaluated itself.
+                            if (reevaluate != null) {
+                                calculateArrowsForward(y, x);
+                            }
                         }
                     }
 
@@ -943,9 +1328,12 @@ public final class Fges implements GraphSearch, GraphScorer {
             out.println("** FORWARD EQUIVALENCE SEARCH");
         }
 
+        SearchMetrics metrics = SearchMetrics.getInstance();
+        long start = System.nanoTime();
         int maxDegree = this.maxDegree == -1 ? 1000 : this.maxDegree;
 
-        while (!sortedArrows.isEmpty()) {
+        while (!sortedArrows.isEmpty() && !cancellation.isCancelled()) {
+            long stepStart = System.nanoTime();
             Arrow arrow = sortedArrows.first();
             sortedArrows.remove(arrow);
 
@@ -982,6 +1370,8 @@ public final class Fges implements GraphSearch, GraphScorer {
                 continue;
             }
 
+            metrics.count("fges.forward.steps");
+
             Set<Node> visited = reapplyOrientation(x, y, null);
             Set<Node> toProcess = new HashSet<>();
 
@@ -997,8 +1387,13 @@ public final class Fges implements GraphSearch, GraphScorer {
             toProcess.add(x);
             toProcess.add(y);
 
+            long rescoreStart = System.nanoTime();
             reevaluateForward(toProcess);
+            metrics.time("fges.forward.rescore", rescoreStart);
+            metrics.time("fges.forward.step", stepStart);
         }
+
+        metrics.time("fges.forward", start);
     }
 
     private Set<Node> getCommonAdjacents(Node x, Node y) {
@@ -1013,13 +1408,21 @@ public final class Fges implements GraphSearch, GraphScorer {
             out.println("** BACKWARD EQUIVALENCE SEARCH");
         }
 
+        if (cancellation.isCancelled()) {
+            return;
+        }
+
+        SearchMetrics metrics = SearchMetrics.getInstance();
+        long start = System.nanoTime();
+
         sortedArrows = new ConcurrentSkipListSet<>();
         lookupArrows = new ConcurrentHashMap<>();
         neighbors = new ConcurrentHashMap<>();
 
         initializeArrowsBackward();
 
-        while (!sortedArrows.isEmpty()) {
+        while (!sortedArrows.isEmpty() && !cancellation.isCancelled()) {
+            long stepStart = System.nanoTime();
             Arrow arrow = sortedArrows.first();
             sortedArrows.remove(arrow);
 
@@ -1050,6 +1453,8 @@ public final class Fges implements GraphSearch, GraphScorer {
                 continue;
             }
 
+            metrics.count("fges.backward.steps");
+
             Set<Node> visited = reapplyOrientation(x, y, arrow.getHOrT());
 
             Set<Node> toProcess = new HashSet<>();
@@ -1067,8 +1472,13 @@ public final class Fges implements GraphSearch, GraphScorer {
             toProcess.add(y);
             toProcess.addAll(getCommonAdjacents(x, y));
 
+            long rescoreStart = System.nanoTime();
             reevaluateBackward(toProcess);
+            metrics.time("fges.backward.rescore", rescoreStart);
+            metrics.time("fges.backward.step", stepStart);
         }
+
+        metrics.time("fges.backward", start);
     }
 
     private Set<Node> reapplyOrientation(Node x, Node y, Set<Node> newArrows) {
@@ -1094,6 +1504,10 @@ public final class Fges implements GraphSearch, GraphScorer {
             Node x = edge.getNode1();
             Node y = edge.getNode2();
 
+            if (reevaluate != null && !reevaluate.contains(x) && !reevaluate.contains(y)) {
+                continue;
+            }
+
             if (existsKnowledge()) {
                 if (!getKnowledge().noEdgeRequired(x.getName(), y.getName())) {
                     continue;
@@ -1186,7 +1600,7 @@ public final class Fges implements GraphSearch, GraphScorer {
 
         int numNodesPerTask = Math.max(100, nodes.size() / maxThreads);
 
-        for (int i = 0; i < nodes.size() && !Thread.currentThread().isInterrupted(); i += numNodesPerTask) {
+        for (int i = 0; i < nodes.size() && !cancellation.isCancelled(); i += numNodesPerTask) {
             AdjTask task = new AdjTask(new ArrayList<>(nodes), i, Math.min(nodes.size(), i + numNodesPerTask));
             tasks.add(task);
         }
@@ -1716,7 +2130,7 @@ public final class Fges implements GraphSearch, GraphScorer {
             return;
         }
 
-        for (Iterator<KnowledgeEdge> it = getKnowledge().requiredEdgesIterator(); it.hasNext() && !Thread.currentThread().isInterrupted(); ) {
+        for (Iterator<KnowledgeEdge> it = getKnowledge().requiredEdgesIterator(); it.hasNext() && !cancellation.isCancelled(); ) {
             KnowledgeEdge next = it.next();
 
             Node nodeA = graph.getNode(next.getFrom());
@@ -1733,7 +2147,7 @@ public final class Fges implements GraphSearch, GraphScorer {
             }
         }
         for (Edge edge : graph.getEdges()) {
-            if (Thread.currentThread().isInterrupted()) {
+            if (cancellation.isCancelled()) {
                 break;
             }
 
@@ -424,10 +424,10 @@ public final class Fges2 implements GraphSearch, GraphScorer {
     }
 
     /**
-     * Creates a new processors pool with the specified number of threads.
+     * Uses the shared pool with at most the specified number of threads.
      */
     public void setParallelism(int numProcessors) {
-        this.pool = new ForkJoinPool(numProcessors);
+        this.pool = ForkJoinPoolInstance.getInstance().getPool(numProcessors);
     }
 
     /**
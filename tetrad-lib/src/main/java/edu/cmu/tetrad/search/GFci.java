@@ -22,11 +22,16 @@ package edu.cmu.tetrad.search;
 
 import edu.cmu.tetrad.data.*;
 import edu.cmu.tetrad.graph.*;
+import edu.cmu.tetrad.util.CancellationToken;
 import edu.cmu.tetrad.util.ChoiceGenerator;
 import edu.cmu.tetrad.util.TetradLogger;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * J.M. Ogarrio and P. Spirtes and J. Ramsey, "A Hybrid Causal Search Algorithm
@@ -36,7 +41,7 @@ import java.util.List;
  * @author ps7z
  * @author jdramsey
  */
-public final class GFci implements GraphSearch {
+public final class GFci implements GraphSearch, Cancellable {
 
     // The PAG being constructed.
     private Graph graph;
@@ -80,6 +85,15 @@ public final class GFci implements GraphSearch {
     private SepsetProducer sepsets;
     private long elapsedTime;
 
+    // Checked at loop boundaries; when it is cancelled the search returns the PAG found so far.
+    private CancellationToken cancellation = CancellationToken.current();
+
+    // True if the last search was cancelled before it finished.
+    private boolean partial = false;
+
+    // If not null, the pool sepsets are looked up on.
+    private ForkJoinPool pool = null;
+
     //============================CONSTRUCTORS============================//
     public GFci(IndependenceTest test, Score score) {
         if (score == null) {
@@ -93,6 +107,7 @@ public final class GFci implements GraphSearch {
     //========================PUBLIC METHODS==========================//
     public Graph search() {
         long time1 = System.currentTimeMillis();
+        partial = false;
 
         List<Node> nodes = getIndependenceTest().getVariables();
 
@@ -107,13 +122,20 @@ public final class GFci implements GraphSearch {
         fges.setFaithfulnessAssumed(faithfulnessAssumed);
         fges.setMaxDegree(maxDegree);
         fges.setOut(out);
+        fges.setCancellationToken(cancellation);
         graph = fges.search();
         Graph fgesGraph = new EdgeListGraphSingleConnections(graph);
 
-        sepsets = new SepsetsGreedy(fgesGraph, independenceTest, null, maxDegree);
+        SepsetsGreedy greedy = new SepsetsGreedy(fgesGraph, independenceTest, null, maxDegree);
+        sepsets = greedy;
+
+        if (pool != null) {
+            greedy.setConcurrent(true);
+            sepsets = lookUpSepsets(fgesGraph, nodes);
+        }
 
         for (Node b : nodes) {
-            if (Thread.currentThread().isInterrupted()) {
+            if (cancellation.isCancelled()) {
                 break;
             }
 
@@ -127,7 +149,7 @@ public final class GFci implements GraphSearch {
             int[] combination;
 
             while ((combination = cg.next()) != null) {
-                if (Thread.currentThread().isInterrupted()) {
+                if (cancellation.isCancelled()) {
                     break;
                 }
 
@@ -142,9 +164,18 @@ public final class GFci implements GraphSearch {
             }
         }
 
+        if (cancellation.isCancelled()) {
+            graph.reorientAllWith(Endpoint.CIRCLE);
+            graph.setPag(true);
+            partial = true;
+            elapsedTime = System.currentTimeMillis() - time1;
+            return graph;
+        }
+
         modifiedR0(fgesGraph);
 
         FciOrient fciOrient = new FciOrient(sepsets);
+        fciOrient.setCancellationToken(cancellation);
         fciOrient.setVerbose(verbose);
         fciOrient.setOut(out);
         fciOrient.setKnowledge(getKnowledge());
@@ -159,6 +190,7 @@ public final class GFci implements GraphSearch {
         elapsedTime = time2 - time1;
 
         graph.setPag(true);
+        partial = cancellation.isCancelled();
 
         return graph;
     }
@@ -168,6 +200,19 @@ public final class GFci implements GraphSearch {
         return elapsedTime;
     }
 
+    public void setCancellationToken(CancellationToken token) {
+        if (token == null) throw new NullPointerException("Token must not be null.");
+        this.cancellation = token;
+    }
+
+    public CancellationToken getCancellationToken() {
+        return cancellation;
+    }
+
+    public boolean isPartial() {
+        return partial;
+    }
+
     /**
      * @param maxDegree The maximum indegree of the output graph.
      */
@@ -319,7 +364,47 @@ public final class GFci implements GraphSearch {
         this.faithfulnessAssumed = faithfulnessAssumed;
     }
 
+    /**
+     * Sets a pool on which the sepsets for the pairs checked after FGES are looked up in parallel, before the edges
+     * are removed and oriented; the sepsets do not depend on each other, so the result is the same as without a pool.
+     * By default the pool is null and sepsets are looked up as they are needed, on the calling thread.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
     //===========================================PRIVATE METHODS=======================================//
+
+    // Looks up, in parallel, the sepset of every pair a, c adjacent in the FGES graph with a common neighbor b, in the
+    // order the removal loop in search() visits them.
+    private ParallelSepsets lookUpSepsets(Graph fgesGraph, List<Node> nodes) {
+        Set<OrderedPair<Node>> pairs = new LinkedHashSet<>();
+
+        for (Node b : nodes) {
+            List<Node> adjacentNodes = fgesGraph.getAdjacentNodes(b);
+
+            if (adjacentNodes.size() < 2) {
+                continue;
+            }
+
+            ChoiceGenerator cg = new ChoiceGenerator(adjacentNodes.size(), 2);
+            int[] combination;
+
+            while ((combination = cg.next()) != null) {
+                Node a = adjacentNodes.get(combination[0]);
+                Node c = adjacentNodes.get(combination[1]);
+
+                if (fgesGraph.isAdjacentTo(a, c)) {
+                    pairs.add(new OrderedPair<>(a, c));
+                }
+            }
+        }
+
+        ParallelSepsets parallel = new ParallelSepsets(sepsets, pool);
+        parallel.setCancellationToken(cancellation);
+        parallel.getSepsets(new ArrayList<>(pairs));
+        return parallel;
+    }
     /**
      * Orients according to background knowledge
      */
@@ -38,6 +38,9 @@ public class GraphScore implements Score {
 
     private final Graph dag;
 
+    // Answers d-separation queries for the dag.
+    private final DSeparationOracle oracle;
+
     // The variables of the covariance matrix.
     private List<Node> variables;
 
@@ -49,6 +52,7 @@ public class GraphScore implements Score {
      */
     public GraphScore(Graph dag) {
         this.dag = dag;
+        this.oracle = new DSeparationOracle(dag);
 
         this.variables = new ArrayList<>();
 
@@ -91,7 +95,7 @@ public class GraphScore implements Score {
         Node _y = variables.get(y);
         Node _x = variables.get(x);
         List<Node> _z = getVariableList(z);
-        boolean dSeparatedFrom = dag.isDSeparatedFrom(_x, _y, _z);
+        boolean dSeparatedFrom = oracle.isDSeparated(_x, _y, _z);
 
 //        if (dSeparatedFrom) {
 //            System.out.println(SearchLogUtils.independenceFact(_x, _y, _z));
@@ -106,13 +110,13 @@ public class GraphScore implements Score {
         Node _y = variables.get(y);
         Node _x = variables.get(x);
         List<Node> _z = getVariableList(z);
-        boolean dsep = dag.isDSeparatedFrom(_x, _y, _z);
+        boolean dsep = oracle.isDSeparated(_x, _y, _z);
         int count = 0;
 
         if (!dsep) count++;
 
         for (Node z0 : _z) {
-            if (dag.isDSeparatedFrom(_x, z0, _z)) {
+            if (oracle.isDSeparated(_x, z0, _z)) {
                 count += 1;
             }
         }
@@ -32,7 +32,7 @@ import java.util.List;
 /**
  * An interface for fast adjacency searches (i.e. PC adjacency searches).
  */
-public interface IFas {
+public interface IFas extends Cancellable {
     boolean isAggressivelyPreventCycles();
 
     void setAggressivelyPreventCycles(boolean aggressivelyPreventCycles);
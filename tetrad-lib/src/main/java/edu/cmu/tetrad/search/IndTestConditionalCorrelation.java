@@ -26,6 +26,7 @@ import edu.cmu.tetrad.data.ICovarianceMatrix;
 import edu.cmu.tetrad.graph.IndependenceFact;
 import edu.cmu.tetrad.graph.Node;
 import edu.cmu.tetrad.util.NumberFormatUtil;
+import edu.cmu.tetrad.util.SearchMetrics;
 import edu.cmu.tetrad.util.TetradLogger;
 import edu.cmu.tetrad.util.Matrix;
 
@@ -117,6 +118,7 @@ public final class IndTestConditionalCorrelation implements IndependenceTest, Sc
     }
 
     public boolean isIndependent(Node x, Node y, List<Node> z) {
+        SearchMetrics.getInstance().independenceTest(z.size());
 
         double score = cci.isIndependent(x, y, z);
         this.score = score;
@@ -304,6 +306,10 @@ public final class IndTestConditionalCorrelation implements IndependenceTest, Sc
     public void setKernelRegressionSampleSize(int i) {
         cci.setKernelRegressionSampleSize(i);
     }
+
+    public void setRank(int rank) {
+        cci.setRank(rank);
+    }
 }
 
 
@@ -27,6 +27,7 @@ import edu.cmu.tetrad.graph.Graph;
 import edu.cmu.tetrad.graph.IndependenceFact;
 import edu.cmu.tetrad.graph.Node;
 import edu.cmu.tetrad.graph.NodeType;
+import edu.cmu.tetrad.util.SearchMetrics;
 import edu.cmu.tetrad.util.TetradLogger;
 import edu.cmu.tetrad.util.Matrix;
 import java.util.*;
@@ -44,6 +45,12 @@ public class IndTestDSep implements IndependenceTest {
      */
     private Graph graph;
 
+    /**
+     * Answers d-separation queries for the graph, or null if the graph has underline triples,
+     * which the oracle does not consult.
+     */
+    private DSeparationOracle oracle;
+
     /**
      * The list of observed variables (i.e. variables for observed nodes).
      */
@@ -66,6 +73,7 @@ public class IndTestDSep implements IndependenceTest {
         }
 
         this.graph = graph;
+        this.oracle = makeOracle(graph);
 
         this._observedVars = calcVars(graph, keepLatents);
         this.observedVars = new HashSet<>(_observedVars);
@@ -100,6 +108,10 @@ public class IndTestDSep implements IndependenceTest {
         return this;
     }
 
+    private static DSeparationOracle makeOracle(Graph graph) {
+        return graph.getUnderLines().isEmpty() ? new DSeparationOracle(graph) : null;
+    }
+
     /**
      * @return the list of observed nodes in the given graph.
      */
@@ -132,6 +144,8 @@ public class IndTestDSep implements IndependenceTest {
             throw new NullPointerException();
         }
 
+        SearchMetrics.getInstance().independenceTest(z.size());
+
         for (Node node : z) {
             if (node == null) {
                 throw new NullPointerException();
@@ -152,7 +166,7 @@ public class IndTestDSep implements IndependenceTest {
             }
         }
 
-        boolean dSeparated = !getGraph().isDConnectedTo(x, y, z);
+        boolean dSeparated = oracle != null ? oracle.isDSeparated(x, y, z) : !getGraph().isDConnectedTo(x, y, z);
 
         if (verbose) {
             if (dSeparated) {
@@ -207,6 +221,10 @@ public class IndTestDSep implements IndependenceTest {
             }
         }
 
+        if (oracle != null) {
+            return oracle.isDSeparated(x, y, z);
+        }
+
         return getGraph().isDSeparatedFrom(x, y, z);
     }
 
@@ -268,6 +286,7 @@ public class IndTestDSep implements IndependenceTest {
     
     public void setGraph(Graph graph) {
         this.graph = graph;
+        this.oracle = makeOracle(graph);
     }
 
     public String toString() {
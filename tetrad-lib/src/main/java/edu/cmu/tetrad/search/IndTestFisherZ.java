@@ -194,8 +194,10 @@ public final class IndTestFisherZ implements IndependenceTest {
      * @throws RuntimeException if a matrix singularity is encountered.
      */
     public synchronized boolean isIndependent(Node x, Node y, List<Node> z) {
-        double p = getPValue(x, y, z);
-//        this.p = p;
+        double[] rn = correlation(x, y, z);
+        this.r = rn[0];
+        double p = pValue(rn[0], (int) rn[1], z.size());
+        this.p = p;
 
 //        if (isSellke()) {
 //            return p > SearchGraphUtils.getSelkeAlpha(p, this.alpha);
@@ -225,34 +227,143 @@ public final class IndTestFisherZ implements IndependenceTest {
 //        return p > alpha ? 1.0 : 0.0;
     }
 
+    /**
+     * @return the p value of x _||_ y | z, without locking; may be called from multiple threads.
+     */
     public double getPValue(Node x, Node y, List<Node> z) {
+        double[] rn = correlation(x, y, z);
+        return pValue(rn[0], (int) rn[1], z.size());
+    }
+
+    // The partial correlation of x and y given z, and the sample size it was calculated from.
+    private double[] correlation(Node x, Node y, List<Node> z) {
+        SearchMetrics.getInstance().independenceTest(z.size());
         List<Node> allVars = new ArrayList<>(z);
         allVars.add(x);
         allVars.add(y);
 
-        double r;
-        int n;
-
         if (covMatrix() != null) {
-            r = partialCorrelation(x, y, z, null);
-            n = sampleSize();
+            return new double[]{partialCorrelation(x, y, z, null), sampleSize()};
         } else {
             List<Integer> rows = getRows(allVars, nodesHash);
-            r = getR(x, y, z, rows);
-            n = rows.size();
+            return new double[]{getR(x, y, z, rows), rows.size()};
         }
+    }
 
-        this.r = r;
-        double q = .5 * (log(1.0 + abs(r)) - log(1.0 - abs(r)));
-        double fisherZ = sqrt(n - 3. - z.size()) * q;
-        double p = 2 * (1.0 - normal.cumulativeProbability(fisherZ));
+    /**
+     * @return the p values of x.get(i) _||_ y.get(i) | z for each i. Where a correlation matrix is available, this
+     * takes the Cholesky factor L of Cor(z, z) once and solves L W = Cor(z, v) for the variables v in the pairs, so
+     * that each partial correlation comes from dot products of columns of W rather than from inverting its own
+     * submatrix. Does not change getPValue(), and may be called from multiple threads.
+     */
+    public double[] getPValues(List<Node> x, List<Node> y, List<Node> z) {
+        if (covMatrix() == null) {
+            return IndependenceTest.super.getPValues(x, y, z);
+        }
+
+        if (x.size() != y.size()) {
+            throw new IllegalArgumentException("Expecting as many x's as y's: " + x.size() + " != " + y.size());
+        }
+
+        int k = z.size();
+        int[] _z = new int[k];
+        for (int i = 0; i < k; i++) _z[i] = indexMap.get(z.get(i));
+
+        double[] p = new double[x.size()];
+        double[][] l = choleskyFactor(_z);
+
+        if (l == null) {
+            Arrays.fill(p, Double.NaN);
+            return p;
+        }
+
+        Map<Integer, double[]> w = new HashMap<>();
+        int n = sampleSize();
+
+        for (int i = 0; i < x.size(); i++) {
+            int _x = indexMap.get(x.get(i));
+            int _y = indexMap.get(y.get(i));
+
+            double[] wx = w.computeIfAbsent(_x, v -> forwardSolve(l, _z, v));
+            double[] wy = w.computeIfAbsent(_y, v -> forwardSolve(l, _z, v));
+
+            double sxy = cor.getValue(_x, _y) - dot(wx, wy);
+            double sxx = cor.getValue(_x, _x) - dot(wx, wx);
+            double syy = cor.getValue(_y, _y) - dot(wy, wy);
+
+            p[i] = pValue(sxy / sqrt(sxx * syy), n, k);
+        }
 
-        this.p = p;
         return p;
     }
 
+    public boolean[] isIndependent(List<Node> x, List<Node> y, List<Node> z) {
+        double[] p = getPValues(x, y, z);
+        boolean[] independent = new boolean[p.length];
+
+        for (int i = 0; i < p.length; i++) {
+            independent[i] = p[i] > alpha;
+        }
+
+        return independent;
+    }
+
     //======================PRIVATE==========================//
 
+    private double pValue(double r, int n, int k) {
+        double q = .5 * (log(1.0 + abs(r)) - log(1.0 - abs(r)));
+        double fisherZ = sqrt(n - 3. - k) * q;
+        return 2 * (1.0 - normal.cumulativeProbability(fisherZ));
+    }
+
+    // The lower triangular Cholesky factor of Cor(z, z), or null if it is not positive definite.
+    private double[][] choleskyFactor(int[] z) {
+        int k = z.length;
+        double[][] l = new double[k][k];
+
+        for (int i = 0; i < k; i++) {
+            for (int j = 0; j <= i; j++) {
+                double sum = cor.getValue(z[i], z[j]);
+
+                for (int m = 0; m < j; m++) {
+                    sum -= l[i][m] * l[j][m];
+                }
+
+                if (i == j) {
+                    if (!(sum > 0)) return null;
+                    l[i][i] = sqrt(sum);
+                } else {
+                    l[i][j] = sum / l[j][j];
+                }
+            }
+        }
+
+        return l;
+    }
+
+    // Solves L w = Cor(z, v) by forward substitution.
+    private double[] forwardSolve(double[][] l, int[] z, int v) {
+        double[] w = new double[z.length];
+
+        for (int i = 0; i < z.length; i++) {
+            double sum = cor.getValue(z[i], v);
+
+            for (int m = 0; m < i; m++) {
+                sum -= l[i][m] * w[m];
+            }
+
+            w[i] = sum / l[i][i];
+        }
+
+        return w;
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) sum += a[i] * b[i];
+        return sum;
+    }
+
     private double partialCorrelation(Node x, Node y, List<Node> z, List<Integer> rows) throws SingularMatrixException {
         int[] indices = new int[z.size() + 2];
         indices[0] = indexMap.get(x);
@@ -96,6 +96,12 @@ public final class IndTestHsic implements IndependenceTest {
      * Use incomplete Choleksy decomposition to calculate Gram matrices
      */
     private double useIncompleteCholesky = 1e-18;
+
+    /**
+     * The maximum rank of the incomplete Cholesky factors; 0 for no limit.
+     */
+    private int rank = 0;
+
     private boolean verbose = false;
 
     //==========================CONSTRUCTORS=============================//
@@ -188,10 +194,10 @@ public final class IndTestHsic implements IndependenceTest {
         Matrix Kz = null;
         // use incomplete Cholesky to approximate
         if (useIncompleteCholesky > 0) {
-            Ky = KernelUtils.incompleteCholeskyGramMatrix(Arrays.asList(yKernel), this.dataSet, Arrays.asList(y), useIncompleteCholesky);
-            Kx = KernelUtils.incompleteCholeskyGramMatrix(Arrays.asList(xKernel), this.dataSet, Arrays.asList(x), useIncompleteCholesky);
+            Ky = KernelUtils.incompleteCholeskyGramMatrix(Arrays.asList(yKernel), this.dataSet, Arrays.asList(y), useIncompleteCholesky, maxRank());
+            Kx = KernelUtils.incompleteCholeskyGramMatrix(Arrays.asList(xKernel), this.dataSet, Arrays.asList(x), useIncompleteCholesky, maxRank());
             if (!z.isEmpty()) {
-                Kz = KernelUtils.incompleteCholeskyGramMatrix(zKernel, this.dataSet, z, useIncompleteCholesky);
+                Kz = KernelUtils.incompleteCholeskyGramMatrix(zKernel, this.dataSet, z, useIncompleteCholesky, maxRank());
             }
         }
         // otherwise compute directly
@@ -273,7 +279,7 @@ public final class IndTestHsic implements IndependenceTest {
             // Gram matrices
             Matrix Kyn = null;
             if (useIncompleteCholesky > 0) {
-                Kyn = KernelUtils.incompleteCholeskyGramMatrix(Arrays.asList(yKernel), shuffleData, Arrays.asList(y), useIncompleteCholesky);
+                Kyn = KernelUtils.incompleteCholeskyGramMatrix(Arrays.asList(yKernel), shuffleData, Arrays.asList(y), useIncompleteCholesky, maxRank());
             } else {
                 Kyn = KernelUtils.constructCentralizedGramMatrix(Arrays.asList(yKernel), shuffleData, Arrays.asList(y));
 
@@ -281,7 +287,7 @@ public final class IndTestHsic implements IndependenceTest {
             Matrix Kzn = null;
             if (!z.isEmpty()) {
                 if (useIncompleteCholesky > 0) {
-                    Kzn = KernelUtils.incompleteCholeskyGramMatrix(zKernel, shuffleData, z, useIncompleteCholesky);
+                    Kzn = KernelUtils.incompleteCholeskyGramMatrix(zKernel, shuffleData, z, useIncompleteCholesky, maxRank());
                 } else {
                     Kzn = KernelUtils.constructCentralizedGramMatrix(zKernel, shuffleData, z);
                 }
@@ -353,21 +359,12 @@ public final class IndTestHsic implements IndependenceTest {
      */
     public double empiricalHSICincompleteCholesky(Matrix Gy, Matrix Gx, int m) {
         // centralized Choleksy
-        int ky = Gy.columns();
-        int kx = Gx.columns();
-        Matrix H = KernelUtils.constructH(m);
-        Matrix Gcy = H.times(Gy);
-        Matrix Gcx = H.times(Gx);
+        Matrix Gcy = KernelUtils.centerColumns(Gy);
+        Matrix Gcx = KernelUtils.centerColumns(Gx);
 
-        // multiply gram matrices
-        Matrix Gcyt = Gcy.transpose();
-        Matrix A = Gcyt.times(Gcx);
-        Matrix B = Gcy.times(A);
-        Matrix Gcxt = Gcx.transpose();
-        double empHSIC = 0.0;
-        for (int i = 0; i < m; i++) {
-            empHSIC += matrixProductEntry(B, Gcxt, i, i);
-        }
+        // trace(Gcy Gcy' Gcx Gcx') is the squared Frobenius norm of Gcy' Gcx
+        Matrix A = Gcy.transpose().times(Gcx);
+        double empHSIC = frobeniusSquared(A);
         empHSIC /= Math.pow(m - 1, 2);
         return empHSIC;
     }
@@ -429,79 +426,47 @@ public final class IndTestHsic implements IndependenceTest {
      */
     public double empiricalHSICincompleteCholesky(Matrix Gy, Matrix Gx, Matrix Gz, int m) {
         // centralize Choleksy
-        int ky = Gy.columns();
-        int kx = Gx.columns();
-        int kz = Gz.columns();
+        Matrix Gcy = KernelUtils.centerColumns(Gy);
+        Matrix Gcx = KernelUtils.centerColumns(Gx);
+        Matrix Gcz = KernelUtils.centerColumns(Gz);
+        int kz = Gcz.columns();
 
-        Matrix H = KernelUtils.constructH(m);
-        Matrix Gcy = H.times(Gy);
-        Matrix Gcx = H.times(Gx);
-        Matrix Gcz = H.times(Gz);
-
-        // multiply gram matrices (first block)
-        Matrix A = new Matrix(ky, kx);
+        // The traces below are of m x m products; each is cycled into a product of the small
+        // Gram blocks G'G so that nothing of size m x m is formed.
         Matrix Gcyt = Gcy.transpose();
-        A = Gcyt.times(Gcx);
-        Matrix B = Gcy.times(A);
-        Matrix Kyx = new Matrix(m, m);
-        Matrix Gcxt = new Matrix(kx, m);
-        Gcxt = Gcx.transpose();
-        Kyx = B.times(Gcxt);
-        double empHSIC = 0.0;
-        double xy = 0.0;
-        for (int i = 0; i < m; i++) {
-            empHSIC += matrixProductEntry(B, Gcxt, i, i);
-        }
-
-        // second block
-        Matrix Gytz = Gcyt.times(Gcz);
         Matrix Gczt = Gcz.transpose();
+        Matrix A = Gcyt.times(Gcx);
+        Matrix Gytz = Gcyt.times(Gcz);
         Matrix Gztx = Gczt.times(Gcx);
         Matrix Gztz = Gczt.times(Gcz);
+
+        // first block
+        double empHSIC = frobeniusSquared(A);
+
+        // Gz' (Kz + r I)^-2 Gz = (Gz'Gz + r I)^-1 Gz'Gz (Gz'Gz + r I)^-1, by the Woodbury identity
         Matrix Gztzr = Gztz.copy();
         for (int i = 0; i < kz; i++) {
             Gztzr.set(i, i, Gztz.get(i, i) + this.regularizer);
         }
-        // invert matrix
         Matrix ZI = Gztzr.inverse();
-        Matrix ZIzt = ZI.times(Gczt);
-        Matrix Gzr = Gcz.copy();
-        for (int i = 0; i < m; i++) {
-            for (int j = 0; j < kz; j++) {
-                Gzr.set(i, j, Gcz.get(i, j) * (-1.0 / this.regularizer));
-            }
-        }
-        Matrix Zinv = Gzr.times(ZIzt);
-        for (int i = 0; i < m; i++) {
-            Zinv.set(i, i, Zinv.get(i, i) + (1.0 / this.regularizer));
-        }
-        Matrix Gztzinv = Gczt.times(Zinv);
-        Matrix Gzinvz = Zinv.times(Gcz);
-        Matrix Gztinv2z = Gztzinv.times(Gzinvz);
-        Matrix Gytzztzinv2z = Gytz.times(Gztinv2z);
-        Matrix Gytzztzinv2zztx = Gytzztzinv2z.times(Gztx);
-        Matrix Gyytzztzinv2zztx = Gcy.times(Gytzztzinv2zztx);
-        double second = 0.0;
-        for (int i = 0; i < m; i++) {
-            second += matrixProductEntry(Gyytzztzinv2zztx, Gcxt, i, i);
-        }
-        empHSIC -= 2 * second;
+        Matrix Gztinv2z = ZI.times(Gztz).times(ZI);
+
+        // second block
+        Matrix Gytzztzinv2zztx = Gytz.times(Gztinv2z).times(Gztx);
+        empHSIC -= 2 * Gytzztzinv2zztx.times(A.transpose()).trace();
 
         // third block
-        Matrix Gxtz = Gcxt.times(Gcz);
-        Matrix Gxtzztinv2z = Gxtz.times(Gztinv2z);
-        Matrix Gyytzztzinv2zztxxtzztinv2z = Gyytzztzinv2zztx.times(Gxtzztinv2z);
-        for (int i = 0; i < m; i++) {
-            empHSIC += matrixProductEntry(Gyytzztzinv2zztxxtzztinv2z, Gczt, i, i);
-        }
+        Matrix Gytzztzinv2z = Gytz.times(Gztinv2z);
+        empHSIC += Gytzztzinv2zztx.times(Gztx.transpose()).times(Gytzztzinv2z.transpose()).trace();
 
-        // beta z estimate
-        double betaz = 0.0;
-        for (int i = 0; i < (m - 1); i++) {
-            for (int j = (i + 1); j < m; j++) {
-                betaz += Math.pow(matrixProductEntry(Gcz, Gczt, i, j), 2);
-                betaz += Math.pow(matrixProductEntry(Gcz, Gczt, j, i), 2);
+        // beta z estimate: the sum of squared off diagonal entries of Gz Gz'
+        double betaz = frobeniusSquared(Gztz);
+        for (int i = 0; i < m; i++) {
+            double d = 0.0;
+            for (int j = 0; j < kz; j++) {
+                d += Gcz.get(i, j) * Gcz.get(i, j);
             }
+            betaz -= d * d;
         }
 
         empHSIC *= (m / (betaz * (m - 1)));
@@ -705,6 +670,23 @@ public final class IndTestHsic implements IndependenceTest {
         this.useIncompleteCholesky = precision;
     }
 
+    /**
+     * Sets the maximum rank of the incomplete Cholesky factors used to approximate Gram matrices, so that each test
+     * takes O(N rank^2) time rather than O(N^3) in the sample size N. A value of 0 indicates no limit other than the
+     * precision.
+     */
+    public void setRank(int rank) {
+        if (rank < 0) throw new IllegalArgumentException("Rank must be >= 0: " + rank);
+        this.rank = rank;
+    }
+
+    /**
+     * Gets the maximum rank of the incomplete Cholesky factors; 0 for no limit.
+     */
+    public int getRank() {
+        return this.rank;
+    }
+
     /**
      * Set the number of bootstrap samples to use
      */
@@ -836,6 +818,20 @@ public final class IndTestHsic implements IndependenceTest {
         return this.dataSet.getNumRows();
     }
 
+    private int maxRank() {
+        return this.rank > 0 ? this.rank : sampleSize();
+    }
+
+    private static double frobeniusSquared(Matrix A) {
+        double sum = 0.0;
+        for (int i = 0; i < A.rows(); i++) {
+            for (int j = 0; j < A.columns(); j++) {
+                sum += A.get(i, j) * A.get(i, j);
+            }
+        }
+        return sum;
+    }
+
     private double matrixProductEntry(Matrix X, Matrix Y, int i, int j) {
         double entry = 0.0;
         for (int k = 0; k < X.columns(); k++) {
@@ -26,9 +26,10 @@ import edu.cmu.tetrad.data.DataSet;
 import edu.cmu.tetrad.data.DiscreteVariable;
 import edu.cmu.tetrad.data.ICovarianceMatrix;
 import edu.cmu.tetrad.graph.Node;
-import edu.cmu.tetrad.regression.LogisticRegression;
+import edu.cmu.tetrad.regression.MultinomialLogisticRegression;
 import edu.cmu.tetrad.regression.RegressionDataset;
 import edu.cmu.tetrad.regression.RegressionResult;
+import edu.cmu.tetrad.util.SearchMetrics;
 import edu.cmu.tetrad.util.TetradLogger;
 import edu.cmu.tetrad.util.Matrix;
 import org.apache.commons.math3.distribution.ChiSquaredDistribution;
@@ -54,7 +55,11 @@ public class IndTestMultinomialLogisticRegression implements IndependenceTest {
     private double alpha;
     private double lastP;
     private Map<Node, List<Node>> variablesPerNode = new HashMap<>();
-    private LogisticRegression logisticRegression;
+    private MultinomialLogisticRegression logisticRegression = new MultinomialLogisticRegression();
+
+    // The internal data by column, for the logistic regressions.
+    private double[][] dataCols;
+    private int[][] discreteCols;
     private RegressionDataset regression;
     private boolean verbose = false;
 
@@ -72,7 +77,19 @@ public class IndTestMultinomialLogisticRegression implements IndependenceTest {
         }
 
         this.internalData = internalData;
-        this.logisticRegression = new LogisticRegression(internalData);
+        this.dataCols = internalData.getDoubleData().transpose().toArray();
+        this.discreteCols = new int[internalData.getNumColumns()][];
+
+        for (int j = 0; j < internalData.getNumColumns(); j++) {
+            if (internalData.getVariable(j) instanceof DiscreteVariable) {
+                discreteCols[j] = new int[internalData.getNumRows()];
+
+                for (int i = 0; i < internalData.getNumRows(); i++) {
+                    discreteCols[j][i] = internalData.getInt(i, j);
+                }
+            }
+        }
+
         this.regression = new RegressionDataset(internalData);
     }
 
@@ -89,12 +106,33 @@ public class IndTestMultinomialLogisticRegression implements IndependenceTest {
      * getVariableNames().
      */
     public boolean isIndependent(Node x, Node y, List<Node> z) {
+        double p = getPValue(x, y, z);
+        boolean indep = p > alpha;
+
+        this.lastP = p;
+
+        if (verbose) {
+            if (indep) {
+                TetradLogger.getInstance().log("independencies", SearchLogUtils.independenceFactMsg(x, y, z, p));
+            } else {
+                TetradLogger.getInstance().log("dependencies", SearchLogUtils.dependenceFactMsg(x, y, z, p));
+            }
+        }
+
+        return indep;
+    }
+
+    /**
+     * @return the p value of x _||_ y | z, without changing getPValue(); may be called from multiple threads.
+     */
+    public double getPValue(Node x, Node y, List<Node> z) {
+        SearchMetrics.getInstance().independenceTest(z.size());
         if (x instanceof DiscreteVariable) {
-            return isIndependentMultinomialLogisticRegression(x, y, z);
+            return pValueMultinomialLogisticRegression(x, y, z);
         } else if (y instanceof DiscreteVariable) {
-            return isIndependentMultinomialLogisticRegression(y, x, z);
+            return pValueMultinomialLogisticRegression(y, x, z);
         } else {
-            return isIndependentRegression(x, y, z);
+            return pValueRegression(x, y, z);
         }
     }
 
@@ -144,7 +182,7 @@ public class IndTestMultinomialLogisticRegression implements IndependenceTest {
         return variables;
     }
 
-    private boolean isIndependentMultinomialLogisticRegression(Node x, Node y, List<Node> z) {
+    private double pValueMultinomialLogisticRegression(Node x, Node y, List<Node> z) {
         if (!variablesPerNode.containsKey(x)) {
             throw new IllegalArgumentException("Unrecogized node: " + x);
         }
@@ -162,34 +200,28 @@ public class IndTestMultinomialLogisticRegression implements IndependenceTest {
         List<Double> pValues = new ArrayList<>();
 
         int[] _rows = getNonMissingRows(x, y, z);
-        logisticRegression.setRows(_rows);
-
-        for (Node _x : variablesPerNode.get(x)) {
 
-            // Without y
-            List<Node> regressors0 = new ArrayList<>();
-
-            for (Node _z : z) {
-                regressors0.addAll(variablesPerNode.get(_z));
-            }
+        // Without y, and then with y, starting from the fit without y.
+        List<Node> regressors = new ArrayList<>();
 
-            LogisticRegression.Result result0 = logisticRegression.regress((DiscreteVariable) _x, regressors0);
+        for (Node _z : z) {
+            regressors.addAll(variablesPerNode.get(_z));
+        }
 
-            // With y.
-            List<Node> regressors1 = new ArrayList<>();
-            regressors1.addAll(variablesPerNode.get(y));
+        double[][] regressors0 = columns(regressors);
+        regressors.addAll(variablesPerNode.get(y));
+        double[][] regressors1 = columns(regressors);
 
-            for (Node _z : z) {
-                regressors1.addAll(variablesPerNode.get(_z));
-            }
+        for (Node _x : variablesPerNode.get(x)) {
+            int[] target = discreteCols[internalData.getColumn(_x)];
 
-            LogisticRegression.Result result1 = logisticRegression.regress((DiscreteVariable) _x, regressors1);
+            MultinomialLogisticRegression.Fit result0 = logisticRegression.fit(target, 2, regressors0, _rows);
+            MultinomialLogisticRegression.Fit result1 = logisticRegression.fit(target, 2, regressors1, _rows, result0);
 
-            // Returns -2 LL
             double ll0 = result0.getLogLikelihood();
             double ll1 = result1.getLogLikelihood();
 
-            double chisq = (ll0 - ll1);
+            double chisq = 2.0 * (ll1 - ll0);
             int df = variablesPerNode.get(y).size();
             double p = 1.0 - new ChiSquaredDistribution(df).cumulativeProbability(chisq);
             pValues.add(p);
@@ -203,22 +235,20 @@ public class IndTestMultinomialLogisticRegression implements IndependenceTest {
             if (val < p) p = val;
         }
 
-        boolean indep = p > alpha;
+        return p;
+    }
 
-        this.lastP = p;
+    private double[][] columns(List<Node> regressors) {
+        double[][] columns = new double[regressors.size()][];
 
-        if (verbose) {
-            if (indep) {
-                TetradLogger.getInstance().log("independencies", SearchLogUtils.independenceFactMsg(x, y, z, p));
-            } else {
-                TetradLogger.getInstance().log("dependencies", SearchLogUtils.dependenceFactMsg(x, y, z, p));
-            }
+        for (int j = 0; j < regressors.size(); j++) {
+            columns[j] = dataCols[internalData.getColumn(regressors.get(j))];
         }
 
-        return indep;
+        return columns;
     }
 
-    int[] _rows = null;
+    private volatile int[] _rows = null;
 
     // This takes an inordinate amount of time. -jdramsey 20150929
     private int[] getNonMissingRows(Node x, Node y, List<Node> z) {
@@ -247,8 +277,9 @@ public class IndTestMultinomialLogisticRegression implements IndependenceTest {
 //        for (int k = 0; k < rows.size(); k++) _rows[k] = rows.get(k);
 
         if (_rows == null) {
-            _rows = new int[internalData.getNumRows()];
-            for (int k = 0; k < _rows.length; k++) _rows[k] = k;
+            int[] rows = new int[internalData.getNumRows()];
+            for (int k = 0; k < rows.length; k++) rows[k] = k;
+            _rows = rows;
         }
 
         return _rows;
@@ -276,7 +307,7 @@ public class IndTestMultinomialLogisticRegression implements IndependenceTest {
         return false;
     }
 
-    private boolean isIndependentRegression(Node x, Node y, List<Node> z) {
+    private double pValueRegression(Node x, Node y, List<Node> z) {
         if (!variablesPerNode.containsKey(x)) {
             throw new IllegalArgumentException("Unrecogized node: " + x);
         }
@@ -299,30 +330,20 @@ public class IndTestMultinomialLogisticRegression implements IndependenceTest {
         }
 
         int[] _rows = getNonMissingRows(x, y, z);
-        regression.setRows(_rows);
-
         RegressionResult result;
 
-        try {
-            result = regression.regress(x, regressors);
-        } catch (Exception e) {
-            return false;
-        }
-
-        double p = result.getP()[1];
-        this.lastP = p;
-
-        boolean indep = p > alpha;
+        // RegressionDataset keeps the rows and the last result, so it is used by one thread at a time.
+        synchronized (regression) {
+            regression.setRows(_rows);
 
-        if (verbose) {
-            if (indep) {
-                TetradLogger.getInstance().log("independencies", SearchLogUtils.independenceFactMsg(x, y, z, p));
-            } else {
-                TetradLogger.getInstance().log("dependencies", SearchLogUtils.dependenceFactMsg(x, y, z, p));
+            try {
+                result = regression.regress(x, regressors);
+            } catch (Exception e) {
+                return 0.0;
             }
         }
 
-        return indep;
+        return result.getP()[1];
     }
 
 
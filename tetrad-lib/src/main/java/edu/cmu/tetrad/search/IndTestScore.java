@@ -26,6 +26,7 @@ import edu.cmu.tetrad.data.DataSet;
 import edu.cmu.tetrad.data.ICovarianceMatrix;
 import edu.cmu.tetrad.graph.Node;
 import edu.cmu.tetrad.util.Matrix;
+import edu.cmu.tetrad.util.SearchMetrics;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -82,6 +83,7 @@ public class IndTestScore implements IndependenceTest {
      * @throws RuntimeException if a matrix singularity is encountered.
      */
     public boolean isIndependent(Node x, Node y, List<Node> z) {
+        SearchMetrics.getInstance().independenceTest(z.size());
         List<Node> z1 = new ArrayList<>(z);
 
         if (determines(z1, x)) return false;
@@ -128,10 +130,6 @@ public class IndTestScore implements IndependenceTest {
         return bump;
     }
 
-    public double getPValue(Node x, Node y, List<Node> z) {
-        return getPValue();
-    }
-
     /**
      * @return the list of variables over which this independence checker is capable of determinining independence
      * relations.
@@ -77,7 +77,54 @@ public interface IndependenceTest {
      */
     double getPValue();
 
-//    double getPValue(Node x, Node y, List<Node> z);
+    /**
+     * @return the p values of the independence questions x.get(i) _||_ y.get(i) | z, in order, for the pairs in x and
+     * y, which must have the same size. The pairs share the conditioning set z, so a test may factor what it needs for
+     * z once for all of them; by default the pairs are simply tested one at a time, with getPValue(x, y, z), so the
+     * p values are those of the pairs even if other threads are using the test.
+     */
+    default double[] getPValues(List<Node> x, List<Node> y, List<Node> z) {
+        if (x.size() != y.size()) {
+            throw new IllegalArgumentException("Expecting as many x's as y's: " + x.size() + " != " + y.size());
+        }
+
+        double[] p = new double[x.size()];
+
+        for (int i = 0; i < x.size(); i++) {
+            p[i] = getPValue(x.get(i), y.get(i), z);
+        }
+
+        return p;
+    }
+
+    /**
+     * @return whether x.get(i) _||_ y.get(i) | z is judged true, in order, for the pairs in x and y, which must have the
+     * same size. See getPValues(x, y, z); by default the pairs are simply tested one at a time.
+     */
+    default boolean[] isIndependent(List<Node> x, List<Node> y, List<Node> z) {
+        if (x.size() != y.size()) {
+            throw new IllegalArgumentException("Expecting as many x's as y's: " + x.size() + " != " + y.size());
+        }
+
+        boolean[] independent = new boolean[x.size()];
+
+        for (int i = 0; i < x.size(); i++) {
+            independent[i] = isIndependent(x.get(i), y.get(i), z);
+        }
+
+        return independent;
+    }
+
+    /**
+     * @return the p value of x _||_ y | z. Unlike isIndependent(x, y, z) followed by getPValue(), this may be called
+     * from several threads at once; by default it holds the test's lock across the two calls.
+     */
+    default double getPValue(Node x, Node y, List<Node> z) {
+        synchronized (this) {
+            isIndependent(x, y, z);
+            return getPValue();
+        }
+    }
 
     /**
      * @return the list of variables over which this independence checker is capable of determinining independence
@@ -6,7 +6,9 @@ import edu.cmu.tetrad.data.DataUtils;
 import edu.cmu.tetrad.data.ICovarianceMatrix;
 import edu.cmu.tetrad.graph.IndependenceFact;
 import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.kernel.KernelUtils;
 import edu.cmu.tetrad.util.Matrix;
+import edu.cmu.tetrad.util.SearchMetrics;
 import edu.cmu.tetrad.util.TetradLogger;
 import edu.cmu.tetrad.util.Vector;
 import edu.pitt.csb.mgm.EigenDecomposition;
@@ -36,6 +38,11 @@ import static java.lang.Math.*;
  * Bowman, A. W., & Azzalini, A. (1997). Applied smoothing techniques for data analysis: the kernel
  * approach with S-Plus illustrations (Vol. 18). OUP Oxford.
  *
+ * The N x N kernel matrices make each test O(N^3) in the sample size N. If a rank is set, each kernel
+ * matrix K is instead approximated by G G', where G is an N x rank pivoted incomplete Cholesky factor,
+ * and the statistics and eigenvalues are computed from the small rank x rank matrices G'G, so that a
+ * test takes O(N rank^2) time and O(N rank) memory.
+ *
  * @author Vineet Raghu on 7/3/2016
  * @author jdramsey refactoring 7/4/2018
  */
@@ -83,6 +90,12 @@ public class Kci implements IndependenceTest, ScoreForFact {
 
     private boolean verbose = false;
 
+    // If > 0, kernel matrices are approximated by incomplete Cholesky factors of at most this rank.
+    private int rank = 0;
+
+    // Incomplete Cholesky factors stop when the largest remaining diagonal residual falls below this.
+    private static final double LOW_RANK_PRECISION = 1e-6;
+
     /**
      * Constructor.
      *
@@ -122,6 +135,7 @@ public class Kci implements IndependenceTest, ScoreForFact {
      * getVariableNames().
      */
     public boolean isIndependent(Node x, Node y, List<Node> z) {
+        SearchMetrics.getInstance().independenceTest(z.size());
         List<Node> allVars = new ArrayList<>();
         allVars.add(x);
         allVars.add(y);
@@ -144,13 +158,6 @@ public class Kci implements IndependenceTest, ScoreForFact {
 
         int N = data.getNumRows();
 
-        Matrix Ones = new Matrix(N, 1);
-        for (int j = 0; j < N; j++) Ones.set(j, 0, 1);
-
-        Matrix I = Matrix.identity(N);
-
-        Matrix H = Matrix.identity(N).minus(Ones.times(Ones.transpose()).scalarMult(1.0 / N));
-
         double[] h = new double[data.getNumColumns()];
         int count = 0;
 
@@ -183,9 +190,22 @@ public class Kci implements IndependenceTest, ScoreForFact {
             independent = facts.get(fact);
             this.p = pValues.get(fact);
         } else {
-            if (z.isEmpty()) {
+            if (rank > 0) {
+                if (z.isEmpty()) {
+                    independent = isIndependentUnconditionalLowRank(x, y, fact, _data, h, N, hash);
+                } else {
+                    independent = isIndependentConditionalLowRank(x, y, z, fact, _data, N, h, hash);
+                }
+            } else if (z.isEmpty()) {
                 independent = isIndependentUnconditional(x, y, fact, _data, h, N, hash);
             } else {
+                Matrix Ones = new Matrix(N, 1);
+                for (int j = 0; j < N; j++) Ones.set(j, 0, 1);
+
+                Matrix I = Matrix.identity(N);
+
+                Matrix H = Matrix.identity(N).minus(Ones.times(Ones.transpose()).scalarMult(1.0 / N));
+
                 independent = isIndependentConditional(x, y, z, fact, _data, N, H, I, h, hash);
             }
 
@@ -371,6 +391,19 @@ public class Kci implements IndependenceTest, ScoreForFact {
         this.epsilon = epsilon;
     }
 
+    public int getRank() {
+        return rank;
+    }
+
+    /**
+     * Sets the maximum rank of the low-rank kernel approximations. If 0 (the default), the exact N x N kernel
+     * matrices are used.
+     */
+    public void setRank(int rank) {
+        if (rank < 0) throw new IllegalArgumentException("Rank must be >= 0: " + rank);
+        this.rank = rank;
+    }
+
     //====================================PRIVATE METHODS==================================//
 
     /**
@@ -440,6 +473,97 @@ public class Kci implements IndependenceTest, ScoreForFact {
         }
     }
 
+    /**
+     * The unconditional test using low-rank factors Gx and Gy of the centered kernel matrices. Since
+     * kx = Gx Gx' and ky = Gy Gy', trace(kx ky) is the squared norm of Gx'Gy and the nonzero eigenvalues
+     * of kx are those of Gx'Gx.
+     *
+     * @return true just in case independence holds.
+     */
+    private boolean isIndependentUnconditionalLowRank(Node x, Node y, IndependenceFact fact, double[][] _data,
+                                                      double[] _h, int N, Map<Node, Integer> hash) {
+        try {
+            Matrix gx = kernelFactor(_data, x, null, getWidthMultiplier(), hash, N, _h);
+            Matrix gy = kernelFactor(_data, y, null, getWidthMultiplier(), hash, N, _h);
+
+            Matrix gxx = gx.transpose().times(gx);
+            Matrix gyy = gy.transpose().times(gy);
+            double sta = squaredNorm(gx.transpose().times(gy));
+
+            if (isApproximate()) {
+                double mean_appr = gxx.trace() * gyy.trace() / N;
+                double var_appr = 2 * squaredNorm(gxx) * squaredNorm(gyy) / (N * N);
+                double k_appr = mean_appr * mean_appr / var_appr;
+                double theta_appr = var_appr / mean_appr;
+                double p = 1.0 - new GammaDistribution(k_appr, theta_appr).cumulativeProbability(sta);
+                pValues.put(fact, p);
+                this.p = p;
+                return p > alpha;
+            } else {
+                List<Double> evx = new Eigendecomposition(gxx).invoke().getTopEigenvalues();
+                List<Double> evy = new Eigendecomposition(gyy).invoke().getTopEigenvalues();
+                return theorem4(sta / N, evx, evy, fact, N);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            pValues.put(fact, 0.0);
+            facts.put(fact, false);
+            return false;
+        }
+    }
+
+    /**
+     * The conditional test using low-rank factors. With KZ = Gz Gz', Rz = epsilon (KZ + epsilon I)^-1 is
+     * I - Gz (Gz'Gz + epsilon I)^-1 Gz' by the Woodbury identity, so the residualized kernel matrices are
+     * Fx Fx' and Fy Fy' with Fx = Rz Gxz and Fy = Rz Gy, and the scaled eigenvectors Proposition 5 needs
+     * are Fx W for the eigenvectors W of Fx'Fx.
+     *
+     * @return true just in case independence holds.
+     */
+    private boolean isIndependentConditionalLowRank(Node x, Node y, List<Node> z, IndependenceFact fact,
+                                                    double[][] _data, int N, double[] _h,
+                                                    Map<Node, Integer> hash) {
+        try {
+            Matrix gxz = kernelFactor(_data, x, z, getWidthMultiplier(), hash, N, _h);
+            Matrix gy = kernelFactor(_data, y, null, getWidthMultiplier(), hash, N, _h);
+            Matrix gz = kernelFactor(_data, null, z, getWidthMultiplier(), hash, N, _h);
+
+            Matrix gzt = gz.transpose();
+            Matrix gzz = gzt.times(gz);
+            for (int i = 0; i < gzz.rows(); i++) gzz.set(i, i, gzz.get(i, i) + epsilon);
+            Matrix gzzInv = gzz.inverse();
+
+            Matrix fx = gxz.minus(gz.times(gzzInv.times(gzt.times(gxz))));
+            Matrix fy = gy.minus(gz.times(gzzInv.times(gzt.times(gy))));
+
+            double sta = squaredNorm(fx.transpose().times(fy));
+
+            return proposition5(scaledEigenvectors(fx), scaledEigenvectors(fy), sta, fact, N);
+        } catch (Exception e) {
+            e.printStackTrace();
+            pValues.put(fact, 0.0);
+            facts.put(fact, false);
+            return false;
+        }
+    }
+
+    // For k = F F', the top eigenvectors of k, each scaled by the square root of its eigenvalue.
+    private Matrix scaledEigenvectors(Matrix f) {
+        return f.times(new Eigendecomposition(f.transpose().times(f)).invoke().getV());
+    }
+
+    private static double squaredNorm(Matrix a) {
+        double sum = 0.0;
+
+        for (int i = 0; i < a.rows(); i++) {
+            for (int j = 0; j < a.columns(); j++) {
+                sum += a.get(i, j) * a.get(i, j);
+            }
+        }
+
+        return sum;
+    }
+
     private boolean theorem4(Matrix kx, Matrix ky, IndependenceFact fact, int N) {
 
         double T = (1.0 / N) * (kx.times(ky).trace());
@@ -451,6 +575,11 @@ public class Kci implements IndependenceTest, ScoreForFact {
         Eigendecomposition eigendecompositiony = new Eigendecomposition(ky).invoke();
         List<Double> evy = eigendecompositiony.getTopEigenvalues();
 
+        return theorem4(T, evx, evy, fact, N);
+    }
+
+    private boolean theorem4(double T, List<Double> evx, List<Double> evy, IndependenceFact fact, int N) {
+
         // Calculate formula (9).
         int sum = 0;
 
@@ -471,6 +600,7 @@ public class Kci implements IndependenceTest, ScoreForFact {
         // Calculate p.
         double p = sum / (double) getNumBootstraps();
         pValues.put(fact, p);
+        this.p = p;
 
         final boolean independent = p > alpha;
 
@@ -487,7 +617,6 @@ public class Kci implements IndependenceTest, ScoreForFact {
     }
 
     private boolean proposition5(Matrix kx, Matrix ky, IndependenceFact fact, int N) {
-        double T = (1.0 / N) * kx.times(ky).trace();
 
         Eigendecomposition eigendecompositionx = new Eigendecomposition(kx).invoke();
         Matrix vx = eigendecompositionx.getV();
@@ -501,14 +630,25 @@ public class Kci implements IndependenceTest, ScoreForFact {
         Matrix vdx = vx.times(dx);
         Matrix vdy = vy.times(dy);
 
-        final int prod = vx.columns() * vy.columns();
+        return proposition5(vdx, vdy, kx.times(ky).trace(), fact, N);
+    }
+
+    /**
+     * @param vdx The eigenvectors of kx, each scaled by the square root of its eigenvalue.
+     * @param vdy The eigenvectors of ky, each scaled by the square root of its eigenvalue.
+     * @param sta trace(kx ky).
+     */
+    private boolean proposition5(Matrix vdx, Matrix vdy, double sta, IndependenceFact fact, int N) {
+        double T = (1.0 / N) * sta;
+
+        final int prod = vdx.columns() * vdy.columns();
         Matrix UU = new Matrix(N, prod);
 
         // stack
-        for (int i = 0; i < vx.columns(); i++) {
-            for (int j = 0; j < vy.columns(); j++) {
+        for (int i = 0; i < vdx.columns(); i++) {
+            for (int j = 0; j < vdy.columns(); j++) {
                 for (int k = 0; k < N; k++) {
-                    UU.set(k, i * dy.columns() + j, vdx.get(k, i) * vdy.get(k, j));
+                    UU.set(k, i * vdy.columns() + j, vdx.get(k, i) * vdy.get(k, j));
                 }
             }
         }
@@ -516,13 +656,13 @@ public class Kci implements IndependenceTest, ScoreForFact {
         Matrix uuprod = prod > N ? UU.times(UU.transpose()) : UU.transpose().times(UU);
 
         if (isApproximate()) {
-            double sta = kx.times(ky).trace();
             double mean_appr = uuprod.trace();
             double var_appr = 2.0 * uuprod.times(uuprod).trace();
             double k_appr = mean_appr * mean_appr / var_appr;
             double theta_appr = var_appr / mean_appr;
             double p = 1.0 - new GammaDistribution(k_appr, theta_appr).cumulativeProbability(sta);
             pValues.put(fact, p);
+            this.p = p;
             return p > getAlpha();
         } else {
 
@@ -646,6 +786,37 @@ public class Kci implements IndependenceTest, ScoreForFact {
         return result;
     }
 
+    // An incomplete Cholesky factor G of the kernel matrix with centered columns, so that G G' approximates
+    // center(kernelMatrix(...), H).
+    private Matrix kernelFactor(double[][] _data, Node x, List<Node> z, double widthMultiplier,
+                                Map<Node, Integer> hash, int N, double[] _h) {
+        List<Integer> _z = new ArrayList<>();
+
+        if (x != null) {
+            _z.add(hash.get(x));
+        }
+
+        if (z != null) {
+            for (Node z2 : z) {
+                _z.add(hash.get(z2));
+            }
+        }
+
+        double width = widthMultiplier * getH(_z, _h);
+
+        Matrix g = KernelUtils.incompleteCholesky(new KernelUtils.GramMatrix() {
+            public int size() {
+                return N;
+            }
+
+            public double get(int i, int j) {
+                return kernelGaussian(distance(_data, _z, i, j), width);
+            }
+        }, LOW_RANK_PRECISION, rank);
+
+        return KernelUtils.centerColumns(g);
+    }
+
     private double getH(List<Integer> _z, double[] _h) {
         double h = 0;
 
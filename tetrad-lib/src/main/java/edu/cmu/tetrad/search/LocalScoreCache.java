@@ -21,48 +21,190 @@
 
 package edu.cmu.tetrad.search;
 
-import org.apache.commons.collections4.map.MultiKeyMap;
-
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Stores a map from (variable, parents) to score.
+ * <p>
+ * The map is bounded and may be shared by threads without locking. Keys are packed into a
+ * sorted int array (the variable followed by its sorted parents) with a 64-bit hash; the table
+ * is set-associative, each key having a small window of slots it may occupy, and when the
+ * window is full an entry is evicted using the CLOCK (second chance) policy--entries that have
+ * been read since the clock last passed them are spared once. An entry that loses a race or is
+ * evicted is simply recomputed by the caller, so concurrent puts never block one another.
  *
  * @author Joseph Ramsey
  */
 public class LocalScoreCache {
-    private MultiKeyMap map;
+
+    // The default number of slots.
+    private static final int DEFAULT_CAPACITY = 1 << 20;
+
+    // The number of slots a key may occupy.
+    private static final int WAYS = 8;
+
+    private final AtomicReferenceArray<Entry> table;
+    private final int mask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
 
     public LocalScoreCache() {
-        map = new MultiKeyMap();
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity The maximum number of scores stored; rounded up to a power of two.
+     */
+    public LocalScoreCache(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+
+        int size = Math.max(WAYS, Integer.highestOneBit(capacity - 1) << 1);
+        this.table = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
     }
 
     public void add(int variable, int[] parents, double score) {
-        Set<Integer> _parents = new HashSet<>(parents.length);
+        int[] key = key(variable, parents);
+        long hash = hash(key);
+        Entry entry = new Entry(hash, key, score);
+        int start = (int) hash & mask;
+
+        for (int i = 0; i < WAYS; i++) {
+            int slot = (start + i) & mask;
+            Entry current = table.get(slot);
+
+            if (current == null) {
+                if (table.compareAndSet(slot, null, entry)) return;
+                current = table.get(slot);
+            }
 
-        for (int parent : parents) {
-            _parents.add(parent);
+            if (current != null && current.matches(hash, key)) {
+                table.compareAndSet(slot, current, entry);
+                return;
+            }
         }
 
-        map.put(variable, _parents, score);
+        // Window full; sweep it CLOCK style, clearing reference bits, and replace the first
+        // entry found unreferenced. Two passes around the window are enough, since the first
+        // clears every bit.
+        for (int i = 0; i < 2 * WAYS; i++) {
+            int slot = (start + (i % WAYS)) & mask;
+            Entry current = table.get(slot);
+
+            if (current == null || !current.referenced) {
+                if (table.compareAndSet(slot, current, entry)) {
+                    if (current != null) evictions.increment();
+                    return;
+                }
+            } else {
+                current.referenced = false;
+            }
+        }
     }
 
+    /**
+     * @return the stored score, or NaN if it is not in the cache.
+     */
     public double get(int variable, int[] parents) {
-        Set<Integer> _parents = new HashSet<>(parents.length);
+        int[] key = key(variable, parents);
+        long hash = hash(key);
+        int start = (int) hash & mask;
+
+        for (int i = 0; i < WAYS; i++) {
+            Entry entry = table.get((start + i) & mask);
 
-        for (int parent : parents) {
-            _parents.add(parent);
+            if (entry != null && entry.matches(hash, key)) {
+                if (!entry.referenced) entry.referenced = true;
+                hits.increment();
+                return entry.score;
+            }
         }
 
-        Double _score = (Double) map.get(variable, _parents);
-        return _score == null ? Double.NaN : (_score);
+        misses.increment();
+        return Double.NaN;
     }
 
     public void clear() {
-        map.clear();
+        for (int i = 0; i < table.length(); i++) {
+            table.set(i, null);
+        }
+    }
+
+    /**
+     * @return the number of lookups that found a score.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups that did not find a score.
+     */
+    public long getMisses() {
+        return misses.sum();
     }
-}
 
+    /**
+     * @return the number of scores evicted to make room for others.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the maximum number of scores stored.
+     */
+    public int getCapacity() {
+        return table.length();
+    }
+
+    public String toString() {
+        return "Local score cache: hits = " + getHits() + ", misses = " + getMisses()
+                + ", evictions = " + getEvictions();
+    }
 
+    //==================================PRIVATE METHODS=================================//
+
+    private static int[] key(int variable, int[] parents) {
+        int[] key = new int[parents.length + 1];
+        key[0] = variable;
+        System.arraycopy(parents, 0, key, 1, parents.length);
+        Arrays.sort(key, 1, key.length);
+        return key;
+    }
+
+    private static long hash(int[] key) {
+        long h = 0x9E3779B97F4A7C15L * (key.length + 1);
+
+        for (int k : key) {
+            h ^= k;
+            h *= 0xBF58476D1CE4E5B9L;
+            h ^= h >>> 31;
+        }
 
+        return h ^ (h >>> 29);
+    }
+
+    private static final class Entry {
+        private final long hash;
+        private final int[] key;
+        private final double score;
+
+        // The CLOCK reference bit; races on it are benign.
+        private volatile boolean referenced = false;
+
+        private Entry(long hash, int[] key, double score) {
+            this.hash = hash;
+            this.key = key;
+            this.score = score;
+        }
+
+        private boolean matches(long hash, int[] key) {
+            return this.hash == hash && Arrays.equals(this.key, key);
+        }
+    }
+}
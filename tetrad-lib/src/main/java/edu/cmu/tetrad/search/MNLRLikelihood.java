@@ -21,20 +21,16 @@
 
 package edu.cmu.tetrad.search;
 
-import de.bwaldvogel.liblinear.*;
 import edu.cmu.tetrad.data.ContinuousVariable;
 import edu.cmu.tetrad.data.DataSet;
 import edu.cmu.tetrad.data.DiscreteVariable;
 import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.regression.MultinomialLogisticRegression;
 import edu.cmu.tetrad.util.Matrix;
 import edu.cmu.tetrad.util.Vector;
 
-import java.io.OutputStream;
-import java.io.PrintStream;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -69,12 +65,15 @@ public class MNLRLikelihood {
     // Structure Prior
     private final double structurePrior;
 
-    private final PrintStream original = System.out;
+    // The logistic solver for discrete children, penalized as liblinear's L2R_LR with C = 1.
+    private final MultinomialLogisticRegression solver = new MultinomialLogisticRegression(1.0, 1e-8, 100);
 
-    private final PrintStream nullout = new PrintStream(new OutputStream() { public void write(int b) {
-        //DO NOTHING
-    }
-    });
+    // Log likelihoods by parent set, and the cell fits of discrete children, for reuse across queries.
+    private final Map<Key, Double> liks = new ConcurrentHashMap<>();
+    private final Map<Key, CellFits> fits = new ConcurrentHashMap<>();
+
+    // The number of log likelihoods cached before the cache is cleared; a tenth as many fits are cached.
+    private int maxCacheSize = 100000;
 
     public MNLRLikelihood(DataSet dataSet, double structurePrior, int fDegree) {
 
@@ -116,6 +115,17 @@ public class MNLRLikelihood {
 
     }
 
+    /**
+     * Sets the number of log likelihoods cached before the cache is cleared; by default 100000.
+     */
+    public void setMaxCacheSize(int maxCacheSize) {
+        if (maxCacheSize < 10) {
+            throw new IllegalArgumentException("Max cache size must be at least 10: " + maxCacheSize);
+        }
+
+        this.maxCacheSize = maxCacheSize;
+    }
+
     private double multipleRegression(Vector Y, Matrix X) {
 
         int n = X.rows();
@@ -149,7 +159,33 @@ public class MNLRLikelihood {
         return lik;
     }
 
+    /**
+     * @return The log likelihood of the child given the parents. Results are cached by parent set, and the per-cell
+     * logistic fits of a discrete child are warm-started from those of a cached parent set with one continuous
+     * parent fewer. May be called from multiple threads.
+     */
     public double getLik(int child_index, int[] parents) {
+        int[] sorted = parents.clone();
+        Arrays.sort(sorted);
+        Key key = new Key(child_index, sorted);
+
+        Double cached = liks.get(key);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        double lik = computeLik(child_index, sorted, key);
+
+        if (liks.size() >= maxCacheSize) {
+            liks.clear();
+        }
+
+        liks.put(key, lik);
+        return lik;
+    }
+
+    private double computeLik(int child_index, int[] parents, Key key) {
 
         double lik = 0;
         Node c = variables.get(child_index);
@@ -169,10 +205,24 @@ public class MNLRLikelihood {
         List<List<Integer>> cells = adTree.getCellLeaves(discrete_parents);
         //List<List<Integer>> cells = partition(discrete_parents);
 
+        // For a discrete child, the continuous parents are put in the order of the fits to start from, so that
+        // their features come first.
+        CellFits start = null;
         int[] continuousCols = new int[p];
         for (int j = 0; j < p; j++) continuousCols[j] = nodesHash.get(continuous_parents.get(j));
 
-        for (List<Integer> cell : cells) {
+        if (c instanceof DiscreteVariable) {
+            start = warmStart(child_index, parents, continuousCols, cells.size());
+
+            if (start != null) {
+                continuousCols = start.extendedOrder;
+            }
+        }
+
+        MultinomialLogisticRegression.Fit[] cellFits = new MultinomialLogisticRegression.Fit[cells.size()];
+
+        for (int k = 0; k < cells.size(); k++) {
+            List<Integer> cell = cells.get(k);
             int r = cell.size();
             if (r > 1) {
 
@@ -195,38 +245,73 @@ public class MNLRLikelihood {
 
                 int degree = fDegree;
                 if (fDegree < 1) { degree = (int) Math.floor(Math.log(r)); }
-                Matrix subset = new Matrix(r, p * degree + 1);
+
+                // Features by parent and then by degree, so that those of a prefix of the parents come first.
+                double[][] features = new double[p * degree][r];
                 for (int i = 0; i < r; i++) {
-                    subset.set(i, p * degree, 1);
                     for (int j = 0; j < p; j++) {
                         for (int d = 0; d < degree; d++) {
-                            subset.set(i, p * d + j, Math.pow((continuousData[continuousCols[j]][cell.get(i)] - mean[j]) / var[j], d + 1));
+                            features[j * degree + d][i] = Math.pow((continuousData[continuousCols[j]][cell.get(i)] - mean[j]) / var[j], d + 1);
                         }
                     }
                 }
 
                 if (c instanceof ContinuousVariable) {
+                    Matrix subset = new Matrix(r, p * degree + 1);
                     Vector target = new Vector(r);
                     for (int i = 0; i < r; i++) {
+                        subset.set(i, p * degree, 1);
+                        for (int j = 0; j < p * degree; j++) {
+                            subset.set(i, j, features[j][i]);
+                        }
                         target.set(i, continuousData[child_index][cell.get(i)]);
                     }
                     lik += multipleRegression(target, subset);
                 } else {
-                    Matrix target = new Matrix(r, ((DiscreteVariable) c).getNumCategories());
+                    int[] target = new int[r];
                     for (int i = 0; i < r; i++) {
-                        for (int j = 0; j < ((DiscreteVariable) c).getNumCategories(); j++) {
-                            target.set(i, j, -1);
-                        }
-                        target.set(i, discreteData[child_index][cell.get(i)], 1);
+                        target[i] = discreteData[child_index][cell.get(i)];
                     }
-                    lik += MultinomialLogisticRegression(target, subset);
+                    MultinomialLogisticRegression.Fit fit = solver.fit(target,
+                            ((DiscreteVariable) c).getNumCategories(), features, null,
+                            start == null ? null : start.fits[k]);
+                    cellFits[k] = fit;
+                    lik += fit.getLogLikelihood();
                 }
             }
         }
 
+        if (c instanceof DiscreteVariable) {
+            if (fits.size() >= maxCacheSize / 10) {
+                fits.clear();
+            }
+
+            fits.put(key, new CellFits(continuousCols, cellFits));
+        }
+
         return lik;
     }
 
+    // The cached fits of the child on the parents less one continuous parent, if there are any, with the order of
+    // the continuous parents for a fit that starts from them: theirs, followed by the one left out.
+    private CellFits warmStart(int child_index, int[] parents, int[] continuousCols, int numCells) {
+        for (int v : continuousCols) {
+            int[] nested = new int[parents.length - 1];
+            int n = 0;
+            for (int parent : parents) if (parent != v) nested[n++] = parent;
+
+            CellFits cellFits = fits.get(new Key(child_index, nested));
+
+            if (cellFits != null && cellFits.fits.length == numCells) {
+                int[] order = Arrays.copyOf(cellFits.extendedOrder, continuousCols.length);
+                order[continuousCols.length - 1] = v;
+                return new CellFits(order, cellFits.fits);
+            }
+        }
+
+        return null;
+    }
+
     public double getDoF(int child_index, int[] parents) {
 
         double dof = 0;
@@ -287,52 +372,38 @@ public class MNLRLikelihood {
 
     }
 
-    private double MultinomialLogisticRegression(Matrix targets, Matrix subset) {
+    // A parent set: the child and its parents, in order.
+    private static final class Key {
+        private final int child;
+        private final int[] parents;
 
-        Problem problem = new Problem();
-        problem.l = targets.rows(); // number of training examples
-        problem.n = subset.columns(); // number of features
-        problem.x = new FeatureNode[problem.l][problem.n]; // feature nodes
-        problem.bias = 0;
-        for (int i = 0; i < problem.l; i ++) {
-            for (int j = 0; j < problem.n; j++) {
-                problem.x[i][j] = new FeatureNode(j+1, subset.get(i,j));
-            }
+        private Key(int child, int[] parents) {
+            this.child = child;
+            this.parents = parents;
         }
-        SolverType solver = SolverType.L2R_LR; // -s 0
-        double C = 1.0;    // cost of constraints violation
-        double eps = 1e-4; // stopping criteria
-        Parameter parameter = new Parameter(solver, C, eps);
-        ArrayList<Model> models = new ArrayList<>();
-        double lik = 0;
-        double num;
-        double den;
-
-        for (int i = 0; i < targets.columns(); i++) {
-            System.setOut(nullout);
-            problem.y = targets.getColumn(i).toArray(); // target values
-            models.add(i, Linear.train(problem, parameter));
-            System.setOut(original);
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return child == key.child && Arrays.equals(parents, key.parents);
         }
 
-        for (int j = 0; j < problem.l; j++) {
-            num = 0;
-            den = 0;
-            for (int i = 0; i < targets.columns(); i++) {
-                double[] p = new double[models.get(i).getNrClass()];
-                Linear.predictProbability(models.get(i), problem.x[j], p);
-                if (targets.get(j,i) == 1) {
-                    num = p[0];
-                    den += p[0];
-                } else if (p.length > 1) {
-                    den += p[0];
-                }
-            }
-            lik += Math.log(num/den);
+        @Override
+        public int hashCode() {
+            return 31 * child + Arrays.hashCode(parents);
         }
+    }
 
-        return lik;
+    // The logistic fits in each cell of a discrete child, and the order of the continuous parents in their features.
+    private static final class CellFits {
+        private final int[] extendedOrder;
+        private final MultinomialLogisticRegression.Fit[] fits;
 
+        private CellFits(int[] extendedOrder, MultinomialLogisticRegression.Fit[] fits) {
+            this.extendedOrder = extendedOrder;
+            this.fits = fits;
+        }
     }
 
 }
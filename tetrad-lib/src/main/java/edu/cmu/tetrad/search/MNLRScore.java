@@ -65,13 +65,16 @@ public class MNLRScore implements Score {
         return 2.0 * lik - dof * logn + sp;
     }
 
+    // The smaller parent set is scored first, so that its fits are cached to start the larger one from.
     public double localScoreDiff(int x, int y, int[] z) {
-        return localScore(y, append(z, x)) - localScore(y, z);
+        double without = localScore(y, z);
+        return localScore(y, append(z, x)) - without;
     }
 
     @Override
     public double localScoreDiff(int x, int y) {
-        return localScore(y, x) - localScore(y);
+        double without = localScore(y);
+        return localScore(y, x) - without;
     }
 
     private int[] append(int[] parents, int extra) {
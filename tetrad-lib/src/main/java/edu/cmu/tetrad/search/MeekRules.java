@@ -24,6 +24,7 @@ package edu.cmu.tetrad.search;
 import edu.cmu.tetrad.data.IKnowledge;
 import edu.cmu.tetrad.graph.*;
 import edu.cmu.tetrad.util.ChoiceGenerator;
+import edu.cmu.tetrad.util.SearchMetrics;
 import edu.cmu.tetrad.util.TetradLogger;
 
 import java.io.PrintStream;
@@ -213,6 +214,7 @@ public class MeekRules implements ImpliedOrientation {
 
             if (isArrowpointAllowed(b, c, knowledge)) {
                 direct(b, c, graph);
+                SearchMetrics.getInstance().count("meek.r1");
                 String message = SearchLogUtils.edgeOrientedMsg(
                         "Meek R1 triangle (" + a + "-->" + b + "---" + c + ")", graph.getEdge(b, c));
                 log(message);
@@ -251,6 +253,7 @@ public class MeekRules implements ImpliedOrientation {
                 graph.isUndirectedFromTo(a, c)) {
             if (isArrowpointAllowed(a, c, knowledge)) {
                 direct(a, c, graph);
+                SearchMetrics.getInstance().count("meek.r2");
                 log(SearchLogUtils.edgeOrientedMsg("Meek R2", graph.getEdge(a, c)));
             }
         }
@@ -288,6 +291,7 @@ public class MeekRules implements ImpliedOrientation {
                             }
 
                             direct(d, a, graph);
+                            SearchMetrics.getInstance().count("meek.r3");
                             log(SearchLogUtils.edgeOrientedMsg("Meek R3", graph.getEdge(d, a)));
                         }
                     }
@@ -337,6 +341,7 @@ public class MeekRules implements ImpliedOrientation {
 //
                             if (isArrowpointAllowed(c, d, knowledge)) {
                                 direct(c, d, graph);
+                                SearchMetrics.getInstance().count("meek.r4");
                                 log(SearchLogUtils.edgeOrientedMsg("Meek R4", graph.getEdge(c, d)));
                                 continue;
                             }
@@ -355,6 +360,7 @@ public class MeekRules implements ImpliedOrientation {
 
                             if (isArrowpointAllowed(c, d, knowledge)) {
                                 direct(c, d, graph);
+                                SearchMetrics.getInstance().count("meek.r4");
                                 log(SearchLogUtils.edgeOrientedMsg("Meek R4", graph.getEdge(c, d)));
                                 continue;
                             }
@@ -0,0 +1,194 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.search;
+
+import edu.cmu.tetrad.graph.Edge;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.graph.OrderedPair;
+import edu.cmu.tetrad.util.CancellationToken;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Wraps a SepsetProducer so that the sepsets of many pairs can be found at once, in parallel. getSepsets(pairs)
+ * looks up each pair as its own task on a ForkJoinPool and keeps the results, which getSepset then returns without
+ * doing the tests again; pairs not looked up this way are passed to the wrapped producer.
+ * <p>
+ * Each pair's sepset is found by the wrapped producer just as it would be on its own, so the results do not depend on
+ * the number of threads, provided the producer's graph is not changed while this is in use and its independence test
+ * may be called from several threads. Producers that need p values should get them with
+ * IndependenceTest.getPValue(x, y, z).
+ */
+public class ParallelSepsets implements SepsetProducer {
+
+    // Stands for a pair found to have no sepset.
+    private static final List<Node> NONE = Collections.unmodifiableList(new ArrayList<>());
+
+    private final SepsetProducer sepsets;
+    private final ForkJoinPool pool;
+    private final Map<OrderedPair<Node>, List<Node>> found = new ConcurrentHashMap<>();
+    private CancellationToken cancellation = CancellationToken.current();
+
+    public ParallelSepsets(SepsetProducer sepsets, ForkJoinPool pool) {
+        if (sepsets == null) throw new NullPointerException("Sepsets must not be null.");
+        if (pool == null) throw new NullPointerException("Pool must not be null.");
+        this.sepsets = sepsets;
+        this.pool = pool;
+    }
+
+    /**
+     * Finds the sepsets of the given pairs in parallel.
+     *
+     * @return the sepset of each pair, in order, or null for a pair that has none. If the cancellation token is
+     * cancelled, pairs not yet looked up are also returned as null, and are not kept.
+     */
+    public List<List<Node>> getSepsets(final List<OrderedPair<Node>> pairs) {
+        final List<Node>[] results = new List[pairs.size()];
+
+        class PairsTask extends RecursiveAction {
+            private final int from;
+            private final int to;
+
+            private PairsTask(int from, int to) {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > 1) {
+                    int mid = (from + to) >>> 1;
+                    invokeAll(new PairsTask(from, mid), new PairsTask(mid, to));
+                } else if (to > from && !cancellation.isCancelled()) {
+                    results[from] = lookUp(pairs.get(from));
+                }
+            }
+        }
+
+        pool.invoke(new PairsTask(0, pairs.size()));
+
+        List<List<Node>> sepsets = new ArrayList<>(pairs.size());
+
+        for (List<Node> result : results) {
+            sepsets.add(result == NONE ? null : result);
+        }
+
+        return sepsets;
+    }
+
+    /**
+     * Removes from the graph each edge x *-* y for which a sepset is found, recording the sepset in the map. The
+     * sepsets are looked up in parallel before any edge is removed, so the wrapped producer should be working from a
+     * copy of the graph; then, as with FasStable, the result does not depend on the order of the edges.
+     */
+    public void removeSeparatedEdges(Graph graph, SepsetMap sepsetMap) {
+        List<Edge> edges = new ArrayList<>(graph.getEdges());
+        List<OrderedPair<Node>> pairs = new ArrayList<>();
+
+        for (Edge edge : edges) {
+            pairs.add(new OrderedPair<>(edge.getNode1(), edge.getNode2()));
+        }
+
+        List<List<Node>> sepsets = getSepsets(pairs);
+
+        for (int i = 0; i < edges.size(); i++) {
+            List<Node> sepset = sepsets.get(i);
+
+            if (sepset != null) {
+                Node x = edges.get(i).getNode1();
+                Node y = edges.get(i).getNode2();
+                graph.removeEdge(x, y);
+                sepsetMap.set(x, y, sepset);
+            }
+        }
+    }
+
+    public List<Node> getSepset(Node a, Node b) {
+        List<Node> sepset = found.get(new OrderedPair<>(a, b));
+
+        if (sepset == null) {
+            return sepsets.getSepset(a, b);
+        }
+
+        return sepset == NONE ? null : sepset;
+    }
+
+    public boolean isCollider(Node i, Node j, Node k) {
+        List<Node> sepset = getSepset(i, k);
+        return sepset != null && !sepset.contains(j);
+    }
+
+    public boolean isNoncollider(Node i, Node j, Node k) {
+        List<Node> sepset = getSepset(i, k);
+        return sepset != null && sepset.contains(j);
+    }
+
+    @Override
+    public boolean isIndependent(Node a, Node b, List<Node> c) {
+        return sepsets.isIndependent(a, b, c);
+    }
+
+    @Override
+    public double getPValue() {
+        return sepsets.getPValue();
+    }
+
+    @Override
+    public double getScore() {
+        return sepsets.getScore();
+    }
+
+    @Override
+    public List<Node> getVariables() {
+        return sepsets.getVariables();
+    }
+
+    @Override
+    public void setVerbose(boolean verbose) {
+        sepsets.setVerbose(verbose);
+    }
+
+    /**
+     * @return the wrapped producer.
+     */
+    public SepsetProducer getSepsets() {
+        return sepsets;
+    }
+
+    public void setCancellationToken(CancellationToken token) {
+        if (token == null) throw new NullPointerException("Token must not be null.");
+        this.cancellation = token;
+    }
+
+    //==============================PRIVATE METHODS======================/
+
+    private List<Node> lookUp(OrderedPair<Node> pair) {
+        List<Node> sepset = sepsets.getSepset(pair.getFirst(), pair.getSecond());
+        List<Node> result = sepset == null ? NONE : sepset;
+        found.put(pair, result);
+        return result;
+    }
+}
@@ -39,6 +39,7 @@ public class SepsetsGreedy implements SepsetProducer {
     private int depth = 3;
     private boolean verbose = false;
     private Graph dag;
+    private boolean concurrent = false;
 
     public SepsetsGreedy(Graph graph, IndependenceTest independenceTest, SepsetMap extraSepsets, int depth) {
         this.graph = graph;
@@ -86,7 +87,7 @@ public class SepsetsGreedy implements SepsetProducer {
                 while ((choice = gen.next()) != null) {
                     List<Node> v = GraphUtils.asList(choice, adji);
 
-                    if (getIndependenceTest().isIndependent(i, k, v)) {
+                    if (independent(i, k, v)) {
                         return v;
                     }
                 }
@@ -99,7 +100,7 @@ public class SepsetsGreedy implements SepsetProducer {
                 while ((choice = gen.next()) != null) {
                     List<Node> v = GraphUtils.asList(choice, adjk);
 
-                    if (getIndependenceTest().isIndependent(i, k, v)) {
+                    if (independent(i, k, v)) {
                         return v;
                     }
                 }
@@ -109,6 +110,11 @@ public class SepsetsGreedy implements SepsetProducer {
         return null;
     }
 
+    private boolean independent(Node i, Node k, List<Node> v) {
+        IndependenceTest test = getIndependenceTest();
+        return concurrent ? test.getPValue(i, k, v) > test.getAlpha() : test.isIndependent(i, k, v);
+    }
+
     @Override
     public boolean isIndependent(Node a, Node b, List<Node> c) {
         return independenceTest.isIndependent(a, b, c);
@@ -153,5 +159,17 @@ public class SepsetsGreedy implements SepsetProducer {
     public void setDepth(int depth) {
         this.depth = depth;
     }
+
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+
+    /**
+     * If true, independence is decided as getPValue(x, y, z) > alpha, which tests such as IndTestFisherZ answer
+     * without taking their lock, so that sepsets may be looked up from several threads at once. False by default.
+     */
+    public void setConcurrent(boolean concurrent) {
+        this.concurrent = concurrent;
+    }
 }
 
@@ -72,8 +72,7 @@ public class SepsetsMaxPValue implements SepsetProducer {
             final List<Node> sepset = extraSepsets.get(i, k);
 
             if (sepset != null) {
-                independenceTest.isIndependent(i, k, sepset);
-                double p = independenceTest.getPValue();
+                double p = independenceTest.getPValue(i, k, sepset);
 
                 if (p > _p) {
                     _p = p;
@@ -95,8 +94,7 @@ public class SepsetsMaxPValue implements SepsetProducer {
                 while ((choice = gen.next()) != null) {
                     List<Node> v = GraphUtils.asList(choice, adji);
 
-                    getIndependenceTest().isIndependent(i, k, v);
-                    double p = getIndependenceTest().getPValue();
+                    double p = getIndependenceTest().getPValue(i, k, v);
 
                     if (p > _p) {
                         _p = p;
@@ -112,8 +110,7 @@ public class SepsetsMaxPValue implements SepsetProducer {
                 while ((choice = gen.next()) != null) {
                     List<Node> v = GraphUtils.asList(choice, adjk);
 
-                    getIndependenceTest().isIndependent(i, k, v);
-                    double p = getIndependenceTest().getPValue();
+                    double p = getIndependenceTest().getPValue(i, k, v);
 
                     if (p > _p) {
                         _p = p;
@@ -50,8 +50,9 @@ public class SepsetsMaxPValuePossDsep implements SepsetProducer {
      * Pick out the sepset from among adj(i) or adj(k) with the highest p value.
      */
     public List<Node> getSepset(Node i, Node k) {
-        List<Node> sepset = getMaxSepset(i, k);
-        if (getScore() > getIndependenceTest().getAlpha()) {
+        double[] maxP = new double[1];
+        List<Node> sepset = getMaxSepset(i, k, maxP);
+        if (-(maxP[0] - getIndependenceTest().getAlpha()) > getIndependenceTest().getAlpha()) {
             return sepset;
         } else {
             return null;
@@ -59,16 +60,17 @@ public class SepsetsMaxPValuePossDsep implements SepsetProducer {
     }
 
     public boolean isCollider(Node i, Node j, Node k) {
-        List<Node> _v = getMaxSepset(i, k);
+        List<Node> _v = getMaxSepset(i, k, new double[1]);
         return _v != null && !_v.contains(j);
     }
 
     public boolean isNoncollider(Node i, Node j, Node k) {
-        List<Node> _v = getMaxSepset(i, k);
+        List<Node> _v = getMaxSepset(i, k, new double[1]);
         return _v != null && _v.contains(j);
     }
 
-    private List<Node> getMaxSepset(Node i, Node k) {
+    // The maximum p value is returned in maxP[0] as well as in this.p, which is shared between threads.
+    private List<Node> getMaxSepset(Node i, Node k, double[] maxP) {
         double _p = 0.0;
         List<Node> _v = null;
 
@@ -100,8 +102,7 @@ public class SepsetsMaxPValuePossDsep implements SepsetProducer {
                 while ((choice = gen.next()) != null) {
                     List<Node> v = GraphUtils.asList(choice, adji);
 
-                    getIndependenceTest().isIndependent(i, k, v);
-                    double p = getIndependenceTest().getPValue();
+                    double p = getIndependenceTest().getPValue(i, k, v);
 
                     if (p > _p) {
                         _p = p;
@@ -117,8 +118,7 @@ public class SepsetsMaxPValuePossDsep implements SepsetProducer {
                 while ((choice = gen.next()) != null) {
                     List<Node> v = GraphUtils.asList(choice, adjk);
 
-                    getIndependenceTest().isIndependent(i, k, v);
-                    double p = getIndependenceTest().getPValue();
+                    double p = getIndependenceTest().getPValue(i, k, v);
 
                     if (p > _p) {
                         _p = p;
@@ -129,6 +129,7 @@ public class SepsetsMaxPValuePossDsep implements SepsetProducer {
         }
 
         this.p = _p;
+        maxP[0] = _p;
         return _v;
     }
 
@@ -41,6 +41,7 @@ public class SepsetsPossibleDsep implements SepsetProducer {
     private IKnowledge knowledge = new Knowledge2();
     private int depth = -1;
     private boolean verbose = false;
+    private boolean concurrent = false;
 
     public SepsetsPossibleDsep(Graph graph, IndependenceTest independenceTest, IKnowledge knowledge,
                                int depth, int maxPathLength) {
@@ -111,7 +112,9 @@ public class SepsetsPossibleDsep implements SepsetProducer {
                     }
                     if (flagForbid) continue;
                 }
-                boolean independent = independenceTest.isIndependent(node1, node2, condSet);
+                boolean independent = concurrent
+                        ? independenceTest.getPValue(node1, node2, condSet) > independenceTest.getAlpha()
+                        : independenceTest.isIndependent(node1, node2, condSet);
 
                 if (independent && noEdgeRequired) {
                     return condSet;
@@ -180,5 +183,17 @@ public class SepsetsPossibleDsep implements SepsetProducer {
         this.verbose = verbose;
     }
 
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+
+    /**
+     * If true, independence is decided as getPValue(x, y, z) > alpha, which tests such as IndTestFisherZ answer
+     * without taking their lock, so that sepsets may be looked up from several threads at once. False by default.
+     */
+    public void setConcurrent(boolean concurrent) {
+        this.concurrent = concurrent;
+    }
+
 }
 
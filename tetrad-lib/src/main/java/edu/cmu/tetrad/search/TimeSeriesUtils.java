@@ -52,29 +52,13 @@ public class TimeSeriesUtils {
      * residuals of these regressions for each variable are returned.
      */
     public static DataSet ar(DataSet timeSeries, int numLags) {
-        DataSet timeLags = createLagData(timeSeries, numLags);
-        List<Node> regressors = new ArrayList<>();
-
-        for (int i = timeSeries.getNumColumns(); i < timeLags.getNumColumns(); i++) {
-            regressors.add(timeLags.getVariable(i));
-        }
-
-        Regression regression = new RegressionDataset(timeLags);
-//        Regression regression = new RegressionDatasetGeneralized(timeLags);
-
-        Matrix residuals = new Matrix(timeLags.getNumRows(), timeSeries.getNumColumns());
-
-        for (int i = 0; i < timeSeries.getNumColumns(); i++) {
-            Node target = timeLags.getVariable(i);
-            RegressionResult result = regression.regress(target, regressors);
-            Vector residualsColumn = result.getResiduals();
-//            residuals.viewColumn(i).assign(residualsColumn);
-            residuals.assignColumn(i, residualsColumn);
-        }
-
-        return new BoxDataSet(new DoubleDataBox(residuals.toArray()), timeSeries.getVariables());
+        return arResiduals(timeSeries, numLags, new ArrayList<Node>());
     }
 
+    /**
+     * As ar(), except that variables with no values are left out of the regressions, and their
+     * residuals are missing.
+     */
     public static DataSet ar2(DataSet timeSeries, int numLags) {
         List<Node> missingVariables = new ArrayList<>();
 
@@ -94,40 +78,59 @@ public class TimeSeriesUtils {
             }
         }
 
+        return arResiduals(timeSeries, numLags, missingVariables);
+    }
+
+    // The residuals of regressing each variable onto every variable not missing at lags 1 to
+    // numLags. The coefficients come from the lagged covariances, and the residuals are read off
+    // the lagged view, so the lag matrix is never materialized.
+    private static DataSet arResiduals(DataSet timeSeries, int numLags, List<Node> missingVariables) {
         DataSet timeLags = createLagData(timeSeries, numLags);
+        LagCovarianceMatrix cov = new LagCovarianceMatrix(timeLags);
+        double[] means = cov.getMeans();
+        int width = timeSeries.getNumColumns();
 
-        Regression regression = new RegressionDataset(timeLags);
+        List<Integer> _regressors = new ArrayList<>();
 
-        Matrix residuals = new Matrix(timeLags.getNumRows(), timeSeries.getNumColumns());
+        for (int i = width; i < timeLags.getNumColumns(); i++) {
+            if (!missingVariables.contains(timeSeries.getVariable(i % width))) {
+                _regressors.add(i);
+            }
+        }
 
-        for (int i = 0; i < timeSeries.getNumColumns(); i++) {
-            Node target = timeLags.getVariable(i);
-            int index = timeSeries.getVariables().indexOf(target);
+        int[] regressors = new int[_regressors.size()];
+        for (int k = 0; k < regressors.length; k++) regressors[k] = _regressors.get(k);
+
+        Matrix inverse = regressors.length == 0 ? new Matrix(0, 0)
+                : cov.getSelection(regressors, regressors).inverse();
+        Matrix residuals = new Matrix(timeLags.getNumRows(), width);
 
-            if (missingVariables.contains(target)) {
-                for (int i2 = 0; i2 < residuals.rows(); i2++) {
-                    residuals.set(i2, index, Double.NaN);
+        for (int i = 0; i < width; i++) {
+            if (missingVariables.contains(timeSeries.getVariable(i))) {
+                for (int r = 0; r < residuals.rows(); r++) {
+                    residuals.set(r, i, Double.NaN);
                 }
 
                 continue;
             }
 
-            List<Node> regressors = new ArrayList<>();
+            Vector b = regressors.length == 0 ? new Vector(0)
+                    : inverse.times(cov.getSelection(regressors, new int[]{i}).getColumn(0));
+            double intercept = means[i];
+
+            for (int k = 0; k < regressors.length; k++) {
+                intercept -= b.get(k) * means[regressors[k]];
+            }
 
-            for (int i2 = timeSeries.getNumColumns(); i2 < timeLags.getNumColumns(); i2++) {
-                int varIndex = i2 % timeSeries.getNumColumns();
-                Node var = timeSeries.getVariable(varIndex);
+            for (int r = 0; r < residuals.rows(); r++) {
+                double residual = timeLags.getDouble(r, i) - intercept;
 
-                if (missingVariables.contains(var)) {
-                    continue;
+                for (int k = 0; k < regressors.length; k++) {
+                    residual -= b.get(k) * timeLags.getDouble(r, regressors[k]);
                 }
 
-                regressors.add(timeLags.getVariable(i2));
+                residuals.set(r, i, residual);
             }
-
-            RegressionResult result = regression.regress(target, regressors);
-            Vector residualsColumn = result.getResiduals();
-            residuals.assignColumn(i, residualsColumn);
         }
 
         return new BoxDataSet(new DoubleDataBox(residuals.toArray()), timeSeries.getVariables());
@@ -220,9 +223,12 @@ public class TimeSeriesUtils {
                 collapsedVarGraph);
     }
 
+    /**
+     * @return a view of the data in which column j is shifted by shifts[j] relative to the others;
+     * the data are read from the given data set, not copied, so it must not be changed while the
+     * view is in use.
+     */
     public static DataSet createShiftedData(DataSet data, int[] shifts) {
-        Matrix data2 = data.getDoubleData();
-
         int min = Integer.MAX_VALUE;
         int max = Integer.MIN_VALUE;
 
@@ -243,20 +249,11 @@ public class TimeSeriesUtils {
             _shifts[i] = shiftRange - (shifts[i] - min);
         }
 
-        if (shiftRange > data2.rows()) {
+        if (shiftRange > data.getNumRows()) {
             throw new IllegalArgumentException("Range of shifts greater than sample size.");
         }
 
-        int shiftedDataLength = data2.rows() - shiftRange;
-        Matrix shiftedData = new Matrix(shiftedDataLength, data2.columns());
-
-        for (int j = 0; j < shiftedData.columns(); j++) {
-            for (int i = 0; i < shiftedDataLength; i++) {
-                shiftedData.set(i, j, data2.get(i + _shifts[j], j));
-            }
-        }
-
-        return new BoxDataSet(new DoubleDataBox(shiftedData.toArray()), data.getVariables());
+        return new BoxDataSet(new LagDataBox(dataBox(data), _shifts), data.getVariables());
     }
 
     public static class VarResult {
@@ -363,12 +360,13 @@ public class TimeSeriesUtils {
 
     /**
      * Creates new time series dataset from the given one (fixed to deal with
-     * mixed datasets)
+     * mixed datasets). The lagged data are a view of the given data set, which
+     * must not be changed while the view is in use; the view may be written to,
+     * in which case it is first copied out of the series. See LagDataBox.
      */
     public static DataSet createLagData(DataSet data, int numLags) {
         List<Node> variables = data.getVariables();
         int dataSize = variables.size();
-        int laggedRows = data.getNumRows() - numLags;
         IKnowledge knowledge = new Knowledge2();
         Node[][] laggedNodes = new Node[numLags + 1][dataSize];
         List<Node> newVariables = new ArrayList<>((numLags + 1) * dataSize + 1);
@@ -448,21 +446,8 @@ public class TimeSeriesUtils {
             knowledge.addToTier(numLags - lag, node.getName());
         }
 
-        DataSet laggedData = new BoxDataSet(new DoubleDataBox(laggedRows, newVariables.size()), newVariables);
-        for (int lag = 0; lag <= numLags; lag++) {
-            for (int col = 0; col < dataSize; col++) {
-                for (int row = 0; row < laggedRows; row++) {
-                    Node laggedNode = laggedNodes[lag][col];
-                    if (laggedNode instanceof ContinuousVariable) {
-                        double value = data.getDouble(row + numLags - lag, col);
-                        laggedData.setDouble(row, col + lag * dataSize, value);
-                    } else {
-                        int value = data.getInt(row + numLags - lag, col);
-                        laggedData.setInt(row, col + lag * dataSize, value);
-                    }
-                }
-            }
-        }
+        // A view of the series; the lagged rows are read from it, not copied.
+        DataSet laggedData = new BoxDataSet(new LagDataBox(dataBox(data), numLags), newVariables);
 
         knowledge.setDefaultToKnowledgeLayout(true);
 //        knowledge.setLagged(true);
@@ -701,6 +686,25 @@ public class TimeSeriesUtils {
         return graph;
     }
 
+    // The box of a BoxDataSet; other data sets are copied into one.
+    private static DataBox dataBox(DataSet data) {
+        if (data instanceof BoxDataSet) {
+            return ((BoxDataSet) data).getDataBox();
+        }
+
+        DataBox box = new MixedDataBox(data.getVariables(), data.getNumRows());
+
+        for (int j = 0; j < data.getNumColumns(); j++) {
+            boolean continuous = data.getVariable(j) instanceof ContinuousVariable;
+
+            for (int i = 0; i < data.getNumRows(); i++) {
+                box.set(i, j, continuous ? (Number) data.getDouble(i, j) : (Number) data.getInt(i, j));
+            }
+        }
+
+        return box;
+    }
+
     public static String getNameNoLag(Object obj) {
         String tempS = obj.toString();
         if (tempS.indexOf(':') == -1) {
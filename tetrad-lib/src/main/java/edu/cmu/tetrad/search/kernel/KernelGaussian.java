@@ -93,10 +93,11 @@ public final class KernelGaussian implements Kernel {
         int col = dataset.getColumn(node);
         int m = dataset.getNumRows();
 
-        double[] diff = new double[(int) Math.pow(m, 2) - m];
+        // only the first m differences are looked at, so only those are stored
+        double[] diff = new double[(int) Math.min((long) m * m - m, m)];
         int c = 0;
-        for (int i = 0; i < (m - 1); i++) {
-            for (int j = (i + 1); j < m; j++) {
+        for (int i = 0; i < (m - 1) && c < diff.length; i++) {
+            for (int j = (i + 1); j < m && c < diff.length; j++) {
                 diff[c] = Math.abs(dataset.getDouble(i, col) - dataset.getDouble(j, col));
                 c++;
             }
@@ -25,6 +25,7 @@ import edu.cmu.tetrad.data.DataSet;
 import edu.cmu.tetrad.graph.Node;
 import edu.cmu.tetrad.util.Matrix;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -58,6 +59,7 @@ public class KernelUtils {
                         keval *= gram.get(i, j);
                         gram.set(i, j, keval);
                     }
+                    gram.set(j, i, keval);
                 }
             }
         }
@@ -96,6 +98,7 @@ public class KernelUtils {
                     H.set(i, j, d);
                 } else {
                     H.set(i, j, od);
+                    H.set(j, i, od);
                 }
             }
         }
@@ -110,92 +113,163 @@ public class KernelUtils {
      * @param nodes   the variables to construct the Gram matrix for
      */
     public static Matrix incompleteCholeskyGramMatrix(List<Kernel> kernels, DataSet dataset, List<Node> nodes, double precision) {
+        return incompleteCholeskyGramMatrix(kernels, dataset, nodes, precision, dataset.getNumRows());
+    }
+
+    /**
+     * Approximates Gram matrix using incomplete Cholesky factorization, using at most maxRank columns.
+     *
+     * @param kernels the kernels for each variable
+     * @param dataset the dataset containing each variable
+     * @param nodes   the variables to construct the Gram matrix for
+     * @param maxRank the maximum number of columns in the factor
+     */
+    public static Matrix incompleteCholeskyGramMatrix(List<Kernel> kernels, DataSet dataset, List<Node> nodes,
+                                                      double precision, int maxRank) {
+        int m = dataset.getNumRows();
+        double[][] columns = new double[nodes.size()][m];
+
+        for (int k = 0; k < nodes.size(); k++) {
+            int col = dataset.getColumn(nodes.get(k));
+
+            for (int i = 0; i < m; i++) {
+                columns[k][i] = dataset.getDouble(i, col);
+            }
+        }
+
+        return incompleteCholesky(new GramMatrix() {
+            public int size() {
+                return m;
+            }
+
+            public double get(int i, int j) {
+                double keval = kernels.get(0).eval(columns[0][i], columns[0][j]);
+                for (int k = 1; k < columns.length; k++) {
+                    keval *= kernels.get(k).eval(columns[k][i], columns[k][j]);
+                }
+                return keval;
+            }
+        }, precision, maxRank);
+    }
+
+    /**
+     * Approximates a Gram matrix K by G G' using pivoted incomplete Cholesky factorization. Columns of G are added
+     * one at a time, each pivoting on the largest diagonal entry of K - G G', until that entry is less than the given
+     * precision or G has maxRank columns. Only the diagonal and the pivot columns of K are evaluated, so for n rows
+     * and rank r this takes O(n r^2) time and O(n r) space.
+     *
+     * @param gram      the Gram matrix to approximate
+     * @param precision the diagonal residual below which no further columns are added
+     * @param maxRank   the maximum number of columns in the factor
+     * @return G, an n x r matrix whose rows are in the order of the rows of K.
+     */
+    public static Matrix incompleteCholesky(GramMatrix gram, double precision, int maxRank) {
         if (precision <= 0) {
             throw new IllegalArgumentException("Precision must be > 0");
         }
 
-        int m = dataset.getNumRows();
-        Matrix G = new Matrix(m, m);
+        if (maxRank < 1) {
+            throw new IllegalArgumentException("Max rank must be at least 1: " + maxRank);
+        }
 
-        // get diagonal of Gram matrix and initialize permutation vector
-        double[] Dadv = new double[m];
-        int[] p = new int[m];
+        int m = gram.size();
+
+        // diagonal of K - G G'
+        double[] residual = new double[m];
         for (int i = 0; i < m; i++) {
-            Dadv[i] = evaluate(kernels, dataset, nodes, i, i);
-            p[i] = i;
+            residual[i] = gram.get(i, i);
         }
 
-        // loop through top diagonal elements until precision is met
-        int cols = m;
-        for (int k = 0; k < m; k++) {
+        boolean[] pivoted = new boolean[m];
+        List<double[]> columns = new ArrayList<>();
+
+        while (columns.size() < Math.min(m, maxRank)) {
 
             // find best element
-            double best = Dadv[k];
-            int bestInd = k;
-            for (int j = (k + 1); j < m; j++) {
-                if (Dadv[j] > best / .99) {
-                    best = Dadv[j];
-                    bestInd = j;
+            int pivot = -1;
+            for (int j = 0; j < m; j++) {
+                if (!pivoted[j] && (pivot == -1 || residual[j] > residual[pivot])) {
+                    pivot = j;
                 }
             }
 
             // exit if best element does not exceed precision
-            if (best < precision) {
-                cols = k - 1;
+            if (!(residual[pivot] >= precision)) {
                 break;
             }
 
-            // permute best vector and k
-            int pk = p[k];
-            p[k] = p[bestInd];
-            p[bestInd] = pk;
-            double dk = Dadv[k];
-            Dadv[k] = Dadv[bestInd];
-            Dadv[bestInd] = dk;
-            for (int j = 0; j < k; j++) {
-                double gk = G.get(k, j);
-                G.set(k, j, G.get(bestInd, j));
-                G.set(bestInd, j, gk);
-            }
-
             // compute next column
-            double diag = Math.sqrt(Dadv[k]);
-            G.set(k, k, diag);
-            for (int j = (k + 1); j < m; j++) {
+            double diag = Math.sqrt(residual[pivot]);
+            double[] g = new double[m];
+            g[pivot] = diag;
+
+            for (int j = 0; j < m; j++) {
+                if (pivoted[j] || j == pivot) continue;
+
                 double s = 0.0;
-                for (int i = 0; i < k; i++) {
-                    s += G.get(j, i) * G.get(k, i);
+                for (double[] column : columns) {
+                    s += column[j] * column[pivot];
                 }
-                G.set(j, k, (evaluate(kernels, dataset, nodes, p[j], p[k]) - s) / diag);
-            }
 
-            // update diagonal
-            for (int j = (k + 1); j < m; j++) {
-                Dadv[j] -= Math.pow(G.get(j, k), 2);
+                g[j] = (gram.get(j, pivot) - s) / diag;
+                residual[j] -= g[j] * g[j];
             }
-            Dadv[k] = 0;
+
+            pivoted[pivot] = true;
+            residual[pivot] = 0;
+            columns.add(g);
         }
 
-        // trim columns
-        Matrix Gm = new Matrix(m, cols);
-        for (int i = 0; i < m; i++) {
-            for (int j = 0; j < cols; j++) {
-                Gm.set(i, j, G.get(i, j));
+        Matrix G = new Matrix(m, columns.size());
+        for (int j = 0; j < columns.size(); j++) {
+            double[] column = columns.get(j);
+
+            for (int i = 0; i < m; i++) {
+                G.set(i, j, column[i]);
             }
         }
-        return Gm;
+        return G;
     }
 
-    // evaluates tensor product for kernels
+    /**
+     * Centers the columns of G, giving H G for the centering matrix H = I - 11'/m without forming H, so that if G G'
+     * approximates K, the result times its transpose approximates H K H.
+     *
+     * @param G an m x r matrix
+     */
+    public static Matrix centerColumns(Matrix G) {
+        int m = G.rows();
+        Matrix Gc = new Matrix(m, G.columns());
+
+        for (int j = 0; j < G.columns(); j++) {
+            double mean = 0.0;
+            for (int i = 0; i < m; i++) {
+                mean += G.get(i, j);
+            }
+            mean /= m;
 
-    private static double evaluate(List<Kernel> kernels, DataSet dataset, List<Node> vars, int i, int j) {
-        int col = dataset.getColumn(vars.get(0));
-        double keval = kernels.get(0).eval(dataset.getDouble(i, col), dataset.getDouble(j, col));
-        for (int k = 1; k < vars.size(); k++) {
-            col = dataset.getColumn(vars.get(k));
-            keval *= kernels.get(k).eval(dataset.getDouble(i, col), dataset.getDouble(j, col));
+            for (int i = 0; i < m; i++) {
+                Gc.set(i, j, G.get(i, j) - mean);
+            }
         }
-        return keval;
+
+        return Gc;
+    }
+
+    /**
+     * The entries of a Gram matrix, evaluated as needed.
+     */
+    public interface GramMatrix {
+
+        /**
+         * @return the number of rows (and columns).
+         */
+        int size();
+
+        /**
+         * @return the kernel evaluated at the i'th and j'th points.
+         */
+        double get(int i, int j);
     }
 
 ////     computes the trace
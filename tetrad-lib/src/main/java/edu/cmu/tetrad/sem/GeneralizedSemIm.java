@@ -21,6 +21,7 @@
 
 package edu.cmu.tetrad.sem;
 
+import edu.cmu.tetrad.calculator.expression.CompiledExpression;
 import edu.cmu.tetrad.calculator.expression.Context;
 import edu.cmu.tetrad.calculator.expression.Expression;
 import edu.cmu.tetrad.calculator.parser.ExpressionLexer;
@@ -878,27 +879,52 @@ public class GeneralizedSemIm implements IM, Simulator, TetradSerializable {
         if (epsilon <= 0.0) throw new IllegalArgumentException(
                 "Epsilon must be > 0: " + epsilon);
 
-        final Map<String, Double> variableValues = new HashMap<>();
+        final List<Node> variableNodes = pm.getVariableNodes();
 
-        final Context context = new Context() {
-            public Double getValue(String term) {
-                Double value = parameterValues.get(term);
+        // Parameters take the first slots, then variables, then error terms; a name shared by a
+        // parameter and a variable reads the parameter, as with a by-name lookup.
+        Map<String, Integer> slots = new HashMap<>();
+        List<String> parameters = new ArrayList<>(parameterValues.keySet());
+        int numParameters = parameters.size();
 
-                if (value != null) {
-                    return value;
-                }
+        for (int i = 0; i < numParameters; i++) {
+            slots.put(parameters.get(i), i);
+        }
 
-                value = variableValues.get(term);
+        int[] variableSlots = new int[variableNodes.size()];
+        int[] errorSlots = new int[variableNodes.size()];
+        CompiledExpression[] expressions = new CompiledExpression[variableNodes.size()];
+        CompiledExpression[] errorExpressions = new CompiledExpression[variableNodes.size()];
 
-                if (value != null) {
-                    return value;
-                }
+        for (int j = 0; j < variableNodes.size(); j++) {
+            Node error = pm.getErrorNode(variableNodes.get(j));
 
-                throw new IllegalArgumentException("No value recorded for '" + term + "'");
+            if (error == null) {
+                throw new NullPointerException();
             }
-        };
 
-        final List<Node> variableNodes = pm.getVariableNodes();
+            variableSlots[j] = numParameters + 2 * j;
+            errorSlots[j] = numParameters + 2 * j + 1;
+            slots.putIfAbsent(variableNodes.get(j).getName(), variableSlots[j]);
+            slots.putIfAbsent(error.getName(), errorSlots[j]);
+        }
+
+        for (int j = 0; j < variableNodes.size(); j++) {
+            expressions[j] = CompiledExpression.compile(pm.getNodeExpression(variableNodes.get(j)), slots);
+            errorExpressions[j] = CompiledExpression.compile(pm.getNodeExpression(pm.getErrorNode(variableNodes.get(j))), slots);
+        }
+
+        double[] values = new double[numParameters + 2 * variableNodes.size()];
+        boolean[] assigned = new boolean[values.length];
+
+        for (int i = 0; i < numParameters; i++) {
+            Double value = parameterValues.get(parameters.get(i));
+
+            if (value != null) {
+                values[i] = value;
+                assigned[i] = true;
+            }
+        }
 
         double[] t1 = new double[variableNodes.size()];
         double[] t2 = new double[variableNodes.size()];
@@ -909,29 +935,22 @@ public class GeneralizedSemIm implements IM, Simulator, TetradSerializable {
 
         for (int row = 0; row < sampleSize; row++) {
             for (int j = 0; j < t1.length; j++) {
-                Node error = pm.getErrorNode(variableNodes.get(j));
-
-                if (error == null) {
-                    throw new NullPointerException();
-                }
-
-                Expression expression = pm.getNodeExpression(error);
-                double value = expression.evaluate(context);
+                double value = errorExpressions[j].evaluate(values, assigned);
 
                 if (Double.isNaN(value)) {
-                    throw new IllegalArgumentException("Undefined value for expression: " + expression);
+                    throw new IllegalArgumentException("Undefined value for expression: "
+                            + pm.getNodeExpression(pm.getErrorNode(variableNodes.get(j))));
                 }
 
-                variableValues.put(error.getName(), value);
+                values[errorSlots[j]] = value;
+                assigned[errorSlots[j]] = true;
                 shocks[j] = value;
                 t2[j] += shocks[j];
             }
 
             for (int i = 0; i < intervalBetweenShocks; i++) {
                 for (int j = 0; j < t1.length; j++) {
-                    Node node = variableNodes.get(j);
-                    Expression expression = pm.getNodeExpression(node);
-                    t2[j] = expression.evaluate(context);
+                    t2[j] = expressions[j].evaluate(values, assigned);
 
                     if (Double.isNaN(t2[j])) {
                         if (!printedUndefined) {
@@ -947,7 +966,8 @@ public class GeneralizedSemIm implements IM, Simulator, TetradSerializable {
                         }
                     }
 
-                    variableValues.put(node.getName(), t2[j]);
+                    values[variableSlots[j]] = t2[j];
+                    assigned[variableSlots[j]] = true;
                 }
 
                 boolean converged = true;
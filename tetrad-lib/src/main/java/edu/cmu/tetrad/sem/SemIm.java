@@ -267,6 +267,16 @@ public final class SemIm implements IM, ISemIm, TetradSerializable {
 
     private Map<Node, Integer> variablesHash;
     private Matrix sampleCovInv;
+
+    /**
+     * Keeps the implied covariance matrix up to date incrementally for acyclic SEMs.
+     */
+    private transient SparseImpliedCovar sparseImpliedCovar;
+
+    /**
+     * Caches the log determinant of the sample covariance matrix.
+     */
+    private transient Double logDetSampleCovar;
     private static Collection<? extends String> parameterNames;
 
     public static List<String> getParameterNames() {
@@ -511,6 +521,7 @@ public final class SemIm implements IM, ISemIm, TetradSerializable {
         this.sampleCovarVariables = covMatrix2.getVariables();
         this.sampleSize = covMatrix2.getSampleSize();
         this.sampleCovInv = null;
+        this.logDetSampleCovar = null;
 
         if (this.sampleSize < 0) {
             throw new IllegalArgumentException(
@@ -1119,6 +1130,10 @@ public final class SemIm implements IM, ISemIm, TetradSerializable {
 //        return h1 - h0;
 //    }
     private double getFml2() {
+        if (isPrecisionSparse()) {
+            return getFmlSparse();
+        }
+
         Matrix sigma;
 
         try {
@@ -1140,6 +1155,98 @@ public final class SemIm implements IM, ISemIm, TetradSerializable {
         return fml;
     }
 
+    /**
+     * True if every variable is measured, the SEM is acyclic, and the errors are uncorrelated.
+     * The inverse of the implied covariance matrix is then (I - B) inv(Omega) (I - B)', as
+     * sparse as the graph, and its determinant is the product of the error variances.
+     */
+    private boolean isPrecisionSparse() {
+        if (getMeasuredNodes().size() != getVariableNodes().size() || isCyclic()) {
+            return false;
+        }
+
+        for (int i = 0; i < errCovar.rows(); i++) {
+            for (int j = 0; j < errCovar.columns(); j++) {
+                if (i != j && errCovar.get(i, j) != 0.0) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * F_ML using the sparse inverse of the implied covariance matrix. The trace of S inv(Sigma)
+     * is the sum over variables of the variance of the variable's residual given its parents,
+     * as S has it, divided by its error variance; this takes time proportional to the sum of
+     * the squares of the numbers of parents, with no matrix inverted.
+     */
+    private double getFmlSparse() {
+        Matrix s = this.sampleCovarC;
+        int numVars = getVariableNodes().size();
+
+        if (s == null) {
+            return Double.NaN;
+        }
+
+        if (logDetSampleCovar == null) {
+            logDetSampleCovar = Math.log(s.det());
+        }
+
+        Map<Node, Integer> measuredIndices = new HashMap<>();
+
+        for (int i = 0; i < getMeasuredNodes().size(); i++) {
+            measuredIndices.put(getMeasuredNodes().get(i), i);
+        }
+
+        int[] index = new int[numVars];
+
+        for (int j = 0; j < numVars; j++) {
+            index[j] = measuredIndices.get(getVariableNodes().get(j));
+        }
+
+        int[] parents = new int[numVars];
+        double[] coefs = new double[numVars];
+        double logDetSigma = 0.0;
+        double trace = 0.0;
+
+        for (int j = 0; j < numVars; j++) {
+            double errVar = errCovar.get(j, j);
+
+            if (!(errVar > 0)) {
+                return Double.NaN;
+            }
+
+            int numParents = 0;
+
+            for (int p = 0; p < numVars; p++) {
+                double coef = edgeCoef.get(p, j);
+
+                if (coef != 0.0) {
+                    parents[numParents] = index[p];
+                    coefs[numParents++] = coef;
+                }
+            }
+
+            int _j = index[j];
+            double residual = s.get(_j, _j);
+
+            for (int k = 0; k < numParents; k++) {
+                residual -= 2 * coefs[k] * s.get(parents[k], _j);
+
+                for (int l = 0; l < numParents; l++) {
+                    residual += coefs[k] * coefs[l] * s.get(parents[k], parents[l]);
+                }
+            }
+
+            logDetSigma += Math.log(errVar);
+            trace += residual / errVar;
+        }
+
+        return logDetSigma + trace - logDetSampleCovar - numVars;
+    }
+
     private double getFgls() {
         Matrix implCovarMeas;
 
@@ -1157,7 +1264,16 @@ public final class SemIm implements IM, ISemIm, TetradSerializable {
         Matrix I = Matrix.identity(implCovarMeas.rows());
         Matrix diff = I.minus((implCovarMeas.times(sampleCovInv)));
 
-        return 0.5 * (diff.times(diff)).trace();
+        // The trace of diff times diff, without multiplying them out.
+        double trace = 0.0;
+
+        for (int i = 0; i < diff.rows(); i++) {
+            for (int j = 0; j < diff.columns(); j++) {
+                trace += diff.get(i, j) * diff.get(j, i);
+            }
+        }
+
+        return 0.5 * trace;
     }
 
 //    private double getLogLikelihood() {
@@ -1721,6 +1837,146 @@ public final class SemIm implements IM, ISemIm, TetradSerializable {
         }
     }
 
+    /**
+     * Simulates data a column at a time down the causal order, in blocks of rows that are filled
+     * in parallel, each block drawing from its own random stream split from the seed (see
+     * RandomStreams). The data are bit-for-bit the same for a given seed whatever the parallelism,
+     * though not the same as simulateData(sampleSize, seed, latentDataSaved) gives.
+     * <p>
+     * Models that can't be simulated a column at a time--time series, cyclic models, models with
+     * connection functions or non-Gaussian error distributions, or positive data only--are
+     * simulated by simulateData(sampleSize, seed, latentDataSaved) instead, which is just as
+     * reproducible but sequential.
+     *
+     * @param sampleSize The number of rows to simulate.
+     * @param seed       The seed the random streams are split from.
+     * @param latentDataSaved True iff data for latents should be saved.
+     */
+    public DataSet simulateDataParallel(int sampleSize, long seed, boolean latentDataSaved) {
+        Graph graph = new EdgeListGraph(getSemPm().getGraph());
+
+        if (!isColumnwiseSimulable(graph)) {
+            return simulateData(sampleSize, seed, latentDataSaved);
+        }
+
+        List<Node> variableNodes = getVariableNodes();
+        List<Node> tierOrdering = graph.getCausalOrdering();
+        final int numVars = variableNodes.size();
+
+        List<Node> variables = new ArrayList<>();
+
+        for (Node node : variableNodes) {
+            ContinuousVariable var = new ContinuousVariable(node.getName());
+            var.setNodeType(node.getNodeType());
+            variables.add(var);
+        }
+
+        final int[] tierIndices = new int[numVars];
+
+        for (int i = 0; i < numVars; i++) {
+            tierIndices[i] = variableNodes.indexOf(tierOrdering.get(i));
+        }
+
+        final int[][] parents = new int[numVars][];
+        final double[][] coefs = new double[numVars][];
+
+        for (int i = 0; i < numVars; i++) {
+            List<Node> _parents = new ArrayList<>();
+
+            for (Node parent : graph.getParents(variableNodes.get(i))) {
+                if (parent.getNodeType() != NodeType.ERROR) {
+                    _parents.add(parent);
+                }
+            }
+
+            parents[i] = new int[_parents.size()];
+            coefs[i] = new double[_parents.size()];
+
+            for (int j = 0; j < _parents.size(); j++) {
+                parents[i][j] = variableNodes.indexOf(_parents.get(j));
+                coefs[i][j] = edgeCoef.get(parents[i][j], i);
+            }
+        }
+
+        final double[][] cholesky = MatrixUtils.cholesky(errCovar()).toArray();
+        final double[] means = variableMeans.clone();
+        final double[][] columns = new double[numVars][sampleSize];
+
+        new RandomStreams(seed).simulate(sampleSize, (from, to, random) -> {
+            int n = to - from;
+            double[][] z = new double[numVars][n];
+
+            for (int j = 0; j < numVars; j++) {
+                for (int r = 0; r < n; r++) {
+                    z[j][r] = random.nextGaussian();
+                }
+            }
+
+            for (int col : tierIndices) {
+                double[] x = columns[col];
+
+                for (int j = 0; j < numVars; j++) {
+                    double c = cholesky[col][j];
+                    if (c == 0.0) continue;
+                    double[] _z = z[j];
+
+                    for (int r = 0; r < n; r++) {
+                        x[from + r] += c * _z[r];
+                    }
+                }
+
+                for (int k = 0; k < parents[col].length; k++) {
+                    double[] p = columns[parents[col][k]];
+                    double coef = coefs[col][k];
+
+                    for (int r = from; r < to; r++) {
+                        x[r] += coef * p[r];
+                    }
+                }
+            }
+
+            for (int col = 0; col < numVars; col++) {
+                double[] x = columns[col];
+
+                for (int r = from; r < to; r++) {
+                    x[r] += means[col];
+                }
+            }
+        });
+
+        DataSet fullDataSet = new BoxDataSet(new VerticalDoubleDataBox(columns), variables);
+
+        if (latentDataSaved) {
+            return fullDataSet;
+        } else {
+            return DataUtils.restrictToMeasured(fullDataSet);
+        }
+    }
+
+    // True if the model is linear Gaussian and acyclic, so simulateDataParallel can simulate it
+    // a column at a time.
+    private boolean isColumnwiseSimulable(Graph graph) {
+        if (semPm.getGraph().isTimeLagModel() || isSimulatedPositiveDataOnly()) {
+            return false;
+        }
+
+        if (graph.existsDirectedCycle()) {
+            return false;
+        }
+
+        for (Node node : getVariableNodes()) {
+            if (functions != null && functions.get(node) != null) {
+                return false;
+            }
+
+            if (distributions != null && distributions.get(node) != null) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     // For testing.
     public Vector simulateOneRecord(Vector e) {
         // Calculate inv(I - edgeCoefC)
@@ -2242,6 +2498,17 @@ public final class SemIm implements IM, ISemIm, TetradSerializable {
      * only.
      */
     private void computeImpliedCovar() {
+        if (sparseImpliedCovar == null) {
+            sparseImpliedCovar = new SparseImpliedCovar(getVariableNodes().size());
+        }
+
+        Matrix implCovar = sparseImpliedCovar.update(edgeCoef(), errCovar());
+
+        if (implCovar != null) {
+            this.implCovar = implCovar;
+            return;
+        }
+
         Matrix edgeCoefT = edgeCoef().transpose();// getAlgebra().transpose(edgeCoefC());
 
         // Note. Since the sizes of the temp matrices in this calculation
@@ -30,7 +30,9 @@ import edu.cmu.tetrad.util.TetradLogger;
 import edu.cmu.tetrad.util.Matrix;
 import edu.cmu.tetrad.util.Vector;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
  * Optimizes a DAG SEM with hidden variables using expectation-maximization.
@@ -80,14 +82,16 @@ public class SemOptimizerEm implements SemOptimizer {
         if (numRestarts < 1) numRestarts = 1;
 
 
-        // Optimize the semIm. Note that the the covariance matrix of the
-        // sample data is made available to the following CoefFittingFunction.
-        double min = semIm.getChiSquare();
-        SemIm _sem = semIm;
+        // Optimize the semIm from numRestarts random starting points, concurrently. Each
+        // restart has its own optimizer to hold its state. The best fit is kept; on ties, the
+        // earliest restart wins, so the result doesn't depend on the parallelism.
+        List<SemIm> sems = new ArrayList<>();
+        List<SemOptimizerEm> optimizers = new ArrayList<>();
+        List<Callable<Double>> restarts = new ArrayList<>();
 
         for (int count = 0; count < numRestarts; count++) {
             TetradLogger.getInstance().log("details", "Trial " + (count + 1));
-            SemIm _sem2 = new SemIm(semIm);
+            final SemIm _sem2 = new SemIm(semIm);
 
             List<Parameter> freeParameters = _sem2.getFreeParameters();
 
@@ -103,17 +107,35 @@ public class SemOptimizerEm implements SemOptimizer {
 
             _sem2.setFreeParamValues(p);
 
-            optimize2(_sem2);
+            final SemOptimizerEm optimizer = new SemOptimizerEm();
+            sems.add(_sem2);
+            optimizers.add(optimizer);
+
+            restarts.add(() -> {
+                optimizer.optimize2(_sem2);
+                return _sem2.getChiSquare();
+            });
+        }
+
+        List<Double> chisqs = ParallelRestarts.run(restarts);
 
-            double chisq = _sem2.getChiSquare();
+        double min = semIm.getChiSquare();
+        SemIm _sem = semIm;
+        SemOptimizerEm _optimizer = optimizers.get(optimizers.size() - 1);
+
+        for (int count = 0; count < numRestarts; count++) {
+            double chisq = chisqs.get(count);
             TetradLogger.getInstance().log("details", "chisq = " + chisq);
 
             if (chisq < min) {
                 min = chisq;
-                _sem = _sem2;
+                _sem = sems.get(count);
+                _optimizer = optimizers.get(count);
             }
         }
 
+        this.expectedCov = _optimizer.expectedCov;
+
         for (Parameter param : semIm.getFreeParameters()) {
             try {
                 Node nodeA = param.getNodeA();
@@ -31,7 +31,9 @@ import org.apache.commons.math3.optim.nonlinear.scalar.MultivariateOptimizer;
 import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunction;
 import org.apache.commons.math3.optim.nonlinear.scalar.noderiv.PowellOptimizer;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
  * Optimizes a SEM using Powell's method from the Apache library.
@@ -61,13 +63,15 @@ public class SemOptimizerPowell implements SemOptimizer {
 
     //=========================PUBLIC METHODS==========================//
 
+    /**
+     * Optimizes from numRestarts + 1 random starting points, concurrently, keeping the best
+     * fit; on ties, the earliest restart wins, so the result doesn't depend on the parallelism.
+     */
     public void optimize(SemIm semIm) {
-        double min = Double.POSITIVE_INFINITY;
-        double[] point = null;
+        List<Callable<PointValuePair>> restarts = new ArrayList<>();
 
         for (int count = 0; count < numRestarts + 1; count++) {
-//            System.out.println("Trial " + (count + 1));
-            SemIm _sem2 = new SemIm(semIm);
+            final SemIm _sem2 = new SemIm(semIm);
 
             List<Parameter> freeParameters = _sem2.getFreeParameters();
 
@@ -83,28 +87,30 @@ public class SemOptimizerPowell implements SemOptimizer {
 
             _sem2.setFreeParamValues(p);
 
-            MultivariateOptimizer search = new PowellOptimizer(1e-7, 1e-7);
-            PointValuePair pair = search.optimize(
-                    new InitialGuess(_sem2.getFreeParamValues()),
-                    new ObjectiveFunction(fittingFunction(semIm)),
-                    GoalType.MINIMIZE,
-                    new MaxEval(100000)
-            );
+            restarts.add(() -> {
+                MultivariateOptimizer search = new PowellOptimizer(1e-7, 1e-7);
+                return search.optimize(
+                        new InitialGuess(_sem2.getFreeParamValues()),
+                        new ObjectiveFunction(fittingFunction(_sem2)),
+                        GoalType.MINIMIZE,
+                        new MaxEval(100000)
+                );
+            });
+        }
 
-            double chisq = _sem2.getChiSquare();
-//            System.out.println("chisq = " + chisq);
+        PointValuePair best = null;
 
-            if (chisq < min) {
-                min = chisq;
-                point = pair.getPoint();
+        for (PointValuePair pair : ParallelRestarts.run(restarts)) {
+            if (best == null || pair.getValue() < best.getValue()) {
+                best = pair;
             }
         }
 
-        if (point == null) {
+        if (best == null) {
             throw new NullPointerException("Point could not be found.");
         }
 
-        System.arraycopy(point, 0, semIm.getFreeParamValues(), 0, point.length);
+        semIm.setFreeParamValues(best.getPoint());
     }
 
     public String toString() {
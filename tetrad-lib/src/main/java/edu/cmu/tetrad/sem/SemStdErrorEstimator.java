@@ -115,6 +115,12 @@ public class SemStdErrorEstimator {
             }
         }
 
+        // Every second difference is taken around the estimate, so its value is computed once.
+        // Each perturbed evaluation moves one or two parameters from there; for an acyclic SEM,
+        // SemIm then updates only the part of the implied covariance matrix they affect,
+        // reusing the rest from the estimate's.
+        double center = fcn.evaluate(params.clone());
+
         for (int i = 0; i < n; i++) {
             for (int j = i; j < n; j++) {
                 Parameter pi = freeParameters.get(i);
@@ -135,9 +141,9 @@ public class SemStdErrorEstimator {
                 double v;
 
                 if (ridder) {
-                    v = secondPartialDerivativeRidr(fcn, i, j, params, delta);
+                    v = secondPartialDerivativeRidr(fcn, i, j, params, center, delta);
                 } else {
-                    v = secondPartialDerivative(fcn, i, j, params, delta);
+                    v = secondPartialDerivative(fcn, i, j, params, center, delta);
                 }
 
                 if (Math.abs(v) < 1e-7) {
@@ -224,12 +230,10 @@ public class SemStdErrorEstimator {
      * example Section 5.7 of Numerical Recipes in C.
      */
     private double secondPartialDerivative(FittingFunction f, int i, int j,
-                                           double[] p, double delt) {
+                                           double[] p, double center, double delt) {
         double[] arg = new double[p.length];
         System.arraycopy(p, 0, arg, 0, p.length);
 
-        double center = f.evaluate(arg);
-
         arg[i] += delt;
         arg[j] += delt;
         double ff1 = f.evaluate(arg);
@@ -274,7 +278,7 @@ public class SemStdErrorEstimator {
      * be adequately accurate and faster that this one.
      */
     private double secondPartialDerivativeRidr(FittingFunction f, int i, int j,
-                                               double[] args, double delt) {
+                                               double[] args, double center, double delt) {
 
         double[] arg = new double[args.length];
         double[][] a = new double[NTAB][NTAB];
@@ -285,8 +289,6 @@ public class SemStdErrorEstimator {
 
         System.arraycopy(args, 0, arg, 0, args.length);
 
-        double center = f.evaluate(arg);
-
         arg[i] += delt;
         arg[j] += delt;
         double ff1 = f.evaluate(arg);
@@ -0,0 +1,243 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.sem;
+
+import edu.cmu.tetrad.util.Matrix;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the implied covariance matrix of an acyclic SEM up to date as its parameters change,
+ * using the sparsity of the edge coefficient matrix B and the error covariance matrix Omega.
+ * <p>
+ * With the variables in causal order, write A = (I - B')^-1 Omega. Then A and the implied
+ * covariance Sigma = A (I - B')^-T can be filled in a row at a time:
+ * <pre>
+ *     A[k][j] = Omega[k][j] + sum over parents q of k of B[q][k] A[q][j]
+ *     Sigma[j][k] = A[k][j] + sum over parents p of j of B[p][j] Sigma[p][k]
+ * </pre>
+ * for k no later than j in the order. This takes time proportional to the number of variables
+ * times the number of variables plus edges, where inverting I - B takes time cubic in the
+ * number of variables. Moreover, an entry of Sigma for two variables depends only on parameters
+ * for those variables and variables earlier in the order, so when parameters change, only the
+ * rows from the first variable they touch on need to be redone. Optimizers that move a few
+ * parameters at a time, and numerical derivatives, mostly redo a fraction of the matrix.
+ * <p>
+ * Changes are found by comparing B and Omega against the values they had at the last update.
+ * If B is cyclic, update returns null, and the caller should fall back to inverting I - B.
+ */
+final class SparseImpliedCovar {
+
+    private final int numVars;
+
+    // B and Omega as of the last update, or null before the first.
+    private double[][] lastEdgeCoef;
+    private double[][] lastErrCovar;
+
+    // The causal order of the variables, and each variable's place in it.
+    private int[] order;
+    private int[] position;
+
+    // The parents of each variable--the nonzero entries in its column of B.
+    private int[][] parents;
+
+    private final double[][] a;
+    private final double[][] sigma;
+
+    /**
+     * @param numVars The number of variables in the SEM.
+     */
+    SparseImpliedCovar(int numVars) {
+        this.numVars = numVars;
+        this.a = new double[numVars][numVars];
+        this.sigma = new double[numVars][numVars];
+    }
+
+    /**
+     * Brings the implied covariance matrix up to date with the given parameter values.
+     *
+     * @param edgeCoef B, where B[p][j] is the coefficient of the edge from p to j.
+     * @param errCovar Omega, the covariance matrix of the errors.
+     * @return the implied covariance matrix, or null if B is cyclic.
+     */
+    Matrix update(Matrix edgeCoef, Matrix errCovar) {
+        if (edgeCoef.rows() != numVars || errCovar.rows() != numVars) {
+            throw new IllegalArgumentException("Expecting " + numVars + " variables.");
+        }
+
+        double[][] b = edgeCoef.toArray();
+        double[][] omega = errCovar.toArray();
+
+        checkDefined(b, omega);
+
+        int from;
+
+        if (lastEdgeCoef == null || !samePattern(b, lastEdgeCoef)) {
+            if (!sortCausally(b)) {
+                lastEdgeCoef = null;
+                return null;
+            }
+
+            from = 0;
+        } else {
+            from = firstChange(b, omega);
+        }
+
+        for (int t = from; t < numVars; t++) {
+            int j = order[t];
+
+            // Column j of A, down to row j.
+            for (int s = 0; s <= t; s++) {
+                int k = order[s];
+                double sum = omega[k][j];
+
+                for (int q : parents[k]) {
+                    sum += b[q][k] * a[q][j];
+                }
+
+                a[k][j] = sum;
+            }
+
+            // Row j of Sigma, across to column j.
+            for (int s = 0; s <= t; s++) {
+                int k = order[s];
+                double sum = a[k][j];
+
+                for (int p : parents[j]) {
+                    sum += b[p][j] * sigma[p][k];
+                }
+
+                sigma[j][k] = sum;
+                sigma[k][j] = sum;
+            }
+        }
+
+        lastEdgeCoef = b;
+        lastErrCovar = omega;
+
+        return new Matrix(sigma);
+    }
+
+    private void checkDefined(double[][] b, double[][] omega) {
+        for (int i = 0; i < numVars; i++) {
+            for (int j = 0; j < numVars; j++) {
+                if (Double.isNaN(b[i][j])) {
+                    throw new IllegalArgumentException("Edge coefficient matrix must not "
+                            + "contain undefined values. Probably the search put them "
+                            + "there.");
+                }
+
+                if (Double.isNaN(omega[i][j])) {
+                    throw new IllegalArgumentException("Error covariance matrix must not "
+                            + "contain undefined values. Probably the search put them "
+                            + "there.");
+                }
+            }
+        }
+    }
+
+    // True if b has nonzero entries where last does and nowhere else.
+    private boolean samePattern(double[][] b, double[][] last) {
+        for (int i = 0; i < numVars; i++) {
+            for (int j = 0; j < numVars; j++) {
+                if ((b[i][j] != 0.0) != (last[i][j] != 0.0)) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    // The earliest place in the order of a variable whose parameters have changed since the last
+    // update, or numVars if none have.
+    private int firstChange(double[][] b, double[][] omega) {
+        int from = numVars;
+
+        for (int i = 0; i < numVars; i++) {
+            for (int j = 0; j < numVars; j++) {
+                if (b[i][j] != lastEdgeCoef[i][j]) {
+                    from = Math.min(from, position[j]);
+                }
+
+                if (omega[i][j] != lastErrCovar[i][j]) {
+                    from = Math.min(from, Math.min(position[i], position[j]));
+                }
+            }
+        }
+
+        return from;
+    }
+
+    // Finds parents from the nonzero entries of b and sorts the variables so parents come before
+    // children; returns false if there's a cycle.
+    private boolean sortCausally(double[][] b) {
+        parents = new int[numVars][];
+        int[] numParents = new int[numVars];
+        List<List<Integer>> children = new ArrayList<>();
+
+        for (int j = 0; j < numVars; j++) {
+            List<Integer> _parents = new ArrayList<>();
+
+            for (int p = 0; p < numVars; p++) {
+                if (b[p][j] != 0.0) _parents.add(p);
+            }
+
+            parents[j] = new int[_parents.size()];
+            for (int k = 0; k < _parents.size(); k++) parents[j][k] = _parents.get(k);
+            numParents[j] = _parents.size();
+            children.add(new ArrayList<>());
+        }
+
+        for (int j = 0; j < numVars; j++) {
+            for (int p : parents[j]) children.get(p).add(j);
+        }
+
+        order = new int[numVars];
+        position = new int[numVars];
+        int head = 0;
+        int tail = 0;
+
+        for (int j = 0; j < numVars; j++) {
+            if (numParents[j] == 0) order[tail++] = j;
+        }
+
+        while (head < tail) {
+            int p = order[head++];
+
+            for (int j : children.get(p)) {
+                if (--numParents[j] == 0) order[tail++] = j;
+            }
+        }
+
+        if (tail < numVars) {
+            return false;
+        }
+
+        for (int t = 0; t < numVars; t++) {
+            position[order[t]] = t;
+        }
+
+        return true;
+    }
+}
@@ -18,6 +18,8 @@
  */
 package edu.cmu.tetrad.stat;
 
+import edu.cmu.tetrad.util.ForkJoinPoolInstance;
+
 import java.util.concurrent.ForkJoinPool;
 import static java.util.concurrent.ForkJoinTask.invokeAll;
 import java.util.concurrent.RecursiveAction;
@@ -49,10 +51,9 @@ public class RealVarianceVectorForkJoin implements RealVariance {
     public double[] compute(boolean biasCorrected) {
         double[] means = new double[numOfCols];
 
-        ForkJoinPool pool = new ForkJoinPool(numOfThreads);
+        ForkJoinPool pool = ForkJoinPoolInstance.getInstance().getPool(numOfThreads);
         pool.invoke(new MeanAction(data, means, 0, numOfCols - 1));
         pool.invoke(new VarianceAction(data, means, biasCorrected, 0, numOfCols - 1));
-        pool.shutdown();
 
         return means;
     }
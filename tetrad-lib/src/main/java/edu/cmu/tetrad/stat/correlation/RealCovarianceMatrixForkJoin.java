@@ -18,6 +18,8 @@
  */
 package edu.cmu.tetrad.stat.correlation;
 
+import edu.cmu.tetrad.util.ForkJoinPoolInstance;
+
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ForkJoinPool;
@@ -53,10 +55,9 @@ public class RealCovarianceMatrixForkJoin implements RealCovariance {
         double[] covarianceMatrix = new double[(numOfCols * (numOfCols + 1)) / 2];
         double[] means = new double[numOfCols];
 
-        final ForkJoinPool pool = new ForkJoinPool(this.numOfThreads);
+        final ForkJoinPool pool = ForkJoinPoolInstance.getInstance().getPool(this.numOfThreads);
         pool.invoke(new MeanAction(means, data, 0, numOfCols - 1));
         pool.invoke(new CovarianceLowerTriangleAction(covarianceMatrix, means, 0, numOfCols - 1, biasCorrected));
-        pool.shutdown();
 
         return covarianceMatrix;
     }
@@ -66,10 +67,9 @@ public class RealCovarianceMatrixForkJoin implements RealCovariance {
         double[][] covarianceMatrix = new double[numOfCols][numOfCols];
         double[] means = new double[numOfCols];
 
-        final ForkJoinPool pool = new ForkJoinPool(this.numOfThreads);
+        final ForkJoinPool pool = ForkJoinPoolInstance.getInstance().getPool(this.numOfThreads);
         pool.invoke(new MeanAction(means, data, 0, numOfCols - 1));
         pool.invoke(new CovarianceAction(covarianceMatrix, means, 0, numOfCols - 1, biasCorrected));
-        pool.shutdown();
 
         return covarianceMatrix;
     }
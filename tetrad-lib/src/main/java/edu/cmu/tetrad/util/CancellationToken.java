@@ -0,0 +1,122 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tells a running search that it should stop. A token is cancelled when cancel() is called,
+ * when its deadline (if any) passes, or when a thread checking it finds itself interrupted.
+ * Searches check the token at loop boundaries--each depth of an adjacency search, each step
+ * of FGES, each node in an orientation pass--and when it is cancelled stop and return the best
+ * graph they have so far, reporting it as partial.
+ * <p>
+ * Interruption alone does not reach worker threads in a ForkJoinPool, so a token latches the
+ * first interruption it sees; after that every thread checking it finds it cancelled.
+ * <p>
+ * Searches that are not handed a token explicitly use the one set for the constructing
+ * thread by setCurrent(), if any, so a caller such as TimeoutComparison can put a time budget
+ * on an algorithm without reaching into the searches it builds.
+ */
+public final class CancellationToken {
+
+    private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<>();
+
+    // System.nanoTime() at which the token is cancelled, if hasDeadline.
+    private final long deadline;
+    private final boolean hasDeadline;
+
+    private volatile boolean cancelled = false;
+
+    /**
+     * Constructs a token with no deadline; it is cancelled only by cancel() or interruption.
+     */
+    public CancellationToken() {
+        this.deadline = 0L;
+        this.hasDeadline = false;
+    }
+
+    private CancellationToken(long deadline) {
+        this.deadline = deadline;
+        this.hasDeadline = true;
+    }
+
+    /**
+     * @return a token that is cancelled once the given time has passed.
+     */
+    public static CancellationToken withTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0) throw new IllegalArgumentException("Timeout must be >= 0: " + timeout);
+        return new CancellationToken(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * @return the token set for this thread, or a new token with no deadline if none is set.
+     */
+    public static CancellationToken current() {
+        CancellationToken token = CURRENT.get();
+        return token == null ? new CancellationToken() : token;
+    }
+
+    /**
+     * Sets the token searches constructed on this thread will use; null clears it.
+     *
+     * @return the token that was set before, or null, so that it can be restored.
+     */
+    public static CancellationToken setCurrent(CancellationToken token) {
+        CancellationToken previous = CURRENT.get();
+
+        if (token == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(token);
+        }
+
+        return previous;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return true if the search should stop.
+     */
+    public boolean isCancelled() {
+        if (cancelled) return true;
+
+        if ((hasDeadline && System.nanoTime() - deadline >= 0) || Thread.currentThread().isInterrupted()) {
+            cancelled = true;
+        }
+
+        return cancelled;
+    }
+
+    /**
+     * @return the time left before the deadline, in the given unit; Long.MAX_VALUE if there is
+     * no deadline, 0 if the token has been cancelled.
+     */
+    public long getRemaining(TimeUnit unit) {
+        if (isCancelled()) return 0L;
+        if (!hasDeadline) return Long.MAX_VALUE;
+        return unit.convert(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+}
@@ -113,6 +113,51 @@ public final class ChoiceGenerator {
         begun = false;
     }
 
+    /**
+     * Constructs a new choice generator for a choose b whose series begins
+     * at the combination with the given index in the full series (counting
+     * from zero), so that the full series may be split into ranges and
+     * enumerated in pieces.
+     *
+     * @param a     the number of objects being selected from.
+     * @param b     the number of objects in the desired selection.
+     * @param first the index of the first combination to return; must be
+     *              less than getNumCombinationsExact(a, b).
+     */
+    public ChoiceGenerator(int a, int b, long first) {
+        this(a, b);
+
+        if (first < 0 || first >= getNumCombinationsExact(a, b)) {
+            throw new IllegalArgumentException("Index out of range for " + a
+                    + " choose " + b + ": " + first);
+        }
+
+        if (b == 0) {
+            return;
+        }
+
+        // Find the combination at the given index, choosing each entry in
+        // turn by skipping over the blocks of combinations that begin with
+        // smaller values.
+        long rank = first;
+        int v = 0;
+
+        for (int i = 0; i < b; i++) {
+            while (true) {
+                long count = getNumCombinationsExact(a - v - 1, b - i - 1);
+                if (rank < count) break;
+                rank -= count;
+                v++;
+            }
+
+            choiceLocal[i] = v++;
+        }
+
+        // As above, back the last index off by one so that the first call to
+        // next() returns this combination.
+        choiceLocal[b - 1]--;
+    }
+
     /**
      * @return the next combination in the series, or null if the series is
      * finished.
@@ -209,6 +254,23 @@ public final class ChoiceGenerator {
     public static int getNumCombinations(int a, int b) {
         return (int) round(exp(lngamma(a + 1) - lngamma(b + 1) - lngamma((a - b) + 1)));
     }
+
+    /**
+     * @return the number of combinations of a choose b, computed exactly.
+     * @throws ArithmeticException if the number does not fit in a long.
+     */
+    public static long getNumCombinationsExact(int a, int b) {
+        if (b < 0 || b > a) return 0;
+        b = Math.min(b, a - b);
+        long count = 1;
+
+        for (int i = 0; i < b; i++) {
+            // Each partial product is itself a binomial coefficient, so the division is exact.
+            count = Math.multiplyExact(count, a - i) / (i + 1);
+        }
+
+        return count;
+    }
 }
 
 
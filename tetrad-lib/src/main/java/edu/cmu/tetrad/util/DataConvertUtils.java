@@ -19,6 +19,7 @@
 package edu.cmu.tetrad.util;
 
 import edu.cmu.tetrad.data.BoxDataSet;
+import edu.cmu.tetrad.data.ColumnarDataBox;
 import edu.cmu.tetrad.data.ContinuousVariable;
 import edu.cmu.tetrad.data.CovarianceMatrix;
 import edu.cmu.tetrad.data.DataBox;
@@ -33,6 +34,7 @@ import edu.pitt.dbmi.data.reader.ContinuousData;
 import edu.pitt.dbmi.data.reader.Data;
 import edu.pitt.dbmi.data.reader.DataColumn;
 import edu.pitt.dbmi.data.reader.DiscreteDataColumn;
+import edu.pitt.dbmi.data.reader.columnar.ColumnarData;
 import edu.pitt.dbmi.data.reader.covariance.CovarianceData;
 import edu.pitt.dbmi.data.reader.metadata.ColumnMetadata;
 import edu.pitt.dbmi.data.reader.metadata.Metadata;
@@ -54,7 +56,9 @@ public class DataConvertUtils {
     }
 
     public static DataModel toDataModel(Data data, Metadata metadata) {
-        if (data instanceof ContinuousData) {
+        if (data instanceof ColumnarData) {
+            return toColumnarDataModel((ColumnarData) data);
+        } else if (data instanceof ContinuousData) {
             return toContinuousDataModel((ContinuousData) data);
         } else if (data instanceof VerticalDiscreteTabularData) {
             return toVerticalDiscreteDataModel((VerticalDiscreteTabularData) data, metadata);
@@ -68,7 +72,9 @@ public class DataConvertUtils {
     }
 
     public static DataModel toDataModel(Data data) {
-        if (data instanceof ContinuousData) {
+        if (data instanceof ColumnarData) {
+            return toColumnarDataModel((ColumnarData) data);
+        } else if (data instanceof ContinuousData) {
             return toContinuousDataModel((ContinuousData) data);
         } else if (data instanceof VerticalDiscreteTabularData) {
             return toVerticalDiscreteDataModel((VerticalDiscreteTabularData) data);
@@ -81,6 +87,33 @@ public class DataConvertUtils {
         }
     }
 
+    /**
+     * Wraps columnar data, which is read from its file as it is used, using the
+     * interventional columns stored with it.
+     *
+     * @param dataset
+     * @return
+     */
+    public static DataModel toColumnarDataModel(ColumnarData dataset) {
+        Node[] nodes = Arrays.stream(dataset.getDataColumns())
+                .map(e -> e.getDataColumn().isDiscrete()
+                ? new DiscreteVariable(e.getDataColumn().getName(), e.getCategories())
+                : new ContinuousVariable(e.getDataColumn().getName()))
+                .toArray(Node[]::new);
+
+        dataset.getMetadata().getInterventionalColumns().forEach(e -> {
+            if (e.getStatusColumn() != null) {
+                nodes[e.getStatusColumn().getColumnNumber() - 1].setNodeVariableType(NodeVariableType.INTERVENTION_STATUS);
+            }
+            if (e.getValueColumn() != null) {
+                nodes[e.getValueColumn().getColumnNumber() - 1].setNodeVariableType(NodeVariableType.INTERVENTION_VALUE);
+            }
+        });
+
+        List<Node> nodeList = Arrays.asList(nodes);
+        return new BoxDataSet(new ColumnarDataBox(dataset, nodeList), nodeList);
+    }
+
     public static DataModel toCovarianceMatrix(CovarianceData dataset) {
         List<Node> variables = toNodes(dataset.getVariables());
         Matrix matrix = new Matrix(dataset.getData());
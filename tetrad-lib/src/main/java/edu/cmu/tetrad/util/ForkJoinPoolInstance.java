@@ -21,26 +21,110 @@
 
 package edu.cmu.tetrad.util;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
- * Static instance of a ForkJoinPool. Not sure this is necessary.
+ * The pools parallel code in Tetrad runs on.
+ * <p>
+ * The parallelism--the number of threads a job may use in all--is read from the system property
+ * tetrad.parallelism, failing that from the same key in tetrad-lib.properties, and otherwise is the
+ * number of available processors; set it lower to share a machine with other jobs. getPool() returns
+ * a pool with that many threads; getPool(maxThreads) returns one with no more than maxThreads, for a
+ * job that should be capped. One pool of each size is created and shared.
+ * <p>
+ * Called from a task already running on one of these pools, either method returns that task's pool,
+ * so nested parallel code (a parallel search on each bootstrap sample, say) runs on the threads of
+ * the enclosing job instead of starting more of its own.
+ * <p>
+ * The pools are shared and must not be shut down.
  * Created by josephramsey on 2/7/15.
  */
 public class ForkJoinPoolInstance {
+
+    /**
+     * The system property (or tetrad-lib.properties key) giving the parallelism.
+     */
+    public static final String PARALLELISM_PROPERTY = "tetrad.parallelism";
+
     private static final ForkJoinPoolInstance INSTANCE = new ForkJoinPoolInstance();
-    private final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
 
-    private ForkJoinPoolInstance() {
+    private final int parallelism;
+    private final ForkJoinPool pool;
+    private final ConcurrentMap<Integer, ForkJoinPool> cappedPools = new ConcurrentHashMap<>();
 
+    private ForkJoinPoolInstance() {
+        this.parallelism = configuredParallelism();
+        this.pool = new ForkJoinPool(parallelism);
     }
 
     public static ForkJoinPoolInstance getInstance() {
         return INSTANCE;
     }
 
+    /**
+     * @return the pool for the current job: the enclosing pool if called from one of these pools,
+     * otherwise the pool with the configured parallelism.
+     */
     public ForkJoinPool getPool() {
-        return pool;
+        return getPool(parallelism);
     }
-}
 
+    /**
+     * @param maxThreads The most threads the job should use; a cap above the configured parallelism
+     *                   is lowered to it.
+     * @return the enclosing pool if called from one of these pools, otherwise a pool with
+     * min(maxThreads, parallelism) threads.
+     */
+    public ForkJoinPool getPool(int maxThreads) {
+        if (maxThreads < 1) throw new IllegalArgumentException("Max threads must be at least 1: " + maxThreads);
+
+        ForkJoinPool enclosing = ForkJoinTask.getPool();
+
+        if (enclosing != null && (enclosing == pool || cappedPools.containsValue(enclosing))) {
+            return enclosing;
+        }
+
+        if (maxThreads >= parallelism) {
+            return pool;
+        }
+
+        return cappedPools.computeIfAbsent(maxThreads, ForkJoinPool::new);
+    }
+
+    /**
+     * @return the configured number of threads a job may use.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    private static int configuredParallelism() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        String value = System.getProperty(PARALLELISM_PROPERTY);
+
+        if (value == null) {
+            value = TetradProperties.getInstance().getValue(PARALLELISM_PROPERTY);
+        }
+
+        if (value == null || value.trim().isEmpty()) {
+            return processors;
+        }
+
+        try {
+            int parallelism = Integer.parseInt(value.trim());
+
+            if (parallelism > 0) {
+                return parallelism;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below.
+        }
+
+        System.err.println("Expecting a positive integer for " + PARALLELISM_PROPERTY + ", not '" + value
+                + "'; using " + processors + ".");
+        return processors;
+    }
+}
@@ -41,6 +41,7 @@ public final class Params {
     public static final String APPLY_R1 = "applyR1";
     public static final String AVG_DEGREE = "avgDegree";
     public static final String BASIS_TYPE = "basisType";
+    public static final String CACHE_SCORES = "cacheScores";
     public static final String CCI_SCORE_ALPHA = "cciScoreAlpha";
     public static final String CG_EXACT = "cgExact";
     public static final String COEF_HIGH = "coefHigh";
@@ -102,6 +103,7 @@ public final class Params {
     public static final String KCI_NUM_BOOTSTRAPS = "kciNumBootstraps";
     public static final String KCI_USE_APPROMATION = "kciUseAppromation";
     public static final String KERNEL_MULTIPLIER = "kernelMultiplier";
+    public static final String KERNEL_RANK = "kernelRank";
     public static final String KERNEL_REGRESSION_SAMPLE_SIZE = "kernelRegressionSampleSize";
     public static final String KERNEL_TYPE = "kernelType";
     public static final String KERNEL_WIDTH = "kernelWidth";
@@ -142,6 +144,7 @@ public final class Params {
     public static final String ORIENT_TOWARD_DCONNECTIONS = "orientTowardDConnections";
     public static final String ORIENT_VISIBLE_FEEDBACK_LOOPS = "orientVisibleFeedbackLoops";
     public static final String OUTPUT_RBD = "outputRBD";
+    public static final String PARALLELISM = "parallelism";
     public static final String PENALTY_DISCOUNT = "penaltyDiscount";
     public static final String PERCENT_DISCRETE = "percentDiscrete";
     public static final String PERCENT_RESAMPLE_SIZE = "percentResampleSize";
@@ -174,6 +177,8 @@ public final class Params {
     public static final String THRESHOLD_NO_RANDOM_DATA_SEARCH = "thresholdNoRandomDataSearch";
     public static final String TWO_CYCLE_ALPHA = "twoCycleAlpha";
     public static final String UPPER_BOUND = "upperBound";
+    public static final String USE_AD_TREE = "useAdTree";
+    public static final String USE_CHOLESKY_CACHE = "useCholeskyCache";
     public static final String USE_CORR_DIFF_ADJACENCIES = "useCorrDiffAdjacencies";
     public static final String USE_FAS_ADJACENCIES = "useFasAdjacencies";
     public static final String USE_FDR_FOR_INDEPENDENCE = "useFdrForIndependence";
@@ -192,7 +197,7 @@ public final class Params {
     // All parameters that are found in HTML manual documentation
     private static final Set<String> ALL_PARAMS_IN_HTML_MANUAL = new HashSet<>(Arrays.asList(
             ADD_ORIGINAL_DATASET, ALPHA, APPLY_R1, AVG_DEGREE, BASIS_TYPE,
-            CCI_SCORE_ALPHA, CG_EXACT, COEF_HIGH, COEF_LOW, COEF_SYMMETRIC,
+            CACHE_SCORES, CCI_SCORE_ALPHA, CG_EXACT, COEF_HIGH, COEF_LOW, COEF_SYMMETRIC,
             COLLIDER_DISCOVERY_RULE, COMPLETE_RULE_SET_USED, CONCURRENT_FAS,
             CONFLICT_RULE, CONNECTED, COV_HIGH, COV_LOW, COV_SYMMETRIC,
             CUTOFF_CONSTRAIN_SEARCH, CUTOFF_DATA_SEARCH, CUTOFF_IND_TEST,
@@ -205,7 +210,7 @@ public final class Params {
             INCLUDE_POSITIVE_SKEWS_FOR_BETA, INCLUDE_STRUCTURE_MODEL,
             INTERVAL_BETWEEN_RECORDINGS, INTERVAL_BETWEEN_SHOCKS, IPEN, IS, ITR,
             KCI_ALPHA, KCI_CUTOFF, KCI_EPSILON, KCI_NUM_BOOTSTRAPS, KCI_USE_APPROMATION,
-            KERNEL_MULTIPLIER, KERNEL_REGRESSION_SAMPLE_SIZE, KERNEL_TYPE, KERNEL_WIDTH,
+            KERNEL_MULTIPLIER, KERNEL_RANK, KERNEL_REGRESSION_SAMPLE_SIZE, KERNEL_TYPE, KERNEL_WIDTH,
             LATENT_MEASURED_IMPURE_PARENTS, LOWER_BOUND, MAX_CATEGORIES, MAX_DEGREE,
             MAX_DISTINCT_VALUES_DISCRETE, MAX_INDEGREE, MAX_ITERATIONS, MAX_OUTDEGREE,
             MAX_P_ORIENTATION_MAX_PATH_LENGTH, MAX_PATH_LENGTH, MAXIT, MEAN_HIGH,
@@ -215,7 +220,7 @@ public final class Params {
             NUM_BSC_BOOTSTRAP_SAMPLES, NUM_CATEGORIES, NUM_CATEGORIES_TO_DISCRETIZE, NUM_LAGS,
             NUM_LATENTS, NUM_MEASURES, NUM_RANDOMIZED_SEARCH_MODELS, NUM_RUNS,
             NUM_STRUCTURAL_EDGES, NUM_STRUCTURAL_NODES, NUMBER_RESAMPLING,
-            ORIENT_TOWARD_DCONNECTIONS, ORIENT_VISIBLE_FEEDBACK_LOOPS, OUTPUT_RBD,
+            ORIENT_TOWARD_DCONNECTIONS, ORIENT_VISIBLE_FEEDBACK_LOOPS, OUTPUT_RBD, PARALLELISM,
             PENALTY_DISCOUNT, PERCENT_DISCRETE, PERCENT_RESAMPLE_SIZE, POSSIBLE_DSEP_DONE,
             PROB_CYCLE, PROB_TWO_CYCLE, RANDOM_SELECTION_SIZE, RANDOMIZE_COLUMNS,
             RCIT_NUM_FEATURES, RESAMPLING_ENSEMBLE, RESAMPLING_WITH_REPLACEMENT, PRIOR_EQUIVALENT_SAMPLE_SIZE,
@@ -223,7 +228,7 @@ public final class Params {
             SCALE_FREE_DELTA_OUT, SELF_LOOP_COEF, SKIP_NUM_RECORDS, STABLE_FAS, STANDARDIZE,
             STRUCTURE_PRIOR, SYMMETRIC_FIRST_STEP, TARGET_NAME, THR, THRESHOLD_FOR_NUM_EIGENVALUES,
             THRESHOLD_NO_RANDOM_CONSTRAIN_SEARCH, THRESHOLD_NO_RANDOM_DATA_SEARCH, TWO_CYCLE_ALPHA,
-            UPPER_BOUND, USE_CORR_DIFF_ADJACENCIES, USE_FAS_ADJACENCIES, USE_GAP,
+            UPPER_BOUND, USE_AD_TREE, USE_CHOLESKY_CACHE, USE_CORR_DIFF_ADJACENCIES, USE_FAS_ADJACENCIES, USE_GAP,
             USE_MAX_P_ORIENTATION_HEURISTIC, USE_SKEW_ADJACENCIES, USE_WISHART, VAR_HIGH,
             VAR_LOW, VERBOSE
     ));
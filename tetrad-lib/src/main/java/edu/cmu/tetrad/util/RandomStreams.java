@@ -0,0 +1,178 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.util;
+
+import org.apache.commons.math3.random.AbstractRandomGenerator;
+import org.apache.commons.math3.random.RandomGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Independent random streams split from one seed, for simulations that fill a sample in blocks
+ * of rows in parallel.
+ * <p>
+ * The sample is cut into blocks of a fixed size, and block b draws only from stream b, the b'th
+ * stream split from a SplittableRandom seeded with the given seed. Since neither the blocks nor
+ * their streams depend on how many threads do the work or in what order, a simulation run this
+ * way gives bit-for-bit the same data for a seed whatever the parallelism. No stream is shared,
+ * so the blocks don't contend on a lock the way draws from the RandomUtil singleton do.
+ */
+public class RandomStreams {
+
+    /**
+     * The number of rows in a block, by default.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 1000;
+
+    private final long seed;
+    private final int blockSize;
+
+    /**
+     * Constructs streams for the given seed with the default block size.
+     *
+     * @param seed The seed the streams are split from.
+     */
+    public RandomStreams(long seed) {
+        this(seed, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param seed      The seed the streams are split from.
+     * @param blockSize The number of rows in a block. This is part of what the data depend on; a
+     *                  different block size gives different data for the same seed.
+     */
+    public RandomStreams(long seed, int blockSize) {
+        if (blockSize < 1) throw new IllegalArgumentException("Block size must be at least 1: " + blockSize);
+        this.seed = seed;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * A block of rows, with the stream it is to draw from.
+     */
+    public interface Block {
+
+        /**
+         * Simulates rows from (inclusive) to to (exclusive), drawing only from the given stream.
+         */
+        void simulate(int from, int to, RandomGenerator random);
+    }
+
+    /**
+     * Runs the given block over rows 0 to sampleSize - 1, one task per block of rows, on the
+     * pool from ForkJoinPoolInstance.
+     *
+     * @param sampleSize The number of rows.
+     * @param block      Fills in a block of rows; calls for different blocks run concurrently
+     *                   and must write to disjoint rows.
+     */
+    public void simulate(int sampleSize, final Block block) {
+        if (sampleSize < 0) throw new IllegalArgumentException("Sample size must be non-negative: " + sampleSize);
+
+        int numBlocks = (sampleSize + blockSize - 1) / blockSize;
+        SplittableRandom root = new SplittableRandom(seed);
+
+        if (numBlocks == 1) {
+            block.simulate(0, sampleSize, new Stream(root.split()));
+            return;
+        }
+
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+
+        for (int b = 0; b < numBlocks; b++) {
+            final int from = b * blockSize;
+            final int to = Math.min(sampleSize, from + blockSize);
+            final RandomGenerator random = new Stream(root.split());
+
+            tasks.add(() -> {
+                block.simulate(from, to, random);
+                return true;
+            });
+        }
+
+        List<Future<Boolean>> futures = ForkJoinPoolInstance.getInstance().getPool().invokeAll(tasks);
+
+        for (Future<Boolean> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Simulation was interrupted.", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * @return the seed the streams are split from.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return the number of rows in a block.
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    // One block's stream. Normals come from AbstractRandomGenerator's polar method.
+    private static class Stream extends AbstractRandomGenerator {
+        private SplittableRandom random;
+
+        Stream(SplittableRandom random) {
+            this.random = random;
+        }
+
+        @Override
+        public void setSeed(long seed) {
+            clear();
+            this.random = new SplittableRandom(seed);
+        }
+
+        @Override
+        public double nextDouble() {
+            return random.nextDouble();
+        }
+
+        @Override
+        public int nextInt(int n) {
+            return random.nextInt(n);
+        }
+
+        @Override
+        public long nextLong() {
+            return random.nextLong();
+        }
+    }
+}
@@ -0,0 +1,514 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.util;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts and times what searches do--independence tests by conditioning set size, local
+ * scores and score cache hits, FAS time at each depth, FGES steps, and orientation rule
+ * firings--so that runs can be tuned from numbers rather than from log text.
+ * <p>
+ * Metrics are named; a counter or histogram is created the first time its name is used.
+ * Counters and histograms are striped (LongAdder) so threads recording at once do not
+ * contend. Recording is off until setEnabled(true) is called; while off, each recording
+ * call costs a read of one volatile field. Durations are recorded in nanoseconds.
+ * <p>
+ * Values can be read as a Snapshot, and differences of snapshots give the metrics for one
+ * run. While enabled they are also published over JMX, as attributes of the MBean
+ * edu.cmu.tetrad:type=SearchMetrics.
+ * <p>
+ * The metrics recorded by Tetrad's own searches and tests are:
+ * <ul>
+ * <li>independenceTests, and independenceTests.depth.n for conditioning sets of size n</li>
+ * <li>localScores; localScoreDiffs, for scores that compute differences directly; and
+ * scoreCache.hits and scoreCache.misses for CachedScore</li>
+ * <li>fas.depth.n, the time taken at each depth of the adjacency search</li>
+ * <li>fges.forward.steps, fges.backward.steps; histograms fges.forward, fges.backward for
+ * whole phases, fges.forward.step, fges.backward.step for each insertion or deletion, and
+ * fges.forward.rescore, fges.backward.rescore for the rescoring part of each step</li>
+ * <li>meek.r1, ..., meek.r4 and fciOrient.r0, ..., fciOrient.r10, the number of times each
+ * rule oriented an edge</li>
+ * </ul>
+ */
+public final class SearchMetrics {
+
+    private static final SearchMetrics INSTANCE = new SearchMetrics();
+
+    private static final String OBJECT_NAME = "edu.cmu.tetrad:type=SearchMetrics";
+
+    // Conditioning set sizes with their own pre-made counters.
+    private static final int MAX_CACHED_DEPTH = 32;
+
+    private volatile boolean enabled = false;
+
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    private final Counter independenceTests = counter("independenceTests");
+    private final Counter[] independenceTestsByDepth = new Counter[MAX_CACHED_DEPTH];
+    private final Counter localScores = counter("localScores");
+    private final Counter localScoreDiffs = counter("localScoreDiffs");
+
+    private boolean registered = false;
+
+    private SearchMetrics() {
+        for (int d = 0; d < MAX_CACHED_DEPTH; d++) {
+            independenceTestsByDepth[d] = counter("independenceTests.depth." + d);
+        }
+    }
+
+    /**
+     * @return the metrics for this JVM.
+     */
+    public static SearchMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns recording on or off. Turning it on the first time registers the JMX MBean.
+     */
+    public void setEnabled(boolean enabled) {
+        if (enabled) registerMBean();
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return the counter with the given name, creating it if need be.
+     */
+    public Counter counter(String name) {
+        Counter counter = counters.get(name);
+        if (counter != null) return counter;
+        return counters.computeIfAbsent(name, n -> new Counter());
+    }
+
+    /**
+     * @return the histogram with the given name, creating it if need be.
+     */
+    public Histogram histogram(String name) {
+        Histogram histogram = histograms.get(name);
+        if (histogram != null) return histogram;
+        return histograms.computeIfAbsent(name, n -> new Histogram());
+    }
+
+    /**
+     * Adds one to the named counter, if enabled.
+     */
+    public void count(String name) {
+        if (enabled) counter(name).increment();
+    }
+
+    /**
+     * Records in the named histogram the nanoseconds since startNanos, a value of
+     * System.nanoTime(), if enabled.
+     */
+    public void time(String name, long startNanos) {
+        if (enabled) histogram(name).record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records in the histogram named prefix.index the nanoseconds since startNanos, if
+     * enabled. The name is only built if it is needed.
+     */
+    public void time(String prefix, int index, long startNanos) {
+        if (enabled) histogram(prefix + "." + index).record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Counts an independence test with a conditioning set of the given size, if enabled.
+     */
+    public void independenceTest(int depth) {
+        if (!enabled) return;
+        independenceTests.increment();
+
+        if (depth < MAX_CACHED_DEPTH) {
+            independenceTestsByDepth[depth].increment();
+        } else {
+            counter("independenceTests.depth." + depth).increment();
+        }
+    }
+
+    /**
+     * Counts a local score calculation, if enabled.
+     */
+    public void localScore() {
+        if (enabled) localScores.increment();
+    }
+
+    /**
+     * Counts a local score difference calculated without calculating the two local scores,
+     * if enabled.
+     */
+    public void localScoreDiff() {
+        if (enabled) localScoreDiffs.increment();
+    }
+
+    /**
+     * @return the current values of all metrics.
+     */
+    public Snapshot snapshot() {
+        Map<String, Long> counts = new TreeMap<>();
+        Map<String, long[]> histogramData = new TreeMap<>();
+
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().get());
+        }
+
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            histogramData.put(entry.getKey(), entry.getValue().toArray());
+        }
+
+        return new Snapshot(counts, histogramData);
+    }
+
+    /**
+     * Sets all metrics to zero.
+     */
+    public void reset() {
+        for (Counter counter : counters.values()) counter.reset();
+        for (Histogram histogram : histograms.values()) histogram.reset();
+    }
+
+    //==================================PRIVATE METHODS=================================//
+
+    private synchronized void registerMBean() {
+        if (registered) return;
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MetricsMBean(), name);
+            }
+
+            registered = true;
+        } catch (JMException | SecurityException e) {
+            TetradLogger.getInstance().forceLogMessage("Could not register search metrics with JMX: " + e.getMessage());
+            registered = true;
+        }
+    }
+
+    //==================================PUBLIC CLASSES=================================//
+
+    /**
+     * A count that threads may add to at once.
+     */
+    public static final class Counter {
+        private final LongAdder count = new LongAdder();
+
+        private Counter() {
+        }
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(long n) {
+            count.add(n);
+        }
+
+        public long get() {
+            return count.sum();
+        }
+
+        private void reset() {
+            count.reset();
+        }
+    }
+
+    /**
+     * A histogram of non-negative values in power of two buckets--bucket k holding values v
+     * with 2^(k-1) <= v < 2^k, bucket 0 holding zero--with their count, sum and maximum.
+     * Threads may record into it at once.
+     */
+    public static final class Histogram {
+        private static final int NUM_BUCKETS = 64;
+
+        private final LongAdder[] buckets = new LongAdder[NUM_BUCKETS];
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        private Histogram() {
+            for (int k = 0; k < NUM_BUCKETS; k++) buckets[k] = new LongAdder();
+        }
+
+        public void record(long value) {
+            if (value < 0) value = 0;
+            buckets[64 - Long.numberOfLeadingZeros(value)].increment();
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        // Count, sum, max, then the buckets.
+        private long[] toArray() {
+            long[] data = new long[3 + NUM_BUCKETS];
+            long count = 0;
+
+            for (int k = 0; k < NUM_BUCKETS; k++) {
+                data[3 + k] = buckets[k].sum();
+                count += data[3 + k];
+            }
+
+            data[0] = count;
+            data[1] = sum.sum();
+            data[2] = max.get();
+            return data;
+        }
+
+        private void reset() {
+            for (LongAdder bucket : buckets) bucket.reset();
+            sum.reset();
+            max.reset();
+        }
+    }
+
+    /**
+     * The values of the metrics at one time.
+     * <p>
+     * getValue(name) gives the value of a counter; for a histogram it gives the number of
+     * values recorded, and name.count, name.sum, name.mean, name.max, name.p50, name.p90 and
+     * name.p99 give its statistics, percentiles being the upper bounds of their buckets.
+     */
+    public static final class Snapshot {
+        private final Map<String, Long> counts;
+        private final Map<String, long[]> histograms;
+
+        private Snapshot(Map<String, Long> counts, Map<String, long[]> histograms) {
+            this.counts = Collections.unmodifiableMap(counts);
+            this.histograms = Collections.unmodifiableMap(histograms);
+        }
+
+        /**
+         * @return the metrics recorded between the earlier snapshot and this one. Maxima are
+         * those of this snapshot.
+         */
+        public Snapshot minus(Snapshot earlier) {
+            Map<String, Long> counts = new TreeMap<>();
+            Map<String, long[]> histograms = new TreeMap<>();
+
+            for (Map.Entry<String, Long> entry : this.counts.entrySet()) {
+                Long before = earlier.counts.get(entry.getKey());
+                counts.put(entry.getKey(), entry.getValue() - (before == null ? 0 : before));
+            }
+
+            for (Map.Entry<String, long[]> entry : this.histograms.entrySet()) {
+                long[] data = entry.getValue().clone();
+                long[] before = earlier.histograms.get(entry.getKey());
+
+                if (before != null) {
+                    for (int i = 0; i < data.length; i++) {
+                        if (i != 2) data[i] -= before[i];
+                    }
+                }
+
+                histograms.put(entry.getKey(), data);
+            }
+
+            return new Snapshot(counts, histograms);
+        }
+
+        /**
+         * @return the value of the given metric, or NaN if there is no such metric.
+         */
+        public double getValue(String name) {
+            Long count = counts.get(name);
+            if (count != null) return count;
+
+            long[] data = histograms.get(name);
+            if (data != null) return data[0];
+
+            int dot = name.lastIndexOf('.');
+            if (dot == -1) return Double.NaN;
+
+            data = histograms.get(name.substring(0, dot));
+            if (data == null) return Double.NaN;
+
+            switch (name.substring(dot + 1)) {
+                case "count":
+                    return data[0];
+                case "sum":
+                    return data[1];
+                case "mean":
+                    return data[0] == 0 ? Double.NaN : data[1] / (double) data[0];
+                case "max":
+                    return data[2];
+                case "p50":
+                    return percentile(data, 0.5);
+                case "p90":
+                    return percentile(data, 0.9);
+                case "p99":
+                    return percentile(data, 0.99);
+                default:
+                    return Double.NaN;
+            }
+        }
+
+        /**
+         * @return the counter names.
+         */
+        public Set<String> getCounterNames() {
+            return counts.keySet();
+        }
+
+        /**
+         * @return the histogram names.
+         */
+        public Set<String> getHistogramNames() {
+            return histograms.keySet();
+        }
+
+        /**
+         * @return every value, counters by name and histogram statistics by name.statistic.
+         */
+        public Map<String, Double> getValues() {
+            Map<String, Double> values = new TreeMap<>();
+
+            for (String name : counts.keySet()) {
+                values.put(name, getValue(name));
+            }
+
+            for (String name : histograms.keySet()) {
+                for (String statistic : new String[]{"count", "sum", "mean", "max", "p50", "p90", "p99"}) {
+                    values.put(name + "." + statistic, getValue(name + "." + statistic));
+                }
+            }
+
+            return values;
+        }
+
+        public String toString() {
+            StringBuilder buf = new StringBuilder();
+
+            for (Map.Entry<String, Double> entry : getValues().entrySet()) {
+                if (entry.getValue() == 0 || Double.isNaN(entry.getValue())) continue;
+                buf.append(entry.getKey()).append(" = ").append(entry.getValue()).append("\n");
+            }
+
+            return buf.toString();
+        }
+
+        private static double percentile(long[] data, double q) {
+            if (data[0] == 0) return Double.NaN;
+            long target = (long) Math.ceil(q * data[0]);
+            long seen = 0;
+
+            for (int k = 0; k < data.length - 3; k++) {
+                seen += data[3 + k];
+                if (seen >= target) return k == 0 ? 0 : Math.min(Math.pow(2, k) - 1, data[2]);
+            }
+
+            return data[2];
+        }
+    }
+
+    //==================================PRIVATE CLASSES=================================//
+
+    // Publishes the metrics as read-only attributes, with an Enabled attribute and a reset
+    // operation.
+    private final class MetricsMBean implements DynamicMBean {
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            if ("Enabled".equals(attribute)) return enabled;
+            Double value = snapshot().getValues().get(attribute);
+            if (value == null) throw new AttributeNotFoundException(attribute);
+            return value;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException, InvalidAttributeValueException {
+            if (!"Enabled".equals(attribute.getName())) throw new AttributeNotFoundException(attribute.getName());
+            if (!(attribute.getValue() instanceof Boolean)) throw new InvalidAttributeValueException("Expecting a boolean.");
+            setEnabled((Boolean) attribute.getValue());
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+
+            for (String attribute : attributes) {
+                try {
+                    list.add(new Attribute(attribute, getAttribute(attribute)));
+                } catch (AttributeNotFoundException e) {
+                    // Left out, as the interface asks.
+                }
+            }
+
+            return list;
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            AttributeList set = new AttributeList();
+
+            for (Attribute attribute : attributes.asList()) {
+                try {
+                    setAttribute(attribute);
+                    set.add(attribute);
+                } catch (JMException e) {
+                    // Left out, as the interface asks.
+                }
+            }
+
+            return set;
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            if ("reset".equals(actionName)) {
+                reset();
+                return null;
+            }
+
+            throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            attributes.add(new MBeanAttributeInfo("Enabled", "boolean", "Whether metrics are recorded",
+                    true, true, true));
+
+            for (String name : snapshot().getValues().keySet()) {
+                attributes.add(new MBeanAttributeInfo(name, "double", name, true, false, false));
+            }
+
+            MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Sets all metrics to zero",
+                    new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION);
+
+            return new MBeanInfo(SearchMetrics.class.getName(), "Tetrad search metrics",
+                    attributes.toArray(new MBeanAttributeInfo[0]), null,
+                    new MBeanOperationInfo[]{reset}, null);
+        }
+    }
+}
@@ -7,8 +7,9 @@ import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import edu.cmu.tetrad.algcomparison.algorithm.Algorithm;
 import edu.cmu.tetrad.algcomparison.algorithm.MultiDataSetAlgorithm;
@@ -18,7 +19,11 @@ import edu.cmu.tetrad.data.DataUtils;
 import edu.cmu.tetrad.data.IKnowledge;
 import edu.cmu.tetrad.data.Knowledge2;
 import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.search.Cancellable;
+import edu.cmu.tetrad.util.CancellationToken;
+import edu.cmu.tetrad.util.ForkJoinPoolInstance;
 import edu.cmu.tetrad.util.Parameters;
+import edu.cmu.tetrad.util.Params;
 import edu.pitt.dbmi.algo.resampling.task.GeneralResamplingSearchRunnable;
 
 /**
@@ -27,7 +32,7 @@ import edu.pitt.dbmi.algo.resampling.task.GeneralResamplingSearchRunnable;
  * @author Chirayu Kong Wongchokprasitti, PhD (chw20@pitt.edu)
  *
  */
-public class GeneralResamplingSearch {
+public class GeneralResamplingSearch implements Cancellable {
 
 	private Algorithm algorithm = null;
 
@@ -47,10 +52,6 @@ public class GeneralResamplingSearch {
 
 	private List<Graph> PAGs = Collections.synchronizedList(new ArrayList<>());
 
-	// private ForkJoinPool pool = null;
-
-	private final ExecutorService pool;
-
 	private DataSet data = null;
 
 	private List<DataSet> dataSets = null;
@@ -69,16 +70,23 @@ public class GeneralResamplingSearch {
 	 */
 	private Graph initialGraph = null;
 
+	/**
+	 * Checked before each resampling is searched, and passed on as the current token to the
+	 * searches the algorithm builds; when it is cancelled no further resamplings are run.
+	 */
+	private CancellationToken cancellation = CancellationToken.current();
+
+	/**
+	 * True if the last search was cancelled before all resamplings were searched.
+	 */
+	private boolean partial = false;
+
 	public GeneralResamplingSearch(DataSet data) {
 		this.data = data;
-		// pool = ForkJoinPoolInstance.getInstance().getPool();
-		pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
 	}
 
 	public GeneralResamplingSearch(List<DataSet> dataSets) {
 		this.dataSets = dataSets;
-		// pool = ForkJoinPoolInstance.getInstance().getPool();
-		pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
 	}
 
 	public void addPAG(Graph pag) {
@@ -163,9 +171,28 @@ public class GeneralResamplingSearch {
 		this.parameters = parameters;
 	}
 
+	public void setCancellationToken(CancellationToken token) {
+		if (token == null)
+			throw new NullPointerException();
+		this.cancellation = token;
+	}
+
+	public CancellationToken getCancellationToken() {
+		return cancellation;
+	}
+
+	/**
+	 * @return true if the last search was cancelled. The graphs returned are then those of the
+	 *         resamplings that finished; searches cut short are left out.
+	 */
+	public boolean isPartial() {
+		return partial;
+	}
+
 	public List<Graph> search() {
 
 		PAGs.clear();
+		partial = false;
 		parameters.set("numberResampling", 0); // This needs to be set to zero to not loop indefinitely
 
 		if (!this.runParallel) {
@@ -173,13 +200,13 @@ public class GeneralResamplingSearch {
 			if (verbose) {
 				out.println("Running Resamplings in Sequential Mode, numberResampling = " + numberResampling);
 			}
-			for (int i1 = 0; i1 < this.numberResampling; i1++) {
+			for (int i1 = 0; i1 < this.numberResampling && !cancellation.isCancelled(); i1++) {
 				GeneralResamplingSearchRunnable task = null;
 
 				// Bootstrapping
 				if (resamplingWithReplacement) {
 					if (data != null) {
-						DataSet dataSet = DataUtils.getBootstrapSample(data, (int)(data.getNumRows()*percentResampleSize/100.0));
+						DataSet dataSet = DataUtils.getBootstrapSampleView(data, (int)(data.getNumRows()*percentResampleSize/100.0));
 						task = new GeneralResamplingSearchRunnable(dataSet, algorithm, parameters, this, verbose);
 					} else {
 						List<DataModel> dataModels = new ArrayList<>();
@@ -193,7 +220,7 @@ public class GeneralResamplingSearch {
 				// Sub-sampling
 				} else {
 					if (data != null) {
-						DataSet dataSet = DataUtils.getResamplingDataset(data, (int)(data.getNumRows()*percentResampleSize/100.0));
+						DataSet dataSet = DataUtils.getResamplingDatasetView(data, (int)(data.getNumRows()*percentResampleSize/100.0));
 						task = new GeneralResamplingSearchRunnable(dataSet, algorithm, parameters, this, verbose);
 					} else {
 						List<DataModel> dataModels = new ArrayList<>();
@@ -210,6 +237,7 @@ public class GeneralResamplingSearch {
 					task.setInitialGraph(initialGraph);
 				}
 				task.setKnowledge(knowledge);
+				task.setCancellationToken(cancellation);
 				task.run();
 			}
 			
@@ -232,6 +260,7 @@ public class GeneralResamplingSearch {
 					task.setInitialGraph(initialGraph);
 				}
 				task.setKnowledge(knowledge);
+				task.setCancellationToken(cancellation);
 				task.run();
 			}
 			
@@ -241,14 +270,21 @@ public class GeneralResamplingSearch {
 				out.println("Running Resamplings in Parallel Mode, numberResampling = " + numberResampling);
 			}
 
-			for (int i1 = 0; i1 < this.numberResampling; i1++) {
+			// The shared pool, capped by the parallelism parameter if it is set; the searches the tasks
+			// run in parallel themselves draw on the same threads.
+			int maxThreads = parameters == null ? 0 : parameters.getInt(Params.PARALLELISM);
+			ForkJoinPool pool = maxThreads > 0 ? ForkJoinPoolInstance.getInstance().getPool(maxThreads)
+					: ForkJoinPoolInstance.getInstance().getPool();
+			List<Future<?>> futures = new ArrayList<>();
+
+			for (int i1 = 0; i1 < this.numberResampling && !cancellation.isCancelled(); i1++) {
 
 				GeneralResamplingSearchRunnable task = null;
 
 				// Bootstrapping
 				if (resamplingWithReplacement) {
 					if (data != null) {
-						DataSet dataSet = DataUtils.getBootstrapSample(data, (int)(data.getNumRows()*percentResampleSize/100.0));
+						DataSet dataSet = DataUtils.getBootstrapSampleView(data, (int)(data.getNumRows()*percentResampleSize/100.0));
 						task = new GeneralResamplingSearchRunnable(dataSet, algorithm, parameters, this, verbose);
 					} else {
 						List<DataModel> dataModels = new ArrayList<>();
@@ -262,7 +298,7 @@ public class GeneralResamplingSearch {
 				// Sub-sampling
 				} else {
 					if (data != null) {
-						DataSet dataSet = DataUtils.getResamplingDataset(data, (int)(data.getNumRows()*percentResampleSize/100.0));
+						DataSet dataSet = DataUtils.getResamplingDatasetView(data, (int)(data.getNumRows()*percentResampleSize/100.0));
 						task = new GeneralResamplingSearchRunnable(dataSet, algorithm, parameters, this, verbose);
 					} else {
 						List<DataModel> dataModels = new ArrayList<>();
@@ -279,7 +315,8 @@ public class GeneralResamplingSearch {
 					task.setInitialGraph(initialGraph);
 				}
 				task.setKnowledge(knowledge);
-				pool.submit(task);
+				task.setCancellationToken(cancellation);
+				futures.add(pool.submit(task));
 			}
 			
 			// Search again with original dataset
@@ -301,32 +338,35 @@ public class GeneralResamplingSearch {
 					task.setInitialGraph(initialGraph);
 				}
 				task.setKnowledge(knowledge);
-				pool.submit(task);
+				task.setCancellationToken(cancellation);
+				futures.add(pool.submit(task));
 			}
 
-			pool.shutdown();
-
-			while (!pool.isTerminated()) {
-				try {
-					Thread.sleep(1000);
-					// out.println("Waiting...");
-				} catch (InterruptedException e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
+			for (Future<?> future : futures) {
+				while (true) {
+					try {
+						future.get();
+						break;
+					} catch (InterruptedException e) {
+						// Stop the tasks, which check the token, and keep waiting for them to finish.
+						cancellation.cancel();
+					} catch (ExecutionException e) {
+						// A resampling whose search failed is left out.
+						break;
+					}
 				}
 			}
-			// out.println("Is terminated: " + pool.isTerminated());
 		}
 
-		// If the pool is prematurely terminated, do sequentially
-		if (PAGs == null || PAGs.size() == 0) {
-			for (int i1 = 0; i1 < this.numberResampling; i1++) {
+		// If no resampling finished in parallel, do sequentially
+		if ((PAGs == null || PAGs.size() == 0) && !cancellation.isCancelled()) {
+			for (int i1 = 0; i1 < this.numberResampling && !cancellation.isCancelled(); i1++) {
 				GeneralResamplingSearchRunnable task = null;
 
 				// Bootstrapping
 				if (resamplingWithReplacement) {
 					if (data != null) {
-						DataSet dataSet = DataUtils.getBootstrapSample(data, (int)(data.getNumRows()*percentResampleSize/100.0));
+						DataSet dataSet = DataUtils.getBootstrapSampleView(data, (int)(data.getNumRows()*percentResampleSize/100.0));
 						task = new GeneralResamplingSearchRunnable(dataSet, algorithm, parameters, this, verbose);
 					} else {
 						List<DataModel> dataModels = new ArrayList<>();
@@ -340,7 +380,7 @@ public class GeneralResamplingSearch {
 				// Sub-sampling
 				} else {
 					if (data != null) {
-						DataSet dataSet = DataUtils.getResamplingDataset(data, (int)(data.getNumRows()*percentResampleSize/100.0));
+						DataSet dataSet = DataUtils.getResamplingDatasetView(data, (int)(data.getNumRows()*percentResampleSize/100.0));
 						task = new GeneralResamplingSearchRunnable(dataSet, algorithm, parameters, this, verbose);
 					} else {
 						List<DataModel> dataModels = new ArrayList<>();
@@ -357,6 +397,7 @@ public class GeneralResamplingSearch {
 					task.setInitialGraph(initialGraph);
 				}
 				task.setKnowledge(knowledge);
+				task.setCancellationToken(cancellation);
 				task.run();
 			}
 			
@@ -379,11 +420,13 @@ public class GeneralResamplingSearch {
 					task.setInitialGraph(initialGraph);
 				}
 				task.setKnowledge(knowledge);
+				task.setCancellationToken(cancellation);
 				task.run();
 			}
 			
 		}
 
+		partial = cancellation.isCancelled();
 		parameters.set("numberResampling", numberResampling); // This needs to be reset back to the previous value
 
 		return PAGs;
@@ -11,6 +11,7 @@ import edu.cmu.tetrad.data.DataSet;
 import edu.cmu.tetrad.data.IKnowledge;
 import edu.cmu.tetrad.data.Knowledge2;
 import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.util.CancellationToken;
 import edu.cmu.tetrad.util.Parameters;
 import edu.pitt.dbmi.algo.resampling.GeneralResamplingSearch;
 
@@ -49,6 +50,11 @@ public class GeneralResamplingSearchRunnable implements Runnable {
 
 	private PrintStream out = System.out;
 
+	/**
+	 * Set as the current token while the algorithm runs, so the searches it builds honor it.
+	 */
+	private CancellationToken cancellation = new CancellationToken();
+
 	public GeneralResamplingSearchRunnable(DataSet dataSet, Algorithm algorithm, Parameters parameters,
 			GeneralResamplingSearch resamplingAlgorithmSearch, boolean verbose){
 		this.dataSet = dataSet;
@@ -95,6 +101,12 @@ public class GeneralResamplingSearchRunnable implements Runnable {
 		this.initialGraph = initialGraph;
 	}
 
+	public void setCancellationToken(CancellationToken cancellation) {
+		if (cancellation == null)
+			throw new NullPointerException();
+		this.cancellation = cancellation;
+	}
+
 	/**
 	 * Sets the output stream that output (except for log output) should be sent
 	 * to. By detault System.out.
@@ -114,6 +126,10 @@ public class GeneralResamplingSearchRunnable implements Runnable {
 	@Override
 	public void run() {
 		//System.out.println("#dataSet rows: " + dataSet.getNumRows());
+
+		if (cancellation.isCancelled()) {
+			return;
+		}
 		
 		long start, stop;
 		start = System.currentTimeMillis();
@@ -121,6 +137,32 @@ public class GeneralResamplingSearchRunnable implements Runnable {
 			out.println("thread started ... ");
 		}
 
+		Graph graph;
+
+		CancellationToken previous = CancellationToken.setCurrent(cancellation);
+
+		try {
+			graph = search();
+		} finally {
+			CancellationToken.setCurrent(previous);
+		}
+
+		// A search cut short returns a partial graph, which would bias the resampling counts.
+		if (cancellation.isCancelled()) {
+			return;
+		}
+
+		graph.getEdges();
+		
+		stop = System.currentTimeMillis();
+		if (verbose) {
+			out.println("processing time of resampling for a thread was: "
+					+ (stop - start) / 1000.0 + " sec");
+		}
+		resamplingAlgorithmSearch.addPAG(graph);
+	}
+
+	private Graph search() {
 		Graph graph = null;
 		
 		if(dataSet != null){
@@ -141,14 +183,7 @@ public class GeneralResamplingSearchRunnable implements Runnable {
 			graph = multiDataSetAlgorithm.search(dataSets, parameters);
 		}
 
-		graph.getEdges();
-		
-		stop = System.currentTimeMillis();
-		if (verbose) {
-			out.println("processing time of resampling for a thread was: "
-					+ (stop - start) / 1000.0 + " sec");
-		}
-		resamplingAlgorithmSearch.addPAG(graph);
+		return graph;
 	}
 
 }
@@ -0,0 +1,172 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.bayes.BayesIm;
+import edu.cmu.tetrad.bayes.BayesPm;
+import edu.cmu.tetrad.bayes.MlBayesEstimator;
+import edu.cmu.tetrad.bayes.MlBayesIm;
+import edu.cmu.tetrad.data.*;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphUtils;
+import edu.cmu.tetrad.search.BDeScore;
+import edu.cmu.tetrad.search.BDeuScore;
+import edu.cmu.tetrad.search.DirichletScore;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class TestAdCountTree {
+
+    @Test
+    public void testCounts() throws Exception {
+        RandomUtil.getInstance().setSeed(3928L);
+
+        int numVars = 8;
+        int numRows = 2000;
+        int[] dims = new int[numVars];
+        int[][] data = new int[numVars][numRows];
+
+        for (int j = 0; j < numVars; j++) {
+            dims[j] = 2 + RandomUtil.getInstance().nextInt(3);
+
+            for (int i = 0; i < numRows; i++) {
+                data[j][i] = j < 6 && RandomUtil.getInstance().nextDouble() < 0.02
+                        ? DiscreteVariable.MISSING_VALUE
+                        : j > 0 && RandomUtil.getInstance().nextDouble() < 0.7
+                        ? Math.min(data[j - 1][i] == DiscreteVariable.MISSING_VALUE ? 0 : data[j - 1][i], dims[j] - 1)
+                        : RandomUtil.getInstance().nextInt(dims[j]);
+            }
+        }
+
+        List<int[]> queries = new ArrayList<>();
+        List<Integer> vars = new ArrayList<>();
+        for (int j = 0; j < numVars; j++) vars.add(j);
+
+        for (int q = 0; q < 100; q++) {
+            Collections.shuffle(vars, new Random(q));
+            int[] query = new int[1 + q % 5];
+            for (int i = 0; i < query.length; i++) query[i] = vars.get(i);
+            queries.add(query);
+        }
+
+        // Expanding freely, as leaf lists, and capped, with and without threads.
+        for (int leafSize : new int[]{0, 16, numRows}) {
+            for (long maxStoredRows : new long[]{0, 500, Long.MAX_VALUE}) {
+                AdCountTree tree = new AdCountTree(data, dims);
+                tree.setLeafSize(leafSize);
+                tree.setMaxStoredRows(maxStoredRows);
+
+                ExecutorService executor = Executors.newFixedThreadPool(4);
+                List<Future<ContingencyTable>> futures = new ArrayList<>();
+
+                for (int[] query : queries) {
+                    futures.add(executor.submit(() -> ContingencyTable.count(tree, query, 1)));
+                }
+
+                for (int q = 0; q < queries.size(); q++) {
+                    ContingencyTable expected = ContingencyTable.count(data, dims, queries.get(q), 1);
+                    assertTableEquals(expected, futures.get(q).get(), queries.get(q));
+                    assertTableEquals(expected, ContingencyTable.count(tree, queries.get(q), 1), queries.get(q));
+                }
+
+                executor.shutdown();
+
+                assertTrue(tree.getNumStoredRows() <= maxStoredRows);
+            }
+        }
+    }
+
+    @Test
+    public void testScores() {
+        RandomUtil.getInstance().setSeed(48293L);
+        Graph graph = GraphUtils.randomGraph(8, 0, 10, 10, 10, 10, false);
+        BayesPm pm = new BayesPm(graph, 2, 4);
+        DataSet data = new MlBayesIm(pm, MlBayesIm.RANDOM).simulateData(1000, false);
+
+        BDeuScore bdeu = new BDeuScore(data);
+        BDeuScore bdeuTree = new BDeuScore(data);
+        bdeuTree.setUseAdTree(true);
+
+        BDeScore bde = new BDeScore(data);
+        BDeScore bdeTree = new BDeScore(data);
+        bdeTree.setUseAdTree(true);
+
+        DirichletScore dirichlet = new DirichletScore(data);
+        DirichletScore dirichletTree = new DirichletScore(data);
+        dirichletTree.setUseAdTree(true);
+
+        for (int node = 0; node < 8; node++) {
+            for (int[] parents : new int[][]{{}, {(node + 1) % 8}, {(node + 3) % 8, (node + 1) % 8},
+                    {(node + 2) % 8, (node + 5) % 8, (node + 7) % 8}}) {
+                assertEquals(bdeu.localScore(node, parents), bdeuTree.localScore(node, parents), 0.0);
+                assertEquals(bde.localScore(node, parents), bdeTree.localScore(node, parents), 0.0);
+                assertEquals(dirichlet.localScore(node, parents), dirichletTree.localScore(node, parents), 0.0);
+            }
+        }
+
+        // Rows with any missing value are left out of the estimates.
+        for (int i = 0; i < data.getNumRows(); i += 37) {
+            data.setInt(i, i % 8, DiscreteVariable.MISSING_VALUE);
+        }
+
+        BayesIm expected = new MlBayesEstimator().estimate(pm, data);
+
+        MlBayesEstimator estimator = new MlBayesEstimator();
+        estimator.setUseAdTree(true);
+        BayesIm estimated = estimator.estimate(pm, data);
+
+        for (int node = 0; node < expected.getNumNodes(); node++) {
+            for (int row = 0; row < expected.getNumRows(node); row++) {
+                for (int col = 0; col < expected.getNumColumns(node); col++) {
+                    assertEquals(expected.getProbability(node, row, col),
+                            estimated.getProbability(node, row, col), 0.0);
+                }
+            }
+        }
+    }
+
+    private static void assertTableEquals(ContingencyTable expected, ContingencyTable table, int[] query) {
+        assertEquals(expected.getTotal(), table.getTotal());
+        assertEquals(expected.getNumOccupiedStrata(), table.getNumOccupiedStrata());
+
+        int[] expectedCounts = new int[expected.getCellSize()];
+        int[] counts = new int[table.getCellSize()];
+
+        for (int k = 0; k < expected.getNumOccupiedStrata(); k++) {
+            assertEquals(expected.getOccupiedStratum(k), table.getOccupiedStratum(k));
+            expected.getCounts(k, expectedCounts);
+            table.getCounts(k, counts);
+            assertArrayEquals(Arrays.toString(query), expectedCounts, counts);
+        }
+    }
+}
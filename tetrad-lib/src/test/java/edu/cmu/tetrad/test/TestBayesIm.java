@@ -24,10 +24,14 @@ package edu.cmu.tetrad.test;
 import edu.cmu.tetrad.bayes.BayesIm;
 import edu.cmu.tetrad.bayes.BayesPm;
 import edu.cmu.tetrad.bayes.MlBayesIm;
+import edu.cmu.tetrad.data.DataSet;
 import edu.cmu.tetrad.graph.*;
+import edu.cmu.tetrad.util.ForkJoinPoolInstance;
+import edu.cmu.tetrad.util.RandomUtil;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -203,6 +207,40 @@ public final class TestBayesIm {
         }
     }
 
+    /**
+     * The parallel simulation should give the same sample for a seed however many threads run it,
+     * with the frequencies the model implies.
+     */
+    @Test
+    public void testSimulateDataParallel() throws Exception {
+        RandomUtil.getInstance().setSeed(2938402L);
+
+        Graph graph = GraphUtils.randomGraph(10, 0, 15, 10, 10, 10, false);
+        final MlBayesIm im = new MlBayesIm(new BayesPm(graph, 2, 4), MlBayesIm.RANDOM);
+
+        DataSet data = im.simulateDataParallel(5500, 48L, false);
+        DataSet serial = ForkJoinPoolInstance.getInstance().getPool(1)
+                .submit(() -> im.simulateDataParallel(5500, 48L, false)).get();
+
+        assertTrue(data.equals(serial));
+        assertTrue(data.equals(im.simulateDataParallel(5500, 48L, false)));
+        assertFalse(data.equals(im.simulateDataParallel(5500, 49L, false)));
+
+        int node = im.getNodeIndex(graph.getCausalOrdering().get(0));
+        DataSet large = im.simulateDataParallel(50000, 7L, false);
+        int column = large.getColumn(large.getVariable(im.getNode(node).getName()));
+
+        for (int k = 0; k < im.getNumColumns(node); k++) {
+            int count = 0;
+
+            for (int i = 0; i < large.getNumRows(); i++) {
+                if (large.getInt(i, column) == k) count++;
+            }
+
+            assertEquals(im.getProbability(node, 0, k), count / (double) large.getNumRows(), 0.01);
+        }
+    }
+
     private static boolean rowsEqual(BayesIm bayesIm, int node, int row1,
                                      int row2) {
         for (int col = 0; col < bayesIm.getNumColumns(node); col++) {
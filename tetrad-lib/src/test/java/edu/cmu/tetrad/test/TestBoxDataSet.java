@@ -23,10 +23,14 @@ package edu.cmu.tetrad.test;
 
 import edu.cmu.tetrad.data.*;
 import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.util.DataConvertUtils;
 import edu.cmu.tetrad.util.RandomUtil;
 import edu.cmu.tetrad.util.Vector;
+import edu.pitt.dbmi.data.reader.columnar.ColumnarDataFileReader;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -272,9 +276,53 @@ public final class TestBoxDataSet {
             fail("Missing row in permutation.");
         }
     }
-}
 
+    @Test
+    public final void testColumnar() throws IOException {
+        RandomUtil.getInstance().setSeed(2938492L);
+
+        List<Node> variables = new ArrayList<>();
+        variables.add(new ContinuousVariable("X1"));
+        variables.add(new DiscreteVariable("X2", 3));
+        variables.add(new ContinuousVariable("X3"));
+
+        DataSet dataSet = new BoxDataSet(new MixedDataBox(variables, 50), variables);
+
+        for (int i = 0; i < 50; i++) {
+            dataSet.setDouble(i, 0, RandomUtil.getInstance().nextNormal(0, 1));
+            dataSet.setInt(i, 1, i % 7 == 0 ? -99 : RandomUtil.getInstance().nextInt(3));
+            dataSet.setDouble(i, 2, i % 5 == 0 ? Double.NaN : RandomUtil.getInstance().nextDouble());
+        }
+
+        File file = File.createTempFile("testColumnar", ".data");
+        file.deleteOnExit();
+        DataWriter.writeColumnarData(dataSet, file.toPath());
+
+        DataSet columnar = (DataSet) DataConvertUtils.toDataModel(new ColumnarDataFileReader(file.toPath()).readInData());
+
+        assertEquals(dataSet.getVariables(), columnar.getVariables());
+        assertEquals(((DiscreteVariable) variables.get(1)).getCategories(),
+                ((DiscreteVariable) columnar.getVariable(1)).getCategories());
+        assertTrue(((BoxDataSet) columnar).getDataBox() instanceof ColumnarDataBox);
 
+        DataSet copy = columnar.copy();
 
+        for (int i = 0; i < 50; i++) {
+            assertEquals(dataSet.getDouble(i, 0), columnar.getDouble(i, 0), 0.0);
+            assertEquals(dataSet.getInt(i, 1), columnar.getInt(i, 1));
+            assertEquals(dataSet.getDouble(i, 2), columnar.getDouble(i, 2), 0.0);
+            assertEquals(dataSet.getDouble(i, 0), copy.getDouble(i, 0), 0.0);
+            assertEquals(dataSet.getInt(i, 1), copy.getInt(i, 1));
+        }
 
+        // Writing to the data copies the column; the file is not changed.
+        columnar.setDouble(3, 0, 100.0);
+        columnar.setInt(3, 1, 2);
+        assertEquals(100.0, columnar.getDouble(3, 0), 0.0);
+        assertEquals(2, columnar.getInt(3, 1));
+        assertEquals(dataSet.getDouble(4, 0), columnar.getDouble(4, 0), 0.0);
 
+        DataSet reread = (DataSet) DataConvertUtils.toDataModel(new ColumnarDataFileReader(file.toPath()).readInData());
+        assertEquals(dataSet.getDouble(3, 0), reread.getDouble(3, 0), 0.0);
+    }
+}
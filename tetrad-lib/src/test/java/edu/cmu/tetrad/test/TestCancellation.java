@@ -0,0 +1,116 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphUtils;
+import edu.cmu.tetrad.search.*;
+import edu.cmu.tetrad.sem.SemIm;
+import edu.cmu.tetrad.sem.SemPm;
+import edu.cmu.tetrad.util.CancellationToken;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that searches stop when their cancellation token is cancelled and report their
+ * graphs as partial.
+ */
+public class TestCancellation {
+
+    @Test
+    public void testToken() {
+        CancellationToken token = new CancellationToken();
+        assertFalse(token.isCancelled());
+        assertEquals(Long.MAX_VALUE, token.getRemaining(TimeUnit.SECONDS));
+        token.cancel();
+        assertTrue(token.isCancelled());
+
+        assertTrue(CancellationToken.withTimeout(0, TimeUnit.SECONDS).isCancelled());
+        assertFalse(CancellationToken.withTimeout(1, TimeUnit.HOURS).isCancelled());
+
+        CancellationToken previous = CancellationToken.setCurrent(token);
+
+        try {
+            assertSame(token, CancellationToken.current());
+        } finally {
+            CancellationToken.setCurrent(previous);
+        }
+
+        assertNotSame(token, CancellationToken.current());
+    }
+
+    @Test
+    public void testSearches() {
+        RandomUtil.getInstance().setSeed(4829384L);
+
+        Graph dag = GraphUtils.randomGraph(20, 0, 30, 10, 10, 10, false);
+        DataSet data = new SemIm(new SemPm(dag)).simulateData(500, false);
+        IndependenceTest test = new IndTestFisherZ(data, 0.01);
+        SemBicScore score = new SemBicScore(data);
+
+        Fges fges = new Fges(score);
+        Graph full = fges.search();
+        assertFalse(fges.isPartial());
+        assertTrue(full.getNumEdges() > 0);
+
+        CancellationToken cancelled = new CancellationToken();
+        cancelled.cancel();
+
+        fges = new Fges(score);
+        fges.setCancellationToken(cancelled);
+        assertEquals(0, fges.search().getNumEdges());
+        assertTrue(fges.isPartial());
+
+        for (IFas fas : new IFas[]{new Fas(test), new FasStable(test), new FasStableParallel(test)}) {
+            fas.setCancellationToken(cancelled);
+            fas.search();
+            assertTrue(fas.isPartial());
+        }
+
+        Fci fci = new Fci(test);
+        fci.setCancellationToken(cancelled);
+        assertTrue(fci.search().isPag());
+        assertTrue(fci.isPartial());
+
+        GFci gfci = new GFci(test, score);
+        gfci.setCancellationToken(cancelled);
+        gfci.search();
+        assertTrue(gfci.isPartial());
+
+        // Searches constructed while a token is current pick it up.
+        CancellationToken previous = CancellationToken.setCurrent(cancelled);
+
+        try {
+            fges = new Fges(score);
+        } finally {
+            CancellationToken.setCurrent(previous);
+        }
+
+        fges.search();
+        assertTrue(fges.isPartial());
+    }
+}
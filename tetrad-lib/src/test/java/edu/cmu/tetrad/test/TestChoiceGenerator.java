@@ -27,7 +27,9 @@ import edu.cmu.tetrad.util.PermutationGenerator;
 import edu.cmu.tetrad.util.SelectionGenerator;
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 
 /**
@@ -51,6 +53,37 @@ public class TestChoiceGenerator {
         assertEquals(120, numCombinations);
     }
 
+    /**
+     * Tests that a choice generator started at index k of the series produces the same
+     * choices as the full series from index k on.
+     */
+    @Test
+    public void testChoiceGeneratorOffsets() {
+        for (int a = 0; a <= 9; a++) {
+            for (int b = 0; b <= a; b++) {
+                long numChoices = ChoiceGenerator.getNumCombinationsExact(a, b);
+                assertEquals(ChoiceGenerator.getNumCombinations(a, b), numChoices);
+
+                for (long first = 0; first < numChoices; first++) {
+                    ChoiceGenerator generator = new ChoiceGenerator(a, b);
+
+                    for (long k = 0; k < first; k++) {
+                        generator.next();
+                    }
+
+                    ChoiceGenerator offset = new ChoiceGenerator(a, b, first);
+                    int[] choice;
+
+                    while ((choice = generator.next()) != null) {
+                        assertArrayEquals(choice, offset.next());
+                    }
+
+                    assertNull(offset.next());
+                }
+            }
+        }
+    }
+
     @Test
     public void testPrintDepthChoiceGenerator() {
         int a = 4;
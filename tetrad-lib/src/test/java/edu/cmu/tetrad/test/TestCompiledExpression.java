@@ -0,0 +1,144 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.calculator.expression.CompiledExpression;
+import edu.cmu.tetrad.calculator.expression.Context;
+import edu.cmu.tetrad.calculator.expression.Expression;
+import edu.cmu.tetrad.calculator.parser.ExpressionParser;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that compiled expressions evaluate exactly as the parsed expressions do.
+ */
+public class TestCompiledExpression {
+
+    private static final String[] FORMULAS = {
+            "0", "-X", "X - Y", "b1 * X + sin(Y) + b2 * Z", "X * Y * Z", "X / Z", "X ^ 2 + pow(Y, 3)",
+            "exp(X) + sqrt(abs(Y)) + ln(Z) + log10(Z)", "cos(X) + tan(Y) + cosh(X) + sinh(Y) + tanh(Z)",
+            "acos(0.5) + asin(0.5) + atan(X)", "ceil(X) + floor(Y) + round(Z) + signum(Y)",
+            "logistic(X * Y)", "max(X, Y, Z) - min(X, Y, Z)", "AND(1, 1) + AND(1, X)", "OR(0, 1) + OR(X, Y)",
+            "XOR(1, 0)", "(X < Y) + (X <= Y) + (X = X) + (X > Y) + (X >= Y)", "IF(X < Y, X, Y)",
+            "N(0, 1) + X", "Normal(X, 1) * U(0, 1)", "b1 * N(0, 1) + Beta(2, 5) + Uniform(Y, Z)",
+            "IF(X > Y, N(0, 1), U(0, 1)) + OR(1, N(0, 1))", "Split(-1, -.5, .5, 1) + Mixture(.5, N(0, 1), .5, N(5, 1))",
+            "TruncNormal(0, 1, -1, 1) + Indicator(0.3) + Discrete(1, 2, 3)", "PI * E + X"
+    };
+
+    @Test
+    public void testCompiledMatchesInterpreted() throws ParseException {
+        Map<String, Double> values = new HashMap<>();
+        values.put("X", 0.7);
+        values.put("Y", -1.3);
+        values.put("Z", 2.5);
+        values.put("b1", 0.4);
+        values.put("b2", -2.0);
+
+        Map<String, Integer> slots = new HashMap<>();
+        double[] _values = new double[values.size()];
+
+        for (String name : values.keySet()) {
+            slots.put(name, slots.size());
+            _values[slots.get(name)] = values.get(name);
+        }
+
+        Context context = values::get;
+
+        for (String formula : FORMULAS) {
+            Expression expression = new ExpressionParser().parseExpression(formula);
+            CompiledExpression compiled = CompiledExpression.compile(expression, slots);
+
+            for (long seed = 1; seed <= 5; seed++) {
+                RandomUtil.getInstance().setSeed(seed);
+                double expected = expression.evaluate(context);
+
+                RandomUtil.getInstance().setSeed(seed);
+                double actual = compiled.evaluate(_values);
+
+                assertEquals(formula, Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+            }
+        }
+    }
+
+    @Test
+    public void testUnassigned() throws ParseException {
+        Map<String, Integer> slots = new HashMap<>();
+        slots.put("X", 0);
+        slots.put("Y", 1);
+
+        double[] values = {2.0, 3.0};
+        boolean[] assigned = {true, false};
+
+        // A term of a sum that cannot be evaluated counts as zero, as it does when interpreted.
+        Expression sum = new ExpressionParser().parseExpression("X + 2 * Y + cos(Y) + W");
+        assertEquals(2.0, CompiledExpression.compile(sum, slots).evaluate(values, assigned), 0.0);
+
+        Expression product = new ExpressionParser().parseExpression("X * Y");
+
+        try {
+            CompiledExpression.compile(product, slots).evaluate(values, assigned);
+            fail("Y is not assigned.");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+
+        assertEquals(6.0, CompiledExpression.compile(product, slots).evaluate(values), 0.0);
+    }
+
+    @Test
+    public void testColumns() throws ParseException {
+        Map<String, Integer> slots = new HashMap<>();
+        slots.put("a", 0);
+        slots.put("X", 1);
+        slots.put("Y", 2);
+
+        int n = 100;
+        double[][] columns = new double[3][n];
+
+        for (int i = 0; i < n; i++) {
+            columns[0][i] = 0.5;
+            columns[1][i] = RandomUtil.getInstance().nextNormal(0, 1);
+            columns[2][i] = RandomUtil.getInstance().nextNormal(0, 1);
+        }
+
+        Expression expression = new ExpressionParser().parseExpression("a * tanh(X) + Y ^ 2 + N(0, a)");
+        CompiledExpression compiled = CompiledExpression.compile(expression, slots);
+
+        RandomUtil.getInstance().setSeed(32L);
+        double[] out = new double[n];
+        compiled.evaluate(columns, out);
+
+        RandomUtil.getInstance().setSeed(32L);
+
+        for (int i = 0; i < n; i++) {
+            double[] row = {columns[0][i], columns[1][i], columns[2][i]};
+            assertEquals(Double.doubleToLongBits(compiled.evaluate(row)), Double.doubleToLongBits(out[i]));
+        }
+    }
+}
@@ -0,0 +1,193 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.bayes.BayesIm;
+import edu.cmu.tetrad.bayes.BayesPm;
+import edu.cmu.tetrad.bayes.CompiledJunctionTree;
+import edu.cmu.tetrad.bayes.MlBayesIm;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphUtils;
+import edu.cmu.tetrad.util.ForkJoinPoolInstance;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TestCompiledJunctionTree {
+
+    @Test
+    public void testMarginals() {
+        RandomUtil.getInstance().setSeed(3829201L);
+
+        for (int edges : new int[]{0, 6, 14}) {
+            Graph graph = GraphUtils.randomGraph(8, 0, edges, 4, 4, 4, false);
+            BayesIm im = new MlBayesIm(new BayesPm(graph, 2, 3), MlBayesIm.RANDOM);
+            CompiledJunctionTree tree = new CompiledJunctionTree(im);
+
+            for (int t = 0; t < 10; t++) {
+                int[] evidence = randomEvidence(im, 0.3);
+                CompiledJunctionTree.Query query = tree.newQuery();
+                query.setEvidence(evidence);
+
+                for (int v = 0; v < im.getNumNodes(); v++) {
+                    assertArrayEquals(enumerateMarginal(im, evidence, v), query.getMarginal(v), 1e-10);
+                }
+
+                assertEquals(Math.log(enumerateMarginal(im, evidence, -1)[0]),
+                        query.getLogProbabilityOfEvidence(), 1e-10);
+            }
+        }
+    }
+
+    @Test
+    public void testIncrementalEvidence() {
+        RandomUtil.getInstance().setSeed(1928374L);
+
+        Graph graph = GraphUtils.randomGraph(15, 0, 25, 5, 5, 5, false);
+        BayesIm im = new MlBayesIm(new BayesPm(graph, 2, 3), MlBayesIm.RANDOM);
+        CompiledJunctionTree tree = new CompiledJunctionTree(im);
+        CompiledJunctionTree.Query query = tree.newQuery();
+        int[] evidence = randomEvidence(im, 0.0);
+
+        for (int t = 0; t < 50; t++) {
+            int v = RandomUtil.getInstance().nextInt(im.getNumNodes());
+            evidence[v] = RandomUtil.getInstance().nextInt(im.getNumColumns(v) + 1) - 1;
+            query.setEvidence(v, evidence[v]);
+
+            CompiledJunctionTree.Query fresh = tree.newQuery();
+            fresh.setEvidence(evidence);
+
+            int target = RandomUtil.getInstance().nextInt(im.getNumNodes());
+            assertArrayEquals(fresh.getMarginal(target), query.getMarginal(target), 0.0);
+            assertEquals(fresh.getLogProbabilityOfEvidence(), query.getLogProbabilityOfEvidence(), 0.0);
+        }
+
+        query.clearEvidence();
+        assertEquals(0.0, query.getLogProbabilityOfEvidence(), 1e-12);
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        RandomUtil.getInstance().setSeed(5647382L);
+
+        Graph graph = GraphUtils.randomGraph(20, 0, 30, 5, 5, 5, false);
+        BayesIm im = new MlBayesIm(new BayesPm(graph, 2, 3), MlBayesIm.RANDOM);
+        CompiledJunctionTree tree = new CompiledJunctionTree(im);
+
+        int[][] cases = new int[1000][];
+
+        for (int i = 0; i < cases.length; i++) {
+            cases[i] = randomEvidence(im, 0.2);
+        }
+
+        int[] targets = {0, 7, 19};
+
+        double[][][] marginals = tree.getMarginals(cases, targets);
+        double[] logProbabilities = tree.getLogProbabilities(cases);
+
+        double[][][] serial = ForkJoinPoolInstance.getInstance().getPool(1)
+                .submit(() -> tree.getMarginals(cases, targets)).get();
+
+        for (int i = 0; i < cases.length; i++) {
+            CompiledJunctionTree.Query query = tree.newQuery();
+            query.setEvidence(cases[i]);
+
+            for (int k = 0; k < targets.length; k++) {
+                assertArrayEquals(query.getMarginal(targets[k]), marginals[i][k], 0.0);
+                assertArrayEquals(serial[i][k], marginals[i][k], 0.0);
+            }
+
+            assertEquals(query.getLogProbabilityOfEvidence(), logProbabilities[i], 0.0);
+        }
+    }
+
+    private static int[] randomEvidence(BayesIm im, double fraction) {
+        int[] evidence = new int[im.getNumNodes()];
+
+        for (int v = 0; v < evidence.length; v++) {
+            evidence[v] = RandomUtil.getInstance().nextDouble() < fraction
+                    ? RandomUtil.getInstance().nextInt(im.getNumColumns(v)) : -1;
+        }
+
+        return evidence;
+    }
+
+    /**
+     * Sums the joint distribution over the configurations consistent with the evidence.
+     * Returns the normalized marginal of the target, or, if the target is -1, the
+     * probability of the evidence.
+     */
+    private static double[] enumerateMarginal(BayesIm im, int[] evidence, int target) {
+        int n = im.getNumNodes();
+        int[] values = new int[n];
+        double[] marginal = new double[target == -1 ? 1 : im.getNumColumns(target)];
+
+        while (true) {
+            boolean consistent = true;
+
+            for (int v = 0; v < n; v++) {
+                if (evidence[v] != -1 && evidence[v] != values[v]) consistent = false;
+            }
+
+            if (consistent) {
+                double p = 1.0;
+
+                for (int v = 0; v < n; v++) {
+                    int[] parents = im.getParents(v);
+                    int[] parentValues = new int[parents.length];
+
+                    for (int j = 0; j < parents.length; j++) {
+                        parentValues[j] = values[parents[j]];
+                    }
+
+                    p *= im.getProbability(v, im.getRowIndex(v, parentValues), values[v]);
+                }
+
+                marginal[target == -1 ? 0 : values[target]] += p;
+            }
+
+            int v = n - 1;
+
+            while (v >= 0 && ++values[v] == im.getNumColumns(v)) {
+                values[v--] = 0;
+            }
+
+            if (v < 0) break;
+        }
+
+        if (target == -1) return marginal;
+
+        double sum = 0.0;
+
+        for (double p : marginal) {
+            sum += p;
+        }
+
+        for (int j = 0; j < marginal.length; j++) {
+            marginal[j] /= sum;
+        }
+
+        return marginal;
+    }
+}
@@ -0,0 +1,163 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.bayes.BayesPm;
+import edu.cmu.tetrad.bayes.MlBayesIm;
+import edu.cmu.tetrad.data.*;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphUtils;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.ChiSquareTest;
+import edu.cmu.tetrad.search.GSquareTest;
+import edu.cmu.tetrad.util.CombinationIterator;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class TestContingencyTable {
+
+    @Test
+    public void testCounts() {
+        RandomUtil.getInstance().setSeed(4829L);
+
+        for (int numVars : new int[]{1, 2, 3, 8}) {
+            int numRows = 200;
+            int[] dims = new int[numVars];
+            int[][] columns = new int[numVars][numRows];
+            long size = 1;
+
+            for (int j = 0; j < numVars; j++) {
+                dims[j] = 2 + RandomUtil.getInstance().nextInt(4);
+                size *= dims[j];
+
+                for (int i = 0; i < numRows; i++) {
+                    columns[j][i] = RandomUtil.getInstance().nextDouble() < 0.02
+                            ? DiscreteVariable.MISSING_VALUE
+                            : RandomUtil.getInstance().nextInt(dims[j]);
+                }
+            }
+
+            CellTable cellTable = new CellTable(dims);
+            cellTable.setMissingValue(DiscreteVariable.MISSING_VALUE);
+            cellTable.addToTable(toDataSet(columns, dims), range(numVars));
+
+            for (int numCellVars = 0; numCellVars <= numVars; numCellVars++) {
+                ContingencyTable table = new ContingencyTable(columns, dims, numCellVars);
+                assertEquals(size > 4096, table.isSparse());
+
+                long total = 0;
+                CombinationIterator cells = new CombinationIterator(dims);
+
+                while (cells.hasNext()) {
+                    int[] cell = cells.next();
+                    assertEquals(cellTable.getValue(cell), table.getValue(cell));
+                    total += table.getValue(cell);
+                }
+
+                assertEquals(total, table.getTotal());
+
+                // The occupied strata, in order, hold all of the counts.
+                int[] counts = new int[table.getCellSize()];
+                long sum = 0;
+
+                for (int k = 0; k < table.getNumOccupiedStrata(); k++) {
+                    if (k > 0) assertTrue(table.getOccupiedStratum(k - 1) < table.getOccupiedStratum(k));
+                    table.getCounts(k, counts);
+                    long stratumTotal = 0;
+                    for (int count : counts) stratumTotal += count;
+                    assertTrue(stratumTotal > 0);
+                    sum += stratumTotal;
+                }
+
+                assertEquals(total, sum);
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentTests() throws Exception {
+        RandomUtil.getInstance().setSeed(3828L);
+        Graph graph = GraphUtils.randomGraph(8, 0, 12, 10, 10, 10, false);
+        DataSet data = new MlBayesIm(new BayesPm(graph, 2, 3), MlBayesIm.RANDOM).simulateData(500, false);
+
+        ChiSquareTest chiSquare = new ChiSquareTest(data, 0.05);
+        GSquareTest gSquare = new GSquareTest(data, 0.05);
+
+        List<int[]> queries = new ArrayList<>();
+
+        for (int q = 0; q < 200; q++) {
+            int[] indices = new int[2 + q % 4];
+            List<Integer> vars = new ArrayList<>();
+            for (int i = 0; i < 8; i++) vars.add(i);
+            Collections.shuffle(vars, new Random(q));
+            for (int i = 0; i < indices.length; i++) indices[i] = vars.get(i);
+            queries.add(indices);
+        }
+
+        List<double[]> expected = new ArrayList<>();
+
+        for (int[] query : queries) {
+            expected.add(new double[]{chiSquare.calcChiSquare(query).getPValue(),
+                    gSquare.calcGSquare(query).getPValue()});
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<double[]>> futures = new ArrayList<>();
+
+        for (int[] query : queries) {
+            futures.add(executor.submit(() -> new double[]{chiSquare.calcChiSquare(query).getPValue(),
+                    gSquare.calcGSquare(query).getPValue()}));
+        }
+
+        for (int q = 0; q < queries.size(); q++) {
+            assertArrayEquals(expected.get(q), futures.get(q).get(), 0.0);
+        }
+
+        executor.shutdown();
+    }
+
+    private static DataSet toDataSet(int[][] columns, int[] dims) {
+        List<Node> variables = new ArrayList<>();
+
+        for (int j = 0; j < dims.length; j++) {
+            variables.add(new DiscreteVariable("X" + j, dims[j]));
+        }
+
+        return new BoxDataSet(new VerticalIntDataBox(columns), variables);
+    }
+
+    private static int[] range(int n) {
+        int[] range = new int[n];
+        for (int i = 0; i < n; i++) range[i] = i;
+        return range;
+    }
+}
@@ -23,9 +23,13 @@ package edu.cmu.tetrad.test;
 
 import edu.cmu.tetrad.data.*;
 import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.regression.RegressionDataset;
+import edu.cmu.tetrad.search.TimeSeriesUtils;
 import edu.cmu.tetrad.util.RandomUtil;
+import edu.cmu.tetrad.util.Vector;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -84,9 +88,165 @@ public final class TestCovarianceMatrix {
         assertEquals(-.051, c2.getValue(0, 1), 0.001);
         assertEquals(-.609, c3.getValue(0, 1), 0.001);
     }
-}
 
+    /**
+     * Tests that bootstrap and subsample views read the same rows as the copied samples and
+     * give the same covariances, and that writing to a view leaves the data unchanged.
+     */
+    @Test
+    public void testResamplingViews() {
+        List<Node> variables = new LinkedList<>();
+
+        for (int i = 0; i < 5; i++) {
+            variables.add(new ContinuousVariable("X" + i));
+        }
+
+        RandomUtil.getInstance().setSeed(3829482L);
+
+        double[][] columns = new double[5][200];
+
+        for (int j = 0; j < 5; j++) {
+            for (int i = 0; i < 200; i++) {
+                columns[j][i] = RandomUtil.getInstance().nextNormal(0, 1) + (j > 0 ? columns[j - 1][i] : 0);
+            }
+        }
 
+        DataSet[] dataSets = {
+                new BoxDataSet(new VerticalDoubleDataBox(columns), variables),
+                new BoxDataSet(new DoubleDataBox(200, 5), variables),
+                new BoxDataSet(new MixedDataBox(variables, 200), variables)
+        };
 
+        for (int i = 0; i < 200; i++) {
+            for (int j = 0; j < 5; j++) {
+                dataSets[1].setDouble(i, j, columns[j][i]);
+                dataSets[2].setDouble(i, j, columns[j][i]);
+            }
+        }
 
+        for (DataSet dataSet : dataSets) {
+            RandomUtil.getInstance().setSeed(1234L);
+            DataSet bootstrap = DataUtils.getBootstrapSample(dataSet, 150);
+            RandomUtil.getInstance().setSeed(1234L);
+            DataSet bootstrapView = DataUtils.getBootstrapSampleView(dataSet, 150);
 
+            assertEquals(bootstrap.getNumRows(), bootstrapView.getNumRows());
+
+            for (int i = 0; i < bootstrap.getNumRows(); i++) {
+                for (int j = 0; j < bootstrap.getNumColumns(); j++) {
+                    assertEquals(bootstrap.getDouble(i, j), bootstrapView.getDouble(i, j), 0.0);
+                }
+            }
+
+            assertCovariancesEqual(new CovarianceMatrix(bootstrap), new CovarianceMatrix(bootstrapView));
+            assertCovariancesEqual(new CovarianceMatrix(bootstrap, false), new CovarianceMatrix(bootstrapView, false));
+
+            RandomUtil.getInstance().setSeed(1234L);
+            DataSet subsample = DataUtils.getResamplingDataset(dataSet, 100);
+            RandomUtil.getInstance().setSeed(1234L);
+            DataSet subsampleView = DataUtils.getResamplingDatasetView(dataSet, 100);
+
+            assertEquals(100, subsampleView.getNumRows());
+            assertCovariancesEqual(new CovarianceMatrix(subsampleView.copy()), new CovarianceMatrix(subsampleView));
+
+            double value = dataSet.getDouble(((RowSubsetDataBox) ((BoxDataSet) bootstrapView).getDataBox()).getRows()[0], 0);
+            bootstrapView.setDouble(0, 0, 99.0);
+            assertEquals(99.0, bootstrapView.getDouble(0, 0), 0.0);
+            assertEquals(value, dataSet.getDouble(((RowSubsetDataBox) ((BoxDataSet) bootstrapView).getDataBox()).getRows()[0], 0), 0.0);
+            assertEquals(bootstrap.getDouble(1, 1), bootstrapView.getDouble(1, 1), 0.0);
+        }
+    }
+
+    /**
+     * Tests that lagged and shifted views read the same cells as the copied data, that the lagged
+     * covariances and autoregression residuals match those of the copied lag matrix, and that
+     * writing to a view leaves the series unchanged.
+     */
+    @Test
+    public void testLagViews() {
+        List<Node> variables = new LinkedList<>();
+
+        for (int i = 0; i < 4; i++) {
+            variables.add(new ContinuousVariable("X" + i));
+        }
+
+        RandomUtil.getInstance().setSeed(9384721L);
+
+        int numRows = 300;
+        int numLags = 3;
+        double[][] columns = new double[4][numRows];
+
+        for (int i = 0; i < numRows; i++) {
+            for (int j = 0; j < 4; j++) {
+                columns[j][i] = RandomUtil.getInstance().nextNormal(j, 1)
+                        + (i > 0 ? 0.5 * columns[j][i - 1] : 0) + (j > 0 ? 0.3 * columns[j - 1][i] : 0);
+            }
+        }
+
+        DataSet series = new BoxDataSet(new VerticalDoubleDataBox(columns), variables);
+        DataSet lagged = TimeSeriesUtils.createLagData(series, numLags);
+        DataSet copy = lagged.copy();
+
+        assertEquals(numRows - numLags, lagged.getNumRows());
+        assertEquals(16, lagged.getNumColumns());
+
+        for (int i = 0; i < lagged.getNumRows(); i++) {
+            for (int c = 0; c < lagged.getNumColumns(); c++) {
+                double expected = series.getDouble(i + numLags - c / 4, c % 4);
+                assertEquals(expected, lagged.getDouble(i, c), 0.0);
+                assertEquals(expected, copy.getDouble(i, c), 0.0);
+            }
+        }
+
+        assertCovariancesEqual(new CovarianceMatrix(copy), new LagCovarianceMatrix(lagged));
+        assertCovariancesEqual(new CovarianceMatrix(copy), new CovarianceMatrix(lagged));
+        assertCovariancesEqual(new CovarianceMatrix(copy, false), new LagCovarianceMatrix(lagged, false));
+
+        double[] means = new LagCovarianceMatrix(lagged).getMeans();
+
+        for (int c = 0; c < lagged.getNumColumns(); c++) {
+            double mean = 0.0;
+            for (int i = 0; i < copy.getNumRows(); i++) mean += copy.getDouble(i, c);
+            assertEquals(mean / copy.getNumRows(), means[c], 1e-10);
+        }
+
+        // The residuals of the autoregression match those of regressions on the copied lag matrix.
+        DataSet residuals = TimeSeriesUtils.ar(series, numLags);
+        RegressionDataset regression = new RegressionDataset(copy);
+        List<Node> regressors = new ArrayList<>(copy.getVariables().subList(4, 16));
+
+        for (int j = 0; j < 4; j++) {
+            Vector expected = regression.regress(copy.getVariable(j), regressors).getResiduals();
+
+            for (int i = 0; i < residuals.getNumRows(); i++) {
+                assertEquals(expected.get(i), residuals.getDouble(i, j), 1e-8);
+            }
+        }
+
+        DataSet shifted = TimeSeriesUtils.createShiftedData(series, new int[]{0, 2, -1, 1});
+        assertEquals(numRows - 3, shifted.getNumRows());
+
+        for (int i = 0; i < shifted.getNumRows(); i++) {
+            assertEquals(series.getDouble(i + 2, 0), shifted.getDouble(i, 0), 0.0);
+            assertEquals(series.getDouble(i, 1), shifted.getDouble(i, 1), 0.0);
+            assertEquals(series.getDouble(i + 3, 2), shifted.getDouble(i, 2), 0.0);
+            assertEquals(series.getDouble(i + 1, 3), shifted.getDouble(i, 3), 0.0);
+        }
+
+        double value = series.getDouble(numLags, 0);
+        lagged.setDouble(0, 0, 99.0);
+        assertEquals(99.0, lagged.getDouble(0, 0), 0.0);
+        assertEquals(value, series.getDouble(numLags, 0), 0.0);
+        assertEquals(value, lagged.getDouble(1, 4), 0.0);
+    }
+
+    private void assertCovariancesEqual(ICovarianceMatrix expected, ICovarianceMatrix actual) {
+        assertEquals(expected.getSampleSize(), actual.getSampleSize());
+
+        for (int i = 0; i < expected.getDimension(); i++) {
+            for (int j = 0; j < expected.getDimension(); j++) {
+                assertEquals(expected.getValue(i, j), actual.getValue(i, j), 1e-10);
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.graph.*;
+import edu.cmu.tetrad.search.DSeparationOracle;
+import edu.cmu.tetrad.search.DagToPag;
+import edu.cmu.tetrad.search.IndTestDSep;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests DSeparationOracle against GraphUtils.isDConnectedTo.
+ */
+public final class TestDSeparationOracle {
+
+    @Test
+    public void testDag() {
+        RandomUtil.getInstance().setSeed(3829384L);
+
+        for (int run = 0; run < 5; run++) {
+            Graph dag = GraphUtils.randomGraph(20, 0, 30, 10, 10, 10, false);
+            compare(dag, 2000);
+        }
+    }
+
+    @Test
+    public void testPag() {
+        RandomUtil.getInstance().setSeed(2938832L);
+
+        for (int run = 0; run < 5; run++) {
+            Graph dag = GraphUtils.randomGraph(20, 4, 30, 10, 10, 10, false);
+            Graph pag = new DagToPag(dag).convert();
+            compare(pag, 2000);
+        }
+    }
+
+    @Test
+    public void testCyclicAncestors() {
+        RandomUtil.getInstance().setSeed(4838211L);
+
+        Graph graph = GraphUtils.randomGraph(15, 0, 20, 10, 10, 10, false);
+        List<Node> nodes = graph.getNodes();
+
+        // Close a few cycles.
+        for (int i = 0; i < 3; i++) {
+            Node a = nodes.get(RandomUtil.getInstance().nextInt(nodes.size()));
+            List<Node> descendants = graph.getDescendants(Collections.singletonList(a));
+            Node b = descendants.get(RandomUtil.getInstance().nextInt(descendants.size()));
+
+            if (a != b && !graph.isAdjacentTo(a, b)) {
+                graph.addDirectedEdge(b, a);
+            }
+        }
+
+        DSeparationOracle oracle = new DSeparationOracle(graph);
+
+        for (Node a : nodes) {
+            for (Node b : nodes) {
+                assertEquals(graph.isAncestorOf(a, b), oracle.isAncestorOf(a, b));
+            }
+        }
+    }
+
+    @Test
+    public void testIndTestDSep() {
+        RandomUtil.getInstance().setSeed(1928342L);
+
+        Graph dag = GraphUtils.randomGraph(10, 0, 15, 10, 10, 10, false);
+        IndTestDSep test = new IndTestDSep(dag);
+        List<Node> nodes = dag.getNodes();
+
+        for (int i = 0; i < nodes.size(); i++) {
+            for (int j = i + 1; j < nodes.size(); j++) {
+                List<Node> z = nodes.subList(j + 1, nodes.size());
+                assertEquals(!GraphUtils.isDConnectedTo(nodes.get(i), nodes.get(j), z, dag),
+                        test.isIndependent(nodes.get(i), nodes.get(j), z));
+            }
+        }
+    }
+
+    private void compare(Graph graph, int numQueries) {
+        DSeparationOracle oracle = new DSeparationOracle(graph, 256);
+        List<Node> nodes = graph.getNodes();
+        RandomUtil random = RandomUtil.getInstance();
+        int numSeparated = 0;
+
+        for (int q = 0; q < numQueries; q++) {
+            Node x = nodes.get(random.nextInt(nodes.size()));
+            Node y = nodes.get(random.nextInt(nodes.size()));
+            if (x == y) continue;
+
+            List<Node> z = new ArrayList<>();
+
+            for (Node node : nodes) {
+                if (node != x && node != y && random.nextDouble() < 0.15) {
+                    z.add(node);
+                }
+            }
+
+            boolean expected = !GraphUtils.isDConnectedTo(x, y, z, graph);
+            assertEquals(expected, oracle.isDSeparated(x, y, z));
+
+            // Again, from the cache.
+            assertEquals(expected, oracle.isDSeparated(y, x, z));
+
+            if (expected) numSeparated++;
+        }
+
+        assertTrue(oracle.getCache().getHits() > 0);
+        assertTrue(numSeparated > 0);
+    }
+}
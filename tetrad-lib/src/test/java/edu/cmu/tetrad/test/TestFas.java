@@ -22,16 +22,23 @@
 package edu.cmu.tetrad.test;
 
 import edu.cmu.tetrad.data.ContinuousVariable;
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.Edge;
 import edu.cmu.tetrad.graph.Graph;
 import edu.cmu.tetrad.graph.GraphUtils;
 import edu.cmu.tetrad.graph.Node;
 import edu.cmu.tetrad.search.*;
+import edu.cmu.tetrad.sem.SemIm;
+import edu.cmu.tetrad.sem.SemPm;
+import edu.cmu.tetrad.util.RandomUtil;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Joseph Ramsey
@@ -58,6 +65,92 @@ public class TestFas {
 
         assertEquals(fasGraph, GraphUtils.undirectedGraph(pcGraph));
     }
+
+    @Test
+    public void testInitialGraph() {
+        RandomUtil.getInstance().setSeed(4829211L);
+
+        Graph dag = GraphUtils.randomGraph(20, 0, 30, 10, 10, 10, false);
+        IndependenceTest test = new IndTestDSep(dag);
+
+        Graph initial = new Fas(test).search();
+        List<Edge> edges = new ArrayList<>(initial.getEdges());
+
+        for (int i = 0; i < edges.size(); i += 3) {
+            initial.removeEdge(edges.get(i));
+        }
+
+        assertEquals(initial, new Fas(initial, test).search());
+
+        FasStable fasStable = new FasStable(test);
+        fasStable.setInitialGraph(initial);
+        assertEquals(initial, fasStable.search());
+    }
+
+    @Test
+    public void testFasStableParallel() {
+        RandomUtil.getInstance().setSeed(3928483L);
+
+        Graph dag = GraphUtils.randomGraph(30, 0, 60, 10, 10, 10, false);
+        DataSet data = new SemIm(new SemPm(dag)).simulateData(500, false);
+
+        IndependenceTest[] tests = {new IndTestDSep(dag), new IndTestFisherZ(data, 0.05)};
+
+        for (IndependenceTest test : tests) {
+            FasStable fas = new FasStable(test);
+            Graph expected = fas.search();
+
+            for (int parallelism : new int[]{1, 4}) {
+                for (int chunk : new int[]{1, 3, 64}) {
+                    ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+                    FasStableParallel parallel = new FasStableParallel(test);
+                    parallel.setPool(pool);
+                    parallel.setChunk(chunk);
+                    Graph graph = parallel.search();
+
+                    pool.shutdown();
+
+                    assertEquals(expected, graph);
+                    assertEquals(fas.getSepsets(), parallel.getSepsets());
+                }
+            }
+        }
+    }
+
+    /**
+     * FasStable tests together the pairs that share a conditioning set and finds the same graph and sepsets as a
+     * search that tests them one at a time.
+     */
+    @Test
+    public void testFasStableBatches() {
+        RandomUtil.getInstance().setSeed(4829301L);
+
+        Graph dag = GraphUtils.randomGraph(25, 0, 50, 10, 10, 10, false);
+        final int[] batches = {0};
+
+        IndependenceTest test = new IndTestDSep(dag) {
+            @Override
+            public boolean[] isIndependent(List<Node> x, List<Node> y, List<Node> z) {
+                batches[0]++;
+                return super.isIndependent(x, y, z);
+            }
+        };
+
+        FasStable fas = new FasStable(test);
+        Graph graph = fas.search();
+
+        assertTrue(batches[0] > 0);
+
+        ForkJoinPool pool = new ForkJoinPool(1);
+        FasStableParallel single = new FasStableParallel(new IndTestDSep(dag));
+        single.setPool(pool);
+        Graph expected = single.search();
+        pool.shutdown();
+
+        assertEquals(expected, graph);
+        assertEquals(single.getSepsets(), fas.getSepsets());
+    }
 }
 
 
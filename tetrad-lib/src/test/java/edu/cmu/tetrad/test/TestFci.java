@@ -27,6 +27,7 @@ import edu.cmu.tetrad.search.*;
 import edu.cmu.tetrad.sem.SemIm;
 import edu.cmu.tetrad.sem.SemPm;
 import edu.cmu.tetrad.util.ChoiceGenerator;
+import edu.cmu.tetrad.util.RandomUtil;
 import edu.cmu.tetrad.util.TextTable;
 import org.junit.Test;
 
@@ -36,6 +37,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -224,6 +226,43 @@ public class TestFci {
         search.search();
     }
 
+    /**
+     * With a pool, FCI and FCI-Max should give the same PAG whatever the number of threads.
+     */
+    @Test
+    public void testParallelPossibleDsep() {
+        RandomUtil.getInstance().setSeed(2938442L);
+
+        Graph dag = GraphUtils.randomGraph(30, 6, 45, 10, 10, 10, false);
+        DataSet data = new SemIm(new SemPm(dag)).simulateData(500, false);
+        IndependenceTest test = new IndTestFisherZ(data, 0.05);
+
+        Graph fciGraph = null;
+        Graph fciMaxGraph = null;
+
+        for (int parallelism : new int[]{1, 4}) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+            Fci fci = new Fci(test);
+            fci.setPool(pool);
+            Graph _fciGraph = fci.search();
+
+            FciMax fciMax = new FciMax(test);
+            fciMax.setPool(pool);
+            Graph _fciMaxGraph = fciMax.search();
+
+            pool.shutdown();
+
+            if (fciGraph != null) {
+                assertEquals(fciGraph, _fciGraph);
+                assertEquals(fciMaxGraph, _fciMaxGraph);
+            }
+
+            fciGraph = _fciGraph;
+            fciMaxGraph = _fciMaxGraph;
+        }
+    }
+
     /**
      * Presents the input graph to FCI and checks to make sure the output of FCI is equivalent to the given output
      * graph.
@@ -51,6 +51,8 @@ import java.util.concurrent.ConcurrentHashMap;
 import static java.lang.Math.log;
 import static junit.framework.TestCase.assertFalse;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
@@ -1517,6 +1519,151 @@ public class TestFges {
         }
     }
 
+    @Test
+    public void testIncremental() {
+        RandomUtil.getInstance().setSeed(4839204L);
+
+        Graph dag = GraphUtils.randomGraph(12, 0, 14, 10, 10, 10, false);
+
+        // Leave two sinks out of the first search; the second finds the full pattern starting from the first.
+        List<Node> nodes = dag.getCausalOrdering();
+        Graph sub = dag.subgraph(nodes.subList(0, nodes.size() - 2));
+
+        Fges fges = new Fges(new GraphScore(sub));
+        fges.setIncremental(true);
+        assertEquals(SearchGraphUtils.patternForDag(sub), fges.search());
+
+        fges.setScore(new GraphScore(dag));
+        assertEquals(SearchGraphUtils.patternForDag(dag), fges.search());
+
+        // With drifted data, the warm-started search doesn't do worse than the pattern it starts from.
+        SemIm im = new SemIm(new SemPm(dag));
+        DataSet data = im.simulateData(1000, false);
+
+        fges = new Fges(new SemBicScore(new CovarianceMatrix(data)));
+        fges.setIncremental(true);
+        Graph first = fges.search();
+        assertEquals(first, fges.search());
+
+        DataSet more = DataUtils.concatenate(data, im.simulateData(1000, false));
+        fges.setScore(new SemBicScore(new CovarianceMatrix(more)));
+        Graph second = fges.search();
+
+        Fges full = new Fges(new SemBicScore(new CovarianceMatrix(more)));
+        double before = full.scoreDag(SearchGraphUtils.dagFromPattern(GraphUtils.replaceNodes(first, more.getVariables())));
+        double after = full.scoreDag(SearchGraphUtils.dagFromPattern(second));
+        assertTrue(after >= before - 1e-8);
+
+        // When the data for two sinks change, only they and their neighbors are re-evaluated, and the search finds
+        // what a cold search on the new data finds.
+        RandomUtil.getInstance().setSeed(4820193L);
+        Graph dag2 = GraphUtils.randomGraph(15, 0, 20, 10, 10, 10, false);
+        SemIm im2 = new SemIm(new SemPm(dag2));
+        Graph semGraph = im2.getSemPm().getGraph();
+        List<Node> sinks = new ArrayList<>();
+
+        for (Node node : semGraph.getNodes()) {
+            if (semGraph.getChildren(node).isEmpty() && !semGraph.getParents(node).isEmpty() && sinks.size() < 2) {
+                sinks.add(node);
+            }
+        }
+
+        assertEquals(2, sinks.size());
+
+        // Scaling the sinks' errors changes their columns only, and their local scores.
+        SemIm changedIm = new SemIm(im2);
+        Graph changedGraph = changedIm.getSemPm().getGraph();
+
+        for (Node sink : sinks) {
+            changedIm.setErrVar(changedGraph.getNode(sink.getName()), 4 * im2.getErrVar(sink));
+        }
+
+        DataSet oldData = im2.simulateDataParallel(5000, 11L, false);
+        DataSet newData = changedIm.simulateDataParallel(5000, 11L, false);
+
+        fges = new Fges(new SemBicScore(new CovarianceMatrix(oldData)));
+        fges.setIncremental(true);
+        Graph oldPattern = fges.search();
+        assertNull(fges.getReevaluated());
+
+        fges.setScore(new SemBicScore(new CovarianceMatrix(newData)));
+        Graph warm = fges.search();
+        Graph cold = new Fges(new SemBicScore(new CovarianceMatrix(newData))).search();
+
+        assertEquals(cold, warm);
+
+        Set<String> allowed = new HashSet<>();
+
+        for (Node sink : sinks) {
+            allowed.add(sink.getName());
+
+            for (Graph pattern : new Graph[]{oldPattern, warm}) {
+                for (Node neighbor : pattern.getAdjacentNodes(pattern.getNode(sink.getName()))) {
+                    allowed.add(neighbor.getName());
+                }
+            }
+        }
+
+        Set<Node> reevaluated = fges.getReevaluated();
+
+        for (Node sink : sinks) {
+            assertTrue(reevaluated.contains(newData.getVariable(sink.getName())));
+        }
+
+        for (Node node : reevaluated) {
+            assertTrue(node + " was re-evaluated", allowed.contains(node.getName()));
+        }
+
+        assertTrue(reevaluated.size() < newData.getNumColumns());
+    }
+
+    /**
+     * A variable whose data drift a little from each run to the next is re-evaluated once the drift since it was last
+     * re-evaluated adds up to more than the tolerance.
+     */
+    @Test
+    public void testIncrementalDrift() {
+        RandomUtil.getInstance().setSeed(4820193L);
+        Graph dag = GraphUtils.randomGraph(15, 0, 20, 10, 10, 10, false);
+        SemIm im = new SemIm(new SemPm(dag));
+        Graph semGraph = im.getSemPm().getGraph();
+        Node sink = null;
+
+        for (Node node : semGraph.getNodes()) {
+            if (semGraph.getChildren(node).isEmpty() && !semGraph.getParents(node).isEmpty()) {
+                sink = node;
+                break;
+            }
+        }
+
+        assertNotNull(sink);
+
+        Fges fges = new Fges(new SemBicScore(new CovarianceMatrix(im.simulateDataParallel(5000, 11L, false))));
+        fges.setIncremental(true);
+        fges.setIncrementalTolerance(0.025);
+        fges.search();
+
+        // Each run scales the sink's error variance by 1.02, which moves its local score per sample by less than the
+        // tolerance.
+        SemIm drifted = new SemIm(im);
+        Node _sink = drifted.getSemPm().getGraph().getNode(sink.getName());
+        int runs = 0;
+        boolean reevaluated = false;
+
+        while (!reevaluated && runs < 10) {
+            drifted.setErrVar(_sink, 1.02 * drifted.getErrVar(_sink));
+            DataSet data = drifted.simulateDataParallel(5000, 11L, false);
+            fges.setScore(new SemBicScore(new CovarianceMatrix(data)));
+            fges.search();
+            runs++;
+
+            reevaluated = fges.getReevaluated().contains(data.getVariable(sink.getName()));
+        }
+
+        assertTrue(reevaluated);
+        assertTrue(runs > 1);
+    }
+
     private Graph dagFromPattern(Graph pattern) {
         Graph dag = new EdgeListGraph(pattern);
 
@@ -0,0 +1,78 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.util.ForkJoinPoolInstance;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestForkJoinPoolInstance {
+
+    @Test
+    public void testCaps() {
+        ForkJoinPoolInstance instance = ForkJoinPoolInstance.getInstance();
+        int parallelism = instance.getParallelism();
+
+        assertTrue(parallelism >= 1);
+        assertEquals(parallelism, instance.getPool().getParallelism());
+        assertSame(instance.getPool(), instance.getPool(parallelism + 10));
+
+        ForkJoinPool capped = instance.getPool(1);
+        assertEquals(1, capped.getParallelism());
+        assertSame(capped, instance.getPool(1));
+    }
+
+    @Test
+    public void testNested() {
+        final ForkJoinPoolInstance instance = ForkJoinPoolInstance.getInstance();
+        final ForkJoinPool outer = instance.getPool(1);
+
+        // Pools asked for from inside a task are the task's own, whatever the cap.
+        ForkJoinPool[] inner = outer.invoke(new RecursiveTask<ForkJoinPool[]>() {
+            @Override
+            protected ForkJoinPool[] compute() {
+                return new ForkJoinPool[]{instance.getPool(), instance.getPool(2)};
+            }
+        });
+
+        assertSame(outer, inner[0]);
+        assertSame(outer, inner[1]);
+
+        // A pool the caller made itself is not part of the budget.
+        ForkJoinPool own = new ForkJoinPool(2);
+        ForkJoinPool fromOwn = own.invoke(new RecursiveTask<ForkJoinPool>() {
+            @Override
+            protected ForkJoinPool compute() {
+                return instance.getPool();
+            }
+        });
+        own.shutdown();
+
+        assertSame(instance.getPool(), fromOwn);
+    }
+}
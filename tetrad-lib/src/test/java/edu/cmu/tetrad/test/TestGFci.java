@@ -37,6 +37,7 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
@@ -258,6 +259,62 @@ public class TestGFci {
         dagToPag.setVerbose(false);
     }
 
+    /**
+     * Looking up sepsets in parallel should not change the PAG.
+     */
+    @Test
+    public void testParallelSepsets() {
+        RandomUtil.getInstance().setSeed(3929384L);
+
+        Graph dag = GraphUtils.randomGraph(30, 6, 45, 10, 10, 10, false);
+        DataSet data = new LargeScaleSimulation(dag).simulateDataFisher(500);
+        data = DataUtils.restrictToMeasured(data);
+
+        IndependenceTest test = new IndTestFisherZ(data, 0.05);
+        SemBicScore score = new SemBicScore(new CovarianceMatrix(data));
+
+        Graph expected = new GFci(test, score).search();
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        GFci gFci = new GFci(test, score);
+        gFci.setPool(pool);
+        Graph graph = gFci.search();
+        pool.shutdown();
+
+        assertEquals(expected, graph);
+    }
+
+    /**
+     * With a pool, sepsets are looked up without taking the test's lock, so the search should finish, with the same
+     * PAG, while another thread holds it.
+     */
+    @Test(timeout = 120000)
+    public void testParallelSepsetsWithoutLock() {
+        RandomUtil.getInstance().setSeed(4938271L);
+
+        Graph dag = GraphUtils.randomGraph(40, 8, 60, 10, 10, 10, false);
+        DataSet data = new LargeScaleSimulation(dag).simulateDataFisher(1000);
+        data = DataUtils.restrictToMeasured(data);
+
+        IndependenceTest test = new IndTestFisherZ(data, 0.05);
+        SemBicScore score = new SemBicScore(new CovarianceMatrix(data));
+
+        Graph expected = new GFci(test, score).search();
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        GFci gFci = new GFci(test, score);
+        gFci.setPool(pool);
+        Graph graph;
+
+        synchronized (test) {
+            graph = gFci.search();
+        }
+
+        pool.shutdown();
+
+        assertEquals(expected, graph);
+    }
+
     @Test
     public void testDiscreteData() throws IOException {
         double alpha = 0.05;
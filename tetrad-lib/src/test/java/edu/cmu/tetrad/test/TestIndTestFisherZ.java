@@ -33,6 +33,7 @@ import edu.cmu.tetrad.util.StatUtils;
 import edu.cmu.tetrad.util.Matrix;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static java.lang.Math.*;
@@ -181,6 +182,67 @@ public class TestIndTestFisherZ {
             System.out.println(abs(f1) > abs(f2));
         }
     }
-}
 
+    @Test
+    public void testBatch() {
+        RandomUtil.getInstance().setSeed(29384833L);
+
+        Graph graph = GraphUtils.randomGraph(12, 0, 20, 10, 10, 10, false);
+        DataSet data = new SemIm(new SemPm(graph)).simulateData(1000, false);
+        IndTestFisherZ test = new IndTestFisherZ(new CovarianceMatrix(data), 0.05);
+
+        List<Node> nodes = test.getVariables();
+        List<Node> z = nodes.subList(0, 3);
+        List<Node> x = new ArrayList<>();
+        List<Node> y = new ArrayList<>();
+
+        for (int i = 3; i < nodes.size(); i++) {
+            for (int j = i + 1; j < nodes.size(); j++) {
+                x.add(nodes.get(i));
+                y.add(nodes.get(j));
+            }
+        }
+
+        double[] p = test.getPValues(x, y, z);
+        boolean[] independent = test.isIndependent(x, y, z);
+
+        for (int i = 0; i < x.size(); i++) {
+            boolean _independent = test.isIndependent(x.get(i), y.get(i), z);
+            assertEquals(test.getPValue(), p[i], 1e-10);
+            assertEquals(_independent, independent[i]);
+        }
+
+        // No conditioning set.
+        p = test.getPValues(x, y, new ArrayList<Node>());
+
+        for (int i = 0; i < x.size(); i++) {
+            test.isIndependent(x.get(i), y.get(i));
+            assertEquals(test.getPValue(), p[i], 1e-10);
+        }
+    }
 
+    @Test
+    public void testGetPValueLeavesLastTest() {
+        RandomUtil.getInstance().setSeed(48392011L);
+
+        Graph graph = GraphUtils.randomGraph(6, 0, 8, 10, 10, 10, false);
+        DataSet data = new SemIm(new SemPm(graph)).simulateData(1000, false);
+        IndTestFisherZ test = new IndTestFisherZ(new CovarianceMatrix(data), 0.05);
+
+        List<Node> nodes = test.getVariables();
+        List<Node> z = nodes.subList(2, 4);
+
+        test.isIndependent(nodes.get(0), nodes.get(1), z);
+        double p = test.getPValue();
+        double score = test.getScore();
+
+        double p2 = test.getPValue(nodes.get(4), nodes.get(5), z);
+
+        assertEquals(p, test.getPValue(), 0.0);
+        assertEquals(score, test.getScore(), 0.0);
+        assertEquals(p, test.getPValue(nodes.get(0), nodes.get(1), z), 0.0);
+
+        test.isIndependent(nodes.get(4), nodes.get(5), z);
+        assertEquals(p2, test.getPValue(), 0.0);
+    }
+}
@@ -0,0 +1,371 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.graph.*;
+import edu.cmu.tetrad.search.DagToPag;
+import edu.cmu.tetrad.search.SearchGraphUtils;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static junit.framework.TestCase.fail;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the functions of IntAdjacencyGraph through the Graph interface and
+ * against EdgeListGraph.
+ */
+public final class TestIntAdjacencyGraph {
+    private Node x1, x2, x3, x4, x5;
+    private Graph graph;
+
+    public void setUp() {
+        x1 = new GraphNode("x1");
+        x2 = new GraphNode("x2");
+        x3 = new GraphNode("x3");
+        x4 = new GraphNode("x4");
+        x5 = new GraphNode("x5");
+        graph = new IntAdjacencyGraph();
+    }
+
+    @Test
+    public void testSequence1() {
+        setUp();
+
+        graph.clear();
+
+        // Add and remove some nodes.
+        graph.addNode(x1);
+        graph.addNode(x2);
+        graph.addNode(x3);
+        graph.addNode(x4);
+        graph.addNode(x5);
+
+        graph.addDirectedEdge(x1, x2);
+        graph.addDirectedEdge(x2, x3);
+        graph.addDirectedEdge(x3, x4);
+
+        List<Node> children = graph.getChildren(x1);
+        List<Node> parents = graph.getParents(x4);
+
+        assertEquals(children, Collections.singletonList(x2));
+        assertEquals(parents, Collections.singletonList(x3));
+
+        assertTrue(graph.isDConnectedTo(x1, x3, Collections.EMPTY_LIST));
+        graph.removeNode(x2);
+
+        assertEquals(4, graph.getNumNodes());
+        assertEquals(1, graph.getNumEdges());
+        assertTrue(graph.isParentOf(x3, x4));
+        assertFalse(graph.isDConnectedTo(x1, x3, Collections.EMPTY_LIST));
+
+        // No cycles.
+        assertTrue(!graph.existsDirectedCycle());
+
+        // Copy the graph.
+        Graph graph2 = new IntAdjacencyGraph(graph);
+        assertEquals(graph, graph2);
+
+        Graph graph3 = new EdgeListGraph(graph);
+        assertEquals(graph, graph3);
+    }
+
+    @Test
+    public void testSequence2() {
+        setUp();
+
+        graph.clear();
+
+        // Add some edges in a cycle.
+        graph.addNode(x1);
+        graph.addNode(x2);
+        graph.addNode(x3);
+        graph.addNode(x4);
+        graph.addNode(x5);
+
+        assertTrue(!graph.existsDirectedCycle());
+
+        graph.addDirectedEdge(x1, x3);
+
+        try {
+            assertFalse(graph.addDirectedEdge(x1, x3));
+        } catch (IllegalArgumentException e) {
+            fail("This should have been ignored.");
+        }
+
+        graph.addDirectedEdge(x3, x4);
+        graph.addDirectedEdge(x4, x1);
+        graph.addDirectedEdge(x1, x2);
+        graph.addDirectedEdge(x2, x3);
+        graph.addDirectedEdge(x3, x5);
+        graph.addDirectedEdge(x5, x2);
+
+        graph.setEndpoint(x4, x3, Endpoint.ARROW);
+        graph.setEndpoint(x3, x4, Endpoint.ARROW);
+
+        assertTrue(graph.existsDirectedCycle());
+    }
+
+    @Test
+    public void testSequence4() {
+        setUp();
+
+        graph.clear();
+
+        graph.addNode(x1);
+        graph.addNode(x2);
+
+        graph.addUndirectedEdge(x1, x2);
+
+        List<Edge> edges = new ArrayList<>(graph.getEdges());
+
+        Edge e1 = edges.get(0);
+
+        Edge e2 = new Edge(x2, x1, Endpoint.TAIL, Endpoint.TAIL);
+
+        assertTrue(e1.equals(e2));
+
+        assertTrue(e1.hashCode() == e2.hashCode());
+    }
+
+    @Test
+    public void test5() {
+        Graph graph1 = GraphUtils.emptyGraph(3);
+
+        List<Node> nodes = graph1.getNodes();
+
+        graph1.addDirectedEdge(nodes.get(0), nodes.get(1));
+        graph1.addDirectedEdge(nodes.get(1), nodes.get(2));
+        graph1.addDirectedEdge(nodes.get(0), nodes.get(2));
+
+        Graph graph2 = new IntAdjacencyGraph(graph1);
+
+        graph2.removeEdge(nodes.get(0), nodes.get(1));
+
+        int shd = SearchGraphUtils.structuralHammingDistance(graph1, graph2);
+
+        assertEquals(2, shd);
+    }
+
+    @Test
+    public void testIntMethods() {
+        setUp();
+
+        IntAdjacencyGraph graph = new IntAdjacencyGraph();
+
+        graph.addNode(x1);
+        graph.addNode(x2);
+        graph.addNode(x3);
+        graph.addNode(x4);
+
+        assertTrue(graph.addDirectedEdge(0, 2));
+        assertTrue(graph.addDirectedEdge(1, 2));
+        assertTrue(graph.addEdge(2, 3, Endpoint.CIRCLE, Endpoint.ARROW));
+        assertFalse(graph.addDirectedEdge(2, 0));
+        assertFalse(graph.addDirectedEdge(1, 1));
+
+        assertArrayEquals(new int[]{0, 1}, graph.getParents(2));
+        assertArrayEquals(new int[]{0, 1, 3}, graph.getAdjacents(2));
+        assertArrayEquals(new int[]{}, graph.getChildren(2));
+        assertEquals(Endpoint.CIRCLE, graph.getEndpoint(3, 2));
+        assertEquals(Endpoint.ARROW, graph.getEndpoint(2, 3));
+        assertEquals(2, graph.getIndex(x3));
+        assertEquals(x3, graph.getNode(2));
+
+        graph.removeNode(x2);
+
+        assertEquals(1, graph.getIndex(x3));
+        assertArrayEquals(new int[]{0, 2}, graph.getAdjacents(1));
+        assertTrue(graph.removeEdge(0, 1));
+        assertEquals(1, graph.getNumEdges());
+    }
+
+    @Test
+    public void testListenersAndSepsets() {
+        setUp();
+
+        List<String> events = new ArrayList<>();
+        graph.addPropertyChangeListener(e -> events.add(e.getPropertyName()));
+
+        graph.addNode(x1);
+        graph.addNode(x2);
+        graph.addNode(x3);
+        graph.addDirectedEdge(x1, x2);
+        graph.addDirectedEdge(x3, x2);
+        graph.removeEdge(x3, x2);
+        graph.removeNode(x1);
+
+        assertEquals(Arrays.asList("nodeAdded", "nodeAdded", "nodeAdded", "edgeAdded", "edgeAdded",
+                "edgeRemoved", "edgeRemoved", "nodeRemoved"), events);
+
+        RandomUtil.getInstance().setSeed(2938422L);
+
+        Graph dag = GraphUtils.randomGraph(10, 0, 12, 10, 10, 10, false);
+        IntAdjacencyGraph graph = new IntAdjacencyGraph(dag);
+        List<Node> nodes = dag.getNodes();
+
+        for (Node x : nodes) {
+            for (Node y : nodes) {
+                if (x == y) continue;
+                List<Node> sepset = dag.getSepset(x, y);
+                List<Node> _sepset = graph.getSepset(x, y);
+                assertEquals(sepset == null, _sepset == null);
+                // Where there is more than one sepset, which is found depends on the order of adjacencies.
+                if (_sepset != null) assertTrue(dag.isDSeparatedFrom(x, y, _sepset));
+            }
+        }
+    }
+
+    @Test
+    public void testPagMethodsAgainstEdgeListGraph() {
+        RandomUtil.getInstance().setSeed(3948271L);
+
+        for (int run = 0; run < 5; run++) {
+            Graph dag = GraphUtils.randomGraph(12, 3, 16, 10, 10, 10, false);
+            Graph pag = new DagToPag(dag).convert();
+            IntAdjacencyGraph graph = new IntAdjacencyGraph(pag);
+            List<Node> nodes = pag.getNodes();
+
+            for (Edge edge : pag.getEdges()) {
+                if (Edges.isDirectedEdge(edge)) {
+                    assertEquals(pag.defVisible(edge), graph.defVisible(edge));
+                }
+            }
+
+            for (Node a : nodes) {
+                for (Node b : nodes) {
+                    for (Node c : nodes) {
+                        if (a == b || b == c) continue;
+                        assertEquals(pag.isDefCollider(a, b, c), graph.isDefCollider(a, b, c));
+                    }
+                }
+            }
+
+            // EdgeListGraph.possDConnectedTo only follows edges out of node1 on its first step,
+            // so possible d-connection is checked against d-connection in the DAG, where the two
+            // coincide, and for symmetry in the PAG.
+            IntAdjacencyGraph _dag = new IntAdjacencyGraph(dag);
+
+            for (int i = 0; i < 50; i++) {
+                List<Node> z = new ArrayList<>();
+                Node x = randomNode(dag, z);
+                Node y = randomNode(dag, z);
+                int size = RandomUtil.getInstance().nextInt(4);
+                for (int k = 0; k < size; k++) randomNode(dag, z);
+                z.remove(x);
+                z.remove(y);
+
+                assertEquals(dag.isDConnectedTo(x, y, z), _dag.possDConnectedTo(x, y, z));
+            }
+
+            for (int i = 0; i < 50; i++) {
+                List<Node> z = new ArrayList<>();
+                Node x = randomNode(pag, z);
+                Node y = randomNode(pag, z);
+                int size = RandomUtil.getInstance().nextInt(4);
+                for (int k = 0; k < size; k++) randomNode(pag, z);
+                z.remove(x);
+                z.remove(y);
+
+                assertEquals(graph.possDConnectedTo(x, y, z), graph.possDConnectedTo(y, x, z));
+            }
+        }
+    }
+
+    // Adds to z and returns a node of the graph not yet in z.
+    private Node randomNode(Graph graph, List<Node> z) {
+        List<Node> nodes = new ArrayList<>(graph.getNodes());
+        nodes.removeAll(z);
+        Node node = nodes.get(RandomUtil.getInstance().nextInt(nodes.size()));
+        z.add(node);
+        return node;
+    }
+
+    @Test
+    public void testAgainstEdgeListGraph() {
+        RandomUtil.getInstance().setSeed(48282L);
+
+        for (int run = 0; run < 5; run++) {
+            Graph dag = GraphUtils.randomGraph(20, 0, 30, 10, 10, 10, false);
+            Graph pattern = SearchGraphUtils.patternForDag(dag);
+
+            for (Graph edgeList : new Graph[]{dag, pattern}) {
+                IntAdjacencyGraph graph = new IntAdjacencyGraph(edgeList);
+
+                assertEquals(edgeList, graph);
+                assertEquals(graph, edgeList);
+                assertEquals(edgeList.hashCode(), graph.hashCode());
+                assertEquals(edgeList, graph.toEdgeListGraph());
+                assertEquals(edgeList.getNumEdges(), graph.getNumEdges());
+
+                List<Node> nodes = edgeList.getNodes();
+
+                for (Node x : nodes) {
+                    assertEquals(new HashSet<>(edgeList.getAdjacentNodes(x)), new HashSet<>(graph.getAdjacentNodes(x)));
+                    assertEquals(new HashSet<>(edgeList.getParents(x)), new HashSet<>(graph.getParents(x)));
+                    assertEquals(new HashSet<>(edgeList.getChildren(x)), new HashSet<>(graph.getChildren(x)));
+                    assertEquals(new HashSet<>(edgeList.getEdges(x)), new HashSet<>(graph.getEdges(x)));
+
+                    for (Node y : nodes) {
+                        assertEquals(edgeList.getEdge(x, y), graph.getEdge(x, y));
+                        assertEquals(edgeList.existsDirectedPathFromTo(x, y), graph.existsDirectedPathFromTo(x, y));
+                        assertEquals(edgeList.existsUndirectedPathFromTo(x, y), graph.existsUndirectedPathFromTo(x, y));
+                        assertEquals(edgeList.existsSemiDirectedPathFromTo(x, Collections.singleton(y)),
+                                graph.existsSemiDirectedPathFromTo(x, Collections.singleton(y)));
+                    }
+                }
+
+                assertEquals(new HashSet<>(edgeList.getAncestors(nodes.subList(0, 3))),
+                        new HashSet<>(graph.getAncestors(nodes.subList(0, 3))));
+                assertEquals(new HashSet<>(edgeList.getDescendants(nodes.subList(0, 3))),
+                        new HashSet<>(graph.getDescendants(nodes.subList(0, 3))));
+            }
+
+            List<Node> nodes = dag.getNodes();
+            IntAdjacencyGraph graph = new IntAdjacencyGraph(dag);
+
+            for (int i = 0; i < nodes.size(); i++) {
+                for (int j = i + 1; j < nodes.size(); j++) {
+                    List<Node> z = new ArrayList<>();
+
+                    for (int k = 0; k < nodes.size(); k++) {
+                        if (k != i && k != j && RandomUtil.getInstance().nextDouble() < 0.2) {
+                            z.add(nodes.get(k));
+                        }
+                    }
+
+                    assertEquals(dag.isDConnectedTo(nodes.get(i), nodes.get(j), z),
+                            graph.isDConnectedTo(nodes.get(i), nodes.get(j), z));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.BoxDataSet;
+import edu.cmu.tetrad.data.ContinuousVariable;
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.VerticalDoubleDataBox;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.ConditionalCorrelationIndependence;
+import edu.cmu.tetrad.search.IndTestHsic;
+import edu.cmu.tetrad.search.Kci;
+import edu.cmu.tetrad.search.kernel.Kernel;
+import edu.cmu.tetrad.search.kernel.KernelGaussian;
+import edu.cmu.tetrad.search.kernel.KernelUtils;
+import edu.cmu.tetrad.util.Matrix;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the low-rank kernel approximations.
+ */
+public class TestKernelUtils {
+
+    @Test
+    public void testIncompleteCholesky() {
+        DataSet data = simulate(60, 3928372L);
+        List<Node> nodes = data.getVariables().subList(0, 2);
+        List<Kernel> kernels = Arrays.asList(new KernelGaussian(data, nodes.get(0)), new KernelGaussian(data, nodes.get(1)));
+
+        Matrix gram = KernelUtils.constructGramMatrix(kernels, data, nodes);
+        Matrix g = KernelUtils.incompleteCholeskyGramMatrix(kernels, data, nodes, 1e-12);
+        Matrix approx = g.times(g.transpose());
+
+        for (int i = 0; i < 60; i++) {
+            for (int j = 0; j < 60; j++) {
+                assertEquals(gram.get(i, j), approx.get(i, j), 1e-6);
+            }
+        }
+
+        Matrix g5 = KernelUtils.incompleteCholeskyGramMatrix(kernels, data, nodes, 1e-12, 5);
+        assertEquals(5, g5.columns());
+
+        Matrix centered = KernelUtils.centerColumns(g);
+        Matrix hkh = KernelUtils.constructCentralizedGramMatrix(kernels, data, nodes);
+        Matrix capprox = centered.times(centered.transpose());
+
+        for (int i = 0; i < 60; i++) {
+            for (int j = 0; j < 60; j++) {
+                assertEquals(hkh.get(i, j), capprox.get(i, j), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void testHsicIncompleteCholesky() {
+        DataSet data = simulate(80, 293847L);
+        List<Node> nodes = data.getVariables();
+        IndTestHsic test = new IndTestHsic(data, 0.05);
+
+        List<Matrix> g = new ArrayList<>();
+        List<Matrix> k = new ArrayList<>();
+
+        for (Node node : nodes) {
+            List<Kernel> kernels = Collections.singletonList(new KernelGaussian(data, node));
+            g.add(KernelUtils.incompleteCholeskyGramMatrix(kernels, data, Collections.singletonList(node), 1e-12));
+            k.add(KernelUtils.constructCentralizedGramMatrix(kernels, data, Collections.singletonList(node)));
+        }
+
+        double exact = test.empiricalHSIC(k.get(1), k.get(0), 80);
+        double approx = test.empiricalHSICincompleteCholesky(g.get(1), g.get(0), 80);
+        assertEquals(exact, approx, 1e-8);
+    }
+
+    @Test
+    public void testKciLowRank() {
+        DataSet data = simulate(300, 3827383L);
+        Node x = data.getVariable("X");
+        Node y = data.getVariable("Y");
+        Node z = data.getVariable("Z");
+        Node w = data.getVariable("W");
+
+        for (boolean approximate : new boolean[]{true, false}) {
+            Kci exact = new Kci(data, 0.01);
+            exact.setApproximate(approximate);
+            exact.setNumBootstraps(1000);
+
+            Kci lowRank = new Kci(data, 0.01);
+            lowRank.setApproximate(approximate);
+            lowRank.setNumBootstraps(1000);
+            lowRank.setRank(100);
+
+            for (Kci kci : new Kci[]{exact, lowRank}) {
+                assertTrue(kci.isDependent(x, y));
+                assertTrue(kci.isIndependent(x, w));
+                assertTrue(kci.isIndependent(x, z, y));
+            }
+
+            exact.isIndependent(x, w);
+            lowRank.isIndependent(x, w);
+            assertEquals(exact.getPValue(), lowRank.getPValue(), 0.1);
+        }
+    }
+
+    @Test
+    public void testCciLowRank() {
+        DataSet data = simulate(500, 28373L);
+        Node x = data.getVariable("X");
+        Node y = data.getVariable("Y");
+        Node z = data.getVariable("Z");
+        Node w = data.getVariable("W");
+
+        ConditionalCorrelationIndependence cci = new ConditionalCorrelationIndependence(data, 0.01);
+        cci.setRank(50);
+
+        assertTrue(cci.getPValue(cci.isIndependent(x, y, Collections.emptyList())) < 0.01);
+        assertTrue(cci.getPValue(cci.isIndependent(x, z, Collections.emptyList())) < 0.01);
+        assertTrue(cci.getPValue(cci.isIndependent(x, w, Collections.singletonList(y))) > 0.01);
+        assertTrue(cci.getPValue(cci.isIndependent(z, w, Collections.singletonList(y))) > 0.01);
+    }
+
+    // X -> Y -> Z, nonlinearly; W independent of the rest.
+    private DataSet simulate(int n, long seed) {
+        RandomUtil.getInstance().setSeed(seed);
+
+        List<Node> nodes = new ArrayList<>();
+        for (String name : new String[]{"X", "Y", "Z", "W"}) nodes.add(new ContinuousVariable(name));
+        DataSet data = new BoxDataSet(new VerticalDoubleDataBox(n, 4), nodes);
+
+        for (int i = 0; i < n; i++) {
+            double x = RandomUtil.getInstance().nextUniform(-2, 2);
+            double y = x * x + 0.3 * RandomUtil.getInstance().nextNormal(0, 1);
+            double z = Math.sin(2 * y) + 0.3 * RandomUtil.getInstance().nextNormal(0, 1);
+            double w = RandomUtil.getInstance().nextNormal(0, 1);
+            data.setDouble(i, 0, x);
+            data.setDouble(i, 1, y);
+            data.setDouble(i, 2, z);
+            data.setDouble(i, 3, w);
+        }
+
+        return data;
+    }
+}
@@ -0,0 +1,161 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.CovarianceMatrix;
+import edu.cmu.tetrad.data.ICovarianceMatrix;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphUtils;
+import edu.cmu.tetrad.search.CachedScore;
+import edu.cmu.tetrad.search.Fges;
+import edu.cmu.tetrad.search.LocalScoreCache;
+import edu.cmu.tetrad.search.SemBicScore;
+import edu.cmu.tetrad.sem.SemIm;
+import edu.cmu.tetrad.sem.SemPm;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests LocalScoreCache and CachedScore.
+ */
+public class TestLocalScoreCache {
+
+    @Test
+    public void testAddGet() {
+        LocalScoreCache cache = new LocalScoreCache(100);
+
+        cache.add(1, new int[]{3, 2, 5}, 10.0);
+        cache.add(2, new int[]{}, 20.0);
+
+        assertEquals(10.0, cache.get(1, new int[]{2, 5, 3}), 0.0);
+        assertEquals(20.0, cache.get(2, new int[]{}), 0.0);
+        assertTrue(Double.isNaN(cache.get(1, new int[]{2, 5})));
+        assertTrue(Double.isNaN(cache.get(3, new int[]{2, 5, 3})));
+
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.getMisses());
+
+        cache.clear();
+        assertTrue(Double.isNaN(cache.get(1, new int[]{2, 5, 3})));
+    }
+
+    @Test
+    public void testBounded() {
+        LocalScoreCache cache = new LocalScoreCache(64);
+
+        for (int i = 0; i < 1000; i++) {
+            cache.add(i, new int[]{i + 1}, i);
+        }
+
+        int found = 0;
+
+        for (int i = 0; i < 1000; i++) {
+            double s = cache.get(i, new int[]{i + 1});
+
+            if (!Double.isNaN(s)) {
+                assertEquals(i, s, 0.0);
+                found++;
+            }
+        }
+
+        assertTrue(found <= cache.getCapacity());
+        assertTrue(cache.getEvictions() >= 1000 - cache.getCapacity());
+    }
+
+    /**
+     * Fills the windows past capacity with entries that have all been read, so that every
+     * eviction has to sweep the whole window; the score just added must always be found.
+     */
+    @Test
+    public void testEvictionStaysInWindow() {
+        LocalScoreCache cache = new LocalScoreCache(16);
+
+        for (int i = 0; i < 1000; i++) {
+            cache.add(i, new int[]{i + 1}, i);
+            assertEquals(i, cache.get(i, new int[]{i + 1}), 0.0);
+        }
+
+        assertTrue(cache.getEvictions() >= 1000 - cache.getCapacity());
+    }
+
+    @Test
+    public void testConcurrent() {
+        LocalScoreCache cache = new LocalScoreCache(1 << 12);
+
+        IntStream.range(0, 100000).parallel().forEach(i -> {
+            int v = i % 500;
+            int[] parents = {v + 1, v + 2};
+            double s = cache.get(v, parents);
+
+            if (Double.isNaN(s)) {
+                cache.add(v, parents, v);
+            } else {
+                assertEquals(v, s, 0.0);
+            }
+        });
+
+        assertEquals(100000, cache.getHits() + cache.getMisses());
+    }
+
+    @Test
+    public void testCachedScoreDiff() {
+        RandomUtil.getInstance().setSeed(2938475L);
+
+        Graph graph = GraphUtils.randomGraph(10, 0, 10, 10, 10, 10, false);
+        SemIm im = new SemIm(new SemPm(graph));
+        ICovarianceMatrix cov = new CovarianceMatrix(im.simulateData(1000, false));
+
+        SemBicScore score = new SemBicScore(cov);
+        score.setStructurePrior(1.0);
+        CachedScore cached = new CachedScore(score);
+
+        for (int k = 0; k < 2; k++) {
+            assertEquals(score.localScoreDiff(0, 1, new int[]{2, 3}), cached.localScoreDiff(0, 1, new int[]{2, 3}), 0.0);
+            assertEquals(score.localScoreDiff(2, 1, new int[]{0, 3}), cached.localScoreDiff(2, 1, new int[]{0, 3}), 0.0);
+            assertEquals(score.localScore(1, 0, 2, 3), cached.localScore(1, 0, 2, 3), 0.0);
+        }
+
+        assertEquals(3, cached.getCache().getHits());
+    }
+
+    @Test
+    public void testCachedScoreFges() {
+        RandomUtil.getInstance().setSeed(3829483L);
+
+        Graph graph = GraphUtils.randomGraph(20, 0, 20, 10, 10, 10, false);
+        SemIm im = new SemIm(new SemPm(graph));
+        ICovarianceMatrix cov = new CovarianceMatrix(im.simulateData(1000, false));
+
+        CachedScore cached = new CachedScore(new SemBicScore(cov));
+
+        Graph pattern = new Fges(new SemBicScore(cov)).search();
+        Graph cachedPattern = new Fges(cached).search();
+
+        assertEquals(pattern, cachedPattern);
+        assertTrue(cached.getCache().getHits() > 0);
+    }
+}
@@ -0,0 +1,186 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.*;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphUtils;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.regression.LogisticRegression;
+import edu.cmu.tetrad.regression.MultinomialLogisticRegression;
+import edu.cmu.tetrad.search.IndTestMultinomialLogisticRegression;
+import edu.cmu.tetrad.search.MNLRScore;
+import edu.cmu.tetrad.sem.SemIm;
+import edu.cmu.tetrad.sem.SemPm;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestMultinomialLogisticRegression {
+
+    @Test
+    public void testBinary() {
+        RandomUtil.getInstance().setSeed(3829487L);
+        int n = 2000;
+
+        double[][] columns = new double[2][n];
+        int[] target = new int[n];
+
+        List<Node> variables = new ArrayList<>();
+        variables.add(new ContinuousVariable("X1"));
+        variables.add(new ContinuousVariable("X2"));
+        variables.add(new DiscreteVariable("Y", 2));
+        DataSet data = new BoxDataSet(new MixedDataBox(variables, n), variables);
+
+        for (int i = 0; i < n; i++) {
+            columns[0][i] = RandomUtil.getInstance().nextNormal(0, 1);
+            columns[1][i] = RandomUtil.getInstance().nextNormal(0, 1);
+            double v = 0.5 + columns[0][i] - 2 * columns[1][i];
+            target[i] = RandomUtil.getInstance().nextUniform(0, 1) < 1 / (1 + Math.exp(-v)) ? 1 : 0;
+
+            data.setDouble(i, 0, columns[0][i]);
+            data.setDouble(i, 1, columns[1][i]);
+            data.setInt(i, 2, target[i]);
+        }
+
+        MultinomialLogisticRegression.Fit fit = new MultinomialLogisticRegression().fit(target, 2, columns, null);
+
+        LogisticRegression.Result expected = new LogisticRegression(data).regress(
+                (DiscreteVariable) data.getVariable("Y"), data.getVariables().subList(0, 2));
+
+        assertTrue(fit.isConverged());
+        assertEquals(-expected.getLogLikelihood() / 2, fit.getLogLikelihood(), 1e-6);
+        assertEquals(expected.getCoefs()[0], fit.getCoefficients(0)[2], 1e-4);
+        assertEquals(expected.getCoefs()[1], fit.getCoefficients(0)[0], 1e-4);
+        assertEquals(expected.getCoefs()[2], fit.getCoefficients(0)[1], 1e-4);
+    }
+
+    @Test
+    public void testWarmStart() {
+        RandomUtil.getInstance().setSeed(9384722L);
+        int n = 5000;
+
+        double[][] columns = new double[3][n];
+        int[] target = new int[n];
+        double[][] b = {{0.5, -1.0, 0.0, 0.2}, {-1.0, 0.5, 1.5, 0.4}};
+        double[] p = new double[3];
+
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < 3; j++) {
+                columns[j][i] = RandomUtil.getInstance().nextNormal(0, 1);
+            }
+
+            p[0] = 1;
+
+            for (int k = 0; k < 2; k++) {
+                p[k + 1] = Math.exp(b[k][0] * columns[0][i] + b[k][1] * columns[1][i] + b[k][2] * columns[2][i] + b[k][3]);
+            }
+
+            double u = RandomUtil.getInstance().nextUniform(0, p[0] + p[1] + p[2]);
+            target[i] = u < p[0] ? 0 : u < p[0] + p[1] ? 1 : 2;
+        }
+
+        MultinomialLogisticRegression solver = new MultinomialLogisticRegression();
+        MultinomialLogisticRegression.Fit cold = solver.fit(target, 3, columns, null);
+
+        for (int k = 0; k < 2; k++) {
+            for (int j = 0; j < 4; j++) {
+                assertEquals(b[k][j], cold.getCoefficients(k)[j], 0.15);
+            }
+        }
+
+        double[][] nested = {columns[0], columns[1]};
+        MultinomialLogisticRegression.Fit start = solver.fit(target, 3, nested, null);
+        MultinomialLogisticRegression.Fit warm = solver.fit(target, 3, columns, null, start);
+
+        assertTrue(warm.isConverged());
+        assertTrue(warm.getIterations() <= cold.getIterations());
+        assertEquals(cold.getLogLikelihood(), warm.getLogLikelihood(), 1e-6);
+        assertTrue(warm.getLogLikelihood() >= start.getLogLikelihood());
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        RandomUtil.getInstance().setSeed(4738293L);
+
+        Graph graph = GraphUtils.randomGraph(8, 0, 10, 3, 3, 3, false);
+        DataSet data = new SemIm(new SemPm(graph)).simulateData(500, false);
+
+        Discretizer discretizer = new Discretizer(data);
+        discretizer.setVariablesCopied(true);
+        discretizer.equalCounts(data.getVariable(0), 3);
+        discretizer.equalCounts(data.getVariable(3), 2);
+        data = discretizer.discretize();
+
+        List<int[]> queries = new ArrayList<>();
+
+        for (int i = 0; i < data.getNumColumns(); i++) {
+            for (int j = 0; j < data.getNumColumns(); j++) {
+                if (i != j) {
+                    queries.add(new int[]{i});
+                    queries.add(new int[]{i, j});
+                }
+            }
+        }
+
+        MNLRScore serial = new MNLRScore(data, -1, 1);
+        MNLRScore parallel = new MNLRScore(data, -1, 1);
+
+        double[] expected = new double[queries.size()];
+
+        for (int q = 0; q < queries.size(); q++) {
+            int[] query = queries.get(q);
+            expected[q] = serial.localScore((query[0] + 1) % data.getNumColumns(), query);
+        }
+
+        IndTestMultinomialLogisticRegression test = new IndTestMultinomialLogisticRegression(data, 0.05);
+        List<Node> nodes = data.getVariables();
+        List<Node> z = nodes.subList(4, 6);
+        double[] expectedP = new double[4];
+
+        for (int i = 0; i < 4; i++) {
+            test.isIndependent(nodes.get(i), nodes.get(7), z);
+            expectedP[i] = test.getPValue();
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            pool.submit(() -> IntStream.range(0, queries.size()).parallel().forEach(q -> {
+                int[] query = queries.get(q);
+                assertEquals(expected[q], parallel.localScore((query[0] + 1) % nodes.size(), query), 1e-6);
+            })).get();
+
+            pool.submit(() -> IntStream.range(0, 4).parallel().forEach(i ->
+                    assertEquals(expectedP[i], test.getPValue(nodes.get(i), nodes.get(7), z), 0.0))).get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphUtils;
+import edu.cmu.tetrad.search.*;
+import edu.cmu.tetrad.sem.SemIm;
+import edu.cmu.tetrad.sem.SemPm;
+import edu.cmu.tetrad.util.RandomUtil;
+import edu.cmu.tetrad.util.SearchMetrics;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+public class TestSearchMetrics {
+
+    @Test
+    public void testSearchCounts() throws Exception {
+        RandomUtil.getInstance().setSeed(3948283L);
+        Graph dag = GraphUtils.randomGraph(12, 0, 15, 10, 10, 10, false);
+
+        SearchMetrics metrics = SearchMetrics.getInstance();
+
+        try {
+            metrics.setEnabled(true);
+
+            SearchMetrics.Snapshot before = metrics.snapshot();
+            new PcStable(new IndTestDSep(dag)).search();
+            SearchMetrics.Snapshot pc = metrics.snapshot().minus(before);
+
+            // The tests by depth add up to the tests.
+            double byDepth = 0;
+
+            for (int d = 0; d < 12; d++) {
+                byDepth += pc.getValue("independenceTests.depth." + d);
+            }
+
+            assertTrue(pc.getValue("independenceTests") > 0);
+            assertEquals(pc.getValue("independenceTests"), byDepth, 0.0);
+            assertTrue(pc.getValue("independenceTests.depth.0") >= 12 * 11 / 2);
+            assertTrue(pc.getValue("fas.depth.0") == 1);
+            assertTrue(pc.getValue("fas.depth.0.sum") > 0);
+            assertEquals(0, pc.getValue("localScores"), 0.0);
+
+            DataSet data = new SemIm(new SemPm(dag)).simulateData(1000, false);
+            before = metrics.snapshot();
+            Graph graph = new Fges(new SemBicScore(data)).search();
+            SearchMetrics.Snapshot fges = metrics.snapshot().minus(before);
+
+            assertTrue(fges.getValue("fges.forward.steps") >= graph.getNumEdges());
+            assertEquals(fges.getValue("fges.forward.steps"), fges.getValue("fges.forward.step.count"), 0.0);
+            assertEquals(fges.getValue("fges.backward.steps"), fges.getValue("fges.backward.step.count"), 0.0);
+            assertTrue(fges.getValue("fges.forward") >= 1);
+            assertTrue(fges.getValue("fges.forward.rescore.sum") <= fges.getValue("fges.forward.step.sum"));
+            assertTrue(fges.getValue("localScores") + fges.getValue("localScoreDiffs") > 0);
+            assertEquals(0, fges.getValue("independenceTests"), 0.0);
+
+            // Published over JMX.
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("edu.cmu.tetrad:type=SearchMetrics");
+            assertEquals(Boolean.TRUE, server.getAttribute(name, "Enabled"));
+            assertEquals(metrics.snapshot().getValue("independenceTests"),
+                    (Double) server.getAttribute(name, "independenceTests"), 0.0);
+
+            // Nothing is recorded while disabled.
+            metrics.setEnabled(false);
+            before = metrics.snapshot();
+            new PcStable(new IndTestDSep(dag)).search();
+            assertEquals(0, metrics.snapshot().minus(before).getValue("independenceTests"), 0.0);
+        } finally {
+            metrics.setEnabled(false);
+        }
+    }
+
+    @Test
+    public void testHistogram() {
+        SearchMetrics.Histogram histogram = SearchMetrics.getInstance().histogram("testHistogram");
+        SearchMetrics.Snapshot before = SearchMetrics.getInstance().snapshot();
+
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+
+        SearchMetrics.Snapshot snapshot = SearchMetrics.getInstance().snapshot().minus(before);
+
+        assertEquals(100, snapshot.getValue("testHistogram"), 0.0);
+        assertEquals(5050, snapshot.getValue("testHistogram.sum"), 0.0);
+        assertEquals(50.5, snapshot.getValue("testHistogram.mean"), 0.0);
+        assertEquals(100, snapshot.getValue("testHistogram.max"), 0.0);
+
+        // Percentiles are bucket bounds: 50 is in [32, 64), 99 in [64, 128) capped at the max.
+        assertEquals(63, snapshot.getValue("testHistogram.p50"), 0.0);
+        assertEquals(100, snapshot.getValue("testHistogram.p99"), 0.0);
+        assertTrue(Double.isNaN(snapshot.getValue("noSuchMetric")));
+    }
+}
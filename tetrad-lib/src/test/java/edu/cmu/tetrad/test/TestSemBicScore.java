@@ -0,0 +1,106 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.CovarianceMatrix;
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.ICovarianceMatrix;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphUtils;
+import edu.cmu.tetrad.search.Fges;
+import edu.cmu.tetrad.search.SemBicScore;
+import edu.cmu.tetrad.sem.SemIm;
+import edu.cmu.tetrad.sem.SemPm;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests SemBicScore.
+ */
+public class TestSemBicScore {
+
+    @Test
+    public void testCholeskyCache() {
+        RandomUtil.getInstance().setSeed(482938492L);
+
+        ICovarianceMatrix cov = new CovarianceMatrix(simulate(20, 1000));
+
+        SemBicScore score = new SemBicScore(cov);
+        SemBicScore cached = new SemBicScore(cov);
+        cached.setUseCholeskyCache(true);
+
+        // Add and remove parents one at a time, as FGES does, so that factors are extended
+        // and downdated as well as computed from scratch.
+        for (int child = 0; child < 20; child++) {
+            List<Integer> parents = new ArrayList<>();
+
+            for (int step = 0; step < 30; step++) {
+                int v = RandomUtil.getInstance().nextInt(20);
+                if (v == child) continue;
+
+                if (parents.contains(v)) {
+                    parents.remove((Integer) v);
+                } else if (parents.size() < 8) {
+                    assertEquals(score.localScoreDiff(v, child, toArray(parents)),
+                            cached.localScoreDiff(v, child, toArray(parents)), 1e-6);
+                    parents.add(v);
+                }
+
+                int[] _parents = toArray(parents);
+                assertEquals(score.localScore(child, _parents), cached.localScore(child, _parents), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void testCholeskyCacheFges() {
+        RandomUtil.getInstance().setSeed(92834234L);
+
+        ICovarianceMatrix cov = new CovarianceMatrix(simulate(30, 1000));
+
+        SemBicScore cached = new SemBicScore(cov);
+        cached.setUseCholeskyCache(true);
+
+        Graph pattern = new Fges(new SemBicScore(cov)).search();
+        Graph cachedPattern = new Fges(cached).search();
+
+        assertEquals(pattern, cachedPattern);
+    }
+
+    private DataSet simulate(int numVars, int sampleSize) {
+        Graph graph = GraphUtils.randomGraph(numVars, 0, numVars, 10, 10, 10, false);
+        SemPm pm = new SemPm(graph);
+        SemIm im = new SemIm(pm);
+        return im.simulateData(sampleSize, false);
+    }
+
+    private int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < list.size(); i++) array[i] = list.get(i);
+        return array;
+    }
+}
@@ -32,9 +32,13 @@ import edu.cmu.tetrad.util.*;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -341,6 +345,106 @@ public class TestSemIm {
 
     }
 
+    /**
+     * The parallel simulation should give the same data for a seed however many threads run it,
+     * with the covariances the model implies.
+     */
+    @Test
+    public void testSimulateDataParallel() throws Exception {
+        RandomUtil.getInstance().setSeed(2938402L);
+
+        Graph graph = GraphUtils.randomGraph(12, 2, 18, 10, 10, 10, false);
+        List<Node> nodes = graph.getNodes();
+        SemGraph semGraph = new SemGraph(graph);
+        semGraph.addBidirectedEdge(nodes.get(0), nodes.get(1));
+
+        final SemIm im = new SemIm(new SemPm(semGraph));
+
+        DataSet data = im.simulateDataParallel(5500, 48L, true);
+        DataSet serial = ForkJoinPoolInstance.getInstance().getPool(1)
+                .submit(() -> im.simulateDataParallel(5500, 48L, true)).get();
+
+        assertArrayEquals(data.getDoubleData().toArray(), serial.getDoubleData().toArray());
+        assertArrayEquals(data.getDoubleData().toArray(), im.simulateDataParallel(5500, 48L, true).getDoubleData().toArray());
+        assertFalse(Arrays.deepEquals(data.getDoubleData().toArray(), im.simulateDataParallel(5500, 49L, true).getDoubleData().toArray()));
+        assertEquals(im.getMeasuredNodes().size(), im.simulateDataParallel(100, 48L, false).getNumColumns());
+
+        Matrix sample = new CovarianceMatrix(im.simulateDataParallel(50000, 7L, true)).getMatrix();
+        Matrix implied = im.getImplCovar(true);
+
+        for (int i = 0; i < implied.rows(); i++) {
+            for (int j = 0; j < implied.columns(); j++) {
+                assertEquals(implied.get(i, j), sample.get(i, j), 0.1 * Math.sqrt(implied.get(i, i) * implied.get(j, j)));
+            }
+        }
+    }
+
+    /**
+     * The implied covariance matrix, kept up to date incrementally, and F_ML, computed from the
+     * sparse inverse of the implied covariance matrix, should match the dense calculations.
+     */
+    @Test
+    public void testSparseImpliedCovar() {
+        RandomUtil.getInstance().setSeed(2938402L);
+
+        Graph graph = GraphUtils.randomGraph(20, 0, 30, 10, 10, 10, false);
+        List<Node> nodes = graph.getNodes();
+        SemGraph semGraph = new SemGraph(graph);
+        semGraph.addBidirectedEdge(nodes.get(2), nodes.get(7));
+
+        SemIm im = new SemIm(new SemPm(semGraph));
+        List<Parameter> parameters = im.getFreeParameters();
+
+        for (int t = 0; t < 10; t++) {
+            Matrix dense = MatrixUtils.impliedCovar(im.getEdgeCoef().transpose(), im.getErrCovar());
+            assertTrue(dense.equals(im.getImplCovar(true), 1e-10));
+
+            Parameter parameter = parameters.get(RandomUtil.getInstance().nextInt(parameters.size()));
+            im.setParamValue(parameter, im.getParamValue(parameter) + 0.1);
+        }
+
+        SemIm dag = new SemIm(new SemPm(graph));
+        DataSet data = dag.simulateData(1000, false);
+        SemIm estimated = new SemIm(dag.getSemPm(), new CovarianceMatrix(data));
+        estimated.setFreeParamValues(dag.getFreeParamValues());
+        estimated.setScoreType(ScoreType.Fml);
+
+        Matrix sigma = estimated.getImplCovarMeas();
+        Matrix s = estimated.getSampleCovar();
+        double fml = Math.log(sigma.det()) + s.times(sigma.inverse()).trace() - Math.log(s.det())
+                - s.rows();
+
+        assertEquals(fml, estimated.getScore(), 1e-8);
+    }
+
+    /**
+     * Powell restarts run concurrently should give the same estimate as when run one at a time.
+     */
+    @Test
+    public void testParallelRestarts() throws Exception {
+        RandomUtil.getInstance().setSeed(2938402L);
+
+        Graph graph = GraphUtils.randomGraph(6, 0, 6, 10, 10, 10, false);
+        List<Node> nodes = graph.getNodes();
+        SemGraph semGraph = new SemGraph(graph);
+        semGraph.addBidirectedEdge(nodes.get(0), nodes.get(5));
+
+        final SemPm pm = new SemPm(semGraph);
+        final DataSet data = new SemIm(pm).simulateData(1000, false);
+
+        Callable<double[]> estimate = () -> {
+            RandomUtil.getInstance().setSeed(48L);
+            SemEstimator estimator = new SemEstimator(data, pm, new SemOptimizerPowell());
+            estimator.setNumRestarts(3);
+            return estimator.estimate().getFreeParamValues();
+        };
+
+        double[] parallel = estimate.call();
+        double[] serial = ForkJoinPoolInstance.getInstance().getPool(1).submit(estimate).get();
+
+        assertArrayEquals(serial, parallel, 0.0);
+    }
+
     public static SemIm modifySemImStandardizedInterventionOnTargetParents(SemIm semIm, Node
             target) {
         SemIm modifiedSemIm = new SemIm(semIm);
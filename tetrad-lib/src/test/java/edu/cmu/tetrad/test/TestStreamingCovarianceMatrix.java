@@ -0,0 +1,126 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.CovarianceMatrix;
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.StreamingCovarianceMatrix;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphUtils;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.IndTestFisherZ;
+import edu.cmu.tetrad.search.SemBicScore;
+import edu.cmu.tetrad.sem.SemIm;
+import edu.cmu.tetrad.sem.SemPm;
+import edu.cmu.tetrad.util.Matrix;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestStreamingCovarianceMatrix {
+
+    @Test
+    public void testAppend() {
+        RandomUtil.getInstance().setSeed(482734L);
+
+        DataSet data = simulate(1000);
+        CovarianceMatrix expected = new CovarianceMatrix(data);
+
+        StreamingCovarianceMatrix streaming = new StreamingCovarianceMatrix(data.getVariables());
+        int[] batches = {1, 0, 99, 400, 500};
+        int start = 0;
+
+        for (int size : batches) {
+            streaming.append(rows(data, start, start + size));
+            start += size;
+        }
+
+        assertEquals(1000, streaming.getSampleSize());
+        assertMatrixEquals(expected.getMatrix(), streaming.getMatrix(), 1e-10);
+    }
+
+    @Test
+    public void testMerge() {
+        RandomUtil.getInstance().setSeed(482734L);
+
+        DataSet data = simulate(1000);
+        CovarianceMatrix expected = new CovarianceMatrix(data);
+
+        StreamingCovarianceMatrix first = new StreamingCovarianceMatrix(rows(data, 0, 300));
+        StreamingCovarianceMatrix second = new StreamingCovarianceMatrix(rows(data, 300, 1000));
+        first.merge(second);
+
+        assertEquals(1000, first.getSampleSize());
+        assertEquals(700, second.getSampleSize());
+        assertMatrixEquals(expected.getMatrix(), first.getMatrix(), 1e-10);
+
+        StreamingCovarianceMatrix empty = new StreamingCovarianceMatrix(data.getVariables());
+        empty.merge(first);
+        assertMatrixEquals(expected.getMatrix(), empty.getMatrix(), 1e-10);
+    }
+
+    @Test
+    public void testScoresAndTests() {
+        RandomUtil.getInstance().setSeed(482734L);
+
+        DataSet data = simulate(1000);
+        StreamingCovarianceMatrix streaming = new StreamingCovarianceMatrix(rows(data, 0, 600));
+        streaming.append(rows(data, 600, 1000));
+
+        CovarianceMatrix cov = new CovarianceMatrix(data);
+        SemBicScore expectedScore = new SemBicScore(cov);
+        SemBicScore score = new SemBicScore(streaming);
+
+        IndTestFisherZ expectedTest = new IndTestFisherZ(cov, 0.05);
+        IndTestFisherZ test = new IndTestFisherZ(streaming, 0.05);
+
+        List<Node> nodes = data.getVariables();
+
+        assertEquals(expectedScore.localScore(2, 0, 1), score.localScore(2, 0, 1), 1e-8);
+        assertEquals(expectedScore.localScoreDiff(0, 3, new int[]{1}), score.localScoreDiff(0, 3, new int[]{1}), 1e-8);
+        assertEquals(expectedTest.getPValue(nodes.get(0), nodes.get(4), Collections.singletonList(nodes.get(2))),
+                test.getPValue(nodes.get(0), nodes.get(4), Collections.singletonList(nodes.get(2))), 1e-8);
+    }
+
+    private DataSet simulate(int sampleSize) {
+        Graph dag = GraphUtils.randomGraph(6, 0, 8, 10, 10, 10, false);
+        return new SemIm(new SemPm(dag)).simulateData(sampleSize, false);
+    }
+
+    private DataSet rows(DataSet data, int from, int to) {
+        int[] rows = new int[to - from];
+        for (int i = 0; i < rows.length; i++) rows[i] = from + i;
+        return data.subsetRows(rows);
+    }
+
+    private void assertMatrixEquals(Matrix expected, Matrix actual, double tolerance) {
+        for (int i = 0; i < expected.rows(); i++) {
+            for (int j = 0; j < expected.columns(); j++) {
+                assertEquals(expected.get(i, j), actual.get(i, j), tolerance);
+            }
+        }
+    }
+}